@@ -0,0 +1,149 @@
+package com.gempukku.swccgo.async;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.util.CharsetUtil;
+import org.w3c.dom.Document;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.StringWriter;
+
+/**
+ * A stream of Server-Sent Events to the client. The events are written as chunks of an HTTP response that stays open
+ * until either the client disconnects or the stream is closed, so changes can be pushed to the client as they occur
+ * instead of the client polling for them. Events may be sent from any thread.
+ *
+ * The changes of several resources (a game, the hall, chat rooms) may be pushed to the same stream, each as its own
+ * subscription with its own event names, so a client needs only one connection for all of them. The stream is closed
+ * once the last of its subscriptions has ended.
+ */
+public class EventStream {
+    private static final XMLOutputFactory _xmlOutputFactory = XMLOutputFactory.newInstance();
+
+    private Channel _channel;
+    private boolean _closed;
+    private long _lastSent;
+    private int _subscriptionCount;
+
+    EventStream(Channel channel) {
+        _channel = channel;
+        _lastSent = System.currentTimeMillis();
+    }
+
+    /**
+     * Determines if the stream is still open.
+     * @return true if the stream is open, otherwise false
+     */
+    public synchronized boolean isOpen() {
+        return !_closed && _channel.isConnected();
+    }
+
+    /**
+     * Gets the time anything was last sent to the client.
+     * @return the time in milliseconds
+     */
+    public synchronized long getLastSent() {
+        return _lastSent;
+    }
+
+    /**
+     * Sends an event to the client. Nothing is sent if the stream is closed.
+     * @param eventName the event name
+     * @param data the event data
+     */
+    public synchronized void sendEvent(String eventName, String data) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("event: ").append(eventName).append('\n');
+        for (String line : data.split("\r\n|\r|\n", -1))
+            sb.append("data: ").append(line).append('\n');
+        sb.append('\n');
+        write(sb.toString());
+    }
+
+    /**
+     * Sends an event with XML data to the client. Nothing is sent if the stream is closed.
+     * @param eventName the event name
+     * @param xmlResponse the XML data
+     * @throws XMLStreamException if an error occurs writing the XML
+     */
+    public void sendEvent(String eventName, XmlResponse xmlResponse) throws XMLStreamException {
+        StringWriter stringWriter = new StringWriter();
+        XMLStreamWriter writer = _xmlOutputFactory.createXMLStreamWriter(stringWriter);
+        xmlResponse.writeXml(writer);
+        writer.close();
+        sendEvent(eventName, stringWriter.toString());
+    }
+
+    /**
+     * Sends an event with XML data to the client. Nothing is sent if the stream is closed.
+     * @param eventName the event name
+     * @param document the XML data
+     * @throws TransformerException if an error occurs writing the XML
+     */
+    public void sendEvent(String eventName, Document document) throws TransformerException {
+        StringWriter stringWriter = new StringWriter();
+        Transformer transformer = SwccgoHttpRequestHandler.getTransformerFactory().newTransformer();
+        transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+        transformer.transform(new DOMSource(document), new StreamResult(stringWriter));
+        sendEvent(eventName, stringWriter.toString());
+    }
+
+    /**
+     * Adds a subscription to a resource whose changes are pushed to the stream. A subscription cannot be added once the
+     * stream is closed.
+     * @return true if the subscription was added, or false if the stream is closed
+     */
+    public synchronized boolean addSubscription() {
+        if (!isOpen())
+            return false;
+        _subscriptionCount++;
+        return true;
+    }
+
+    /**
+     * Ends a subscription to a resource whose changes are pushed to the stream, and closes the stream if it was the last
+     * subscription.
+     */
+    public synchronized void endSubscription() {
+        if (_subscriptionCount > 0)
+            _subscriptionCount--;
+        if (_subscriptionCount == 0)
+            close();
+    }
+
+    /**
+     * Sends a comment to the client, so that intermediaries do not close the connection as idle, and a client that has
+     * gone away is noticed.
+     */
+    public synchronized void sendKeepAlive() {
+        write(":\n\n");
+    }
+
+    /**
+     * Ends the response and closes the connection.
+     */
+    public synchronized void close() {
+        if (!_closed) {
+            _closed = true;
+            if (_channel.isConnected())
+                _channel.write(HttpChunk.LAST_CHUNK).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private void write(String text) {
+        if (isOpen()) {
+            _channel.write(new DefaultHttpChunk(ChannelBuffers.copiedBuffer(text, CharsetUtil.UTF_8)));
+            _lastSent = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.gempukku.swccgo.async;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Removes the Accept-Encoding header from requests for an event stream, so the content compressor leaves the response
+ * uncompressed. A compressed event stream would hold events in the compressor until enough data is buffered, instead of
+ * sending each event as it occurs.
+ */
+public class EventStreamRequestFilter extends SimpleChannelUpstreamHandler {
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        if (e.getMessage() instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) e.getMessage();
+            String accept = request.getHeader(HttpHeaders.Names.ACCEPT);
+            if (accept != null && accept.contains("text/event-stream"))
+                request.removeHeader(HttpHeaders.Names.ACCEPT_ENCODING);
+        }
+        super.messageReceived(ctx, e);
+    }
+}
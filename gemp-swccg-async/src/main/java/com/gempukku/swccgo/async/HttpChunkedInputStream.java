@@ -0,0 +1,57 @@
+package com.gempukku.swccgo.async;
+
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.handler.codec.http.DefaultHttpChunk;
+import org.jboss.netty.handler.codec.http.HttpChunk;
+import org.jboss.netty.handler.stream.ChunkedInput;
+
+import java.io.InputStream;
+
+/**
+ * Reads an input stream as the chunks of a chunked HTTP response. The chunked write handler only reads the next chunk
+ * when the connection can take more data, so only one chunk of the stream is held in memory at a time, however long
+ * the stream is.
+ */
+public class HttpChunkedInputStream implements ChunkedInput {
+    private static final int CHUNK_SIZE = 8192;
+
+    private InputStream _inputStream;
+    private boolean _lastChunkSent;
+
+    public HttpChunkedInputStream(InputStream inputStream) {
+        _inputStream = inputStream;
+    }
+
+    @Override
+    public boolean hasNextChunk() throws Exception {
+        return !_lastChunkSent;
+    }
+
+    @Override
+    public Object nextChunk() throws Exception {
+        if (_lastChunkSent)
+            return null;
+
+        // An empty chunk would end the response, so only chunks with data are returned before the last chunk
+        byte[] bytes = new byte[CHUNK_SIZE];
+        int count;
+        do {
+            count = _inputStream.read(bytes);
+        } while (count == 0);
+        if (count > 0)
+            return new DefaultHttpChunk(ChannelBuffers.wrappedBuffer(bytes, 0, count));
+
+        _lastChunkSent = true;
+        return HttpChunk.LAST_CHUNK;
+    }
+
+    @Override
+    public boolean isEndOfInput() throws Exception {
+        return _lastChunkSent;
+    }
+
+    @Override
+    public void close() throws Exception {
+        _inputStream.close();
+    }
+}
@@ -3,6 +3,7 @@ package com.gempukku.swccgo.async;
 import org.w3c.dom.Document;
 
 import java.io.File;
+import java.io.InputStream;
 import java.util.Map;
 
 public interface ResponseWriter {
@@ -16,7 +17,19 @@ public interface ResponseWriter {
 
     void writeByteResponse(String contentType, byte[] bytes);
 
+    /**
+     * Writes the contents of the stream as a chunked response, reading the stream as the connection takes the data.
+     * The stream is closed once written.
+     * @param inputStream the stream
+     * @param headers the headers, including the content type
+     */
+    void writeStreamResponse(InputStream inputStream, Map<String, String> headers);
+
     void writeXmlResponse(Document document);
 
     void writeXmlResponse(Document document, Map<String, String> addHeaders);
+
+    void writeStreamedXmlResponse(XmlResponse xmlResponse, Map<String, String> addHeaders);
+
+    EventStream openEventStream();
 }
@@ -5,6 +5,8 @@ import com.gempukku.swccgo.common.ApplicationConfiguration;
 import com.mysql.jdbc.StringUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.log4j.Logger;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBufferOutputStream;
 import org.jboss.netty.buffer.ChannelBuffers;
 import org.jboss.netty.channel.*;
 import org.jboss.netty.handler.codec.http.*;
@@ -12,6 +14,8 @@ import org.jboss.netty.util.CharsetUtil;
 import org.json.simple.JSONObject;
 import org.w3c.dom.Document;
 
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.Transformer;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
@@ -34,6 +38,23 @@ import static org.jboss.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 public class SwccgoHttpRequestHandler extends SimpleChannelUpstreamHandler {
     private static final long SIX_MONTHS = 1000L*60L*60L*24L*30L*6L;
     private static final Logger _log = Logger.getLogger(SwccgoHttpRequestHandler.class);
+    private static final int XML_RESPONSE_INITIAL_SIZE = 4096;
+    private static final XMLOutputFactory _xmlOutputFactory = XMLOutputFactory.newInstance();
+    private static final ThreadLocal<TransformerFactory> _transformerFactory = new ThreadLocal<TransformerFactory>() {
+        @Override
+        protected TransformerFactory initialValue() {
+            return TransformerFactory.newInstance();
+        }
+    };
+
+    /**
+     * Gets the transformer factory of the current thread. Transformer factories are expensive to create and are not
+     * thread safe, so each thread keeps its own.
+     * @return the transformer factory
+     */
+    static TransformerFactory getTransformerFactory() {
+        return _transformerFactory.get();
+    }
 
     private Map<Type, Object> _objects;
     private UriRequestHandler _uriRequestHandler;
@@ -113,6 +134,16 @@ public class SwccgoHttpRequestHandler extends SimpleChannelUpstreamHandler {
                     writeHttpXmlResponse(request, document, headers, e);
                 }
 
+                @Override
+                public void writeStreamedXmlResponse(XmlResponse xmlResponse, Map<String, String> headers) {
+                    writeHttpStreamedXmlResponse(request, xmlResponse, headers, e);
+                }
+
+                @Override
+                public EventStream openEventStream() {
+                    return openHttpEventStream(e);
+                }
+
                 @Override
                 public void writeHtmlResponse(String html) {
                     writeHttpHtmlResponse(request, html, e);
@@ -130,6 +161,11 @@ public class SwccgoHttpRequestHandler extends SimpleChannelUpstreamHandler {
                     writeHttpByteResponse(request, bytes, headers, e);
                 }
 
+                @Override
+                public void writeStreamResponse(InputStream inputStream, Map<String, String> headers) {
+                    writeHttpStreamResponse(request, inputStream, headers, e);
+                }
+
                 @Override
                 public void writeFile(File file, Map<String, String> headers) {
                     writeFileResponse(request, file, headers, e);
@@ -322,8 +358,7 @@ public class SwccgoHttpRequestHandler extends SimpleChannelUpstreamHandler {
                 DOMSource domSource = new DOMSource(document);
                 StringWriter writer = new StringWriter();
                 StreamResult result = new StreamResult(writer);
-                TransformerFactory tf = TransformerFactory.newInstance();
-                Transformer transformer = tf.newTransformer();
+                Transformer transformer = getTransformerFactory().newTransformer();
                 transformer.transform(domSource, result);
 
                 responseString = writer.toString();
@@ -363,6 +398,92 @@ public class SwccgoHttpRequestHandler extends SimpleChannelUpstreamHandler {
 
     }
 
+    private void writeHttpStreamedXmlResponse(HttpRequest request, XmlResponse xmlResponse, Map<String, String> headers, MessageEvent e) {
+        // Decide whether to close the connection or not.
+        boolean keepAlive = isKeepAlive(request);
+
+        try {
+            // Build the response object.
+            HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
+
+            if (headers != null) {
+                for (Map.Entry<String, String> header : headers.entrySet())
+                    response.setHeader(header.getKey(), header.getValue());
+            }
+
+            // Write the XML directly into the content buffer
+            ChannelBuffer content = ChannelBuffers.dynamicBuffer(XML_RESPONSE_INITIAL_SIZE);
+            ChannelBufferOutputStream outputStream = new ChannelBufferOutputStream(content);
+            XMLStreamWriter writer = _xmlOutputFactory.createXMLStreamWriter(outputStream, "UTF-8");
+            writer.writeStartDocument("UTF-8", "1.0");
+            xmlResponse.writeXml(writer);
+            writer.writeEndDocument();
+            writer.close();
+
+            response.setContent(content);
+            response.setHeader(CONTENT_TYPE, "application/xml; charset=UTF-8");
+
+            if (keepAlive) {
+                // Add 'Content-Length' header only for a keep-alive connection.
+                response.setHeader(CONTENT_LENGTH, content.readableBytes());
+            }
+
+            // Write the response.
+            ChannelFuture future = e.getChannel().write(response);
+            if (!keepAlive) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+        } catch (Exception exp) {
+            _log.error("Error while writing XML response: " + request.getUri(), exp);
+            HttpResponse response = new DefaultHttpResponse(HTTP_1_1, HttpResponseStatus.valueOf(500));
+
+            if (keepAlive) {
+                // Add 'Content-Length' header only for a keep-alive connection.
+                response.setHeader(CONTENT_LENGTH, response.getContent().readableBytes());
+            }
+
+            // Write the response.
+            ChannelFuture future = e.getChannel().write(response);
+            if (!keepAlive) {
+                future.addListener(ChannelFutureListener.CLOSE);
+            }
+        }
+    }
+
+    private void writeHttpStreamResponse(HttpRequest request, InputStream inputStream, Map<String, String> headers, MessageEvent e) {
+        // Decide whether to close the connection or not.
+        boolean keepAlive = isKeepAlive(request);
+
+        // The length is not known up front, so the response is sent in chunks as the stream is read
+        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
+        response.setChunked(true);
+        response.setHeader(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+
+        if (headers != null) {
+            for (Map.Entry<String, String> header : headers.entrySet())
+                response.setHeader(header.getKey(), header.getValue());
+        }
+
+        e.getChannel().write(response);
+        ChannelFuture future = e.getChannel().write(new HttpChunkedInputStream(inputStream));
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private EventStream openHttpEventStream(MessageEvent e) {
+        // The response is never complete, so it is sent in chunks and the connection is used only for this response
+        HttpResponse response = new DefaultHttpResponse(HTTP_1_1, OK);
+        response.setChunked(true);
+        response.setHeader(TRANSFER_ENCODING, HttpHeaders.Values.CHUNKED);
+        response.setHeader(CONTENT_TYPE, "text/event-stream; charset=UTF-8");
+        response.setHeader(CACHE_CONTROL, HttpHeaders.Values.NO_CACHE);
+        response.setHeader(CONNECTION, HttpHeaders.Values.CLOSE);
+
+        e.getChannel().write(response);
+        return new EventStream(e.getChannel());
+    }
+
     private void writeHttpJsonResponse(HttpRequest request, String json, Map<String, String> headers, MessageEvent e) {
         // Decide whether to close the connection or not.
         boolean keepAlive = isKeepAlive(request);
@@ -14,6 +14,7 @@ import org.jboss.netty.channel.Channels;
 import org.jboss.netty.handler.codec.http.HttpContentCompressor;
 import org.jboss.netty.handler.codec.http.HttpRequestDecoder;
 import org.jboss.netty.handler.codec.http.HttpResponseEncoder;
+import org.jboss.netty.handler.stream.ChunkedWriteHandler;
 
 import java.lang.reflect.Type;
 import java.util.HashMap;
@@ -58,11 +59,15 @@ public class SwccgoServerPipelineFactory implements ChannelPipelineFactory {
         //pipeline.addLast("ssl", new SslHandler(engine));
 
         pipeline.addLast("decoder", new HttpRequestDecoder());
+        // Event streams push each event as it occurs, so they must bypass the content compression
+        pipeline.addLast("eventStreamFilter", new EventStreamRequestFilter());
         // Uncomment the following line if you don't want to handle HttpChunks.
         //pipeline.addLast("aggregator", new HttpChunkAggregator(1048576));
         pipeline.addLast("encoder", new HttpResponseEncoder());
         // Remove the following line if you don't want automatic content compression.
         pipeline.addLast("deflater", new HttpContentCompressor());
+        // Streamed responses are read as the connection takes the data
+        pipeline.addLast("chunkedWriter", new ChunkedWriteHandler());
 
         pipeline.addLast("handler", _swccgoHttpRequestHandler);
         return pipeline;
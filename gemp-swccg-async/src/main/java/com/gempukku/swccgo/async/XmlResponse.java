@@ -0,0 +1,19 @@
+package com.gempukku.swccgo.async;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+/**
+ * An XML response that is written directly to the response content as it is produced, instead of being built as a
+ * DOM document first.
+ */
+public interface XmlResponse {
+
+    /**
+     * Writes the root element of the response (and everything in it) to the writer. The start and end of the document
+     * are written by the caller.
+     * @param writer the XML stream writer
+     * @throws XMLStreamException if an error occurs writing the response
+     */
+    void writeXml(XMLStreamWriter writer) throws XMLStreamException;
+}
@@ -1,19 +1,23 @@
 package com.gempukku.swccgo.async.handler;
 
+import com.gempukku.polling.LongPollingSystem;
 import com.gempukku.swccgo.DateUtils;
 import com.gempukku.swccgo.async.HttpProcessingException;
 import com.gempukku.swccgo.async.ResponseWriter;
 import com.gempukku.swccgo.cache.CacheManager;
 import com.gempukku.swccgo.collection.CollectionsManager;
+import com.gempukku.swccgo.db.JournaledGameHistoryDAO;
 import com.gempukku.swccgo.db.LeagueDAO;
 import com.gempukku.swccgo.db.LeagueDecklistEntry;
 import com.gempukku.swccgo.db.PlayerDAO;
+import com.gempukku.swccgo.db.WriteBehindInGameStatisticsDAO;
 import com.gempukku.swccgo.db.vo.CollectionType;
 import com.gempukku.swccgo.db.vo.League;
 import com.gempukku.swccgo.game.CardCollection;
 import com.gempukku.swccgo.game.GameHistoryService;
 import com.gempukku.swccgo.game.Player;
 import com.gempukku.swccgo.game.SwccgCardBlueprintLibrary;
+import com.gempukku.swccgo.game.SwccgoServer;
 import com.gempukku.swccgo.game.formats.SwccgoFormatLibrary;
 import com.gempukku.swccgo.game.state.SortPlayerByName;
 import com.gempukku.swccgo.hall.HallServer;
@@ -51,6 +55,10 @@ public class AdminRequestHandler extends SwccgoServerRequestHandler implements U
     private final PlayerDAO _playerDAO;
     private final AdminService _adminService;
     private final GameHistoryService _gameHistoryService;
+    private final LongPollingSystem _longPollingSystem;
+    private final JournaledGameHistoryDAO _journaledGameHistoryDao;
+    private final WriteBehindInGameStatisticsDAO _writeBehindInGameStatisticsDao;
+    private final SwccgoServer _swccgoServer;
 
     private static final Logger _log = Logger.getLogger(AdminRequestHandler.class);
 
@@ -67,12 +75,18 @@ public class AdminRequestHandler extends SwccgoServerRequestHandler implements U
         _collectionManager = extractObject(context, CollectionsManager.class);
         _adminService = extractObject(context, AdminService.class);
         _gameHistoryService = extractObject(context, GameHistoryService.class);
+        _longPollingSystem = extractObject(context, LongPollingSystem.class);
+        _journaledGameHistoryDao = extractObject(context, JournaledGameHistoryDAO.class);
+        _writeBehindInGameStatisticsDao = extractObject(context, WriteBehindInGameStatisticsDAO.class);
+        _swccgoServer = extractObject(context, SwccgoServer.class);
     }
 
     @Override
     public void handleRequest(String uri, HttpRequest request, Map<Type, Object> context, ResponseWriter responseWriter, MessageEvent e) throws Exception {
         if (uri.equals("/clearcache") && request.getMethod() == HttpMethod.POST) {
             clearCacheRequest(request, responseWriter);
+        } else if (uri.equals("/serverhealth") && request.getMethod() == HttpMethod.GET) {
+            getServerHealth(request, responseWriter);
         } else if (uri.equals("/shutdown") && request.getMethod() == HttpMethod.POST) {
             shutdown(request, responseWriter);
         } else if (uri.equals("/motd/get") && request.getMethod() == HttpMethod.GET) {
@@ -849,6 +863,33 @@ public class AdminRequestHandler extends SwccgoServerRequestHandler implements U
         responseWriter.writeHtmlResponse("OK<br><br>Before: " + before + "<br><br>After: " + after);
     }
 
+    private void getServerHealth(HttpRequest request, ResponseWriter responseWriter) throws HttpProcessingException {
+        validateAdmin(request);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("Long polling requests waiting for changes: ").append(_longPollingSystem.getWaitingRequestCount());
+        sb.append("<br>Long polling requests waiting for a thread: ").append(_longPollingSystem.getQueuedRequestCount());
+        sb.append("<br>Long polling threads busy: ").append(_longPollingSystem.getActiveThreadCount());
+        sb.append("<br>Long polling requests processed: ").append(_longPollingSystem.getProcessedCount());
+        sb.append("<br>Long polling requests timed out: ").append(_longPollingSystem.getTimedOutCount());
+        sb.append("<br>Long polling requests rejected as too busy: ").append(_longPollingSystem.getRejectedCount());
+        sb.append("<br>Average wait for a thread (ms): ").append(_longPollingSystem.getAverageQueueDelay());
+        sb.append("<br>Longest wait for a thread since last checked (ms): ").append(_longPollingSystem.getAndResetMaxQueueDelay());
+        sb.append("<br><br>Game results waiting to be committed to the database: ").append(_journaledGameHistoryDao.getPendingRecordCount());
+        sb.append("<br>In-game statistics waiting to be written to the database: ").append(_writeBehindInGameStatisticsDao.getQueuedWriteCount());
+        sb.append("<br>In-game statistics dropped because too many were waiting: ").append(_writeBehindInGameStatisticsDao.getDroppedWriteCount());
+
+        Map<String, Long> frozenSnapshotBytesByGame = _swccgoServer.getFrozenSnapshotBytesByGame();
+        long frozenSnapshotBytes = 0;
+        for (Long bytes : frozenSnapshotBytesByGame.values())
+            frozenSnapshotBytes += bytes;
+        sb.append("<br><br>Frozen game snapshots (bytes): ").append(frozenSnapshotBytes);
+        for (Map.Entry<String, Long> gameBytes : frozenSnapshotBytesByGame.entrySet())
+            sb.append("<br>&nbsp;&nbsp;Game ").append(gameBytes.getKey()).append(": ").append(gameBytes.getValue());
+
+        responseWriter.writeHtmlResponse(sb.toString());
+    }
+
     private void clearCache()  {
         _leagueService.clearCache();
         _tournamentService.clearCache();
@@ -1,9 +1,11 @@
 package com.gempukku.swccgo.async.handler;
 
+import com.gempukku.polling.LongPollableResource;
 import com.gempukku.polling.LongPollingResource;
 import com.gempukku.polling.LongPollingSystem;
 import com.gempukku.swccgo.PrivateInformationException;
 import com.gempukku.swccgo.SubscriptionExpiredException;
+import com.gempukku.swccgo.async.EventStream;
 import com.gempukku.swccgo.async.HttpProcessingException;
 import com.gempukku.swccgo.async.ResponseWriter;
 import com.gempukku.swccgo.chat.ChatCommandErrorException;
@@ -123,6 +125,98 @@ public class ChatRequestHandler extends SwccgoServerRequestHandler implements Ur
                 _processed = true;
             }
         }
+
+        @Override
+        public synchronized void rejectIfNotProcessed() {
+            if (!_processed) {
+                writeTooBusyResponse(_responseWriter);
+                _processed = true;
+            }
+        }
+    }
+
+    /**
+     * Creates the resource that pushes the messages of a chat room to an event stream.
+     * @param room the chat room
+     * @param latestMsgIdRcvd the id of the latest message the client received, or null
+     * @param resourceOwner the player
+     * @return the resource
+     * @throws HttpProcessingException if the player cannot get the messages of the chat room
+     */
+    EventStreamPushResource createChatPushResource(String room, String latestMsgIdRcvd, Player resourceOwner) throws HttpProcessingException {
+        ChatRoomMediator chatRoom = _chatServer.getChatRoom(room);
+        if (chatRoom == null)
+            throw new HttpProcessingException(404);
+
+        try {
+            chatRoom.getChatRoomListener(resourceOwner.getName());
+        } catch (SubscriptionExpiredException exp) {
+            throw new HttpProcessingException(410);
+        }
+
+        return new ChatUpdatePushResource(chatRoom, room, resourceOwner.getName(), latestMsgIdRcvd != null && !latestMsgIdRcvd.isEmpty() ? Integer.valueOf(latestMsgIdRcvd) : null);
+    }
+
+    /**
+     * Pushes chat messages to an event stream, for clients that get chat messages pushed instead of polling for them.
+     * Messages sent to the event stream are treated as received, so the latest message id sent is used as the latest
+     * message id received by the client.
+     */
+    private class ChatUpdatePushResource extends EventStreamPushResource {
+        private ChatRoomMediator _chatRoom;
+        private String _room;
+        private String _playerId;
+        private Integer _latestMsgIdSent;
+        private Collection<String> _usersSent;
+
+        private ChatUpdatePushResource(ChatRoomMediator chatRoom, String room, String playerId, Integer latestMsgIdRcvd) {
+            super(_longPollingSystem, "chatFailure");
+            _chatRoom = chatRoom;
+            _room = room;
+            _playerId = playerId;
+            _latestMsgIdSent = latestMsgIdRcvd;
+        }
+
+        @Override
+        protected LongPollableResource getPollableResource(EventStream eventStream) {
+            return getCommunicationChannel(eventStream);
+        }
+
+        private ChatCommunicationChannel getCommunicationChannel(EventStream eventStream) {
+            try {
+                return _chatRoom.getChatRoomListener(_playerId);
+            } catch (SubscriptionExpiredException exp) {
+                endSubscription(eventStream, 410);
+            }
+            return null;
+        }
+
+        @Override
+        protected void pushChanges(EventStream eventStream) throws Exception {
+            ChatCommunicationChannel communicationChannel = getCommunicationChannel(eventStream);
+            if (communicationChannel == null)
+                return;
+
+            List<ChatMessage> chatMessages = communicationChannel.consumeMessages(_latestMsgIdSent);
+            Collection<String> usersInRoom = new ArrayList<String>(_chatRoom.getUsersInRoom());
+
+            if (!chatMessages.isEmpty() || !usersInRoom.equals(_usersSent)) {
+                DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
+                DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+
+                Document doc = documentBuilder.newDocument();
+
+                serializeChatRoomData(_room, chatMessages, usersInRoom, doc);
+
+                eventStream.sendEvent("chat", doc);
+
+                for (ChatMessage chatMessage : chatMessages) {
+                    if (_latestMsgIdSent == null || chatMessage.getMsgId() > _latestMsgIdSent)
+                        _latestMsgIdSent = chatMessage.getMsgId();
+                }
+                _usersSent = usersInRoom;
+            }
+        }
     }
 
     private void getMessages(HttpRequest request, String room, ResponseWriter responseWriter) throws Exception {
@@ -2,6 +2,7 @@ package com.gempukku.swccgo.async.handler;
 
 import com.gempukku.swccgo.async.HttpProcessingException;
 import com.gempukku.swccgo.async.ResponseWriter;
+import com.gempukku.swccgo.async.XmlResponse;
 import com.gempukku.swccgo.cards.packs.RarityReader;
 import com.gempukku.swccgo.cards.packs.SetRarity;
 import com.gempukku.swccgo.collection.CollectionsManager;
@@ -26,6 +27,8 @@ import org.w3c.dom.Element;
 
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.HashMap;
@@ -86,8 +89,8 @@ public class CollectionRequestHandler extends SwccgoServerRequestHandler impleme
         QueryStringDecoder queryDecoder = new QueryStringDecoder(request.getUri());
         String participantId = getQueryParameterSafely(queryDecoder, "participantId");
         String filter = getQueryParameterSafely(queryDecoder, "filter");
-        int start = Integer.parseInt(getQueryParameterSafely(queryDecoder, "start"));
-        int count = Integer.parseInt(getQueryParameterSafely(queryDecoder, "count"));
+        final int start = Integer.parseInt(getQueryParameterSafely(queryDecoder, "start"));
+        final int count = Integer.parseInt(getQueryParameterSafely(queryDecoder, "count"));
         
         Player resourceOwner = getResourceOwnerSafely(request, participantId);
 
@@ -97,52 +100,53 @@ public class CollectionRequestHandler extends SwccgoServerRequestHandler impleme
             throw new HttpProcessingException(404);
 
         Collection<CardCollection.Item> items = collection.getAll().values();
-        List<CardCollection.Item> filteredResult = _sortAndFilterCards.process(filter, items, _library, _formatLibrary, _rarities);
-
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-
-        Document doc = documentBuilder.newDocument();
-
-        Element collectionElem = doc.createElement("collection");
-        collectionElem.setAttribute("count", String.valueOf(filteredResult.size()));
-        doc.appendChild(collectionElem);
-
-        for (int i = start; i < start + count; i++) {
-            if (i >= 0 && i < filteredResult.size()) {
-                CardCollection.Item item = filteredResult.get(i);
-                String blueprintId = item.getBlueprintId();
-                if (item.getType() == CardCollection.Item.Type.CARD) {
-                    Element card = doc.createElement("card");
-                    card.setAttribute("count", String.valueOf(item.getCount()));
-                    card.setAttribute("blueprintId", blueprintId);
-                    SwccgCardBlueprint blueprint = _library.getSwccgoCardBlueprint(blueprintId);
-                    appendCardSide(card, blueprint);
-                    appendCardGroup(card, blueprint);
-                    appendCardTestingText(card, blueprint);
-                    appendCardBackSideTestingText(card, _library.getSwccgoCardBlueprintBack(blueprintId));
-                    collectionElem.appendChild(card);
-                } else {
-                    Element pack = doc.createElement("pack");
-                    pack.setAttribute("count", String.valueOf(item.getCount()));
-                    pack.setAttribute("blueprintId", blueprintId);
-                    if (item.getType() == CardCollection.Item.Type.SELECTION) {
-                        List<CardCollection.Item> contents = _packStorage.openPackagedProduct(blueprintId);
-                        StringBuilder contentsStr = new StringBuilder();
-                        for (CardCollection.Item content : contents)
-                            contentsStr.append(content.getBlueprintId()).append("|");
-                        contentsStr.delete(contentsStr.length() - 1, contentsStr.length());
-                        pack.setAttribute("contents", contentsStr.toString());
+        final List<CardCollection.Item> filteredResult = _sortAndFilterCards.process(filter, items, _library, _formatLibrary, _rarities);
+
+        XmlResponse collectionResponse = new XmlResponse() {
+            @Override
+            public void writeXml(XMLStreamWriter writer) throws XMLStreamException {
+                writer.writeStartElement("collection");
+                writer.writeAttribute("count", String.valueOf(filteredResult.size()));
+
+                for (int i = start; i < start + count; i++) {
+                    if (i < 0 || i >= filteredResult.size())
+                        continue;
+                    CardCollection.Item item = filteredResult.get(i);
+                    String blueprintId = item.getBlueprintId();
+                    if (item.getType() == CardCollection.Item.Type.CARD) {
+                        writer.writeStartElement("card");
+                        writer.writeAttribute("count", String.valueOf(item.getCount()));
+                        writer.writeAttribute("blueprintId", blueprintId);
+                        SwccgCardBlueprint blueprint = _library.getSwccgoCardBlueprint(blueprintId);
+                        appendCardSide(writer, blueprint);
+                        appendCardGroup(writer, blueprint);
+                        appendCardTestingText(writer, blueprint);
+                        appendCardBackSideTestingText(writer, _library.getSwccgoCardBlueprintBack(blueprintId));
+                        writer.writeEndElement();
+                    } else {
+                        writer.writeStartElement("pack");
+                        writer.writeAttribute("count", String.valueOf(item.getCount()));
+                        writer.writeAttribute("blueprintId", blueprintId);
+                        if (item.getType() == CardCollection.Item.Type.SELECTION) {
+                            List<CardCollection.Item> contents = _packStorage.openPackagedProduct(blueprintId);
+                            StringBuilder contentsStr = new StringBuilder();
+                            for (CardCollection.Item content : contents)
+                                contentsStr.append(content.getBlueprintId()).append("|");
+                            contentsStr.delete(contentsStr.length() - 1, contentsStr.length());
+                            writer.writeAttribute("contents", contentsStr.toString());
+                        }
+                        writer.writeEndElement();
                     }
-                    collectionElem.appendChild(pack);
                 }
+
+                writer.writeEndElement();
             }
-        }
+        };
 
         Map<String, String> headers = new HashMap<String, String>();
         processDeliveryServiceNotification(request, headers);
-        
-        responseWriter.writeXmlResponse(doc, headers);
+
+        responseWriter.writeStreamedXmlResponse(collectionResponse, headers);
     }
 
     private CardCollection constructCollection(Player player, String collectionType) {
@@ -163,39 +167,38 @@ public class CollectionRequestHandler extends SwccgoServerRequestHandler impleme
         Player resourceOwner = getResourceOwnerSafely(request, participantId);
 
         CollectionType collectionTypeObj = createCollectionType(collectionType);
-        CardCollection packContents = _collectionsManager.openPackInPlayerCollection(resourceOwner, collectionTypeObj, selection, _packStorage, packId);
+        final CardCollection packContents = _collectionsManager.openPackInPlayerCollection(resourceOwner, collectionTypeObj, selection, _packStorage, packId);
 
         if (packContents == null)
             throw new HttpProcessingException(404);
 
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-
-        Document doc = documentBuilder.newDocument();
+        responseWriter.writeStreamedXmlResponse(new XmlResponse() {
+            @Override
+            public void writeXml(XMLStreamWriter writer) throws XMLStreamException {
+                writer.writeStartElement("pack");
+
+                for (CardCollection.Item item : packContents.getAll().values()) {
+                    String blueprintId = item.getBlueprintId();
+                    if (item.getType() == CardCollection.Item.Type.CARD) {
+                        writer.writeStartElement("card");
+                        writer.writeAttribute("count", String.valueOf(item.getCount()));
+                        writer.writeAttribute("blueprintId", blueprintId);
+                        SwccgCardBlueprint blueprint = _library.getSwccgoCardBlueprint(blueprintId);
+                        appendCardSide(writer, blueprint);
+                        appendCardTestingText(writer, blueprint);
+                        appendCardBackSideTestingText(writer, _library.getSwccgoCardBlueprintBack(blueprintId));
+                        writer.writeEndElement();
+                    } else {
+                        writer.writeStartElement("pack");
+                        writer.writeAttribute("count", String.valueOf(item.getCount()));
+                        writer.writeAttribute("blueprintId", blueprintId);
+                        writer.writeEndElement();
+                    }
+                }
 
-        Element collectionElem = doc.createElement("pack");
-        doc.appendChild(collectionElem);
-
-        for (CardCollection.Item item : packContents.getAll().values()) {
-            String blueprintId = item.getBlueprintId();
-            if (item.getType() == CardCollection.Item.Type.CARD) {
-                Element card = doc.createElement("card");
-                card.setAttribute("count", String.valueOf(item.getCount()));
-                card.setAttribute("blueprintId", blueprintId);
-                SwccgCardBlueprint blueprint = _library.getSwccgoCardBlueprint(blueprintId);
-                appendCardSide(card, blueprint);
-                appendCardTestingText(card, blueprint);
-                appendCardBackSideTestingText(card, _library.getSwccgoCardBlueprintBack(blueprintId));
-                collectionElem.appendChild(card);
-            } else {
-                Element pack = doc.createElement("pack");
-                pack.setAttribute("count", String.valueOf(item.getCount()));
-                pack.setAttribute("blueprintId", blueprintId);
-                collectionElem.appendChild(pack);
+                writer.writeEndElement();
             }
-        }
-
-        responseWriter.writeXmlResponse(doc);
+        }, null);
     }
 
     private void getCollectionTypes(HttpRequest request, ResponseWriter responseWriter) throws Exception {
@@ -234,32 +237,32 @@ public class CollectionRequestHandler extends SwccgoServerRequestHandler impleme
         return _leagueService.getCollectionTypeByCode(collectionType);
     }
 
-    private void appendCardSide(Element card, SwccgCardBlueprint blueprint) {
+    private void appendCardSide(XMLStreamWriter card, SwccgCardBlueprint blueprint) throws XMLStreamException {
         Side side = blueprint.getSide();
         if (side != null)
-            card.setAttribute("side", side.toString());
+            card.writeAttribute("side", side.toString());
     }
 
-    private void appendCardGroup(Element card, SwccgCardBlueprint blueprint) {
+    private void appendCardGroup(XMLStreamWriter card, SwccgCardBlueprint blueprint) throws XMLStreamException {
         String group = "card";
         // if (blueprint.getCardType() == CardType.OBJECTIVE)
         //    group="objective";
         //
-        card.setAttribute("group", group);
+        card.writeAttribute("group", group);
     }
 
-    private void appendCardTestingText(Element card, SwccgCardBlueprint blueprint) {
+    private void appendCardTestingText(XMLStreamWriter card, SwccgCardBlueprint blueprint) throws XMLStreamException {
         String testingText = blueprint.getTestingText();
         if (testingText != null) {
-            card.setAttribute("testingText", GameUtils.convertTestingText(testingText));
+            card.writeAttribute("testingText", GameUtils.convertTestingText(testingText));
         }
     }
 
-    private void appendCardBackSideTestingText(Element card, SwccgCardBlueprint blueprint) {
+    private void appendCardBackSideTestingText(XMLStreamWriter card, SwccgCardBlueprint blueprint) throws XMLStreamException {
         if (blueprint != null) {
             String testingText = blueprint.getTestingText();
             if (testingText != null) {
-                card.setAttribute("backSideTestingText", GameUtils.convertTestingText(testingText));
+                card.writeAttribute("backSideTestingText", GameUtils.convertTestingText(testingText));
             }
         }
     }
@@ -0,0 +1,134 @@
+package com.gempukku.swccgo.async.handler;
+
+import com.gempukku.polling.LongPollableResource;
+import com.gempukku.polling.LongPollingResource;
+import com.gempukku.polling.LongPollingSystem;
+import com.gempukku.swccgo.async.EventStream;
+import org.apache.log4j.Logger;
+
+/**
+ * Pushes the changes of a long pollable resource to an event stream. It waits for changes through the long polling
+ * system the same way a long polling request does, but instead of completing a response, it sends the changes to the
+ * event stream and waits for changes again, for as long as the event stream is open.
+ *
+ * Several resources may push their changes to the same event stream, each as a subscription of the stream. When the
+ * subscription to a resource ends, the event telling the client why is named after the resource, so the subscriptions
+ * to the other resources continue.
+ */
+abstract class EventStreamPushResource {
+    private static final Logger _log = Logger.getLogger(EventStreamPushResource.class);
+    private static final long KEEP_ALIVE_INTERVAL = 20000;
+
+    private LongPollingSystem _longPollingSystem;
+    private String _failureEventName;
+    private EventStream _eventStream;
+    private boolean _ended;
+
+    /**
+     * Creates a resource that pushes changes to an event stream.
+     * @param longPollingSystem the long polling system
+     * @param failureEventName the name of the event sent when the subscription to the resource ends
+     */
+    protected EventStreamPushResource(LongPollingSystem longPollingSystem, String failureEventName) {
+        _longPollingSystem = longPollingSystem;
+        _failureEventName = failureEventName;
+    }
+
+    /**
+     * Starts pushing changes to the event stream, as a subscription of the event stream. Nothing is pushed if the event
+     * stream is already closed.
+     * @param eventStream the event stream
+     */
+    public void start(EventStream eventStream) {
+        _eventStream = eventStream;
+        if (eventStream.addSubscription())
+            waitForChanges();
+        else
+            markEnded();
+    }
+
+    /**
+     * Gets the resource to wait for changes on. If the subscription to the resource has ended, the event telling the
+     * client why is sent to the event stream and null is returned.
+     * @param eventStream the event stream
+     * @return the resource, or null if the subscription has ended
+     */
+    protected abstract LongPollableResource getPollableResource(EventStream eventStream);
+
+    /**
+     * Sends the changes of the resource to the event stream.
+     * @param eventStream the event stream
+     * @throws Exception if an error occurs
+     */
+    protected abstract void pushChanges(EventStream eventStream) throws Exception;
+
+    /**
+     * Sends an event telling the client the subscription has ended, and ends the subscription. The data of the event is
+     * the HTTP status code the same request would get when long polling. Nothing is done if the subscription has
+     * already ended.
+     * @param eventStream the event stream
+     * @param status the HTTP status code
+     */
+    protected synchronized void endSubscription(EventStream eventStream, int status) {
+        if (!_ended) {
+            _ended = true;
+            eventStream.sendEvent(_failureEventName, String.valueOf(status));
+            eventStream.endSubscription();
+        }
+    }
+
+    private synchronized void markEnded() {
+        _ended = true;
+    }
+
+    private synchronized boolean isEnded() {
+        return _ended;
+    }
+
+    private void waitForChanges() {
+        if (isEnded() || !_eventStream.isOpen())
+            return;
+
+        LongPollableResource pollableResource = getPollableResource(_eventStream);
+        if (pollableResource != null)
+            _longPollingSystem.processLongPollingResource(new PushRound(), pollableResource);
+    }
+
+    private class PushRound implements LongPollingResource {
+        private boolean _processed;
+
+        @Override
+        public synchronized boolean wasProcessed() {
+            return _processed;
+        }
+
+        @Override
+        public synchronized void processIfNotProcessed() {
+            if (!_processed) {
+                _processed = true;
+                if (isEnded() || !_eventStream.isOpen())
+                    return;
+
+                try {
+                    pushChanges(_eventStream);
+                    if (_eventStream.getLastSent() + KEEP_ALIVE_INTERVAL < System.currentTimeMillis())
+                        _eventStream.sendKeepAlive();
+                } catch (Exception exp) {
+                    _log.error("Error while pushing changes to event stream", exp);
+                    endSubscription(_eventStream, 500);
+                    return;
+                }
+                waitForChanges();
+            }
+        }
+
+        @Override
+        public synchronized void rejectIfNotProcessed() {
+            if (!_processed) {
+                _processed = true;
+                if (_eventStream.isOpen())
+                    endSubscription(_eventStream, 503);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.gempukku.swccgo.async.handler;
+
+import com.gempukku.swccgo.async.EventStream;
+import com.gempukku.swccgo.async.HttpProcessingException;
+import com.gempukku.swccgo.async.ResponseWriter;
+import com.gempukku.swccgo.game.Player;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.HttpMethod;
+import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.QueryStringDecoder;
+import org.jboss.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
+
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens a single event stream per client, which pushes the changes of a game, the hall and a chat room as typed events
+ * ("game", "hall", "delivery", "chat"), so a page needs only one connection for all of them. Which resources the
+ * stream subscribes to is given by parameters:
+ *
+ * game and gameChannel - the game ID and channel number of the game
+ * hall - the channel number of the hall
+ * chat and chatLatestMsgIdRcvd - the chat room and the id of the latest message the client received in it
+ *
+ * The first event of a stream is a "stream" event with the id of the stream. Resources the client starts listening to
+ * after the stream is open are subscribed to by posting the same parameters to events/{id}, so the stream does not
+ * have to be opened again. A subscription that cannot start, or that ends while the stream is open, is reported as a
+ * "gameFailure", "hallFailure" or "chatFailure" event with the HTTP status code, and the other subscriptions continue.
+ */
+public class EventsRequestHandler extends SwccgoServerRequestHandler implements UriRequestHandler {
+    private GameRequestHandler _gameRequestHandler;
+    private HallRequestHandler _hallRequestHandler;
+    private ChatRequestHandler _chatRequestHandler;
+    private Map<String, OpenEventStream> _openEventStreams = new ConcurrentHashMap<String, OpenEventStream>();
+
+    public EventsRequestHandler(Map<Type, Object> context, GameRequestHandler gameRequestHandler, HallRequestHandler hallRequestHandler, ChatRequestHandler chatRequestHandler) {
+        super(context);
+        _gameRequestHandler = gameRequestHandler;
+        _hallRequestHandler = hallRequestHandler;
+        _chatRequestHandler = chatRequestHandler;
+    }
+
+    @Override
+    public void handleRequest(String uri, HttpRequest request, Map<Type, Object> context, ResponseWriter responseWriter, MessageEvent e) throws Exception {
+        if ("".equals(uri) && request.getMethod() == HttpMethod.GET) {
+            openEventStream(request, responseWriter);
+        } else if (uri.startsWith("/") && request.getMethod() == HttpMethod.POST) {
+            subscribe(request, uri.substring(1), responseWriter);
+        } else {
+            responseWriter.writeError(404);
+        }
+    }
+
+    private void openEventStream(HttpRequest request, ResponseWriter responseWriter) throws Exception {
+        QueryStringDecoder queryDecoder = new QueryStringDecoder(request.getUri());
+        String participantId = getQueryParameterSafely(queryDecoder, "participantId");
+
+        Player resourceOwner = getResourceOwnerSafely(request, participantId);
+
+        List<EventStreamPushResource> pushResources = new LinkedList<EventStreamPushResource>();
+        Map<String, Integer> failures = new LinkedHashMap<String, Integer>();
+        createPushResources(request, resourceOwner, getQueryParameterSafely(queryDecoder, "game"), getQueryParameterSafely(queryDecoder, "gameChannel"),
+                getQueryParameterSafely(queryDecoder, "hall"), getQueryParameterSafely(queryDecoder, "chat"), getQueryParameterSafely(queryDecoder, "chatLatestMsgIdRcvd"),
+                pushResources, failures);
+
+        removeClosedEventStreams();
+
+        String streamId = UUID.randomUUID().toString();
+        EventStream eventStream = responseWriter.openEventStream();
+        _openEventStreams.put(streamId, new OpenEventStream(eventStream, resourceOwner.getName()));
+        eventStream.sendEvent("stream", streamId);
+
+        startPushResources(eventStream, pushResources, failures);
+    }
+
+    private void subscribe(HttpRequest request, String streamId, ResponseWriter responseWriter) throws Exception {
+        HttpPostRequestDecoder postDecoder = new HttpPostRequestDecoder(request);
+        String participantId = getFormParameterSafely(postDecoder, "participantId");
+
+        Player resourceOwner = getResourceOwnerSafely(request, participantId);
+
+        OpenEventStream openEventStream = _openEventStreams.get(streamId);
+        if (openEventStream == null || !openEventStream.getEventStream().isOpen())
+            throw new HttpProcessingException(410);
+        if (!openEventStream.getPlayerName().equals(resourceOwner.getName()))
+            throw new HttpProcessingException(403);
+
+        List<EventStreamPushResource> pushResources = new LinkedList<EventStreamPushResource>();
+        Map<String, Integer> failures = new LinkedHashMap<String, Integer>();
+        createPushResources(request, resourceOwner, getFormParameterSafely(postDecoder, "game"), getFormParameterSafely(postDecoder, "gameChannel"),
+                getFormParameterSafely(postDecoder, "hall"), getFormParameterSafely(postDecoder, "chat"), getFormParameterSafely(postDecoder, "chatLatestMsgIdRcvd"),
+                pushResources, failures);
+
+        if (!startPushResources(openEventStream.getEventStream(), pushResources, failures))
+            throw new HttpProcessingException(410);
+
+        responseWriter.writeXmlResponse(null);
+    }
+
+    /**
+     * Creates the resources to push to an event stream. A resource that cannot be pushed to the player is added to the
+     * failures, as the name of its failure event and the HTTP status code, so the other resources are still pushed.
+     */
+    private void createPushResources(HttpRequest request, Player resourceOwner, String gameId, String gameChannel, String hallChannel,
+                                     String chatRoom, String chatLatestMsgIdRcvd, List<EventStreamPushResource> pushResources,
+                                     Map<String, Integer> failures) throws Exception {
+        if (gameId == null && hallChannel == null && chatRoom == null)
+            throw new HttpProcessingException(400);
+
+        if (gameId != null) {
+            try {
+                if (gameChannel == null)
+                    throw new HttpProcessingException(400);
+                pushResources.add(_gameRequestHandler.createGamePushResource(request, gameId, Integer.parseInt(gameChannel), resourceOwner));
+            } catch (HttpProcessingException exp) {
+                failures.put("gameFailure", exp.getStatus());
+            }
+        }
+        if (hallChannel != null) {
+            try {
+                pushResources.add(_hallRequestHandler.createHallPushResource(request, Integer.parseInt(hallChannel), resourceOwner));
+            } catch (HttpProcessingException exp) {
+                failures.put("hallFailure", exp.getStatus());
+            }
+        }
+        if (chatRoom != null) {
+            try {
+                pushResources.add(_chatRequestHandler.createChatPushResource(chatRoom, chatLatestMsgIdRcvd, resourceOwner));
+            } catch (HttpProcessingException exp) {
+                failures.put("chatFailure", exp.getStatus());
+            }
+        }
+    }
+
+    /**
+     * Sends the failures to the event stream, and starts pushing the resources to it.
+     * @return false if the event stream was already closed, otherwise true
+     */
+    private boolean startPushResources(EventStream eventStream, List<EventStreamPushResource> pushResources, Map<String, Integer> failures) {
+        // Hold a subscription while the resources start, so one that ends right away does not close the stream before
+        // the others start, and the stream is closed here if it has no other subscriptions
+        if (!eventStream.addSubscription())
+            return false;
+
+        for (Map.Entry<String, Integer> failure : failures.entrySet())
+            eventStream.sendEvent(failure.getKey(), String.valueOf(failure.getValue()));
+        for (EventStreamPushResource pushResource : pushResources)
+            pushResource.start(eventStream);
+
+        eventStream.endSubscription();
+        return true;
+    }
+
+    private void removeClosedEventStreams() {
+        Iterator<OpenEventStream> iterator = _openEventStreams.values().iterator();
+        while (iterator.hasNext()) {
+            if (!iterator.next().getEventStream().isOpen())
+                iterator.remove();
+        }
+    }
+
+    private static class OpenEventStream {
+        private EventStream _eventStream;
+        private String _playerName;
+
+        private OpenEventStream(EventStream eventStream, String playerName) {
+            _eventStream = eventStream;
+            _playerName = playerName;
+        }
+
+        public EventStream getEventStream() {
+            return _eventStream;
+        }
+
+        public String getPlayerName() {
+            return _playerName;
+        }
+    }
+}
@@ -1,36 +1,42 @@
 package com.gempukku.swccgo.async.handler;
 
+import com.gempukku.polling.LongPollableResource;
 import com.gempukku.polling.LongPollingResource;
 import com.gempukku.polling.LongPollingSystem;
 import com.gempukku.swccgo.PrivateInformationException;
 import com.gempukku.swccgo.SubscriptionConflictException;
 import com.gempukku.swccgo.SubscriptionExpiredException;
+import com.gempukku.swccgo.async.EventStream;
 import com.gempukku.swccgo.async.HttpProcessingException;
 import com.gempukku.swccgo.async.ResponseWriter;
+import com.gempukku.swccgo.async.XmlResponse;
 import com.gempukku.swccgo.common.Phase;
 import com.gempukku.swccgo.game.ParticipantCommunicationVisitor;
 import com.gempukku.swccgo.game.Player;
 import com.gempukku.swccgo.game.SwccgGameMediator;
 import com.gempukku.swccgo.game.SwccgoServer;
+import com.gempukku.swccgo.game.state.CompactEventSerializer;
 import com.gempukku.swccgo.game.state.EventSerializer;
 import com.gempukku.swccgo.game.state.GameCommunicationChannel;
 import com.gempukku.swccgo.game.state.GameEvent;
 import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.handler.codec.http.*;
 import org.jboss.netty.handler.codec.http.multipart.HttpPostRequestDecoder;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-import org.w3c.dom.Node;
+import org.json.JSONWriter;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.lang.reflect.Type;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class GameRequestHandler extends SwccgoServerRequestHandler implements UriRequestHandler {
+    private static final long CLOCK_UPDATE_INTERVAL = 5000;
+
     private SwccgoServer _swccgoServer;
     private Set<Phase> _autoPassDefault = new HashSet<Phase>();
     private LongPollingSystem _longPollingSystem;
@@ -65,6 +71,9 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
         else if (uri.startsWith("/") && uri.endsWith("/disableActionTimer") && request.getMethod() == HttpMethod.POST) {
             disableActionTimer(request, uri.substring(1, uri.length() - 19), responseWriter);
         }
+        else if (uri.startsWith("/") && uri.endsWith("/decision") && request.getMethod() == HttpMethod.POST) {
+            decisionMade(request, uri.substring(1, uri.length() - 9), responseWriter);
+        }
         else if (uri.startsWith("/") && request.getMethod() == HttpMethod.GET) {
             getGameState(request, uri.substring(1), responseWriter);
         }
@@ -99,7 +108,7 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
                 gameMediator.playerAnswered(resourceOwner, channelNumber, decisionId, decisionValue);
 
             GameCommunicationChannel pollableResource = gameMediator.getCommunicationChannel(resourceOwner, channelNumber);
-            GameUpdateLongPollingResource pollingResource = new GameUpdateLongPollingResource(pollableResource, channelNumber, gameMediator, resourceOwner, responseWriter);
+            GameUpdateLongPollingResource pollingResource = new GameUpdateLongPollingResource(pollableResource, channelNumber, gameMediator, resourceOwner, isCompactEncodingAccepted(request), responseWriter);
             _longPollingSystem.processLongPollingResource(pollingResource, pollableResource);
         } catch (SubscriptionConflictException exp) {
             responseWriter.writeError(409);
@@ -115,14 +124,16 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
         private SwccgGameMediator _gameMediator;
         private Player _resourceOwner;
         private int _channelNumber;
+        private boolean _compactEncoding;
         private ResponseWriter _responseWriter;
         private boolean _processed;
 
-        private GameUpdateLongPollingResource(GameCommunicationChannel gameCommunicationChannel, int channelNumber, SwccgGameMediator gameMediator, Player resourceOwner, ResponseWriter responseWriter) {
+        private GameUpdateLongPollingResource(GameCommunicationChannel gameCommunicationChannel, int channelNumber, SwccgGameMediator gameMediator, Player resourceOwner, boolean compactEncoding, ResponseWriter responseWriter) {
             _gameCommunicationChannel = gameCommunicationChannel;
             _channelNumber = channelNumber;
             _gameMediator = gameMediator;
             _resourceOwner = resourceOwner;
+            _compactEncoding = compactEncoding;
             _responseWriter = responseWriter;
         }
 
@@ -135,17 +146,11 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
         public synchronized void processIfNotProcessed() {
             if (!_processed) {
                 try {
-                    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-                    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-
-                    Document doc = documentBuilder.newDocument();
-                    Element update = doc.createElement("update");
+                    SerializationVisitor update = new SerializationVisitor("update");
 
-                    _gameMediator.processVisitor(_gameCommunicationChannel, _channelNumber, _resourceOwner.getName(), new SerializationVisitor(doc, update));
+                    _gameMediator.processVisitor(_gameCommunicationChannel, _channelNumber, _resourceOwner.getName(), update);
 
-                    doc.appendChild(update);
-
-                    _responseWriter.writeXmlResponse(doc);
+                    update.writeResponse(_responseWriter, _compactEncoding);
                 } catch (Exception e) {
                     _responseWriter.writeError(500);
                 }
@@ -153,6 +158,120 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
             }
         }
 
+        @Override
+        public synchronized void rejectIfNotProcessed() {
+            if (!_processed) {
+                writeTooBusyResponse(_responseWriter);
+                _processed = true;
+            }
+        }
+
+    }
+
+    /**
+     * Creates the resource that pushes the updates of a game to an event stream.
+     * @param request the request opening the event stream
+     * @param gameId the game ID
+     * @param channelNumber the channel number
+     * @param resourceOwner the player
+     * @return the resource
+     * @throws HttpProcessingException if the player cannot get the updates of the game
+     */
+    EventStreamPushResource createGamePushResource(HttpRequest request, String gameId, int channelNumber, Player resourceOwner) throws HttpProcessingException {
+        SwccgGameMediator gameMediator = _swccgoServer.getGameById(gameId);
+        if (gameMediator == null)
+            throw new HttpProcessingException(404);
+
+        gameMediator.setPlayerAutoPassSettings(resourceOwner.getName(), getAutoPassPhases(request));
+
+        try {
+            gameMediator.getCommunicationChannel(resourceOwner, channelNumber);
+        } catch (SubscriptionConflictException exp) {
+            throw new HttpProcessingException(409);
+        } catch (PrivateInformationException exp) {
+            throw new HttpProcessingException(403);
+        } catch (SubscriptionExpiredException exp) {
+            throw new HttpProcessingException(410);
+        }
+
+        return new GameUpdatePushResource(channelNumber, gameMediator, resourceOwner);
+    }
+
+    private void decisionMade(HttpRequest request, String gameId, ResponseWriter responseWriter) throws Exception {
+        HttpPostRequestDecoder postDecoder = new HttpPostRequestDecoder(request);
+        String participantId = getFormParameterSafely(postDecoder, "participantId");
+        int channelNumber = Integer.parseInt(getFormParameterSafely(postDecoder, "channelNumber"));
+        int decisionId = Integer.parseInt(getFormParameterSafely(postDecoder, "decisionId"));
+        String decisionValue = getFormParameterSafely(postDecoder, "decisionValue");
+
+        Player resourceOwner = getResourceOwnerSafely(request, participantId);
+
+        SwccgGameMediator gameMediator = _swccgoServer.getGameById(gameId);
+        if (gameMediator == null)
+            throw new HttpProcessingException(404);
+
+        gameMediator.setPlayerAutoPassSettings(resourceOwner.getName(), getAutoPassPhases(request));
+
+        try {
+            gameMediator.playerAnswered(resourceOwner, channelNumber, decisionId, decisionValue);
+            responseWriter.writeXmlResponse(null);
+        } catch (SubscriptionConflictException exp) {
+            responseWriter.writeError(409);
+        } catch (SubscriptionExpiredException exp) {
+            responseWriter.writeError(410);
+        }
+    }
+
+    /**
+     * Pushes game updates to an event stream, for clients that get game updates pushed instead of long polling for them.
+     */
+    private class GameUpdatePushResource extends EventStreamPushResource {
+        private int _channelNumber;
+        private SwccgGameMediator _gameMediator;
+        private Player _resourceOwner;
+        private long _lastUpdateSent;
+
+        private GameUpdatePushResource(int channelNumber, SwccgGameMediator gameMediator, Player resourceOwner) {
+            super(_longPollingSystem, "gameFailure");
+            _channelNumber = channelNumber;
+            _gameMediator = gameMediator;
+            _resourceOwner = resourceOwner;
+        }
+
+        @Override
+        protected LongPollableResource getPollableResource(EventStream eventStream) {
+            return getCommunicationChannel(eventStream);
+        }
+
+        private GameCommunicationChannel getCommunicationChannel(EventStream eventStream) {
+            try {
+                return _gameMediator.getCommunicationChannel(_resourceOwner, _channelNumber);
+            } catch (SubscriptionConflictException exp) {
+                endSubscription(eventStream, 409);
+            } catch (PrivateInformationException exp) {
+                endSubscription(eventStream, 403);
+            } catch (SubscriptionExpiredException exp) {
+                endSubscription(eventStream, 410);
+            }
+            return null;
+        }
+
+        @Override
+        protected void pushChanges(EventStream eventStream) throws Exception {
+            GameCommunicationChannel communicationChannel = getCommunicationChannel(eventStream);
+            if (communicationChannel == null)
+                return;
+
+            SerializationVisitor update = new SerializationVisitor("update");
+            _gameMediator.processVisitor(communicationChannel, _channelNumber, _resourceOwner.getName(), update);
+
+            // Updates with only the clocks are sent less often than they would be polled
+            long now = System.currentTimeMillis();
+            if (update.hasGameEvents() || _lastUpdateSent + CLOCK_UPDATE_INTERVAL <= now) {
+                eventStream.sendEvent("game", update);
+                _lastUpdateSent = now;
+            }
+        }
     }
 
     private void cancel(HttpRequest request, String gameId, ResponseWriter responseWriter) throws Exception {
@@ -246,20 +365,25 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
 
         gameMediator.setPlayerAutoPassSettings(resourceOwner.getName(), getAutoPassPhases(request));
 
-        DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-        DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-        Document doc = documentBuilder.newDocument();
-        Element gameState = doc.createElement("gameState");
+        SerializationVisitor gameState = new SerializationVisitor("gameState");
 
         try {
-            gameMediator.signupUserForGame(resourceOwner, new SerializationVisitor(doc, gameState));
+            gameMediator.signupUserForGame(resourceOwner, gameState);
         } catch (PrivateInformationException e) {
             throw new HttpProcessingException(403);
         }
 
-        doc.appendChild(gameState);
+        gameState.writeResponse(responseWriter, isCompactEncodingAccepted(request));
+    }
 
-        responseWriter.writeXmlResponse(doc);
+    /**
+     * Determines if the client accepts game events in the compact JSON encoding instead of XML.
+     * @param request the request
+     * @return true if the compact encoding is accepted, otherwise false
+     */
+    private boolean isCompactEncodingAccepted(HttpRequest request) {
+        String accept = request.getHeader(HttpHeaders.Names.ACCEPT);
+        return accept != null && accept.contains("application/json");
     }
 
     private Set<Phase> getAutoPassPhases(HttpRequest request) {
@@ -284,41 +408,101 @@ public class GameRequestHandler extends SwccgoServerRequestHandler implements Ur
         return _autoPassDefault;
     }
 
-    private class SerializationVisitor implements ParticipantCommunicationVisitor {
-        private Document _doc;
-        private Element _element;
+    /**
+     * Collects what the game mediator visits, so the response can be written to the stream after the visit is complete
+     * (and any locks held by the game mediator are released).
+     */
+    private class SerializationVisitor implements ParticipantCommunicationVisitor, XmlResponse {
+        private String _rootElementName;
+        private Integer _channelNumber;
+        private List<GameEvent> _gameEvents = new LinkedList<GameEvent>();
+        private Map<String, Integer> _secondsLeft;
         private EventSerializer _eventSerializer = new EventSerializer();
+        private CompactEventSerializer _compactEventSerializer = new CompactEventSerializer();
 
-        private SerializationVisitor(Document doc, Element element) {
-            _doc = doc;
-            _element = element;
+        private SerializationVisitor(String rootElementName) {
+            _rootElementName = rootElementName;
         }
 
         @Override
         public void visitChannelNumber(int channelNumber) {
-            _element.setAttribute("cn", String.valueOf(channelNumber));
+            _channelNumber = channelNumber;
         }
 
         @Override
         public void visitGameEvent(GameEvent gameEvent) {
-            _element.appendChild(_eventSerializer.serializeEvent(_doc, gameEvent));
+            _gameEvents.add(gameEvent);
         }
 
         @Override
         public void visitClock(Map<String, Integer> secondsLeft) {
-            _element.appendChild(serializeClocks(_doc, secondsLeft));
+            _secondsLeft = secondsLeft;
+        }
+
+        private boolean hasGameEvents() {
+            return !_gameEvents.isEmpty();
+        }
+
+        @Override
+        public void writeXml(XMLStreamWriter writer) throws XMLStreamException {
+            writer.writeStartElement(_rootElementName);
+            if (_channelNumber != null)
+                writer.writeAttribute("cn", String.valueOf(_channelNumber));
+            for (GameEvent gameEvent : _gameEvents)
+                _eventSerializer.serializeEvent(writer, gameEvent);
+            if (_secondsLeft != null)
+                serializeClocks(writer, _secondsLeft);
+            writer.writeEndElement();
+        }
+
+        /**
+         * Writes the collected game events as JSON, using the compact encoding of the game events. The "cn" field is
+         * the channel number, "ge" the game events, and "clocks" the seconds left for each participant.
+         * @return the JSON
+         */
+        private String writeJson() {
+            StringBuilder sb = new StringBuilder();
+            JSONWriter writer = new JSONWriter(sb);
+            writer.object();
+            if (_channelNumber != null)
+                writer.key("cn").value(_channelNumber);
+            writer.key("ge");
+            writer.array();
+            for (GameEvent gameEvent : _gameEvents)
+                _compactEventSerializer.serializeEvent(writer, gameEvent);
+            writer.endArray();
+            if (_secondsLeft != null) {
+                writer.key("clocks");
+                writer.object();
+                for (Map.Entry<String, Integer> userClock : _secondsLeft.entrySet())
+                    writer.key(userClock.getKey()).value(userClock.getValue());
+                writer.endObject();
+            }
+            writer.endObject();
+            return sb.toString();
+        }
+
+        /**
+         * Writes the response in the encoding negotiated with the client.
+         * @param responseWriter the response writer
+         * @param compactEncoding true to write the compact JSON encoding, false to write XML
+         */
+        private void writeResponse(ResponseWriter responseWriter, boolean compactEncoding) {
+            if (compactEncoding)
+                responseWriter.writeJsonResponse(writeJson());
+            else
+                responseWriter.writeStreamedXmlResponse(this, null);
         }
     }
 
-    private Node serializeClocks(Document doc, Map<String, Integer> secondsLeft) {
-        Element clocks = doc.createElement("clocks");
+    private void serializeClocks(XMLStreamWriter writer, Map<String, Integer> secondsLeft) throws XMLStreamException {
+        writer.writeStartElement("clocks");
         for (Map.Entry<String, Integer> userClock : secondsLeft.entrySet()) {
-            Element clock = doc.createElement("clock");
-            clock.setAttribute("participantId", userClock.getKey());
-            clock.appendChild(doc.createTextNode(userClock.getValue().toString()));
-            clocks.appendChild(clock);
+            writer.writeStartElement("clock");
+            writer.writeAttribute("participantId", userClock.getKey());
+            writer.writeCharacters(userClock.getValue().toString());
+            writer.writeEndElement();
         }
-
-        return clocks;
+        writer.writeEndElement();
     }
 }
@@ -1,11 +1,14 @@
 package com.gempukku.swccgo.async.handler;
 
+import com.gempukku.polling.LongPollableResource;
 import com.gempukku.polling.LongPollingResource;
 import com.gempukku.polling.LongPollingSystem;
 import com.gempukku.swccgo.SubscriptionConflictException;
 import com.gempukku.swccgo.SubscriptionExpiredException;
+import com.gempukku.swccgo.async.EventStream;
 import com.gempukku.swccgo.async.HttpProcessingException;
 import com.gempukku.swccgo.async.ResponseWriter;
+import com.gempukku.swccgo.async.XmlResponse;
 import com.gempukku.swccgo.collection.CollectionsManager;
 import com.gempukku.swccgo.common.ExpansionSet;
 import com.gempukku.swccgo.common.Icon;
@@ -36,13 +39,18 @@ import org.w3c.dom.Element;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.lang.reflect.Type;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
 
 public class HallRequestHandler extends SwccgoServerRequestHandler implements UriRequestHandler {
+    private static final long HALL_REFRESH_INTERVAL = 10000;
+
     private CollectionsManager _collectionManager;
     private SwccgoFormatLibrary _formatLibrary;
     private HallServer _hallServer;
@@ -212,6 +220,14 @@ public class HallRequestHandler extends SwccgoServerRequestHandler implements Ur
                 _processed = true;
             }
         }
+
+        @Override
+        public synchronized void rejectIfNotProcessed() {
+            if (!_processed) {
+                writeTooBusyResponse(_responseWriter);
+                _processed = true;
+            }
+        }
     }
 
     private void getDraft(HttpRequest request, String tournamentId, ResponseWriter responseWriter) throws Exception {
@@ -583,15 +599,10 @@ public class HallRequestHandler extends SwccgoServerRequestHandler implements Ur
         try {
             Player resourceOwner = getResourceOwnerSafely(request, participantId);
 
-            DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-
-            Document doc = documentBuilder.newDocument();
-
-            Element hall = doc.createElement("hall");
+            SerializeHallInfoVisitor hall = new SerializeHallInfoVisitor();
             hall.setAttribute("currency", String.valueOf(_collectionManager.getPlayerCollection(resourceOwner, "permanent").getCurrency()));
 
-            _hallServer.signupUserForHall(resourceOwner, new SerializeHallInfoVisitor(doc, hall));
+            _hallServer.signupUserForHall(resourceOwner, hall);
             for (Map.Entry<String, SwccgFormat> format : _formatLibrary.getHallFormats().entrySet()) {
                 // Only show playtesting formats if player is a playtester or admin
                 if (format.getValue().isPlaytesting()
@@ -599,26 +610,18 @@ public class HallRequestHandler extends SwccgoServerRequestHandler implements Ur
                         || resourceOwner.hasType(Player.Type.PLAYTESTER))) {
                     continue;
                 }
-                Element formatElem = doc.createElement("format");
-                formatElem.setAttribute("type", format.getKey());
-                formatElem.appendChild(doc.createTextNode(format.getValue().getName()));
-                hall.appendChild(formatElem);
+                hall.addFormat(format.getKey(), format.getValue().getName());
             }
             for (League league : _leagueService.getActiveLeagues()) {
                 final LeagueSeriesData currentLeagueSerie = _leagueService.getCurrentLeagueSeries(league);
                 if (currentLeagueSerie != null && _leagueService.isPlayerInLeague(league, resourceOwner)) {
-                    Element formatElem = doc.createElement("format");
-                    formatElem.setAttribute("type", league.getType());
-                    formatElem.appendChild(doc.createTextNode(league.getName()));
-                    hall.appendChild(formatElem);
+                    hall.addFormat(league.getType(), league.getName());
                 }
             }
 
             hall.setAttribute("privateGamesEnabledBoolean", String.valueOf(_hallServer.privateGamesAllowed()));
-            doc.appendChild(hall);
-
 
-            responseWriter.writeXmlResponse(doc);
+            responseWriter.writeStreamedXmlResponse(hall, null);
         } catch (HttpProcessingException exp) {
             responseWriter.writeError(exp.getStatus());
         } catch (Exception exp) {
@@ -645,6 +648,86 @@ public class HallRequestHandler extends SwccgoServerRequestHandler implements Ur
         }
     }
 
+    /**
+     * Creates the resource that pushes the updates of the hall to an event stream.
+     * @param request the request opening the event stream
+     * @param channelNumber the channel number
+     * @param resourceOwner the player
+     * @return the resource
+     * @throws Exception if the player cannot get the updates of the hall
+     */
+    EventStreamPushResource createHallPushResource(HttpRequest request, int channelNumber, Player resourceOwner) throws Exception {
+        processLoginReward(resourceOwner.getName());
+
+        try {
+            _hallServer.getCommunicationChannel(resourceOwner, channelNumber);
+        } catch (SubscriptionExpiredException exp) {
+            throw new HttpProcessingException(410);
+        } catch (SubscriptionConflictException exp) {
+            throw new HttpProcessingException(409);
+        }
+
+        return new HallUpdatePushResource(request, channelNumber, resourceOwner);
+    }
+
+    /**
+     * Pushes hall updates to an event stream, for clients that get hall updates pushed instead of long polling for them.
+     */
+    private class HallUpdatePushResource extends EventStreamPushResource {
+        private HttpRequest _request;
+        private int _channelNumber;
+        private Player _resourceOwner;
+        private long _lastUpdateSent;
+
+        private HallUpdatePushResource(HttpRequest request, int channelNumber, Player resourceOwner) {
+            super(_longPollingSystem, "hallFailure");
+            _request = request;
+            _channelNumber = channelNumber;
+            _resourceOwner = resourceOwner;
+        }
+
+        @Override
+        protected LongPollableResource getPollableResource(EventStream eventStream) {
+            return getCommunicationChannel(eventStream);
+        }
+
+        private HallCommunicationChannel getCommunicationChannel(EventStream eventStream) {
+            try {
+                return _hallServer.getCommunicationChannel(_resourceOwner, _channelNumber);
+            } catch (SubscriptionExpiredException exp) {
+                endSubscription(eventStream, 410);
+            } catch (SubscriptionConflictException exp) {
+                endSubscription(eventStream, 409);
+            }
+            return null;
+        }
+
+        @Override
+        protected void pushChanges(EventStream eventStream) throws Exception {
+            HallCommunicationChannel communicationChannel = getCommunicationChannel(eventStream);
+            if (communicationChannel == null)
+                return;
+
+            SerializeHallInfoVisitor hall = new SerializeHallInfoVisitor();
+            communicationChannel.processCommunicationChannel(_hallServer, _resourceOwner, hall);
+
+            // Updates without changes only refresh the server time and currency, so are sent less often than polled
+            long now = System.currentTimeMillis();
+            if (hall.hasChanges() || _lastUpdateSent + HALL_REFRESH_INTERVAL <= now) {
+                hall.setAttribute("currency", String.valueOf(_collectionManager.getPlayerCollection(_resourceOwner, "permanent").getCurrency()));
+                hall.setAttribute("privateGamesEnabledBoolean", String.valueOf(_hallServer.privateGamesAllowed()));
+                eventStream.sendEvent("hall", hall);
+
+                Map<String, String> headers = new HashMap<String, String>();
+                processDeliveryServiceNotification(_request, headers);
+                if (!headers.isEmpty())
+                    eventStream.sendEvent("delivery", "true");
+
+                _lastUpdateSent = now;
+            }
+        }
+    }
+
     private class HallUpdateLongPollingResource implements LongPollingResource {
         private HttpRequest _request;
         private HallCommunicationChannel _hallCommunicationChannel;
@@ -668,28 +751,30 @@ public class HallRequestHandler extends SwccgoServerRequestHandler implements Ur
         public synchronized void processIfNotProcessed() {
             if (!_processed) {
                 try {
-                    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-                    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-
-                    Document doc = documentBuilder.newDocument();
-
-                    Element hall = doc.createElement("hall");
-                    _hallCommunicationChannel.processCommunicationChannel(_hallServer, _resourceOwner, new SerializeHallInfoVisitor(doc, hall));
+                    SerializeHallInfoVisitor hall = new SerializeHallInfoVisitor();
+                    _hallCommunicationChannel.processCommunicationChannel(_hallServer, _resourceOwner, hall);
                     hall.setAttribute("currency", String.valueOf(_collectionManager.getPlayerCollection(_resourceOwner, "permanent").getCurrency()));
 
                     hall.setAttribute("privateGamesEnabledBoolean", String.valueOf(_hallServer.privateGamesAllowed()));
-                    doc.appendChild(hall);
 
                     Map<String, String> headers = new HashMap<String, String>();
                     processDeliveryServiceNotification(_request, headers);
 
-                    _responseWriter.writeXmlResponse(doc, headers);
+                    _responseWriter.writeStreamedXmlResponse(hall, headers);
                 } catch (Exception exp) {
                     _responseWriter.writeError(500);
                 }
                 _processed = true;
             }
         }
+
+        @Override
+        public synchronized void rejectIfNotProcessed() {
+            if (!_processed) {
+                writeTooBusyResponse(_responseWriter);
+                _processed = true;
+            }
+        }
     }
 
     private class SerializeDraftVisitor implements DraftChannelVisitor {
@@ -732,119 +817,134 @@ public class HallRequestHandler extends SwccgoServerRequestHandler implements Ur
         }
     }
 
-    private class SerializeHallInfoVisitor implements HallChannelVisitor {
-        private Document _doc;
-        private Element _hall;
+    /**
+     * Collects the hall info visited, so it can be written to the stream once complete, since attributes of the hall
+     * element may be visited after its child elements.
+     */
+    private class SerializeHallInfoVisitor implements HallChannelVisitor, XmlResponse {
+        private Map<String, String> _hallAttributes = new LinkedHashMap<String, String>();
+        private List<HallElement> _hallElements = new ArrayList<HallElement>();
 
-        public SerializeHallInfoVisitor(Document doc, Element hall) {
-            _doc = doc;
-            _hall = hall;
+        public void setAttribute(String name, String value) {
+            _hallAttributes.put(name, value);
+        }
+
+        private boolean hasChanges() {
+            return !_hallElements.isEmpty() || _hallAttributes.containsKey("motd");
+        }
+
+        public void addFormat(String type, String name) {
+            HallElement format = new HallElement("format", name);
+            format._attributes.put("type", type);
+            _hallElements.add(format);
+        }
+
+        private void addElement(String elementName, String action, String id, Map<String, String> props) {
+            HallElement element = new HallElement(elementName, null);
+            element._attributes.put("action", action);
+            element._attributes.put("id", id);
+            if (props != null)
+                element._attributes.putAll(props);
+            _hallElements.add(element);
         }
 
         @Override
         public void channelNumber(int channelNumber) {
-            _hall.setAttribute("channelNumber", String.valueOf(channelNumber));
+            setAttribute("channelNumber", String.valueOf(channelNumber));
         }
 
         @Override
         public void newPlayerGame(String gameId) {
-            Element newGame = _doc.createElement("newGame");
-            newGame.setAttribute("id", gameId);
-            _hall.appendChild(newGame);
+            HallElement newGame = new HallElement("newGame", null);
+            newGame._attributes.put("id", gameId);
+            _hallElements.add(newGame);
         }
 
         @Override
         public void serverTime(String serverTime) {
-            _hall.setAttribute("serverTime", serverTime);
+            setAttribute("serverTime", serverTime);
         }
 
         @Override
         public void motdChanged(String motd) {
-            _hall.setAttribute("motd", motd);
+            setAttribute("motd", motd);
         }
 
         @Override
         public void addTournamentQueue(String queueId, Map<String, String> props) {
-            Element queue = _doc.createElement("queue");
-            queue.setAttribute("action", "add");
-            queue.setAttribute("id", queueId);
-            for (Map.Entry<String, String> attribute : props.entrySet())
-                queue.setAttribute(attribute.getKey(), attribute.getValue());
-            _hall.appendChild(queue);
+            addElement("queue", "add", queueId, props);
         }
 
         @Override
         public void updateTournamentQueue(String queueId, Map<String, String> props) {
-            Element queue = _doc.createElement("queue");
-            queue.setAttribute("action", "update");
-            queue.setAttribute("id", queueId);
-            for (Map.Entry<String, String> attribute : props.entrySet())
-                queue.setAttribute(attribute.getKey(), attribute.getValue());
-            _hall.appendChild(queue);
+            addElement("queue", "update", queueId, props);
         }
 
         @Override
         public void removeTournamentQueue(String queueId) {
-            Element queue = _doc.createElement("queue");
-            queue.setAttribute("action", "remove");
-            queue.setAttribute("id", queueId);
-            _hall.appendChild(queue);
+            addElement("queue", "remove", queueId, null);
         }
 
         @Override
         public void addTournament(String tournamentId, Map<String, String> props) {
-            Element tournament = _doc.createElement("tournament");
-            tournament.setAttribute("action", "add");
-            tournament.setAttribute("id", tournamentId);
-            for (Map.Entry<String, String> attribute : props.entrySet())
-                tournament.setAttribute(attribute.getKey(), attribute.getValue());
-            _hall.appendChild(tournament);
+            addElement("tournament", "add", tournamentId, props);
         }
 
         @Override
         public void updateTournament(String tournamentId, Map<String, String> props) {
-            Element tournament = _doc.createElement("tournament");
-            tournament.setAttribute("action", "update");
-            tournament.setAttribute("id", tournamentId);
-            for (Map.Entry<String, String> attribute : props.entrySet())
-                tournament.setAttribute(attribute.getKey(), attribute.getValue());
-            _hall.appendChild(tournament);
+            addElement("tournament", "update", tournamentId, props);
         }
 
         @Override
         public void removeTournament(String tournamentId) {
-            Element tournament = _doc.createElement("tournament");
-            tournament.setAttribute("action", "remove");
-            tournament.setAttribute("id", tournamentId);
-            _hall.appendChild(tournament);
+            addElement("tournament", "remove", tournamentId, null);
         }
 
         @Override
         public void addTable(String tableId, Map<String, String> props) {
-            Element table = _doc.createElement("table");
-            table.setAttribute("action", "add");
-            table.setAttribute("id", tableId);
-            for (Map.Entry<String, String> attribute : props.entrySet())
-                table.setAttribute(attribute.getKey(), attribute.getValue());
-            _hall.appendChild(table);
+            addElement("table", "add", tableId, props);
         }
 
         @Override
         public void updateTable(String tableId, Map<String, String> props) {
-            Element table = _doc.createElement("table");
-            table.setAttribute("action", "update");
-            table.setAttribute("id", tableId);
-            for (Map.Entry<String, String> attribute : props.entrySet())
-                table.setAttribute(attribute.getKey(), attribute.getValue());
-            _hall.appendChild(table);
+            addElement("table", "update", tableId, props);
         }
 
         @Override
         public void removeTable(String tableId) {
-            Element table = _doc.createElement("table");
-            table.setAttribute("action", "remove");
-            table.setAttribute("id", tableId);
-            _hall.appendChild(table);
+            addElement("table", "remove", tableId, null);
+        }
+
+        @Override
+        public void writeXml(XMLStreamWriter writer) throws XMLStreamException {
+            writer.writeStartElement("hall");
+            for (Map.Entry<String, String> attribute : _hallAttributes.entrySet())
+                writer.writeAttribute(attribute.getKey(), attribute.getValue());
+            for (HallElement hallElement : _hallElements) {
+                writer.writeStartElement(hallElement._name);
+                for (Map.Entry<String, String> attribute : hallElement._attributes.entrySet()) {
+                    if (attribute.getValue() != null)
+                        writer.writeAttribute(attribute.getKey(), attribute.getValue());
+                }
+                if (hallElement._text != null)
+                    writer.writeCharacters(hallElement._text);
+                writer.writeEndElement();
+            }
+            writer.writeEndElement();
+        }
+    }
+
+    /**
+     * An element within the hall element of a hall response.
+     */
+    private static class HallElement {
+        private String _name;
+        private Map<String, String> _attributes = new LinkedHashMap<String, String>();
+        private String _text;
+
+        private HallElement(String name, String text) {
+            _name = name;
+            _text = text;
         }
     }
 }
@@ -4,12 +4,14 @@ import com.gempukku.swccgo.async.HttpProcessingException;
 import com.gempukku.swccgo.async.ResponseWriter;
 import com.gempukku.swccgo.game.GameRecorder;
 import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.handler.codec.http.HttpHeaders;
 import org.jboss.netty.handler.codec.http.HttpMethod;
 import org.jboss.netty.handler.codec.http.HttpRequest;
+import org.jboss.netty.handler.codec.http.QueryStringDecoder;
 
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.lang.reflect.Type;
+import java.util.HashMap;
 import java.util.Map;
 
 public class ReplayRequestHandler extends SwccgoServerRequestHandler implements UriRequestHandler {
@@ -35,23 +37,56 @@ public class ReplayRequestHandler extends SwccgoServerRequestHandler implements
             if (split.length != 2)
                 throw new HttpProcessingException(404);
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            QueryStringDecoder queryDecoder = new QueryStringDecoder(request.getUri());
+            String fromTurn = getQueryParameterSafely(queryDecoder, "fromTurn");
+            String toTurn = getQueryParameterSafely(queryDecoder, "toTurn");
+
+            Map<String, String> headers = new HashMap<String, String>();
+            headers.put(HttpHeaders.Names.CONTENT_TYPE, "application/html; charset=UTF-8");
+
+            // A range of turns is read from the turn index of the recording
+            if (fromTurn != null || toTurn != null) {
+                InputStream recordedTurns = _gameRecorder.getRecordedGameTurns(split[0], split[1],
+                        parseTurn(fromTurn, 0), parseTurn(toTurn, Integer.MAX_VALUE - 1));
+                if (recordedTurns == null)
+                    throw new HttpProcessingException(404);
+
+                responseWriter.writeStreamResponse(recordedTurns, headers);
+                return;
+            }
+
+            // The stored recording is already in the deflate content encoding, so it is sent as it is
+            if (acceptsDeflate(request)) {
+                InputStream storedRecording = _gameRecorder.getStoredRecording(split[0], split[1]);
+                if (storedRecording != null) {
+                    headers.put(HttpHeaders.Names.CONTENT_ENCODING, HttpHeaders.Values.DEFLATE);
+                    responseWriter.writeStreamResponse(storedRecording, headers);
+                    return;
+                }
+            }
 
             final InputStream recordedGame = _gameRecorder.getRecordedGame(split[0], split[1]);
             if (recordedGame == null)
                 throw new HttpProcessingException(404);
-            try {
-                byte[] bytes = new byte[1024];
-                int count;
-                while ((count = recordedGame.read(bytes)) != -1)
-                    baos.write(bytes, 0, count);
-            } finally {
-                recordedGame.close();
-            }
 
-            responseWriter.writeByteResponse("application/html; charset=UTF-8", baos.toByteArray());
+            responseWriter.writeStreamResponse(recordedGame, headers);
         } else {
             responseWriter.writeError(404);
         }
     }
+
+    private int parseTurn(String turn, int defaultTurn) throws HttpProcessingException {
+        if (turn == null)
+            return defaultTurn;
+        try {
+            return Integer.parseInt(turn);
+        } catch (NumberFormatException exp) {
+            throw new HttpProcessingException(400);
+        }
+    }
+
+    private boolean acceptsDeflate(HttpRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.Names.ACCEPT_ENCODING);
+        return acceptEncoding != null && acceptEncoding.toLowerCase().contains(HttpHeaders.Values.DEFLATE);
+    }
 }
@@ -30,6 +30,7 @@ public class RootUriRequestHandler implements UriRequestHandler {
     private ServerStatsRequestHandler _serverStatsRequestHandler;
     private PlayerStatsRequestHandler _playerStatsRequestHandler;
     private TournamentRequestHandler _tournamentRequestHandler;
+    private EventsRequestHandler _eventsRequestHandler;
 
     public RootUriRequestHandler(Map<Type, Object> context) {
         _webRequestHandler = new WebRequestHandler(ApplicationConfiguration.getProperty("web.path"));
@@ -50,6 +51,7 @@ public class RootUriRequestHandler implements UriRequestHandler {
         _serverStatsRequestHandler = new ServerStatsRequestHandler(context);
         _playerStatsRequestHandler = new PlayerStatsRequestHandler(context);
         _tournamentRequestHandler = new TournamentRequestHandler(context);
+        _eventsRequestHandler = new EventsRequestHandler(context, _gameRequestHandler, _hallRequestHandler, _chatRequestHandler);
     }
 
     @Override
@@ -92,6 +94,8 @@ public class RootUriRequestHandler implements UriRequestHandler {
             _merchantRequestHandler.handleRequest(uri.substring(_serverContextPath.length()+8), request, context, responseWriter, e);
         } else if (uri.startsWith(_serverContextPath + "tournament")) {
             _tournamentRequestHandler.handleRequest(uri.substring(_serverContextPath.length()+10), request, context, responseWriter, e);
+        } else if (uri.startsWith(_serverContextPath + "events")) {
+            _eventsRequestHandler.handleRequest(uri.substring(_serverContextPath.length()+6), request, context, responseWriter, e);
         } else if (uri.equals(_serverContextPath)) {
             _statusRequestHandler.handleRequest(uri.substring(_serverContextPath.length()), request, context, responseWriter, e);
         } else {
@@ -2,6 +2,7 @@ package com.gempukku.swccgo.async.handler;
 
 import com.gempukku.swccgo.async.ResponseWriter;
 import com.gempukku.swccgo.chat.ChatServer;
+import com.gempukku.swccgo.db.GameHistoryDAO;
 import com.gempukku.swccgo.game.GameHistoryService;
 import com.gempukku.swccgo.hall.HallServer;
 import org.jboss.netty.channel.MessageEvent;
@@ -36,13 +37,17 @@ public class StatusRequestHandler extends SwccgoServerRequestHandler implements
         if ("".equals(uri) && request.getMethod() == HttpMethod.GET) {
             StringBuilder sb = new StringBuilder();
 
-            int day = 1000 * 60 * 60 * 24;
-            int week = 1000 * 60 * 60 * 24 * 7;
-            sb.append("<b>Active players:</b>&nbsp;&nbsp;").append(_gameHistoryService.getActivePlayersCount(System.currentTimeMillis() - day, day)).append(" (in last 24 hours)")
-                    .append(",&nbsp;&nbsp;").append(_gameHistoryService.getActivePlayersCount(System.currentTimeMillis() - week, week)).append(" (in last week)")
+            // The ranges end at the end of the current hour, so the hours before the current day are answered from the
+            // cached hourly rollups, and the current day from the statistics kept in memory
+            long now = System.currentTimeMillis();
+            long to = now - now % GameHistoryDAO.ROLLUP_HOUR + GameHistoryDAO.ROLLUP_HOUR;
+            long day = GameHistoryDAO.ROLLUP_DAY;
+            long week = 7 * GameHistoryDAO.ROLLUP_DAY;
+            sb.append("<b>Active players:</b>&nbsp;&nbsp;").append(_gameHistoryService.getActivePlayersCount(to - day, day)).append(" (in last 24 hours)")
+                    .append(",&nbsp;&nbsp;").append(_gameHistoryService.getActivePlayersCount(to - week, week)).append(" (in last week)")
                     .append(",&nbsp;&nbsp;").append(_gameHistoryService.getActivePlayersCount()).append(" (all time)")
-                    .append("<br/><b>Games played:</b>&nbsp;&nbsp;").append(_gameHistoryService.getGamesPlayedCount(System.currentTimeMillis() - day, day)).append(" (in last 24 hours)")
-                    .append(",&nbsp;&nbsp;").append(_gameHistoryService.getGamesPlayedCount(System.currentTimeMillis() - week, week)).append(" (in last week)")
+                    .append("<br/><b>Games played:</b>&nbsp;&nbsp;").append(_gameHistoryService.getGamesPlayedCount(to - day, day)).append(" (in last 24 hours)")
+                    .append(",&nbsp;&nbsp;").append(_gameHistoryService.getGamesPlayedCount(to - week, week)).append(" (in last week)")
                     .append(",&nbsp;&nbsp;").append(_gameHistoryService.getGamesPlayedCount()).append(" (all time)")
                     .append("<h2>")
                     .append("Tables count: ").append(_hallServer.getTablesCount())
@@ -3,6 +3,7 @@ package com.gempukku.swccgo.async.handler;
 import com.gempukku.swccgo.DateUtils;
 import com.gempukku.swccgo.PlayerLock;
 import com.gempukku.swccgo.async.HttpProcessingException;
+import com.gempukku.swccgo.async.ResponseWriter;
 import com.gempukku.swccgo.collection.CollectionsManager;
 import com.gempukku.swccgo.collection.TransferDAO;
 import com.gempukku.swccgo.db.DeckDAO;
@@ -101,6 +102,14 @@ public class SwccgoServerRequestHandler {
             headersToAdd.put("Delivery-Service-Package", "true");
     }
 
+    /**
+     * Responds that the server is too busy to process the request, and that the client should try again shortly.
+     * @param responseWriter the response writer
+     */
+    protected static void writeTooBusyResponse(ResponseWriter responseWriter) {
+        responseWriter.writeError(503, Collections.singletonMap("Retry-After", "1"));
+    }
+
     protected final Player getResourceOwnerSafely(HttpRequest request, String participantId) throws HttpProcessingException {
         String loggedUser = getLoggedUser(request);
         if (isTest() && loggedUser == null)
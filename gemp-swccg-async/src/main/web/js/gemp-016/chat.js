@@ -13,6 +13,8 @@ var ChatBoxUI = Class.extend({
 
     chatUpdateInterval:750,
     latestMsgIdRcvd:-1,
+    chatEventStream:null,
+    chatEventStreamFailed:false,
     maxRetries:50,
 
     playerListener:null,
@@ -271,6 +273,24 @@ var ChatBoxUI = Class.extend({
 
     updateChatMessages:function () {
         var that = this;
+        if (this.chatEventStream == null && !this.chatEventStreamFailed) {
+            this.chatEventStream = this.communication.openChatEventStream(this.name,
+                function () {
+                    return that.latestMsgIdRcvd;
+                },
+                function (xml) {
+                    that.processMessages(xml, false);
+                }, this.chatErrorMap(),
+                function () {
+                    // Event stream is not available, so fall back to polling
+                    that.chatEventStream = null;
+                    that.chatEventStreamFailed = true;
+                    that.updateChatMessages();
+                });
+        }
+        // Chat messages are pushed by the server
+        if (this.chatEventStream != null)
+            return;
 
         this.communication.updateChat(this.name, this.latestMsgIdRcvd, function (xml) {
             that.processMessages(xml, true);
@@ -18,6 +18,17 @@ var GempSwccgCommunication = Class.extend({
         };
     },
 
+    // The server answers 503 when it is too busy to take another long polling request, so the request is sent again
+    pollErrorCheck:function (retry, errorMap) {
+        var errorCheck = this.errorCheck(errorMap);
+        return function (xhr, status, request) {
+            if (xhr.status == 503)
+                setTimeout(retry, 1000);
+            else
+                errorCheck(xhr, status, request);
+        };
+    },
+
     logout:function (callback, errorMap) {
         $.ajax({
             type:"POST",
@@ -43,6 +54,21 @@ var GempSwccgCommunication = Class.extend({
         });
     },
 
+    // Subscribes to the changes of a resource on the event stream the page shares for this server, so the game, hall
+    // and chat changes all come through one connection
+    openEventStream:function (resource, params, listeners, errorMap, fallback) {
+        // Browsers without Server-Sent Events keep long polling
+        if (typeof EventSource == "undefined")
+            return null;
+
+        var eventStream = gempSwccgEventStreams[this.url];
+        if (eventStream == null) {
+            eventStream = new GempSwccgEventStream(this.url);
+            gempSwccgEventStreams[this.url] = eventStream;
+        }
+        return eventStream.subscribe(resource, params, listeners, this.errorCheck(errorMap), fallback);
+    },
+
     deliveryCheck:function (callback) {
         var that = this;
         return function (xml, status, request) {
@@ -53,6 +79,14 @@ var GempSwccgCommunication = Class.extend({
         };
     },
     
+    // Game events are requested in the compact JSON encoding, which is smaller to send, and turned into the same XML
+    // document the server sends otherwise, so the game is processed the same way
+    compactGameEventsCheck:function (rootElementName, callback) {
+        return function (json) {
+            callback(compactGameEventsToXml(json, rootElementName));
+        };
+    },
+
     deliveryCheckStatus:function (callback) {
         var that = this;
         return function (xml, status, request) {
@@ -212,12 +246,14 @@ var GempSwccgCommunication = Class.extend({
             url:this.url + "/game/" + getUrlParam("gameId"),
             cache:false,
             data:{ participantId:getUrlParam("participantId") },
-            success:this.deliveryCheck(callback),
+            headers:{ Accept:"application/json" },
+            success:this.deliveryCheck(this.compactGameEventsCheck("gameState", callback)),
             error:this.errorCheck(errorMap),
-            dataType:"xml"
+            dataType:"json"
         });
     },
     updateGameState:function (channelNumber, callback, errorMap) {
+        var that = this;
         $.ajax({
             type:"POST",
             url:this.url + "/game/" + getUrlParam("gameId"),
@@ -225,12 +261,27 @@ var GempSwccgCommunication = Class.extend({
             data:{
                 channelNumber:channelNumber,
                 participantId:getUrlParam("participantId") },
-            success:this.deliveryCheck(callback),
+            headers:{ Accept:"application/json" },
+            success:this.deliveryCheck(this.compactGameEventsCheck("update", callback)),
             timeout: 20000,
-            error:this.errorCheck(errorMap),
-            dataType:"xml"
+            error:this.pollErrorCheck(function () {
+                that.updateGameState(channelNumber, callback, errorMap);
+            }, errorMap),
+            dataType:"json"
         });
     },
+    openGameEventStream:function (channelNumber, callback, errorMap, fallback) {
+        return this.openEventStream("game",
+            function () {
+                return {
+                    game:getUrlParam("gameId"),
+                    gameChannel:channelNumber };
+            },
+            {
+                "game":function (data) {
+                    callback($.parseXML(data));
+                } }, errorMap, fallback);
+    },
     getGameCardModifiers:function (cardId, callback, errorMap) {
         $.ajax({
             type:"GET",
@@ -254,7 +305,23 @@ var GempSwccgCommunication = Class.extend({
                 participantId:getUrlParam("participantId"),
                 decisionId:decisionId,
                 decisionValue:response },
-            success:this.deliveryCheck(callback),
+            headers:{ Accept:"application/json" },
+            success:this.deliveryCheck(this.compactGameEventsCheck("update", callback)),
+            timeout: 20000,
+            error:this.errorCheck(errorMap),
+            dataType:"json"
+        });
+    },
+    postGameDecision:function (decisionId, response, channelNumber, errorMap) {
+        $.ajax({
+            type:"POST",
+            url:this.url + "/game/" + getUrlParam("gameId") + "/decision",
+            cache:false,
+            data:{
+                channelNumber:channelNumber,
+                participantId:getUrlParam("participantId"),
+                decisionId:decisionId,
+                decisionValue:response },
             timeout: 20000,
             error:this.errorCheck(errorMap),
             dataType:"xml"
@@ -560,6 +627,13 @@ var GempSwccgCommunication = Class.extend({
                 });
                 return;
             }
+            if (errorStatus == "503") {
+                // The server is too busy, try again shortly
+                setTimeout(function() {
+                    that.updateChat(room, latestMsgId, callback, errorMap, tryNum, maxTries);
+                }, 1000);
+                return;
+            }
             if (errorMap != null && errorMap[errorStatus] != null)
                 errorMap[errorStatus](xhr, status, request);
             else if (errorStatus != "200")
@@ -581,6 +655,19 @@ var GempSwccgCommunication = Class.extend({
             dataType:"xml"
         });
     },
+    // The latest message id is a function, so subscribing again asks only for the messages not yet received
+    openChatEventStream:function (room, latestMsgIdFunction, callback, errorMap, fallback) {
+        return this.openEventStream("chat",
+            function () {
+                return {
+                    chat:room,
+                    chatLatestMsgIdRcvd:latestMsgIdFunction() };
+            },
+            {
+                "chat":function (data) {
+                    callback($.parseXML(data));
+                } }, errorMap, fallback);
+    },
     sendChatMessage:function (room, messages, errorMap) {
         $.ajax({
             type:"POST",
@@ -608,6 +695,7 @@ var GempSwccgCommunication = Class.extend({
         });
     },
     updateHall:function (callback, channelNumber, errorMap) {
+        var that = this;
         $.ajax({
             type:"POST",
             url:this.url + "/hall/update",
@@ -617,10 +705,28 @@ var GempSwccgCommunication = Class.extend({
                 participantId:getUrlParam("participantId") },
             success:this.deliveryCheck(callback),
             timeout: 20000,
-            error:this.errorCheck(errorMap),
+            error:this.pollErrorCheck(function () {
+                that.updateHall(callback, channelNumber, errorMap);
+            }, errorMap),
             dataType:"xml"
         });
     },
+    openHallEventStream:function (channelNumber, callback, errorMap, fallback) {
+        var that = this;
+        return this.openEventStream("hall",
+            function () {
+                return {
+                    hall:channelNumber };
+            },
+            {
+                "hall":function (data) {
+                    callback($.parseXML(data));
+                },
+                "delivery":function () {
+                    if (window.deliveryService != null)
+                        that.getDelivery(window.deliveryService);
+                } }, errorMap, fallback);
+    },
     joinQueue:function (queueId, deckName, callback, errorMap) {
         $.ajax({
             type:"POST",
@@ -712,6 +818,17 @@ var GempSwccgCommunication = Class.extend({
             dataType:"html"
         });
     },
+    getServerHealth:function (callback, errorMap) {
+        $.ajax({
+            type:"GET",
+            url:this.url + "/admin/serverhealth",
+            cache:false,
+            data:{},
+            success:this.deliveryCheck(callback),
+            error:this.errorCheck(errorMap),
+            dataType:"html"
+        });
+    },
     clearServerCache:function (callback, errorMap) {
         $.ajax({
             type:"POST",
@@ -1313,3 +1430,301 @@ var GempSwccgCommunication = Class.extend({
         });
     }
 });
+
+// The event streams of the page, by server url
+var gempSwccgEventStreams = {};
+
+// A single event stream to the server, which the game, hall and chat of a page subscribe to. The stream is opened with
+// the subscriptions made at the time, and later subscriptions are posted to the open stream, so each page keeps one
+// connection to the server.
+var GempSwccgEventStream = Class.extend({
+    url:null,
+    subscriptions:null,
+    eventSource:null,
+    streamId:null,
+    opened:false,
+    openScheduled:false,
+
+    init:function (url) {
+        this.url = url;
+        this.subscriptions = {};
+    },
+
+    subscribe:function (resource, params, listeners, errorCheck, fallback) {
+        var subscription = {
+            params:params,
+            listeners:listeners,
+            errorCheck:errorCheck,
+            fallback:fallback,
+            sent:false };
+        this.subscriptions[resource] = subscription;
+
+        if (this.eventSource == null) {
+            this.scheduleOpen();
+        } else {
+            this.addListeners(resource, subscription);
+            this.sendSubscription(resource, subscription);
+        }
+        return subscription;
+    },
+
+    // Subscriptions made while the page is starting are all opened with the stream
+    scheduleOpen:function () {
+        if (this.openScheduled)
+            return;
+        this.openScheduled = true;
+
+        var that = this;
+        setTimeout(function () {
+            that.openScheduled = false;
+            that.open();
+        }, 0);
+    },
+
+    open:function () {
+        if (this.eventSource != null)
+            return;
+
+        var data = {participantId:getUrlParam("participantId")};
+        var empty = true;
+        for (var resource in this.subscriptions) {
+            if (this.subscriptions.hasOwnProperty(resource)) {
+                $.extend(data, this.subscriptions[resource].params());
+                this.subscriptions[resource].sent = true;
+                empty = false;
+            }
+        }
+        if (empty)
+            return;
+
+        var that = this;
+        var eventSource = new EventSource(this.url + "/events?" + $.param(data));
+        this.eventSource = eventSource;
+        this.streamId = null;
+        this.opened = false;
+        eventSource.onopen = function () {
+            that.opened = true;
+        };
+        eventSource.addEventListener("stream", function (e) {
+            that.streamId = e.data;
+            // Send the subscriptions made while the stream was opening
+            for (var resource in that.subscriptions) {
+                if (that.subscriptions.hasOwnProperty(resource) && !that.subscriptions[resource].sent)
+                    that.sendSubscription(resource, that.subscriptions[resource]);
+            }
+        });
+        eventSource.onerror = function () {
+            that.streamFailed(eventSource);
+        };
+        for (resource in this.subscriptions) {
+            if (this.subscriptions.hasOwnProperty(resource))
+                this.addListeners(resource, this.subscriptions[resource]);
+        }
+    },
+
+    addListeners:function (resource, subscription) {
+        var that = this;
+        for (var eventName in subscription.listeners) {
+            if (subscription.listeners.hasOwnProperty(eventName))
+                this.eventSource.addEventListener(eventName, this.eventListener(resource, subscription, subscription.listeners[eventName]));
+        }
+        this.eventSource.addEventListener(resource + "Failure", function (e) {
+            if (that.subscriptions[resource] !== subscription)
+                return;
+
+            var failureStatus = parseInt(e.data);
+            if (failureStatus == 503) {
+                // The server was too busy to keep the subscription, so it is sent again
+                subscription.sent = false;
+                setTimeout(function () {
+                    that.resendSubscription(resource, subscription);
+                }, 1000);
+                return;
+            }
+            delete that.subscriptions[resource];
+            subscription.errorCheck({status:failureStatus}, "error", null);
+        });
+    },
+
+    eventListener:function (resource, subscription, listener) {
+        var that = this;
+        return function (e) {
+            if (that.subscriptions[resource] === subscription)
+                listener(e.data);
+        };
+    },
+
+    // Subscribes to a resource on the stream that is already open. If the stream is still opening, the subscription is
+    // sent once the id of the stream is known.
+    sendSubscription:function (resource, subscription) {
+        if (this.streamId == null)
+            return;
+
+        var that = this;
+        var eventSource = this.eventSource;
+        subscription.sent = true;
+        $.ajax({
+            type:"POST",
+            url:this.url + "/events/" + this.streamId,
+            cache:false,
+            data:$.extend({participantId:getUrlParam("participantId")}, subscription.params()),
+            error:function (xhr, status, request) {
+                if (that.subscriptions[resource] !== subscription)
+                    return;
+                if (xhr.status == 410) {
+                    // The stream has closed, so it is opened again with every subscription
+                    if (that.eventSource === eventSource) {
+                        that.closeEventSource();
+                        that.scheduleOpen();
+                    }
+                    return;
+                }
+                delete that.subscriptions[resource];
+                subscription.errorCheck(xhr, status, request);
+            },
+            dataType:"xml"
+        });
+    },
+
+    resendSubscription:function (resource, subscription) {
+        if (this.subscriptions[resource] !== subscription || subscription.sent)
+            return;
+        if (this.eventSource == null)
+            this.scheduleOpen();
+        else
+            this.sendSubscription(resource, subscription);
+    },
+
+    streamFailed:function (eventSource) {
+        if (this.eventSource !== eventSource)
+            return;
+
+        var opened = this.opened;
+        this.closeEventSource();
+
+        for (var resource in this.subscriptions) {
+            if (this.subscriptions.hasOwnProperty(resource)) {
+                var subscription = this.subscriptions[resource];
+                if (!opened) {
+                    delete this.subscriptions[resource];
+                    subscription.fallback();
+                } else if (subscription.sent) {
+                    delete this.subscriptions[resource];
+                    subscription.errorCheck({status:0}, "error", null);
+                }
+                // A subscription waiting to be sent again opens the stream again when it is sent
+            }
+        }
+    },
+
+    closeEventSource:function () {
+        this.eventSource.close();
+        this.eventSource = null;
+        this.streamId = null;
+        this.opened = false;
+    }
+});
+
+// The XML attribute names of the fields of the compact encoding of game events
+var compactGameEventFields = {
+    t:"type", b:"blueprintId", tt:"testingText", bt:"backSideTestingText", c:"cardId", i:"index", zo:"zoneOwnerId",
+    sn:"systemName", l:"locationIndex", ls:"locationIndexes", p:"participantId", ps:"allParticipantIds", ph:"phase",
+    tc:"targetCardId", z:"zone", iv:"inverted", sw:"sideways", fr:"frozen", su:"suspended", co:"collapsed", n:"count",
+    dt:"destinyText", pa:"playerAttacking", pd:"playerDefending", o:"otherCardIds", o2:"otherCardIds2", m:"message" };
+
+var compactGameStatsFields = {
+    dfg:"darkForceGeneration", lfg:"lightForceGeneration", dbp:"darkBattlePower", lbp:"lightBattlePower",
+    dbndtp:"darkBattleNumDestinyToPower", lbndtp:"lightBattleNumDestinyToPower", dbnbd:"darkBattleNumBattleDestiny",
+    lbnbd:"lightBattleNumBattleDestiny", dbndta:"darkBattleNumDestinyToAttrition", lbndta:"lightBattleNumDestinyToAttrition",
+    dbdr:"darkBattleDamageRemaining", lbdr:"lightBattleDamageRemaining", dbar:"darkBattleAttritionRemaining",
+    lbar:"lightBattleAttritionRemaining", ditra:"darkImmuneToRemainingAttrition", litra:"lightImmuneToRemainingAttrition",
+    dst:"darkSabaccTotal", lst:"lightSabaccTotal", ddolct:"darkDuelOrLightsaberCombatTotal",
+    ldolct:"lightDuelOrLightsaberCombatTotal", ddolcnd:"darkDuelOrLightsaberCombatNumDestiny",
+    ldolcnd:"lightDuelOrLightsaberCombatNumDestiny", apofia:"attackingPowerOrFerocityInAttack",
+    dpofia:"defendingPowerOrFerocityInAttack", andia:"attackingNumDestinyInAttack", dndia:"defendingNumDestinyInAttack",
+    drt:"darkRaceTotal", lrt:"lightRaceTotal", dpt:"darkPoliticsTotal", lpt:"lightPoliticsTotal" };
+
+// Builds the XML document of game events from their compact JSON encoding ("cn" the channel number, "ge" the game
+// events and "clocks" the seconds left for each participant)
+function compactGameEventsToXml(json, rootElementName) {
+    var doc = $.parseXML("<" + rootElementName + "/>");
+    var root = doc.documentElement;
+    if (json.cn != null)
+        root.setAttribute("cn", String(json.cn));
+
+    for (var i = 0; i < json.ge.length; i++) {
+        var gameEvent = json.ge[i];
+        var eventElem = doc.createElement("ge");
+        for (var code in compactGameEventFields) {
+            if (compactGameEventFields.hasOwnProperty(code) && gameEvent[code] != null)
+                eventElem.setAttribute(compactGameEventFields[code], String(gameEvent[code]));
+        }
+
+        var gameStats = gameEvent.gs;
+        if (gameStats != null) {
+            for (var statsCode in compactGameStatsFields) {
+                if (compactGameStatsFields.hasOwnProperty(statsCode))
+                    eventElem.setAttribute(compactGameStatsFields[statsCode], String(gameStats[statsCode]));
+            }
+        }
+        var decision = gameEvent.d;
+        if (decision != null) {
+            eventElem.setAttribute("id", String(decision.id));
+            eventElem.setAttribute("decisionType", decision.ty);
+            if (decision.tx != null)
+                eventElem.setAttribute("text", decision.tx);
+        }
+
+        if (gameStats != null) {
+            for (var playerId in gameStats.zs) {
+                if (gameStats.zs.hasOwnProperty(playerId)) {
+                    var playerZonesElem = doc.createElement("playerZones");
+                    playerZonesElem.setAttribute("name", playerId);
+                    for (var zone in gameStats.zs[playerId]) {
+                        if (gameStats.zs[playerId].hasOwnProperty(zone))
+                            playerZonesElem.setAttribute(zone, String(gameStats.zs[playerId][zone]));
+                    }
+                    eventElem.appendChild(playerZonesElem);
+                }
+            }
+            eventElem.appendChild(compactPowerAtLocationsToXml(doc, "darkPowerAtLocations", gameStats.dpl));
+            eventElem.appendChild(compactPowerAtLocationsToXml(doc, "lightPowerAtLocations", gameStats.lpl));
+        }
+        if (decision != null) {
+            for (var paramName in decision.pm) {
+                if (decision.pm.hasOwnProperty(paramName)) {
+                    for (var j = 0; j < decision.pm[paramName].length; j++) {
+                        var parameterElem = doc.createElement("parameter");
+                        parameterElem.setAttribute("name", paramName);
+                        parameterElem.setAttribute("value", decision.pm[paramName][j]);
+                        eventElem.appendChild(parameterElem);
+                    }
+                }
+            }
+        }
+        root.appendChild(eventElem);
+    }
+
+    if (json.clocks != null) {
+        var clocksElem = doc.createElement("clocks");
+        for (var participantId in json.clocks) {
+            if (json.clocks.hasOwnProperty(participantId)) {
+                var clockElem = doc.createElement("clock");
+                clockElem.setAttribute("participantId", participantId);
+                clockElem.appendChild(doc.createTextNode(String(json.clocks[participantId])));
+                clocksElem.appendChild(clockElem);
+            }
+        }
+        root.appendChild(clocksElem);
+    }
+    return doc;
+}
+
+function compactPowerAtLocationsToXml(doc, elementName, powerAtLocations) {
+    var elem = doc.createElement(elementName);
+    for (var locationIndex in powerAtLocations) {
+        if (powerAtLocations.hasOwnProperty(locationIndex))
+            elem.setAttribute("locationIndex" + locationIndex, String(powerAtLocations[locationIndex]));
+    }
+    return elem;
+}
@@ -111,6 +111,11 @@ var GempSwccgGameUI = Class.extend({
     communication:null,
     channelNumber:null,
 
+    eventStream:null,
+    eventStreamFailed:false,
+    streamedUpdates:null,
+    waitingForStreamedUpdate:false,
+
     settingsAutoAccept:false,
     settingsAlwaysDropDown:false,
     settingsAutoPassYourTurnEnabled:false,
@@ -2012,6 +2017,25 @@ var GempSwccgGameUI = Class.extend({
 
     updateGameState:function () {
         var that = this;
+        if (this.eventStream == null && !this.eventStreamFailed) {
+            this.streamedUpdates = new Array();
+            this.eventStream = this.communication.openGameEventStream(
+                    this.channelNumber,
+                    function (xml) {
+                        that.streamedUpdateReceived(xml);
+                    }, this.gameErrorMap(),
+                    function () {
+                        // Event stream is not available, so fall back to long polling
+                        that.eventStream = null;
+                        that.eventStreamFailed = true;
+                        that.updateGameState();
+                    });
+        }
+        if (this.eventStream != null) {
+            this.processStreamedUpdate();
+            return;
+        }
+
         this.communication.updateGameState(
                 this.channelNumber,
                 function (xml) {
@@ -2019,9 +2043,31 @@ var GempSwccgGameUI = Class.extend({
                 }, this.gameErrorMap());
     },
 
+    // Updates pushed by the server are queued, and processed one at a time when the game is ready for the next update,
+    // the same as when polling for them
+    streamedUpdateReceived:function (xml) {
+        this.streamedUpdates.push(xml);
+        if (this.waitingForStreamedUpdate)
+            this.processStreamedUpdate();
+    },
+
+    processStreamedUpdate:function () {
+        if (this.streamedUpdates.length > 0) {
+            this.waitingForStreamedUpdate = false;
+            this.processXml(this.streamedUpdates.shift(), true);
+        } else {
+            this.waitingForStreamedUpdate = true;
+        }
+    },
+
     decisionFunction:function (decisionId, result) {
         var that = this;
         this.stopAnimatingTitle();
+        if (this.eventStream != null) {
+            this.communication.postGameDecision(decisionId, result, this.channelNumber, this.gameErrorMap());
+            this.processStreamedUpdate();
+            return;
+        }
         this.communication.gameDecisionMade(decisionId, result,
                 this.channelNumber,
                 function (xml) {
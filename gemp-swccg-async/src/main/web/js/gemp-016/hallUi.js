@@ -17,6 +17,8 @@ var GempSwccgHallUI = Class.extend({
     pocketDiv:null,
     pocketValue:null,
     hallChannelId: null,
+    hallEventStream: null,
+    hallEventStreamFailed: false,
 
     init:function (div, url, chat) {
         this.div = div;
@@ -364,6 +366,21 @@ var GempSwccgHallUI = Class.extend({
 
     updateHall:function () {
         var that = this;
+        if (this.hallEventStream == null && !this.hallEventStreamFailed) {
+            this.hallEventStream = this.comm.openHallEventStream(this.hallChannelId,
+                function (xml) {
+                    that.processHall(xml);
+                }, this.hallErrorMap(),
+                function () {
+                    // Event stream is not available, so fall back to long polling
+                    that.hallEventStream = null;
+                    that.hallEventStreamFailed = true;
+                    that.updateHall();
+                });
+        }
+        // Hall updates are pushed by the server
+        if (this.hallEventStream != null)
+            return;
 
         this.comm.updateHall(
             function (xml) {
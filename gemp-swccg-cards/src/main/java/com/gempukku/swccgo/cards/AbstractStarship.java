@@ -26,7 +26,7 @@ import com.gempukku.swccgo.logic.modifiers.ModifierType;
 import com.gempukku.swccgo.logic.modifiers.ModifiersQuerying;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -436,7 +436,7 @@ public abstract class AbstractStarship extends AbstractDeployable {
             // Get the filter for where this starship can deploy (if it has a permanent pilot)
             Filter deployWithoutSeparatePilotTargetFilter = Filters.and(deployTargetFilter, getValidDeployTargetFilter(playerId, game, self, sourceCard, null, forFree, changeInCost, deploymentRestrictionsOption, deployAsCaptiveOption, reactActionOption, false, false));
             Filter deployWithSeparatePilotTargetFilter = Filters.none;
-            Set<PhysicalCard> validPilotsFromHand = new HashSet<PhysicalCard>();
+            Set<PhysicalCard> validPilotsFromHand = new LinkedHashSet<PhysicalCard>();
 
             // Check if explicit character to deploy simultaneously with was specified
             if (cardToDeployWith != null) {
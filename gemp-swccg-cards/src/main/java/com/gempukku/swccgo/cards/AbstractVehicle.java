@@ -21,7 +21,7 @@ import com.gempukku.swccgo.game.SwccgGame;
 import com.gempukku.swccgo.logic.actions.PlayCardAction;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -316,7 +316,7 @@ public abstract class AbstractVehicle extends AbstractDeployable {
             // Get the filter for where this vehicle can deploy (if it has a permanent pilot or is considered always piloted)
             Filter deployWithoutSeparatePilotTargetFilter = Filters.and(deployTargetFilter, getValidDeployTargetFilter(playerId, game, self, sourceCard, null, forFree, changeInCost, deploymentRestrictionsOption, deployAsCaptiveOption, reactActionOption, false, false));
             Filter deployWithSeparatePilotTargetFilter = Filters.none;
-            Set<PhysicalCard> validPilotsFromHand = new HashSet<PhysicalCard>();
+            Set<PhysicalCard> validPilotsFromHand = new LinkedHashSet<PhysicalCard>();
 
             // Check if explicit pilot/driver to deploy simultaneously with was specified
             if (cardToDeployWith != null) {
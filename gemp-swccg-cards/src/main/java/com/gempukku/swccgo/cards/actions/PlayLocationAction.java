@@ -120,7 +120,7 @@ public class PlayLocationAction extends AbstractPlayCardAction {
                 if (Filters.and(Filters.non_unique, Filters.or(Filters.starship_site, Filters.vehicle_site)).accepts(game, _location)) {
 
                     // If multiple placements have different "parent systems" for location, then ask player to select which planet to deploy
-                    Set<PhysicalCard> parentStarshipOrVehicle = new HashSet<PhysicalCard>();
+                    Set<PhysicalCard> parentStarshipOrVehicle = new LinkedHashSet<PhysicalCard>();
                     for (LocationPlacement placement : _placements) {
                         if (placement.getParentStarshipOrVehicleCard() != null)
                             parentStarshipOrVehicle.add(placement.getParentStarshipOrVehicleCard());
@@ -219,7 +219,7 @@ public class PlayLocationAction extends AbstractPlayCardAction {
                 } else {
 
                     // Only include choices that that include the same parent
-                    final Map<PhysicalCard, LocationPlacement> otherCards = new HashMap<PhysicalCard, LocationPlacement>();
+                    final Map<PhysicalCard, LocationPlacement> otherCards = new LinkedHashMap<PhysicalCard, LocationPlacement>();
                     for (LocationPlacement placement : _placements) {
                         if (_parentName != null && _parentName.equals(placement.getParentSystem()))
                             otherCards.put(placement.getOtherCard(), placement);
@@ -19,7 +19,7 @@ import com.gempukku.swccgo.logic.timing.results.LookedAtCardsInCardPileResult;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -60,7 +60,7 @@ class PeekAtTopCardOfCardPilesAndReturnCardsToOnePileEffect extends AbstractSubA
                 new PassthruEffect(subAction) {
                     @Override
                     protected void doPlayEffect(final SwccgGame game) {
-                        final Map<PhysicalCard, String> topCardsMap = new HashMap<PhysicalCard, String>();
+                        final Map<PhysicalCard, String> topCardsMap = new LinkedHashMap<PhysicalCard, String>();
                         final List<PhysicalCard> topCards = new ArrayList<PhysicalCard>();
                         final String[] cardPileChoices = new String[_cardPiles.size()];
                         StringBuilder cardPileText = new StringBuilder(_playerId.equals(_cardPileOwner) ? "" : (_cardPileOwner + "'s "));
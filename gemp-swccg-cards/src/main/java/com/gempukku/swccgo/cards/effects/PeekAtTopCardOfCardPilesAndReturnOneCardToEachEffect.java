@@ -16,7 +16,7 @@ import com.gempukku.swccgo.logic.timing.PassthruEffect;
 import com.gempukku.swccgo.logic.timing.results.LookedAtCardsInCardPileResult;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -59,7 +59,7 @@ class PeekAtTopCardOfCardPilesAndReturnOneCardToEachEffect extends AbstractSubAc
                 new PassthruEffect(subAction) {
                     @Override
                     protected void doPlayEffect(SwccgGame game) {
-                        final Map<PhysicalCard, String> topCardsMap = new HashMap<PhysicalCard, String>();
+                        final Map<PhysicalCard, String> topCardsMap = new LinkedHashMap<PhysicalCard, String>();
                         final List<PhysicalCard> topCards = new ArrayList<PhysicalCard>();
                         StringBuilder cardPileText = new StringBuilder(_playerId.equals(_cardPileOwner) ? "" : (_cardPileOwner + "'s "));
 
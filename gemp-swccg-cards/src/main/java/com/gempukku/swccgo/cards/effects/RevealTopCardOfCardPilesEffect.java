@@ -13,7 +13,7 @@ import com.gempukku.swccgo.logic.timing.results.LookedAtCardsInCardPileResult;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -43,7 +43,7 @@ public class RevealTopCardOfCardPilesEffect extends AbstractSuccessfulEffect {
     protected void doPlayEffect(final SwccgGame game) {
         GameState gameState = game.getGameState();
 
-        final Map<PhysicalCard, String> topCardsMap = new HashMap<PhysicalCard, String>();
+        final Map<PhysicalCard, String> topCardsMap = new LinkedHashMap<PhysicalCard, String>();
         final List<PhysicalCard> topCards = new ArrayList<PhysicalCard>();
         for (Zone cardPile : _cardPiles) {
             PhysicalCard topCard = gameState.getTopOfCardPile(_cardPileOwner, cardPile);
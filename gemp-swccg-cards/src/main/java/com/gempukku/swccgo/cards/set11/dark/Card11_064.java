@@ -33,7 +33,7 @@ import com.gempukku.swccgo.logic.timing.PassthruEffect;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -118,7 +118,7 @@ public class Card11_064 extends AbstractDroid {
             Collection<PhysicalCard> sithProbeDroids = Filters.filterAllOnTable(game, Filters.and(Filters.Sith_Probe_Droid,Filters.with(null,SpotOverride.INCLUDE_ALL,Filters.Sith_Probe_Droid)));
             if(!sithProbeDroids.isEmpty()) {
                 //find all of the locations that have multiple sith probe droids
-                Collection<PhysicalCard> locationsToEnforceLimit = new HashSet<PhysicalCard>();
+                Collection<PhysicalCard> locationsToEnforceLimit = new LinkedHashSet<PhysicalCard>();
                 for(PhysicalCard spd:sithProbeDroids) {
                     locationsToEnforceLimit.addAll(Filters.filterTopLocationsOnTable(game, Filters.sameLocation(spd)));
                 }
@@ -152,7 +152,7 @@ public class Card11_064 extends AbstractDroid {
                                 LinkedList<PhysicalCard> allDroidsHere = new LinkedList<PhysicalCard>();
                                 allDroidsHere.addAll(playerOneDroids);
                                 allDroidsHere.addAll(playerTwoDroids);
-                                Collections.shuffle(allDroidsHere);
+                                Collections.shuffle(allDroidsHere, gm.getRandom());
 
                                 PhysicalCard toLose = allDroidsHere.getFirst();
                                 gm.getGameState().sendMessage("Randomly selected to lose " + toLose.getOwner() + "'s "+GameUtils.getCardLink(toLose));
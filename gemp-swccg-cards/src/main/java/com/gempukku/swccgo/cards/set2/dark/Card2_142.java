@@ -30,7 +30,7 @@ import com.gempukku.swccgo.logic.timing.results.AboutToLoseCardFromTableResult;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 
 
@@ -146,7 +146,7 @@ public class Card2_142 extends AbstractLostInterrupt {
             action.setActionMsg("Capture all characters on board a captured starship");
 
             Collection<PhysicalCard> possibleStarships = Filters.filterActive(game, self, SpotOverride.INCLUDE_CAPTIVE, Filters.and(Filters.captured_starship, Filters.hasAboardExceptRelatedSites(self, SpotOverride.INCLUDE_CAPTIVE, Filters.character)));
-            Collection<PhysicalCard> haveEnoughForce = new HashSet<PhysicalCard>();
+            Collection<PhysicalCard> haveEnoughForce = new LinkedHashSet<PhysicalCard>();
             for(PhysicalCard starship: possibleStarships) {
                 int charactersAboard = Filters.countAllOnTable(game, Filters.and(Filters.character, Filters.aboard(starship)));
                 if (GameConditions.canUseForceToPlayInterrupt(game, playerId, self, 2*charactersAboard)) {
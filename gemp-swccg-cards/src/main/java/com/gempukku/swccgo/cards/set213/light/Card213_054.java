@@ -29,7 +29,7 @@ import com.gempukku.swccgo.logic.timing.EffectResult;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -110,7 +110,7 @@ public class Card213_054 extends AbstractUsedInterrupt {
         }
 
         if (TriggerConditions.isPlayingCardTargeting(game, effect, Filters.Interrupt, Filters.and(armedSmuggler, Filters.canBeTargetedBy(self)))) {
-            Collection<PhysicalCard> targetedCards = new HashSet<PhysicalCard>();
+            Collection<PhysicalCard> targetedCards = new LinkedHashSet<PhysicalCard>();
             //get all of the cards targeted by the interrupt
             Map<Integer, Map<PhysicalCard, Set<TargetingReason>>> primaryTargets = ((RespondablePlayingCardEffect) effect).getTargetingAction().getAllPrimaryTargetCards();
             List<PhysicalCard> secondaryTargets = ((RespondablePlayingCardEffect) effect).getTargetingAction().getAllSecondaryTargetCards(game);
@@ -28,7 +28,7 @@ import com.gempukku.swccgo.logic.timing.EffectResult;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -125,7 +125,7 @@ public class Card221_041 extends AbstractLostInterrupt {
                 && GameConditions.canTarget(game, self, vaderFilter)
                 && isVaderYourApprentice(game, self)) {
 
-            Set<PhysicalCard> charactersThatCanMove = new HashSet<>();
+            Set<PhysicalCard> charactersThatCanMove = new LinkedHashSet<>();
             for (PhysicalCard card : Filters.filterActive(game, self, vaderFilter)) {
                 if (Filters.canSpotFromTopLocationsOnTable(game, Filters.and(Filters.canMoveToUsingLandspeed(playerId, card, false, false, false, 0, 0), Filters.not(Filters.occupies(playerId))))) {
                     charactersThatCanMove.add(card);
@@ -25,7 +25,7 @@ import com.gempukku.swccgo.logic.timing.Action;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
@@ -65,7 +65,7 @@ public class Card4_093 extends AbstractImperial {
         // Check condition(s)
         if (!utinniEffects.isEmpty()) {
 
-            Set<PhysicalCard> possibleToRetarget = new HashSet<>();
+            Set<PhysicalCard> possibleToRetarget = new LinkedHashSet<>();
             for (PhysicalCard card : utinniEffects) {
                 for (TargetId targetId : card.getTargetedCards(game.getGameState()).keySet()) {
                     if (card.getValidTargetedFilter(targetId).accepts(game, self)) {
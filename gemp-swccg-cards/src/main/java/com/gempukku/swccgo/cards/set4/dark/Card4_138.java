@@ -28,7 +28,7 @@ import com.gempukku.swccgo.logic.timing.EffectResult;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -105,7 +105,7 @@ public class Card4_138 extends AbstractUsedOrLostInterrupt {
                                                             GameState gameState = game.getGameState();
                                                             ModifiersQuerying modifiersQuerying = game.getModifiersQuerying();
 
-                                                            final Map<PhysicalCard, Float> allCardsRevealed = new HashMap<PhysicalCard, Float>();
+                                                            final Map<PhysicalCard, Float> allCardsRevealed = new LinkedHashMap<PhysicalCard, Float>();
                                                             for (PhysicalCard revealedCard : revealedCards) {
                                                                 allCardsRevealed.put(revealedCard, modifiersQuerying.getDestiny(gameState, revealedCard));
                                                             }
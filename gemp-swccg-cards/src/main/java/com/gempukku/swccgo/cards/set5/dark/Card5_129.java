@@ -35,7 +35,7 @@ import com.gempukku.swccgo.logic.timing.GuiUtils;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -62,7 +62,7 @@ public class Card5_129 extends AbstractEpicEventDeployable {
 
     @Override
     public Map<PhysicalCard, Collection<PhysicalCard>> getInitiateEpicDuelMatchup(SwccgGame game, PhysicalCard self, Filter darkSideParticipantFilter, Filter lightSideParticipantFilter) {
-        Map<PhysicalCard, Collection<PhysicalCard>> matchupsMap = new HashMap<PhysicalCard, Collection<PhysicalCard>>();
+        Map<PhysicalCard, Collection<PhysicalCard>> matchupsMap = new LinkedHashMap<PhysicalCard, Collection<PhysicalCard>>();
         Collection<PhysicalCard> darkSideParticipants = Filters.filterActive(game, self, darkSideParticipantFilter);
         for (PhysicalCard darkSideCharacter : darkSideParticipants) {
             Collection<PhysicalCard> lightSideParticipants = Filters.filterActive(game, self, null, TargetingReason.TO_BE_DUELED, Filters.and(lightSideParticipantFilter, Filters.presentWith(darkSideCharacter)));
@@ -26,7 +26,7 @@ import com.gempukku.swccgo.logic.timing.GuiUtils;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -57,7 +57,7 @@ public class Card9_131 extends AbstractNormalEffect {
         // Check condition(s)
         if (TriggerConditions.isTargetedByWeapon(game, effect, Filters.and(Filters.your(self), Filters.character), Filters.any)) {
             Collection<PhysicalCard> characters = game.getGameState().getWeaponFiringState().getTargets();
-            final Map<PhysicalCard, PhysicalCard> characterVehicleMap = new HashMap<PhysicalCard, PhysicalCard>();
+            final Map<PhysicalCard, PhysicalCard> characterVehicleMap = new LinkedHashMap<PhysicalCard, PhysicalCard>();
             for (PhysicalCard character : characters) {
                 PhysicalCard vehicle = Filters.findFirstActive(game, self,
                         Filters.and(Filters.piloted, Filters.vehicle, Filters.hasAboardExceptRelatedSites(character)));
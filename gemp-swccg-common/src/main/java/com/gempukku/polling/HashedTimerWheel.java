@@ -0,0 +1,128 @@
+package com.gempukku.polling;
+
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A hashed timer wheel, for tracking a large number of timeouts that are mostly cancelled before they expire. Each
+ * timeout is put in the bucket for the tick it expires on, so scheduling and cancelling a timeout take constant time,
+ * and each tick only looks at the timeouts in a single bucket instead of all of them.
+ */
+public class HashedTimerWheel {
+    private static Logger _log = Logger.getLogger(HashedTimerWheel.class);
+
+    private final long _tickDuration;
+    private final List<Set<Timeout>> _buckets;
+    private final long _startTime;
+    private long _tick;
+
+    /**
+     * Creates a timer wheel.
+     * @param tickDuration the duration of a tick in milliseconds, which is the precision of the timeouts
+     * @param bucketCount the number of buckets, which should cover the usual timeout length so few timeouts are looked
+     *                    at before the tick they expire on
+     */
+    public HashedTimerWheel(long tickDuration, int bucketCount) {
+        _tickDuration = tickDuration;
+        _buckets = new ArrayList<Set<Timeout>>(bucketCount);
+        for (int i = 0; i < bucketCount; i++)
+            _buckets.add(new LinkedHashSet<Timeout>());
+        _startTime = System.currentTimeMillis();
+    }
+
+    public void start() {
+        Thread thr = new Thread(new TickRunnable(), "HashedTimerWheel");
+        thr.start();
+    }
+
+    /**
+     * Schedules the task to be run after the delay. The task is run on the timer thread, so it should only hand off
+     * any longer work.
+     * @param task the task
+     * @param delay the delay in milliseconds
+     * @return the timeout, which can be used to cancel the task
+     */
+    public synchronized Timeout schedule(Runnable task, long delay) {
+        long deadlineTick = (System.currentTimeMillis() + delay - _startTime + _tickDuration - 1) / _tickDuration;
+        Timeout timeout = new Timeout(task, Math.max(deadlineTick, _tick + 1));
+        getBucket(timeout._deadlineTick).add(timeout);
+        return timeout;
+    }
+
+    private Set<Timeout> getBucket(long tick) {
+        return _buckets.get((int) (tick % _buckets.size()));
+    }
+
+    private synchronized void cancel(Timeout timeout) {
+        getBucket(timeout._deadlineTick).remove(timeout);
+    }
+
+    private synchronized List<Timeout> nextTick() {
+        _tick++;
+        List<Timeout> expired = new LinkedList<Timeout>();
+        Iterator<Timeout> iterator = getBucket(_tick).iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout._deadlineTick <= _tick) {
+                iterator.remove();
+                expired.add(timeout);
+            }
+        }
+        return expired;
+    }
+
+    private synchronized long getNextTickTime() {
+        return _startTime + (_tick + 1) * _tickDuration;
+    }
+
+    /**
+     * A task scheduled on the timer wheel.
+     */
+    public class Timeout {
+        private Runnable _task;
+        private long _deadlineTick;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            _task = task;
+            _deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Cancels the task, if it has not been run yet.
+         */
+        public void cancel() {
+            HashedTimerWheel.this.cancel(this);
+        }
+    }
+
+    private class TickRunnable implements Runnable {
+        @Override
+        public void run() {
+            while (true) {
+                long sleepTime = getNextTickTime() - System.currentTimeMillis();
+                if (sleepTime > 0) {
+                    try {
+                        Thread.sleep(sleepTime);
+                    } catch (InterruptedException exp) {
+                        // Ignore
+                    }
+                    continue;
+                }
+
+                for (Timeout timeout : nextTick()) {
+                    try {
+                        timeout._task.run();
+                    } catch (Exception exp) {
+                        _log.error("Error while running timeout task", exp);
+                    }
+                }
+            }
+        }
+    }
+}
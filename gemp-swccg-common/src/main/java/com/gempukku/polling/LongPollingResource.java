@@ -15,4 +15,9 @@ public interface LongPollingResource {
      * Process if it was not already processed.
      */
     void processIfNotProcessed();
+
+    /**
+     * Responds that the server is too busy to process it, if it was not already processed.
+     */
+    void rejectIfNotProcessed();
 }
@@ -2,121 +2,200 @@ package com.gempukku.polling;
 
 import org.apache.log4j.Logger;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds long polling requests until the resource they poll has changes, or until they time out. Resources notify their
+ * waiting request directly when they change, and the timeouts are tracked in a timer wheel, so a request is processed
+ * as soon as either happens. Requests are processed on a fixed number of threads, so a burst of requests (for example
+ * when many clients reconnect at once) queues up instead of starting a thread for each. The queue is bounded, and a
+ * request that does not fit in it is rejected, so the client is told to try again instead of waiting behind a backlog
+ * it would time out in anyway.
+ */
 public class LongPollingSystem {
     private static Logger _log = Logger.getLogger(LongPollingSystem.class);
 
-    private final Set<ResourceWaitingRequest> _waitingActions = Collections.synchronizedSet(new HashSet<ResourceWaitingRequest>());
+    private static final int PROCESSING_THREADS = 32;
+    private static final int MAX_QUEUED_REQUESTS = 5000;
+    private static final long TICK_DURATION = 100;
+    private static final int TICKS_PER_WHEEL = 64;
 
-    private long _pollingInterval = 1000;
     private long _pollingLength = 2500;
 
-    private ProcessingRunnable _timeoutRunnable;
-    private ExecutorService _executorService = new ThreadPoolExecutor(10, Integer.MAX_VALUE,
+    private HashedTimerWheel _timerWheel = new HashedTimerWheel(TICK_DURATION, TICKS_PER_WHEEL);
+    private ThreadPoolExecutor _executorService = new ThreadPoolExecutor(PROCESSING_THREADS, PROCESSING_THREADS,
             60L, TimeUnit.SECONDS,
-            new SynchronousQueue<Runnable>());
+            new LinkedBlockingQueue<Runnable>(MAX_QUEUED_REQUESTS));
+
+    private final AtomicInteger _waitingRequestCount = new AtomicInteger();
+    private final AtomicLong _processedCount = new AtomicLong();
+    private final AtomicLong _timedOutCount = new AtomicLong();
+    private final AtomicLong _rejectedCount = new AtomicLong();
+    private final AtomicLong _totalQueueDelay = new AtomicLong();
+    private final AtomicLong _maxQueueDelay = new AtomicLong();
 
     public void start() {
-        _timeoutRunnable = new ProcessingRunnable();
-        Thread thr = new Thread(_timeoutRunnable);
-        thr.start();
+        _executorService.allowCoreThreadTimeOut(true);
+        _timerWheel.start();
     }
 
     public void processLongPollingResource(LongPollingResource resource, LongPollableResource pollableResource) {
-        ResourceWaitingRequest request = new ResourceWaitingRequest(pollableResource, resource, System.currentTimeMillis());
+        ResourceWaitingRequest request = new ResourceWaitingRequest(pollableResource, resource);
+        _waitingRequestCount.incrementAndGet();
+        request.scheduleTimeout();
         if (pollableResource.registerRequest(request)) {
-            execute(resource);
-        } else {
-            _waitingActions.add(request);
+            if (request.complete())
+                execute(resource);
         }
     }
 
-    private void pause() {
-        try {
-            Thread.sleep(_pollingInterval);
-        } catch (InterruptedException exp) {
-            // Ignore
-        }
+    /**
+     * Gets the number of requests waiting for changes.
+     * @return the number of requests
+     */
+    public int getWaitingRequestCount() {
+        return _waitingRequestCount.get();
     }
 
-    private void processWaitingRequest(final ResourceWaitingRequest request) {
-        _waitingActions.remove(request);
-        execute(request.getLongPollingResource());
+    /**
+     * Gets the number of requests waiting for a thread to process them.
+     * @return the number of requests
+     */
+    public int getQueuedRequestCount() {
+        return _executorService.getQueue().size();
     }
 
-    private void execute(final LongPollingResource resource) {
-        _executorService.submit(
-                new Runnable() {
-                    @Override
-                    public void run() {
-                        resource.processIfNotProcessed();
-                    }
-                });
+    /**
+     * Gets the number of threads currently processing requests.
+     * @return the number of threads
+     */
+    public int getActiveThreadCount() {
+        return _executorService.getActiveCount();
     }
 
-    private class ProcessingRunnable implements Runnable {
-        @Override
-        public void run() {
-            while (true) {
-                Set<ResourceWaitingRequest> resourcesCopy;
-                synchronized (_waitingActions) {
-                    resourcesCopy = new HashSet<ResourceWaitingRequest>(_waitingActions);
-                }
-                
-                long now = System.currentTimeMillis();
-                Iterator<ResourceWaitingRequest> iterator = resourcesCopy.iterator();
-                while (iterator.hasNext()) {
-                    ResourceWaitingRequest waitingRequest = iterator.next();
-                    if (waitingRequest.getLongPollingResource().wasProcessed())
-                        _waitingActions.remove(waitingRequest);
-                    else {
-                        if (waitingRequest.getStart() + _pollingLength < now) {
-                            waitingRequest.getLongPollableResource().unregisterRequest(waitingRequest);
-                            _waitingActions.remove(waitingRequest);
-                            execute(waitingRequest.getLongPollingResource());
-                        }
-                    }
-                }
+    /**
+     * Gets the number of requests processed since the server started.
+     * @return the number of requests
+     */
+    public long getProcessedCount() {
+        return _processedCount.get();
+    }
 
-                pause();
+    /**
+     * Gets the number of requests that timed out without changes since the server started.
+     * @return the number of requests
+     */
+    public long getTimedOutCount() {
+        return _timedOutCount.get();
+    }
+
+    /**
+     * Gets the number of requests rejected because the queue of requests waiting for a thread was full, since the
+     * server started.
+     * @return the number of requests
+     */
+    public long getRejectedCount() {
+        return _rejectedCount.get();
+    }
+
+    /**
+     * Gets the average time requests waited for a thread to process them.
+     * @return the time in milliseconds
+     */
+    public long getAverageQueueDelay() {
+        long processed = _processedCount.get();
+        return processed > 0 ? _totalQueueDelay.get() / processed : 0;
+    }
+
+    /**
+     * Gets the longest time a request waited for a thread to process it, since this was last called.
+     * @return the time in milliseconds
+     */
+    public long getAndResetMaxQueueDelay() {
+        return _maxQueueDelay.getAndSet(0);
+    }
+
+    private void execute(final LongPollingResource resource) {
+        _waitingRequestCount.decrementAndGet();
+        final long queuedTime = System.currentTimeMillis();
+        try {
+            _executorService.submit(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            recordQueueDelay(System.currentTimeMillis() - queuedTime);
+                            try {
+                                resource.processIfNotProcessed();
+                            } catch (RuntimeException exp) {
+                                _log.error("Error while processing long polling resource", exp);
+                            }
+                        }
+                    });
+        } catch (RejectedExecutionException exp) {
+            _rejectedCount.incrementAndGet();
+            try {
+                resource.rejectIfNotProcessed();
+            } catch (RuntimeException rejectExp) {
+                _log.error("Error while rejecting long polling resource", rejectExp);
             }
         }
     }
 
+    private void recordQueueDelay(long queueDelay) {
+        _processedCount.incrementAndGet();
+        _totalQueueDelay.addAndGet(queueDelay);
+        long maxQueueDelay = _maxQueueDelay.get();
+        while (queueDelay > maxQueueDelay && !_maxQueueDelay.compareAndSet(maxQueueDelay, queueDelay))
+            maxQueueDelay = _maxQueueDelay.get();
+    }
+
     private class ResourceWaitingRequest implements WaitingRequest {
         private LongPollingResource _longPollingResource;
         private LongPollableResource _longPollableResource;
-        private long _start;
+        private HashedTimerWheel.Timeout _timeout;
+        private final AtomicBoolean _completed = new AtomicBoolean();
 
-        private ResourceWaitingRequest(LongPollableResource longPollableResource, LongPollingResource longPollingResource, long start) {
+        private ResourceWaitingRequest(LongPollableResource longPollableResource, LongPollingResource longPollingResource) {
             _longPollableResource = longPollableResource;
             _longPollingResource = longPollingResource;
-            _start = start;
-        }
-
-        @Override
-        public void processRequest() {
-            processWaitingRequest(this);
         }
 
-        public LongPollableResource getLongPollableResource() {
-            return _longPollableResource;
+        private void scheduleTimeout() {
+            _timeout = _timerWheel.schedule(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            if (complete()) {
+                                _timedOutCount.incrementAndGet();
+                                _longPollableResource.unregisterRequest(ResourceWaitingRequest.this);
+                                execute(_longPollingResource);
+                            }
+                        }
+                    }, _pollingLength);
         }
 
-        public LongPollingResource getLongPollingResource() {
-            return _longPollingResource;
+        /**
+         * Marks the request as completed, either by changes or by timing out, whichever happens first.
+         * @return true if the request was not already completed, otherwise false
+         */
+        private boolean complete() {
+            if (_completed.compareAndSet(false, true)) {
+                _timeout.cancel();
+                return true;
+            }
+            return false;
         }
 
-        public long getStart() {
-            return _start;
+        @Override
+        public void processRequest() {
+            if (complete())
+                execute(_longPollingResource);
         }
     }
 }
@@ -1,5 +1,6 @@
 package com.gempukku.swccgo.filters;
 
+import com.gempukku.swccgo.common.CardCategory;
 import com.gempukku.swccgo.common.ModelType;
 import com.gempukku.swccgo.game.PhysicalCard;
 import com.gempukku.swccgo.game.SwccgBuiltInCardBlueprint;
@@ -42,4 +43,28 @@ public abstract class Filter implements FilterInterface  {
     public int acceptsCount(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
         return accepts(gameState, modifiersQuerying, physicalCard) ? 1 : 0;
     }
+
+    /**
+     * Gets the card category that each card accepted by this filter is in. When looking for cards in play accepted
+     * by this filter, only the cards in play in that card category need to be checked.
+     *
+     * @return the card category, or null if cards in any card category may be accepted
+     */
+    public CardCategory getRequiredCardCategory() {
+        return null;
+    }
+
+    /**
+     * Determines if this filter is cheap to evaluate, meaning it only checks values stored on the card (such as card
+     * category, owner, or zone) without querying modifiers. AND filters check cheap filters before other filters.
+     *
+     * A filter that returns true must have no side effects and no preconditions: it must accept or reject any card
+     * without changing any state, and without relying on another filter having accepted the card first. AND filters
+     * rely on this to reorder their filters.
+     *
+     * @return true or false
+     */
+    public boolean isCheapToEvaluate() {
+        return false;
+    }
 }
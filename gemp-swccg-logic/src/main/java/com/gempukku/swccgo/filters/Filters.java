@@ -53,14 +53,18 @@ import com.gempukku.swccgo.logic.timing.EffectResult;
 import com.gempukku.swccgo.logic.timing.TargetingActionUtils;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -78,6 +82,9 @@ public class Filters {
     private static final Map<Persona, Filter> _personaFilterMap = new HashMap<Persona, Filter>();
     private static final Map<ModelType, Filter> _modelTypeFilterMap = new HashMap<ModelType, Filter>();
     private static final Map<Agenda, Filter> _agendaFilterMap = new HashMap<Agenda, Filter>();
+    // AND and OR filters made up only of interned filterables, shared by each caller that creates the same filter
+    private static final ConcurrentMap<List<Filterable>, Filter> _internedAndFilterMap = new ConcurrentHashMap<List<Filterable>, Filter>();
+    private static final ConcurrentMap<List<Filterable>, Filter> _internedOrFilterMap = new ConcurrentHashMap<List<Filterable>, Filter>();
 
     //
     //
@@ -304,6 +311,10 @@ public class Filters {
             public boolean accepts(GameState gameState, ModifiersQuerying modifiersQuerying, SwccgBuiltInCardBlueprint builtInCardBlueprint) {
                 return side(side).accepts(gameState, modifiersQuerying, builtInCardBlueprint.getPhysicalCard(gameState.getGame()));
             }
+            @Override
+            public boolean isCheapToEvaluate() {
+                return true;
+            }
         };
     }
 
@@ -329,6 +340,10 @@ public class Filters {
             public boolean acceptsIgnoringOwner(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
                 return true;
             }
+            @Override
+            public boolean isCheapToEvaluate() {
+                return true;
+            }
         };
     }
 
@@ -592,6 +607,14 @@ public class Filters {
             public boolean accepts(GameState gameState, ModifiersQuerying modifiersQuerying, SwccgBuiltInCardBlueprint builtInCardBlueprint) {
                 return (builtInCardBlueprint.isWeapon() && category == CardCategory.WEAPON);
             }
+            @Override
+            public CardCategory getRequiredCardCategory() {
+                return category;
+            }
+            @Override
+            public boolean isCheapToEvaluate() {
+                return true;
+            }
         };
     }
 
@@ -697,6 +720,10 @@ public class Filters {
                 else
                     return false;
             }
+            @Override
+            public boolean isCheapToEvaluate() {
+                return true;
+            }
         };
     }
 
@@ -3477,7 +3504,7 @@ public class Filters {
 
                 PhysicalCard source = gameState.findCardByPermanentId(permSourceCardId);
 
-                Collection<PhysicalCard> cards = new HashSet<PhysicalCard>();
+                Collection<PhysicalCard> cards = new LinkedHashSet<PhysicalCard>();
                 cards.addAll(filterActive(gameState.getGame(), source, spotOverrides, Filters.and(Filters.or(Filters.starship, Filters.vehicle), filters)));
                 Filter filterToUse = Filters.or(filters, Filters.hasPermanentAboard(filters), Filters.hasPermanentWeapon(filters));
                 cards.addAll(modifiersQuerying.getLocationsHere(gameState, filterActive(gameState.getGame(), source, spotOverrides, filterToUse)));
@@ -14801,12 +14828,24 @@ public class Filters {
 
     // Gets a filter that represents cards that meet ALL of the specified filters.
     public static Filter and(final Filterable... filters) {
+        if (filters.length == 1)
+            return changeToFilter(filters[0]);
+
+        if (isInternable(filters))
+            return getInternedFilter(_internedAndFilterMap, filters, true);
+
         Filter[] filtersInt = convertToFilters(filters);
         return andInternal(filtersInt);
     }
 
     // Gets a filter that represents cards that meet ANY of the specified filters.
     public static Filter or(final Filterable... filters) {
+        if (filters.length == 1)
+            return changeToFilter(filters[0]);
+
+        if (isInternable(filters))
+            return getInternedFilter(_internedOrFilterMap, filters, false);
+
         Filter[] filtersInt = convertToFilters(filters);
         return orInternal(filtersInt);
     }
@@ -14948,6 +14987,10 @@ public class Filters {
                 }
                 return false;
             }
+            @Override
+            public boolean isCheapToEvaluate() {
+                return true;
+            }
         };
     }
 
@@ -15106,7 +15149,7 @@ public class Filters {
     public static boolean canSpot(Collection<? extends PhysicalCard> cards, SwccgGame game, int count, boolean useAcceptsCount, Filterable filters) {
         GameState gameState = game.getGameState();
         ModifiersQuerying modifiersQuerying = game.getModifiersQuerying();
-        Set<PhysicalCard> result = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> result = new LinkedHashSet<PhysicalCard>();
         int totalCount = 0;
         for (PhysicalCard card : cards) {
             if (totalCount >= count)
@@ -15194,7 +15237,7 @@ public class Filters {
     public static boolean canSpot(Collection<? extends PhysicalCard> cards, SwccgGame game, PhysicalCard source, int count, boolean useAcceptsCount, Map<TargetingReason, Filterable> targetFiltersMap) {
         GameState gameState = game.getGameState();
         ModifiersQuerying modifiersQuerying = game.getModifiersQuerying();
-        Set<PhysicalCard> result = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> result = new LinkedHashSet<PhysicalCard>();
         int totalCount = 0;
         for (TargetingReason targetingReason : targetFiltersMap.keySet()) {
             Filter filter = Filters.and(targetFiltersMap.get(targetingReason));
@@ -15707,7 +15750,7 @@ public class Filters {
      */
     public static boolean canSpot(SwccgGame game, PhysicalCard source, int count, boolean useAcceptsCount, Filterable filters) {
         SpotCountFilterCardInPlayVisitor visitor = new SpotCountFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), count, useAcceptsCount, convertToFilters(filters));
-        return game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null);
+        return game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null, visitor.getRequiredCardCategory());
     }
 
     /**
@@ -15772,7 +15815,7 @@ public class Filters {
      */
     public static boolean canSpot(SwccgGame game, PhysicalCard source, int count, boolean useAcceptsCount, Map<InactiveReason, Boolean> spotOverrides, Filterable filters) {
         SpotCountFilterCardInPlayVisitor visitor = new SpotCountFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), count, useAcceptsCount, convertToFilters(filters));
-        return game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null);
+        return game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null, visitor.getRequiredCardCategory());
     }
 
     /**
@@ -16116,7 +16159,7 @@ public class Filters {
     public static boolean canSpot(SwccgGame game, PhysicalCard source, int count, boolean useAcceptsCount,
                                   Map<InactiveReason, Boolean> spotOverrides, Map<TargetingReason, Filterable> targetFiltersMap) {
         SpotCountFilterCardInPlayVisitor visitor = new SpotCountFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), count, useAcceptsCount, convertToFilters(targetFiltersMap.values().toArray(new Filterable[targetFiltersMap.values().size()])));
-        return game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap);
+        return game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap, visitor.getRequiredCardCategory());
     }
 
     /**
@@ -16146,7 +16189,7 @@ public class Filters {
      */
     public static PhysicalCard findFirstActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount, Filterable filters) {
         SpotFilterCardInPlayVisitor visitor = new SpotFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null, visitor.getRequiredCardCategory());
         return visitor.getCard();
     }
 
@@ -16181,7 +16224,7 @@ public class Filters {
     public static PhysicalCard findFirstActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount,
                                                Map<InactiveReason, Boolean> spotOverrides, Filterable filters) {
         SpotFilterCardInPlayVisitor visitor = new SpotFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null, visitor.getRequiredCardCategory());
         return visitor.getCard();
     }
 
@@ -16352,7 +16395,7 @@ public class Filters {
     public static PhysicalCard findFirstActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount,
                                                Map<InactiveReason, Boolean> spotOverrides, Map<TargetingReason, Filterable> targetFiltersMap) {
         SpotFilterCardInPlayVisitor visitor = new SpotFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(targetFiltersMap.values().toArray(new Filterable[targetFiltersMap.values().size()])));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap, visitor.getRequiredCardCategory());
         return visitor.getCard();
     }
 
@@ -16383,7 +16426,7 @@ public class Filters {
      */
     public static Collection<PhysicalCard> filterActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null, visitor.getRequiredCardCategory());
         return visitor.getPhysicalCards();
     }
 
@@ -16418,7 +16461,7 @@ public class Filters {
     public static Collection<PhysicalCard> filterActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount,
                                                         Map<InactiveReason, Boolean> spotOverrides, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null, visitor.getRequiredCardCategory());
         return visitor.getPhysicalCards();
     }
 
@@ -16589,7 +16632,7 @@ public class Filters {
     public static Collection<PhysicalCard> filterActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount,
                                                         Map<InactiveReason, Boolean> spotOverrides, Map<TargetingReason, Filterable> targetFiltersMap) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(targetFiltersMap.values().toArray(new Filterable[targetFiltersMap.values().size()])));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap, visitor.getRequiredCardCategory());
         return visitor.getPhysicalCards();
     }
 
@@ -16620,7 +16663,7 @@ public class Filters {
      */
     public static int countActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, null, null, visitor.getRequiredCardCategory());
         return visitor.getCounter();
     }
 
@@ -16655,7 +16698,7 @@ public class Filters {
     public static int countActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount,
                                   Map<InactiveReason, Boolean> spotOverrides, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, null, visitor.getRequiredCardCategory());
         return visitor.getCounter();
     }
 
@@ -16824,7 +16867,7 @@ public class Filters {
     public static int countActive(SwccgGame game, PhysicalCard source, boolean useAcceptsCount,
                                   Map<InactiveReason, Boolean> spotOverrides, Map<TargetingReason, Filterable> targetFiltersMap) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(targetFiltersMap.values().toArray(new Filterable[targetFiltersMap.values().size()])));
-        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap);
+        game.getGameState().iterateActiveCards(visitor, game.getModifiersQuerying(), source, spotOverrides, targetFiltersMap, visitor.getRequiredCardCategory());
         return visitor.getCounter();
     }
 
@@ -16985,7 +17028,7 @@ public class Filters {
      */
     public static boolean canSpotFromAllOnTable(SwccgGame game, boolean useAcceptsCount, Filterable filters) {
         SpotFilterCardInPlayVisitor visitor = new SpotFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        return game.getGameState().iterateAllCardsOnTable(visitor, false, false, false);
+        return game.getGameState().iterateAllCardsOnTable(visitor, false, false, false, visitor.getRequiredCardCategory());
     }
 
     /**
@@ -17011,7 +17054,7 @@ public class Filters {
      */
     public static boolean canSpotFromAllOnTable(SwccgGame game, int count, boolean useAcceptsCount, Filterable filters) {
         SpotCountFilterCardInPlayVisitor visitor = new SpotCountFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), count, useAcceptsCount, convertToFilters(filters));
-        return game.getGameState().iterateAllCardsOnTable(visitor, false, false, false);
+        return game.getGameState().iterateAllCardsOnTable(visitor, false, false, false, visitor.getRequiredCardCategory());
     }
 
     /**
@@ -17035,7 +17078,7 @@ public class Filters {
      */
     public static PhysicalCard findFirstFromAllOnTable(SwccgGame game, boolean useAcceptsCount, Filterable filters) {
         SpotFilterCardInPlayVisitor visitor = new SpotFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateAllCardsOnTable(visitor, false, false, false);
+        game.getGameState().iterateAllCardsOnTable(visitor, false, false, false, visitor.getRequiredCardCategory());
         return visitor.getCard();
     }
 
@@ -17060,7 +17103,7 @@ public class Filters {
      */
     public static Collection<PhysicalCard> filterAllOnTable(SwccgGame game, boolean useAcceptsCount, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateAllCardsOnTable(visitor, false, false, false);
+        game.getGameState().iterateAllCardsOnTable(visitor, false, false, false, visitor.getRequiredCardCategory());
         return visitor.getPhysicalCards();
     }
 
@@ -17085,7 +17128,7 @@ public class Filters {
      */
     public static int countAllOnTable(SwccgGame game, boolean useAcceptsCount, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), useAcceptsCount, convertToFilters(filters));
-        game.getGameState().iterateAllCardsOnTable(visitor, false, false, false);
+        game.getGameState().iterateAllCardsOnTable(visitor, false, false, false, visitor.getRequiredCardCategory());
         return visitor.getCounter();
     }
 
@@ -17314,7 +17357,7 @@ public class Filters {
      */
     public static boolean canSpotForUniquenessChecking(SwccgGame game, Filterable filters) {
         SpotFilterCardInPlayVisitor visitor = new SpotFilterCardInPlayVisitor(game.getGameState(), game.getModifiersQuerying(), false, convertToFilters(filters));
-        return game.getGameState().iterateAllCardsOnTable(visitor, true, true, false);
+        return game.getGameState().iterateAllCardsOnTable(visitor, true, true, false, visitor.getRequiredCardCategory());
     }
 
     /**
@@ -17326,7 +17369,7 @@ public class Filters {
      */
     public static Collection<PhysicalCard> filterForUniquenessChecking(SwccgGame game, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), false, convertToFilters(filters));
-        game.getGameState().iterateAllCardsOnTable(visitor, true, true, false);
+        game.getGameState().iterateAllCardsOnTable(visitor, true, true, false, visitor.getRequiredCardCategory());
         return visitor.getPhysicalCards();
     }
 
@@ -17339,7 +17382,7 @@ public class Filters {
      */
     public static int countForUniquenessChecking(SwccgGame game, Filterable filters) {
         GetCardsMatchingFilterVisitor visitor = new GetCardsMatchingFilterVisitor(game.getGameState(), game.getModifiersQuerying(), false, convertToFilters(filters));
-        game.getGameState().iterateAllCardsOnTable(visitor, true, true, false);
+        game.getGameState().iterateAllCardsOnTable(visitor, true, true, false, visitor.getRequiredCardCategory());
         return visitor.getCounter();
     }
 
@@ -17355,11 +17398,97 @@ public class Filters {
         return filtersInt;
     }
 
-    private static Filter andInternal(final Filter... filters) {
-        return new Filter() {
+    /**
+     * Determines if the AND or OR filter of the specified filterables can be interned. This is only the case if each
+     * filterable is a value that always maps to the same filter (such as a card category or an icon), or is itself an
+     * interned filter, so the number of interned filters is limited by the combinations used in the code.
+     *
+     * @param filters the filterables
+     * @return true or false
+     */
+    private static boolean isInternable(Filterable[] filters) {
+        if (filters.length == 0)
+            return false;
+        for (Filterable filter : filters) {
+            if (!(filter instanceof Enum)
+                    && !(filter instanceof CompositeFilter && ((CompositeFilter) filter).isInterned()))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gets the interned AND or OR filter of the specified filterables, creating it if it does not exist yet.
+     *
+     * @param internedFilterMap the map of interned filters
+     * @param filters the filterables
+     * @param isAnd true if AND filter, false if OR filter
+     * @return Filter
+     */
+    private static Filter getInternedFilter(ConcurrentMap<List<Filterable>, Filter> internedFilterMap, Filterable[] filters, boolean isAnd) {
+        List<Filterable> key = Arrays.asList(filters);
+        Filter filter = internedFilterMap.get(key);
+        if (filter == null) {
+            Filter[] filtersInt = convertToFilters(filters);
+            CompositeFilter newFilter = isAnd ? andInternal(filtersInt) : orInternal(filtersInt);
+            newFilter.setInterned();
+            filter = internedFilterMap.putIfAbsent(new ArrayList<Filterable>(key), newFilter);
+            if (filter == null) {
+                filter = newFilter;
+            }
+        }
+        return filter;
+    }
+
+    /**
+     * Gets the filters that make up an AND or OR filter. Filters of the same kind are flattened into their filters, so
+     * for example and(a, and(b, c)) is made up of a, b, and c.
+     *
+     * @param filters the filters
+     * @param isAnd true if AND filter, false if OR filter
+     * @return the flattened filters
+     */
+    private static Filter[] flattenFilters(Filter[] filters, boolean isAnd) {
+        boolean needsFlattening = false;
+        for (Filter filter : filters) {
+            if (filter instanceof CompositeFilter && ((CompositeFilter) filter).isAnd() == isAnd) {
+                needsFlattening = true;
+                break;
+            }
+        }
+        if (!needsFlattening)
+            return filters;
+
+        List<Filter> flattened = new ArrayList<Filter>();
+        for (Filter filter : filters) {
+            if (filter instanceof CompositeFilter && ((CompositeFilter) filter).isAnd() == isAnd)
+                flattened.addAll(Arrays.asList(((CompositeFilter) filter).getFilters()));
+            else
+                flattened.add(filter);
+        }
+        return flattened.toArray(new Filter[flattened.size()]);
+    }
+
+    private static CompositeFilter andInternal(final Filter... filters) {
+        Filter[] flattened = flattenFilters(filters, true);
+
+        // Check the filters that are cheap to evaluate first, and the other filters after them in their original order.
+        // This is safe because cheap filters have no side effects and no preconditions (see Filter.isCheapToEvaluate):
+        // checking one earlier cannot change what another filter sees, nor can it fail on a card that a filter before
+        // it would have rejected, so the result of the AND is the same.
+        List<Filter> ordered = new ArrayList<Filter>(flattened.length);
+        for (Filter filter : flattened) {
+            if (filter.isCheapToEvaluate())
+                ordered.add(filter);
+        }
+        for (Filter filter : flattened) {
+            if (!filter.isCheapToEvaluate())
+                ordered.add(filter);
+        }
+        return new CompositeFilter(ordered.toArray(new Filter[ordered.size()]), true) {
             @Override
             public boolean accepts(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (!filter.accepts(gameState, modifiersQuerying, physicalCard))
                         return false;
                 }
@@ -17367,7 +17496,7 @@ public class Filters {
             }
             @Override
             public boolean accepts(GameState gameState, ModifiersQuerying modifiersQuerying, SwccgBuiltInCardBlueprint builtInCardBlueprint) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (!filter.accepts(gameState, modifiersQuerying, builtInCardBlueprint))
                         return false;
                 }
@@ -17375,7 +17504,7 @@ public class Filters {
             }
             @Override
             public boolean acceptsIgnoringOwner(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (!filter.acceptsIgnoringOwner(gameState, modifiersQuerying, physicalCard))
                         return false;
                 }
@@ -17383,7 +17512,7 @@ public class Filters {
             }
             @Override
             public boolean acceptsSingleModelType(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard, ModelType modelTypeToCheck) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (!filter.acceptsSingleModelType(gameState, modifiersQuerying, physicalCard, modelTypeToCheck))
                         return false;
                 }
@@ -17392,7 +17521,7 @@ public class Filters {
             @Override
             public int acceptsCount(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
                 int count = 0;
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     int curCount = filter.acceptsCount(gameState, modifiersQuerying, physicalCard);
                     if (curCount == 0) {
                         return 0;
@@ -17401,14 +17530,24 @@ public class Filters {
                 }
                 return count;
             }
+            @Override
+            public CardCategory getRequiredCardCategory() {
+                // Accepted cards must be in the card category required by any of the filters
+                for (Filter filter : _filters) {
+                    CardCategory cardCategory = filter.getRequiredCardCategory();
+                    if (cardCategory != null)
+                        return cardCategory;
+                }
+                return null;
+            }
         };
     }
 
-    private static Filter orInternal(final Filter... filters) {
-        return new Filter() {
+    private static CompositeFilter orInternal(final Filter... filters) {
+        return new CompositeFilter(flattenFilters(filters, false), false) {
             @Override
             public boolean accepts(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (filter.accepts(gameState, modifiersQuerying, physicalCard))
                         return true;
                 }
@@ -17416,7 +17555,7 @@ public class Filters {
             }
             @Override
             public boolean accepts(GameState gameState, ModifiersQuerying modifiersQuerying, SwccgBuiltInCardBlueprint builtInCardBlueprint) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (filter.accepts(gameState, modifiersQuerying, builtInCardBlueprint))
                         return true;
                 }
@@ -17424,7 +17563,7 @@ public class Filters {
             }
             @Override
             public boolean acceptsIgnoringOwner(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (filter.acceptsIgnoringOwner(gameState, modifiersQuerying, physicalCard))
                         return true;
                 }
@@ -17432,7 +17571,7 @@ public class Filters {
             }
             @Override
             public boolean acceptsSingleModelType(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard, ModelType modelTypeToCheck) {
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     if (filter.acceptsSingleModelType(gameState, modifiersQuerying, physicalCard, modelTypeToCheck))
                         return true;
                 }
@@ -17441,14 +17580,79 @@ public class Filters {
             @Override
             public int acceptsCount(GameState gameState, ModifiersQuerying modifiersQuerying, PhysicalCard physicalCard) {
                 int count = 0;
-                for (Filter filter : filters) {
+                for (Filter filter : _filters) {
                     count = Math.max(count, filter.acceptsCount(gameState, modifiersQuerying, physicalCard));
                 }
                 return count;
             }
+            @Override
+            public CardCategory getRequiredCardCategory() {
+                return Filters.getRequiredCardCategory(_filters);
+            }
         };
     }
 
+    /**
+     * An AND or OR filter made up of other filters.
+     */
+    private static abstract class CompositeFilter extends Filter {
+        protected final Filter[] _filters;
+        private final boolean _isAnd;
+        private final boolean _cheapToEvaluate;
+        private volatile boolean _interned;
+
+        private CompositeFilter(Filter[] filters, boolean isAnd) {
+            _filters = filters;
+            _isAnd = isAnd;
+            boolean cheapToEvaluate = true;
+            for (Filter filter : filters) {
+                if (!filter.isCheapToEvaluate()) {
+                    cheapToEvaluate = false;
+                    break;
+                }
+            }
+            _cheapToEvaluate = cheapToEvaluate;
+        }
+
+        private Filter[] getFilters() {
+            return _filters;
+        }
+
+        private boolean isAnd() {
+            return _isAnd;
+        }
+
+        private boolean isInterned() {
+            return _interned;
+        }
+
+        private void setInterned() {
+            _interned = true;
+        }
+
+        @Override
+        public boolean isCheapToEvaluate() {
+            return _cheapToEvaluate;
+        }
+    }
+
+    /**
+     * Gets the card category that each card accepted by any of the specified filters is in.
+     *
+     * @param filters the filters
+     * @return the card category, or null if the filters do not all require the same card category
+     */
+    private static CardCategory getRequiredCardCategory(Filter[] filters) {
+        CardCategory requiredCardCategory = null;
+        for (Filter filter : filters) {
+            CardCategory cardCategory = filter.getRequiredCardCategory();
+            if (cardCategory == null || (requiredCardCategory != null && requiredCardCategory != cardCategory))
+                return null;
+            requiredCardCategory = cardCategory;
+        }
+        return requiredCardCategory;
+    }
+
     /**
      * Checks if a piece of text contains a specified word or phrase.
      *
@@ -19293,6 +19497,10 @@ public class Filters {
         public PhysicalCard getCard() {
             return _card;
         }
+
+        public CardCategory getRequiredCardCategory() {
+            return Filters.getRequiredCardCategory(_filter);
+        }
     }
 
     private static class SpotCountFilterCardInPlayVisitor implements PhysicalCardVisitor {
@@ -19340,6 +19548,10 @@ public class Filters {
         public int getCounter() {
             return _spottedCount;
         }
+
+        public CardCategory getRequiredCardCategory() {
+            return Filters.getRequiredCardCategory(_filter);
+        }
     }
 
     private static class GetCardsMatchingFilterVisitor extends CompletePhysicalCardVisitor {
@@ -19385,5 +19597,9 @@ public class Filters {
         public List<PhysicalCard> getPhysicalCards() {
             return _physicalCards;
         }
+
+        public CardCategory getRequiredCardCategory() {
+            return Filters.getRequiredCardCategory(_filter);
+        }
     }
 }
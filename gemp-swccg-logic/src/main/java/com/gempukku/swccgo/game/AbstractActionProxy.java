@@ -4,7 +4,11 @@ import com.gempukku.swccgo.logic.actions.TriggerAction;
 import com.gempukku.swccgo.logic.timing.Effect;
 import com.gempukku.swccgo.logic.timing.EffectResult;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * This abstract class represents a proxy object that will implement triggers that are not attached to a specific "active"
@@ -13,6 +17,21 @@ import java.util.List;
  * the actions is no longer in play when the action needs to happen.
  */
 public abstract class AbstractActionProxy implements ActionProxy {
+    private Set<EffectResult.Type> _afterTriggerEffectResultTypes;
+
+    /**
+     * Creates an action proxy that may have trigger actions after effect results of any type.
+     */
+    public AbstractActionProxy() {
+    }
+
+    /**
+     * Creates an action proxy that only has trigger actions after effect results of the specified types.
+     * @param afterTriggerEffectResultTypes the effect result types
+     */
+    public AbstractActionProxy(EffectResult.Type... afterTriggerEffectResultTypes) {
+        _afterTriggerEffectResultTypes = Collections.unmodifiableSet(EnumSet.copyOf(Arrays.asList(afterTriggerEffectResultTypes)));
+    }
 
     @Override
     public List<TriggerAction> getRequiredBeforeTriggers(SwccgGame game, Effect effect) {
@@ -28,4 +47,9 @@ public abstract class AbstractActionProxy implements ActionProxy {
     public List<TriggerAction> getOptionalAfterTriggers(String playerId, SwccgGame game, EffectResult effectResult) {
         return null;
     }
+
+    @Override
+    public Set<EffectResult.Type> getAfterTriggerEffectResultTypes() {
+        return _afterTriggerEffectResultTypes;
+    }
 }
@@ -5,6 +5,7 @@ import com.gempukku.swccgo.logic.timing.Effect;
 import com.gempukku.swccgo.logic.timing.EffectResult;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * This interface represents a proxy object that will implement triggers that are not attached to a specific "active" card
@@ -37,4 +38,11 @@ public interface ActionProxy {
      * @return the trigger actions
      */
     List<TriggerAction> getOptionalAfterTriggers(String playerId, SwccgGame game, EffectResult effectResult);
+
+    /**
+     * Gets the types of effect results that this proxy may have trigger actions for after. The proxy is not asked for
+     * trigger actions after effect results of other types.
+     * @return the effect result types, or null if this proxy may have trigger actions after effect results of any type
+     */
+    Set<EffectResult.Type> getAfterTriggerEffectResultTypes();
 }
@@ -10,6 +10,7 @@ import com.gempukku.swccgo.logic.modifiers.Modifier;
 import com.gempukku.swccgo.logic.modifiers.ModifierHook;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 
+import java.io.Serializable;
 import java.util.*;
 
 // This class is the implementation of a PhysicalCard.
@@ -17,10 +18,10 @@ import java.util.*;
 // Methods implemented by this class allow the state information
 // for the physical card to be set or retrieved.
 //
-public class PhysicalCardImpl implements PhysicalCard, Cloneable {
+public class PhysicalCardImpl implements PhysicalCard, Cloneable, Serializable {
     private int _permanentCardId;
     private int _cardId;
-    private List<Integer> _additionalCardIds = new LinkedList<Integer>();
+    private List<Integer> _additionalCardIds;
     private String _frontBlueprintId;
     private String _backBlueprintId;
     private SwccgCardBlueprint _frontBlueprint;
@@ -58,14 +59,14 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
     private boolean _isHit;
     private boolean _damaged;
     private boolean _disarmed;
-    private Set<IonizationType> _ionization = new HashSet<IonizationType>();
+    private Set<IonizationType> _ionization = EnumSet.noneOf(IonizationType.class);
     private boolean _gameTextCanceled;
     private boolean _suspended;
     private boolean _binaryOff;
     private boolean _mouthClosed;
-    private Set<String> _gameTextCanceledForPlayer = new HashSet<String>();
-    private Map<Side, Integer> _gameTextExpandedToSideFromCardId = new HashMap<Side, Integer>();
-    private Map<Side, Side> _gameTextExpandedToSideFromSide = new HashMap<Side, Side>();
+    private Set<String> _gameTextCanceledForPlayer;
+    private Map<Side, Integer> _gameTextExpandedToSideFromCardId = new EnumMap<Side, Integer>(Side.class);
+    private Map<Side, Side> _gameTextExpandedToSideFromSide = new EnumMap<Side, Side>(Side.class);
     private float _latestInPlayForfeitValue;
     private boolean _isCrashed;
     private boolean _isConcealed;
@@ -96,8 +97,8 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
     private boolean _previouslyArmedWithLightsaber;
     private boolean _previouslyHit;
     private boolean _previouslyCanceledGameText;
-    private Collection<PhysicalCard> _cardsPreviouslyAttached = new LinkedList<PhysicalCard>();
-    private List<ModifierHook> _modifierHooks = new LinkedList<ModifierHook>();
+    private Collection<PhysicalCard> _cardsPreviouslyAttached;
+    private List<ModifierHook> _modifierHooks;
     private WhileInPlayData _whileInPlayData;
     private boolean _leavingTable;
     private JediTestStatus _jediTestStatus;
@@ -133,7 +134,9 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
         // Set each field
         snapshot._permanentCardId = _permanentCardId;
         snapshot._cardId = _cardId;
-        snapshot._additionalCardIds.addAll(_additionalCardIds);
+        if (_additionalCardIds != null) {
+            snapshot._additionalCardIds = new ArrayList<Integer>(_additionalCardIds);
+        }
         snapshot._frontBlueprintId = _frontBlueprintId;
         snapshot._backBlueprintId = _backBlueprintId;
         snapshot._frontBlueprint = _frontBlueprint;
@@ -182,7 +185,9 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
         snapshot._suspended = _suspended;
         snapshot._binaryOff = _binaryOff;
         snapshot._mouthClosed = _mouthClosed;
-        snapshot._gameTextCanceledForPlayer.addAll(_gameTextCanceledForPlayer);
+        if (_gameTextCanceledForPlayer != null) {
+            snapshot._gameTextCanceledForPlayer = new HashSet<String>(_gameTextCanceledForPlayer);
+        }
         snapshot._gameTextExpandedToSideFromCardId.putAll(_gameTextExpandedToSideFromCardId);
         snapshot._gameTextExpandedToSideFromSide.putAll(_gameTextExpandedToSideFromSide);
         snapshot._latestInPlayForfeitValue = _latestInPlayForfeitValue;
@@ -213,11 +218,17 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
         snapshot._previouslyArmedWithLightsaber = _previouslyArmedWithLightsaber;
         snapshot._previouslyHit = _previouslyHit;
         snapshot._previouslyCanceledGameText = _previouslyCanceledGameText;
-        for (PhysicalCard card : _cardsPreviouslyAttached) {
-            snapshot._cardsPreviouslyAttached.add(snapshotData.getDataForSnapshot(card));
+        if (_cardsPreviouslyAttached != null) {
+            snapshot._cardsPreviouslyAttached = new ArrayList<PhysicalCard>(_cardsPreviouslyAttached.size());
+            for (PhysicalCard card : _cardsPreviouslyAttached) {
+                snapshot._cardsPreviouslyAttached.add(snapshotData.getDataForSnapshot(card));
+            }
         }
-        for (ModifierHook modifierHook : _modifierHooks) {
-            snapshot._modifierHooks.add(snapshotData.getDataForSnapshot(modifierHook));
+        if (_modifierHooks != null) {
+            snapshot._modifierHooks = new ArrayList<ModifierHook>(_modifierHooks.size());
+            for (ModifierHook modifierHook : _modifierHooks) {
+                snapshot._modifierHooks.add(snapshotData.getDataForSnapshot(modifierHook));
+            }
         }
         snapshot._whileInPlayData = snapshotData.getDataForSnapshot(_whileInPlayData);
         snapshot._leavingTable = _leavingTable;
@@ -421,16 +432,21 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
             modifiers = blueprint.getWhileInPlayModifiers(game, this);
 
         for (Modifier modifier : modifiers) {
+            if (_modifierHooks == null) {
+                _modifierHooks = new ArrayList<ModifierHook>(modifiers.size());
+            }
             _modifierHooks.add(game.getModifiersEnvironment().addAlwaysOnModifier(modifier));
         }
     }
 
     @Override
     public void stopAffectingGame() {
-        for (ModifierHook modifierHook : _modifierHooks) {
-            modifierHook.stop();
+        if (_modifierHooks != null) {
+            for (ModifierHook modifierHook : _modifierHooks) {
+                modifierHook.stop();
+            }
+            _modifierHooks = null;
         }
-        _modifierHooks.clear();
     }
 
     @Override
@@ -455,9 +471,11 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
      */
     @Override
     public void setAdditionalCardIds(List<Integer> cardIds) {
-        _additionalCardIds.clear();
-        if (cardIds != null) {
-            _additionalCardIds.addAll(cardIds);
+        if (cardIds != null && !cardIds.isEmpty()) {
+            _additionalCardIds = new ArrayList<Integer>(cardIds);
+        }
+        else {
+            _additionalCardIds = null;
         }
     }
 
@@ -468,7 +486,7 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
      */
     @Override
     public List<Integer> getAdditionalCardIds() {
-        return _additionalCardIds;
+        return _additionalCardIds != null ? _additionalCardIds : Collections.<Integer>emptyList();
     }
 
     @Override
@@ -624,7 +642,7 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
         _previousCardState = game.getModifiersQuerying().getCardState(game.getGameState(), this, false, false, false, false, false, false, false, false);
 
         if (!_zone.isInPlay()) {
-            _cardsPreviouslyAttached.clear();
+            _cardsPreviouslyAttached = null;
             _previouslyArmedWithLightsaber = false;
             _previouslyHit = false;
             _previouslyCanceledGameText = false;
@@ -641,13 +659,13 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
         _previouslyCanceledGameText = game.getModifiersQuerying().isGameTextCanceled(game.getGameState(), this);
 
         // Remember the cards that are attached to this card
-        _cardsPreviouslyAttached.clear();
-        _cardsPreviouslyAttached.addAll(game.getGameState().getAttachedCards(this));
+        List<PhysicalCard> attachedCards = game.getGameState().getAttachedCards(this);
+        _cardsPreviouslyAttached = !attachedCards.isEmpty() ? new ArrayList<PhysicalCard>(attachedCards) : null;
     }
 
     @Override
     public Collection<PhysicalCard> getCardsPreviouslyAttached() {
-        return _cardsPreviouslyAttached;
+        return _cardsPreviouslyAttached != null ? _cardsPreviouslyAttached : Collections.<PhysicalCard>emptyList();
     }
 
     @Override
@@ -870,15 +888,20 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
 
     @Override
     public void setLocationGameTextCanceledForPlayer(boolean canceled, String playerId) {
-        if (canceled)
+        if (canceled) {
+            if (_gameTextCanceledForPlayer == null) {
+                _gameTextCanceledForPlayer = new HashSet<String>();
+            }
             _gameTextCanceledForPlayer.add(playerId);
-        else
+        }
+        else if (_gameTextCanceledForPlayer != null) {
             _gameTextCanceledForPlayer.remove(playerId);
+        }
     }
 
     @Override
     public boolean isLocationGameTextCanceledForPlayer(String playerId) {
-        return _gameTextCanceledForPlayer.contains(playerId);
+        return _gameTextCanceledForPlayer != null && _gameTextCanceledForPlayer.contains(playerId);
     }
 
     @Override
@@ -1506,8 +1529,13 @@ public class PhysicalCardImpl implements PhysicalCard, Cloneable {
         return super.equals(o);
     }
 
+    /**
+     * Gets the hash code, which is the permanent card id, so hash collections of cards iterate in the same order
+     * whenever the same game is played again from its random seed and decisions.
+     * @return the hash code
+     */
     @Override
     public int hashCode() {
-        return super.hashCode();
+        return _permanentCardId;
     }
 }
@@ -15,6 +15,7 @@ import com.gempukku.swccgo.logic.timing.GameStats;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 /**
@@ -238,6 +239,25 @@ public interface SwccgGame {
      */
     List<GameSnapshot> getSnapshots();
 
+    /**
+     * Gets the number of compressed bytes taken by the game snapshots that are frozen.
+     * @return the number of bytes
+     */
+    long getFrozenSnapshotBytes();
+
+    /**
+     * Gets the source of randomness for the game. All shuffles and random selections in the game must use this, so
+     * the game can be reproduced from its random seed and the decisions made.
+     * @return the source of randomness
+     */
+    Random getRandom();
+
+    /**
+     * Gets the seed used to create the source of randomness for the game.
+     * @return the random seed
+     */
+    long getRandomSeed();
+
     /**
      * Requests a game snapshot to be restored as current state of the game.
      * @param snapshotId the snapshot ID
@@ -7,6 +7,7 @@ import com.gempukku.swccgo.logic.modifiers.ModifiersQuerying;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -14,7 +15,7 @@ import java.util.List;
 /**
  * Represents a part of the location layout where the cards meeting a specified filter deploy.
  */
-public class LocationGroup implements Snapshotable<LocationGroup> {
+public class LocationGroup implements Snapshotable<LocationGroup>, Serializable {
 
     private String _humanReadable;
     // Filters for locations in this group
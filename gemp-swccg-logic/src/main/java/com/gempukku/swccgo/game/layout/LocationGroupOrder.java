@@ -2,13 +2,14 @@ package com.gempukku.swccgo.game.layout;
 
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.Collection;
 import java.util.List;
 
 /**
  * Represents the valid ordering of a collection of location groups.
  */
-public interface LocationGroupOrder extends Snapshotable<LocationGroupOrder> {
+public interface LocationGroupOrder extends Snapshotable<LocationGroupOrder>, Serializable {
 
     /**
      * Gets the default left-to-right arrangement of groups within this group order.
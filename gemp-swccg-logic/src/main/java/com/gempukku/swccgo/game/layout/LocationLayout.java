@@ -8,12 +8,13 @@ import com.gempukku.swccgo.game.SwccgGame;
 import com.gempukku.swccgo.logic.modifiers.ModifiersQuerying;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.List;
 
 /**
  * This class contains the layout information for a specific location layout.
  */
-public interface LocationLayout extends Snapshotable<LocationLayout> {
+public interface LocationLayout extends Snapshotable<LocationLayout>, Serializable {
 
     /**
      * Gets the top locations in order (left to right).
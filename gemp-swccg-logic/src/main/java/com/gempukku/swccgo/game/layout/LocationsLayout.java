@@ -13,12 +13,13 @@ import com.gempukku.swccgo.logic.modifiers.ModifiersQuerying;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
  * This class contains the layout information for the locations in the game.
  */
-public class LocationsLayout implements Snapshotable<LocationsLayout> {
+public class LocationsLayout implements Snapshotable<LocationsLayout>, Serializable {
     private LocationLayout _holositeLayout;
     private List<LocationLayout> _locationLayouts = new LinkedList<LocationLayout>();
 
@@ -6,12 +6,13 @@ import com.gempukku.swccgo.game.SwccgGame;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.*;
 
 // This class contains the state information for an
 // attack within a game of Gemp-Swccg.
 //
-public class AttackState implements Snapshotable<AttackState> {
+public class AttackState implements Snapshotable<AttackState>, Serializable {
     private SwccgGame _game;
     private String _playerInitiatedAttack;
     private PhysicalCard _location;
@@ -19,8 +20,8 @@ public class AttackState implements Snapshotable<AttackState> {
     private boolean _isCreatureAttackOnNonCreature;
     private boolean _isCreaturesAttackingEachOther;
     private boolean _isParasiteAttackOnNonCreature;
-    private Set<PhysicalCard> _attackingCards = new HashSet<>();
-    private Set<PhysicalCard> _defendingCards = new HashSet<>();
+    private Set<PhysicalCard> _attackingCards = new LinkedHashSet<>();
+    private Set<PhysicalCard> _defendingCards = new LinkedHashSet<>();
     private String _attackingCardsOwner;
     private String _defendingCardsOwner;
     private boolean _attackStarted;
@@ -31,7 +32,7 @@ public class AttackState implements Snapshotable<AttackState> {
     private Float _finalDefenderTotal;
     private boolean _attackerDefeated;
     private boolean _defenderDefeated;
-    private Map<PhysicalCard, Float> _totalCreatureFerocityDestiny = new HashMap<>();
+    private Map<PhysicalCard, Float> _totalCreatureFerocityDestiny = new LinkedHashMap<>();
     private Map<String, Float> _totalNonCreaturePlayerAttackDestiny = new HashMap<>();
 
     /**
@@ -10,11 +10,12 @@ import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 import com.gempukku.swccgo.logic.timing.actions.battle.BattleDamageSegmentAction;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -23,15 +24,15 @@ import java.util.Set;
 // This class contains the state information for a
 // battle within a game of Gemp-Swccg.
 //
-public class BattleState implements Snapshotable<BattleState> {
+public class BattleState implements Snapshotable<BattleState>, Serializable {
     private SwccgGame _game;
     private String _playerInitiatedBattle;
     private PhysicalCard _location;
     private boolean _isLocalTrouble;
     private boolean _isBesieged;
-    private Set<PhysicalCard> _localTroubleParticipants = new HashSet<PhysicalCard>();
-    private Set<PhysicalCard> _darkCardsParticipants = new HashSet<PhysicalCard>();
-    private Set<PhysicalCard> _lightCardsParticipants = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _localTroubleParticipants = new LinkedHashSet<PhysicalCard>();
+    private Set<PhysicalCard> _darkCardsParticipants = new LinkedHashSet<PhysicalCard>();
+    private Set<PhysicalCard> _lightCardsParticipants = new LinkedHashSet<PhysicalCard>();
     private boolean _battleStarted;
     private boolean _reachedPowerSegment;
     private boolean _baseAttritionCalculated;
@@ -0,0 +1,225 @@
+package com.gempukku.swccgo.game.state;
+
+import com.gempukku.swccgo.common.Zone;
+import com.gempukku.swccgo.logic.decisions.AwaitingDecision;
+import com.gempukku.swccgo.logic.timing.GameStats;
+import org.json.JSONWriter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Serializes game events to a compact JSON encoding, as an alternative to the XML produced by EventSerializer for
+ * clients that request it. Only the fields that are set are written, each field uses a short code, and numbers and
+ * booleans are written as JSON values instead of strings. Game stats are written as numbers rounded up to one decimal,
+ * the same way they are shown on the table.
+ * It is used for the responses to clients that send "Accept: application/json", as the web client does when requesting
+ * game events.
+ *
+ * Field codes of a game event:
+ * t = type, b = blueprintId, tt = testingText, bt = backSideTestingText, c = cardId, i = index, zo = zoneOwnerId,
+ * sn = systemName, l = locationIndex, ls = locationIndexes, p = participantId, ps = allParticipantIds, ph = phase,
+ * tc = targetCardId, z = zone, iv = inverted, sw = sideways, fr = frozen, su = suspended, co = collapsed, n = count,
+ * dt = destinyText, pa = playerAttacking, pd = playerDefending, o = otherCardIds, o2 = otherCardIds2, m = message,
+ * gs = game stats, d = decision.
+ *
+ * Field codes of a decision: id = id, ty = decisionType, tx = text, pm = parameters (each parameter name mapped to its
+ * list of values).
+ *
+ * Field codes of game stats use the initial of each word of the XML attribute name (e.g. dfg = darkForceGeneration),
+ * along with zs = zone sizes of each player, dpl = darkPowerAtLocations and lpl = lightPowerAtLocations.
+ */
+public class CompactEventSerializer {
+
+    /**
+     * Serializes the game event as a JSON object, as the next value of the JSON writer.
+     * @param writer the JSON writer
+     * @param gameEvent the game event
+     */
+    public void serializeEvent(JSONWriter writer, GameEvent gameEvent) {
+        writer.object();
+        writer.key("t").value(gameEvent.getType().name());
+        if (gameEvent.getBlueprintId() != null)
+            writer.key("b").value(gameEvent.getBlueprintId());
+        if (gameEvent.getTestingText() != null)
+            writer.key("tt").value(gameEvent.getTestingText());
+        if (gameEvent.getBackSideTestingText() != null)
+            writer.key("bt").value(gameEvent.getBackSideTestingText());
+        if (gameEvent.getCardId() != null)
+            writer.key("c").value(gameEvent.getCardId());
+        if (gameEvent.getIndex() != null)
+            writer.key("i").value(gameEvent.getIndex());
+        if (gameEvent.getZoneOwnerId() != null)
+            writer.key("zo").value(gameEvent.getZoneOwnerId());
+        if (gameEvent.getSystemName() != null)
+            writer.key("sn").value(gameEvent.getSystemName());
+        if (gameEvent.getLocationIndex() != null)
+            writer.key("l").value(gameEvent.getLocationIndex());
+        if (gameEvent.getLocationIndexes() != null) {
+            writer.key("ls");
+            serializeValues(writer, gameEvent.getLocationIndexes());
+        }
+        if (gameEvent.getParticipantId() != null)
+            writer.key("p").value(gameEvent.getParticipantId());
+        if (gameEvent.getAllParticipantIds() != null) {
+            writer.key("ps");
+            serializeValues(writer, gameEvent.getAllParticipantIds());
+        }
+        if (gameEvent.getPhase() != null)
+            writer.key("ph").value(gameEvent.getPhase());
+        if (gameEvent.getTargetCardId() != null)
+            writer.key("tc").value(gameEvent.getTargetCardId());
+        if (gameEvent.getZone() != null)
+            writer.key("z").value(gameEvent.getZone().name());
+        if (gameEvent.isInverted() != null)
+            writer.key("iv").value(gameEvent.isInverted());
+        if (gameEvent.isSideways() != null)
+            writer.key("sw").value(gameEvent.isSideways());
+        if (gameEvent.isFrozen() != null)
+            writer.key("fr").value(gameEvent.isFrozen());
+        if (gameEvent.isSuspendedOrTurnedOff() != null)
+            writer.key("su").value(gameEvent.isSuspendedOrTurnedOff());
+        if (gameEvent.isCollapsed() != null)
+            writer.key("co").value(gameEvent.isCollapsed());
+        if (gameEvent.getCount() != null)
+            writer.key("n").value(gameEvent.getCount());
+        if (gameEvent.getDestinyText() != null)
+            writer.key("dt").value(gameEvent.getDestinyText());
+        if (gameEvent.getPlayerAttacking() != null)
+            writer.key("pa").value(gameEvent.getPlayerAttacking());
+        if (gameEvent.getPlayerDefending() != null)
+            writer.key("pd").value(gameEvent.getPlayerDefending());
+        if (gameEvent.getOtherCardIds() != null) {
+            writer.key("o");
+            serializeValues(writer, gameEvent.getOtherCardIds());
+        }
+        if (gameEvent.getOtherCardIds2() != null) {
+            writer.key("o2");
+            serializeValues(writer, gameEvent.getOtherCardIds2());
+        }
+        if (gameEvent.getMessage() != null)
+            writer.key("m").value(gameEvent.getMessage());
+        if (gameEvent.getGameStats() != null) {
+            writer.key("gs");
+            serializeGameStats(writer, gameEvent.getGameStats());
+        }
+        if (gameEvent.getAwaitingDecision() != null) {
+            writer.key("d");
+            serializeDecision(writer, gameEvent.getAwaitingDecision());
+        }
+        writer.endObject();
+    }
+
+    private void serializeGameStats(JSONWriter writer, GameStats gameStats) {
+        writer.object();
+        writer.key("dfg").value(toTableNumber(gameStats.getDarkForceGeneration()));
+        writer.key("lfg").value(toTableNumber(gameStats.getLightForceGeneration()));
+        writer.key("dbp").value(toTableNumber(gameStats.getDarkBattlePower()));
+        writer.key("lbp").value(toTableNumber(gameStats.getLightBattlePower()));
+        writer.key("dbndtp").value(gameStats.getDarkBattleNumDestinyToPower());
+        writer.key("lbndtp").value(gameStats.getLightBattleNumDestinyToPower());
+        writer.key("dbnbd").value(gameStats.getDarkBattleNumBattleDestiny());
+        writer.key("lbnbd").value(gameStats.getLightBattleNumBattleDestiny());
+        writer.key("dbndta").value(gameStats.getDarkBattleNumDestinyToAttrition());
+        writer.key("lbndta").value(gameStats.getLightBattleNumDestinyToAttrition());
+        writer.key("dbdr").value(toTableNumber(gameStats.getDarkBattleDamageRemaining()));
+        writer.key("lbdr").value(toTableNumber(gameStats.getLightBattleDamageRemaining()));
+        writer.key("dbar").value(toTableNumber(gameStats.getDarkBattleAttritionRemaining()));
+        writer.key("lbar").value(toTableNumber(gameStats.getLightBattleAttritionRemaining()));
+        writer.key("ditra").value(gameStats.isDarkImmuneToRemainingAttrition());
+        writer.key("litra").value(gameStats.isLightImmuneToRemainingAttrition());
+        writer.key("dst").value(toTableNumber(gameStats.getDarkSabaccTotal()));
+        writer.key("lst").value(toTableNumber(gameStats.getLightSabaccTotal()));
+        writer.key("ddolct").value(toTableNumber(gameStats.getDarkDuelOrLightsaberCombatTotal()));
+        writer.key("ldolct").value(toTableNumber(gameStats.getLightDuelOrLightsaberCombatTotal()));
+        writer.key("ddolcnd").value(gameStats.getDarkDuelOrLightsaberCombatNumDestiny());
+        writer.key("ldolcnd").value(gameStats.getLightDuelOrLightsaberCombatNumDestiny());
+        writer.key("apofia").value(toTableNumber(gameStats.getAttackingPowerOrFerocityInAttack()));
+        writer.key("dpofia").value(toTableNumber(gameStats.getDefendingPowerOrFerocityInAttack()));
+        writer.key("andia").value(gameStats.getAttackingNumDestinyInAttack());
+        writer.key("dndia").value(gameStats.getDefendingNumDestinyInAttack());
+        writer.key("drt").value(toTableNumber(gameStats.getDarkRaceTotal()));
+        writer.key("lrt").value(toTableNumber(gameStats.getLightRaceTotal()));
+        writer.key("dpt").value(toTableNumber(gameStats.getDarkPoliticsTotal()));
+        writer.key("lpt").value(toTableNumber(gameStats.getLightPoliticsTotal()));
+
+        writer.key("zs");
+        writer.object();
+        for (Map.Entry<String, Map<Zone, Integer>> playerZoneSizes : gameStats.getZoneSizes().entrySet()) {
+            writer.key(playerZoneSizes.getKey());
+            writer.object();
+            for (Map.Entry<Zone, Integer> zoneSizes : playerZoneSizes.getValue().entrySet()) {
+                writer.key(zoneSizes.getKey().name()).value(zoneSizes.getValue());
+            }
+            writer.endObject();
+        }
+        writer.endObject();
+
+        writer.key("dpl");
+        serializePowerAtLocations(writer, gameStats.getDarkPowerAtLocations());
+        writer.key("lpl");
+        serializePowerAtLocations(writer, gameStats.getLightPowerAtLocations());
+        writer.endObject();
+    }
+
+    private void serializePowerAtLocations(JSONWriter writer, Map<Integer, Float> powerAtLocations) {
+        writer.object();
+        for (Map.Entry<Integer, Float> powerAtLocation : powerAtLocations.entrySet()) {
+            writer.key(String.valueOf(powerAtLocation.getKey())).value(toTableNumber(powerAtLocation.getValue()));
+        }
+        writer.endObject();
+    }
+
+    private void serializeDecision(JSONWriter writer, AwaitingDecision decision) {
+        writer.object();
+        writer.key("id").value(decision.getAwaitingDecisionId());
+        writer.key("ty").value(decision.getDecisionType().name());
+        if (decision.getText() != null)
+            writer.key("tx").value(decision.getText());
+        writer.key("pm");
+        writer.object();
+        for (Map.Entry<String, Object> paramEntry : decision.getDecisionParameters().entrySet()) {
+            if (paramEntry.getValue() instanceof String) {
+                writer.key(paramEntry.getKey());
+                writer.array();
+                writer.value(paramEntry.getValue());
+                writer.endArray();
+            } else if (paramEntry.getValue() instanceof String[]) {
+                writer.key(paramEntry.getKey());
+                writer.array();
+                for (String value : (String[]) paramEntry.getValue())
+                    writer.value(value);
+                writer.endArray();
+            }
+        }
+        writer.endObject();
+        writer.endObject();
+    }
+
+    private void serializeValues(JSONWriter writer, Collection<?> values) {
+        writer.array();
+        for (Object value : values)
+            writer.value(value);
+        writer.endArray();
+    }
+
+    private void serializeValues(JSONWriter writer, int[] values) {
+        writer.array();
+        for (int value : values)
+            writer.value(value);
+        writer.endArray();
+    }
+
+    /**
+     * Rounds the value up to one decimal, the same way GuiUtils.formatAsString does for values shown on the table, so
+     * both encodings show the same value.
+     * @param value the value
+     * @return the rounded value
+     */
+    private static BigDecimal toTableNumber(Float value) {
+        BigDecimal rounded = new BigDecimal(value.doubleValue()).setScale(1, RoundingMode.CEILING).stripTrailingZeros();
+        return rounded.scale() < 0 ? rounded.setScale(0) : rounded;
+    }
+}
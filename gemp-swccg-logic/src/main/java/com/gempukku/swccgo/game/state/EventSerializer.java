@@ -8,28 +8,106 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.util.LinkedList;
 import java.util.Map;
 
+/**
+ * Serializes game events to XML, either as DOM nodes or directly to a stream. The same elements and attributes are
+ * produced either way.
+ */
 public class EventSerializer {
+
+    /**
+     * Serializes the game event as a DOM node.
+     * @param doc the document
+     * @param gameEvent the game event
+     * @return the node
+     */
     public Node serializeEvent(Document doc, GameEvent gameEvent) {
-        Element eventElem = doc.createElement("ge");
-        eventElem.setAttribute("type", gameEvent.getType().name());
+        DomEventWriter writer = new DomEventWriter(doc);
+        try {
+            serializeEvent(writer, gameEvent);
+        } catch (XMLStreamException exp) {
+            // Not thrown when building DOM nodes
+            throw new IllegalStateException(exp);
+        }
+        return writer.getEventElem();
+    }
+
+    /**
+     * Serializes the game event directly to the XML stream.
+     * @param writer the XML stream writer
+     * @param gameEvent the game event
+     * @throws XMLStreamException if an error occurs writing to the stream
+     */
+    public void serializeEvent(final XMLStreamWriter writer, GameEvent gameEvent) throws XMLStreamException {
+        serializeEvent(writer, gameEvent, null);
+    }
+
+    /**
+     * Serializes the game event directly to the XML stream, with additional attributes written first on the game event
+     * element.
+     * @param writer the XML stream writer
+     * @param gameEvent the game event
+     * @param additionalAttributes the additional attributes, or null
+     * @throws XMLStreamException if an error occurs writing to the stream
+     */
+    public void serializeEvent(final XMLStreamWriter writer, GameEvent gameEvent, final Map<String, String> additionalAttributes) throws XMLStreamException {
+        serializeEvent(new EventWriter() {
+            private boolean _eventElementStarted;
+
+            @Override
+            public void startElement(String name) throws XMLStreamException {
+                writer.writeStartElement(name);
+                if (!_eventElementStarted) {
+                    _eventElementStarted = true;
+                    if (additionalAttributes != null) {
+                        for (Map.Entry<String, String> attribute : additionalAttributes.entrySet())
+                            writer.writeAttribute(attribute.getKey(), attribute.getValue());
+                    }
+                }
+            }
+
+            @Override
+            public void attribute(String name, String value) throws XMLStreamException {
+                writer.writeAttribute(name, value);
+            }
+
+            @Override
+            public void endElement() throws XMLStreamException {
+                writer.writeEndElement();
+            }
+        }, gameEvent);
+    }
+
+    /**
+     * Serializes the game event. All attributes of an element are written before any of its child elements, so the
+     * game event can be written to a stream.
+     * @param writer the writer
+     * @param gameEvent the game event
+     * @throws XMLStreamException if an error occurs writing to the stream
+     */
+    private void serializeEvent(EventWriter writer, GameEvent gameEvent) throws XMLStreamException {
+        writer.startElement("ge");
+        writer.attribute("type", gameEvent.getType().name());
         if (gameEvent.getBlueprintId() != null)
-            eventElem.setAttribute("blueprintId", gameEvent.getBlueprintId());
+            writer.attribute("blueprintId", gameEvent.getBlueprintId());
         if (gameEvent.getTestingText() != null)
-            eventElem.setAttribute("testingText", gameEvent.getTestingText());
+            writer.attribute("testingText", gameEvent.getTestingText());
         if (gameEvent.getBackSideTestingText() != null)
-            eventElem.setAttribute("backSideTestingText", gameEvent.getBackSideTestingText());
+            writer.attribute("backSideTestingText", gameEvent.getBackSideTestingText());
         if (gameEvent.getCardId() != null)
-            eventElem.setAttribute("cardId", gameEvent.getCardId().toString());
+            writer.attribute("cardId", gameEvent.getCardId().toString());
         if (gameEvent.getIndex() != null)
-            eventElem.setAttribute("index", gameEvent.getIndex().toString());
+            writer.attribute("index", gameEvent.getIndex().toString());
         if (gameEvent.getZoneOwnerId() != null)
-            eventElem.setAttribute("zoneOwnerId", gameEvent.getZoneOwnerId());
+            writer.attribute("zoneOwnerId", gameEvent.getZoneOwnerId());
         if (gameEvent.getSystemName() != null)
-            eventElem.setAttribute("systemName", gameEvent.getSystemName());
+            writer.attribute("systemName", gameEvent.getSystemName());
         if (gameEvent.getLocationIndex() != null)
-            eventElem.setAttribute("locationIndex", gameEvent.getLocationIndex().toString());
+            writer.attribute("locationIndex", gameEvent.getLocationIndex().toString());
         if (gameEvent.getLocationIndexes() != null) {
             StringBuilder sb = new StringBuilder();
             boolean first = true;
@@ -38,10 +116,10 @@ public class EventSerializer {
                 sb.append(locationIndex);
                 first = false;
             }
-            eventElem.setAttribute("locationIndexes", sb.toString());
+            writer.attribute("locationIndexes", sb.toString());
         }
         if (gameEvent.getParticipantId() != null)
-            eventElem.setAttribute("participantId", gameEvent.getParticipantId());
+            writer.attribute("participantId", gameEvent.getParticipantId());
         if (gameEvent.getAllParticipantIds() != null) {
             StringBuilder sb = new StringBuilder();
             boolean first = true;
@@ -50,32 +128,32 @@ public class EventSerializer {
                 sb.append(participantId);
                 first = false;
             }
-            eventElem.setAttribute("allParticipantIds", sb.toString());
+            writer.attribute("allParticipantIds", sb.toString());
         }
         if (gameEvent.getPhase() != null)
-            eventElem.setAttribute("phase", gameEvent.getPhase());
+            writer.attribute("phase", gameEvent.getPhase());
         if (gameEvent.getTargetCardId() != null)
-            eventElem.setAttribute("targetCardId", gameEvent.getTargetCardId().toString());
+            writer.attribute("targetCardId", gameEvent.getTargetCardId().toString());
         if (gameEvent.getZone() != null)
-            eventElem.setAttribute("zone", gameEvent.getZone().name());
+            writer.attribute("zone", gameEvent.getZone().name());
         if (gameEvent.isInverted() != null)
-            eventElem.setAttribute("inverted", gameEvent.isInverted().toString());
+            writer.attribute("inverted", gameEvent.isInverted().toString());
         if (gameEvent.isSideways() != null)
-            eventElem.setAttribute("sideways", gameEvent.isSideways().toString());
+            writer.attribute("sideways", gameEvent.isSideways().toString());
         if (gameEvent.isFrozen() != null)
-            eventElem.setAttribute("frozen", gameEvent.isFrozen().toString());
+            writer.attribute("frozen", gameEvent.isFrozen().toString());
         if (gameEvent.isSuspendedOrTurnedOff() != null)
-            eventElem.setAttribute("suspended", gameEvent.isSuspendedOrTurnedOff().toString());
+            writer.attribute("suspended", gameEvent.isSuspendedOrTurnedOff().toString());
         if (gameEvent.isCollapsed() != null)
-            eventElem.setAttribute("collapsed", gameEvent.isCollapsed().toString());
+            writer.attribute("collapsed", gameEvent.isCollapsed().toString());
         if (gameEvent.getCount() != null)
-            eventElem.setAttribute("count", gameEvent.getCount().toString());
+            writer.attribute("count", gameEvent.getCount().toString());
         if (gameEvent.getDestinyText() != null)
-            eventElem.setAttribute("destinyText", gameEvent.getDestinyText());
+            writer.attribute("destinyText", gameEvent.getDestinyText());
         if (gameEvent.getPlayerAttacking() != null)
-            eventElem.setAttribute("playerAttacking", gameEvent.getPlayerAttacking());
+            writer.attribute("playerAttacking", gameEvent.getPlayerAttacking());
         if (gameEvent.getPlayerDefending() != null)
-            eventElem.setAttribute("playerDefending", gameEvent.getPlayerDefending());
+            writer.attribute("playerDefending", gameEvent.getPlayerDefending());
         if (gameEvent.getOtherCardIds() != null) {
             StringBuilder sb = new StringBuilder();
             boolean first = true;
@@ -84,7 +162,7 @@ public class EventSerializer {
                 sb.append(cardId);
                 first = false;
             }
-            eventElem.setAttribute("otherCardIds", sb.toString());
+            writer.attribute("otherCardIds", sb.toString());
         }
         if (gameEvent.getOtherCardIds2() != null) {
             StringBuilder sb = new StringBuilder();
@@ -94,91 +172,138 @@ public class EventSerializer {
                 sb.append(cardId);
                 first = false;
             }
-            eventElem.setAttribute("otherCardIds2", sb.toString());
+            writer.attribute("otherCardIds2", sb.toString());
         }
         if (gameEvent.getMessage() != null)
-            eventElem.setAttribute("message", gameEvent.getMessage());
-        if (gameEvent.getGameStats() != null) {
-            GameStats gameStats = gameEvent.getGameStats();
-
-            eventElem.setAttribute("darkForceGeneration", GuiUtils.formatAsString(gameStats.getDarkForceGeneration(), true));
-            eventElem.setAttribute("lightForceGeneration", GuiUtils.formatAsString(gameStats.getLightForceGeneration(), true));
-            eventElem.setAttribute("darkBattlePower", GuiUtils.formatAsString(gameStats.getDarkBattlePower(), true));
-            eventElem.setAttribute("lightBattlePower", GuiUtils.formatAsString(gameStats.getLightBattlePower(), true));
-            eventElem.setAttribute("darkBattleNumDestinyToPower", String.valueOf(gameStats.getDarkBattleNumDestinyToPower()));
-            eventElem.setAttribute("lightBattleNumDestinyToPower", String.valueOf(gameStats.getLightBattleNumDestinyToPower()));
-            eventElem.setAttribute("darkBattleNumBattleDestiny", String.valueOf(gameStats.getDarkBattleNumBattleDestiny()));
-            eventElem.setAttribute("lightBattleNumBattleDestiny", String.valueOf(gameStats.getLightBattleNumBattleDestiny()));
-            eventElem.setAttribute("darkBattleNumDestinyToAttrition", String.valueOf(gameStats.getDarkBattleNumDestinyToAttrition()));
-            eventElem.setAttribute("lightBattleNumDestinyToAttrition", String.valueOf(gameStats.getLightBattleNumDestinyToAttrition()));
-            eventElem.setAttribute("darkBattleDamageRemaining", GuiUtils.formatAsString(gameStats.getDarkBattleDamageRemaining(), true));
-            eventElem.setAttribute("lightBattleDamageRemaining", GuiUtils.formatAsString(gameStats.getLightBattleDamageRemaining(), true));
-            eventElem.setAttribute("darkBattleAttritionRemaining", GuiUtils.formatAsString(gameStats.getDarkBattleAttritionRemaining(), true));
-            eventElem.setAttribute("lightBattleAttritionRemaining", GuiUtils.formatAsString(gameStats.getLightBattleAttritionRemaining(), true));
-            eventElem.setAttribute("darkImmuneToRemainingAttrition", String.valueOf(gameStats.isDarkImmuneToRemainingAttrition()));
-            eventElem.setAttribute("lightImmuneToRemainingAttrition", String.valueOf(gameStats.isLightImmuneToRemainingAttrition()));
-            eventElem.setAttribute("darkSabaccTotal", GuiUtils.formatAsString(gameStats.getDarkSabaccTotal(), true));
-            eventElem.setAttribute("lightSabaccTotal", GuiUtils.formatAsString(gameStats.getLightSabaccTotal(), true));
-            eventElem.setAttribute("darkDuelOrLightsaberCombatTotal", GuiUtils.formatAsString(gameStats.getDarkDuelOrLightsaberCombatTotal(), true));
-            eventElem.setAttribute("lightDuelOrLightsaberCombatTotal", GuiUtils.formatAsString(gameStats.getLightDuelOrLightsaberCombatTotal(), true));
-            eventElem.setAttribute("darkDuelOrLightsaberCombatNumDestiny", String.valueOf(gameStats.getDarkDuelOrLightsaberCombatNumDestiny()));
-            eventElem.setAttribute("lightDuelOrLightsaberCombatNumDestiny", String.valueOf(gameStats.getLightDuelOrLightsaberCombatNumDestiny()));
-            eventElem.setAttribute("attackingPowerOrFerocityInAttack", GuiUtils.formatAsString(gameStats.getAttackingPowerOrFerocityInAttack(), true));
-            eventElem.setAttribute("defendingPowerOrFerocityInAttack", GuiUtils.formatAsString(gameStats.getDefendingPowerOrFerocityInAttack(), true));
-            eventElem.setAttribute("attackingNumDestinyInAttack", String.valueOf(gameStats.getAttackingNumDestinyInAttack()));
-            eventElem.setAttribute("defendingNumDestinyInAttack", String.valueOf(gameStats.getDefendingNumDestinyInAttack()));
-            eventElem.setAttribute("darkRaceTotal", GuiUtils.formatAsString(gameStats.getDarkRaceTotal(), true));
-            eventElem.setAttribute("lightRaceTotal", GuiUtils.formatAsString(gameStats.getLightRaceTotal(), true));
-            eventElem.setAttribute("darkPoliticsTotal", GuiUtils.formatAsString(gameStats.getDarkPoliticsTotal(), true));
-            eventElem.setAttribute("lightPoliticsTotal", GuiUtils.formatAsString(gameStats.getLightPoliticsTotal(), true));
-
+            writer.attribute("message", gameEvent.getMessage());
+        GameStats gameStats = gameEvent.getGameStats();
+        if (gameStats != null) {
+            writer.attribute("darkForceGeneration", GuiUtils.formatAsString(gameStats.getDarkForceGeneration(), true));
+            writer.attribute("lightForceGeneration", GuiUtils.formatAsString(gameStats.getLightForceGeneration(), true));
+            writer.attribute("darkBattlePower", GuiUtils.formatAsString(gameStats.getDarkBattlePower(), true));
+            writer.attribute("lightBattlePower", GuiUtils.formatAsString(gameStats.getLightBattlePower(), true));
+            writer.attribute("darkBattleNumDestinyToPower", String.valueOf(gameStats.getDarkBattleNumDestinyToPower()));
+            writer.attribute("lightBattleNumDestinyToPower", String.valueOf(gameStats.getLightBattleNumDestinyToPower()));
+            writer.attribute("darkBattleNumBattleDestiny", String.valueOf(gameStats.getDarkBattleNumBattleDestiny()));
+            writer.attribute("lightBattleNumBattleDestiny", String.valueOf(gameStats.getLightBattleNumBattleDestiny()));
+            writer.attribute("darkBattleNumDestinyToAttrition", String.valueOf(gameStats.getDarkBattleNumDestinyToAttrition()));
+            writer.attribute("lightBattleNumDestinyToAttrition", String.valueOf(gameStats.getLightBattleNumDestinyToAttrition()));
+            writer.attribute("darkBattleDamageRemaining", GuiUtils.formatAsString(gameStats.getDarkBattleDamageRemaining(), true));
+            writer.attribute("lightBattleDamageRemaining", GuiUtils.formatAsString(gameStats.getLightBattleDamageRemaining(), true));
+            writer.attribute("darkBattleAttritionRemaining", GuiUtils.formatAsString(gameStats.getDarkBattleAttritionRemaining(), true));
+            writer.attribute("lightBattleAttritionRemaining", GuiUtils.formatAsString(gameStats.getLightBattleAttritionRemaining(), true));
+            writer.attribute("darkImmuneToRemainingAttrition", String.valueOf(gameStats.isDarkImmuneToRemainingAttrition()));
+            writer.attribute("lightImmuneToRemainingAttrition", String.valueOf(gameStats.isLightImmuneToRemainingAttrition()));
+            writer.attribute("darkSabaccTotal", GuiUtils.formatAsString(gameStats.getDarkSabaccTotal(), true));
+            writer.attribute("lightSabaccTotal", GuiUtils.formatAsString(gameStats.getLightSabaccTotal(), true));
+            writer.attribute("darkDuelOrLightsaberCombatTotal", GuiUtils.formatAsString(gameStats.getDarkDuelOrLightsaberCombatTotal(), true));
+            writer.attribute("lightDuelOrLightsaberCombatTotal", GuiUtils.formatAsString(gameStats.getLightDuelOrLightsaberCombatTotal(), true));
+            writer.attribute("darkDuelOrLightsaberCombatNumDestiny", String.valueOf(gameStats.getDarkDuelOrLightsaberCombatNumDestiny()));
+            writer.attribute("lightDuelOrLightsaberCombatNumDestiny", String.valueOf(gameStats.getLightDuelOrLightsaberCombatNumDestiny()));
+            writer.attribute("attackingPowerOrFerocityInAttack", GuiUtils.formatAsString(gameStats.getAttackingPowerOrFerocityInAttack(), true));
+            writer.attribute("defendingPowerOrFerocityInAttack", GuiUtils.formatAsString(gameStats.getDefendingPowerOrFerocityInAttack(), true));
+            writer.attribute("attackingNumDestinyInAttack", String.valueOf(gameStats.getAttackingNumDestinyInAttack()));
+            writer.attribute("defendingNumDestinyInAttack", String.valueOf(gameStats.getDefendingNumDestinyInAttack()));
+            writer.attribute("darkRaceTotal", GuiUtils.formatAsString(gameStats.getDarkRaceTotal(), true));
+            writer.attribute("lightRaceTotal", GuiUtils.formatAsString(gameStats.getLightRaceTotal(), true));
+            writer.attribute("darkPoliticsTotal", GuiUtils.formatAsString(gameStats.getDarkPoliticsTotal(), true));
+            writer.attribute("lightPoliticsTotal", GuiUtils.formatAsString(gameStats.getLightPoliticsTotal(), true));
+        }
+        AwaitingDecision decision = gameEvent.getAwaitingDecision();
+        if (decision != null) {
+            writer.attribute("id", String.valueOf(decision.getAwaitingDecisionId()));
+            writer.attribute("decisionType", decision.getDecisionType().name());
+            if (decision.getText() != null)
+                writer.attribute("text", decision.getText());
+        }
 
+        if (gameStats != null) {
             for (Map.Entry<String, Map<Zone, Integer>> playerZoneSizes : gameStats.getZoneSizes().entrySet()) {
-                final Element playerZonesElem = doc.createElement("playerZones");
-                playerZonesElem.setAttribute("name", playerZoneSizes.getKey());
-
+                writer.startElement("playerZones");
+                writer.attribute("name", playerZoneSizes.getKey());
                 for (Map.Entry<Zone, Integer> zoneSizes : playerZoneSizes.getValue().entrySet()) {
-                    playerZonesElem.setAttribute(zoneSizes.getKey().name(), zoneSizes.getValue().toString());
+                    writer.attribute(zoneSizes.getKey().name(), zoneSizes.getValue().toString());
                 }
-                eventElem.appendChild(playerZonesElem);
+                writer.endElement();
             }
 
-            final Element darkPowerAtLocationsElem = doc.createElement("darkPowerAtLocations");
+            writer.startElement("darkPowerAtLocations");
             for (Map.Entry<Integer, Float> darkPowerAtLocations : gameStats.getDarkPowerAtLocations().entrySet()) {
-                darkPowerAtLocationsElem.setAttribute("locationIndex" + darkPowerAtLocations.getKey(), GuiUtils.formatAsString(darkPowerAtLocations.getValue(), true));
+                writer.attribute("locationIndex" + darkPowerAtLocations.getKey(), GuiUtils.formatAsString(darkPowerAtLocations.getValue(), true));
             }
-            eventElem.appendChild(darkPowerAtLocationsElem);
+            writer.endElement();
 
-            final Element lightPowerAtLocationsElem = doc.createElement("lightPowerAtLocations");
+            writer.startElement("lightPowerAtLocations");
             for (Map.Entry<Integer, Float> lightPowerAtLocations : gameStats.getLightPowerAtLocations().entrySet()) {
-                lightPowerAtLocationsElem.setAttribute("locationIndex" + lightPowerAtLocations.getKey(), GuiUtils.formatAsString(lightPowerAtLocations.getValue(), true));
+                writer.attribute("locationIndex" + lightPowerAtLocations.getKey(), GuiUtils.formatAsString(lightPowerAtLocations.getValue(), true));
             }
-            eventElem.appendChild(lightPowerAtLocationsElem);
-
+            writer.endElement();
         }
-        if (gameEvent.getAwaitingDecision() != null) {
-            AwaitingDecision decision = gameEvent.getAwaitingDecision();
-            eventElem.setAttribute("id", String.valueOf(decision.getAwaitingDecisionId()));
-            eventElem.setAttribute("decisionType", decision.getDecisionType().name());
-            if (decision.getText() != null)
-                eventElem.setAttribute("text", decision.getText());
+        if (decision != null) {
             for (Map.Entry<String, Object> paramEntry : decision.getDecisionParameters().entrySet()) {
                 if (paramEntry.getValue() instanceof String) {
-                    Element decisionParam = doc.createElement("parameter");
-                    decisionParam.setAttribute("name", paramEntry.getKey());
-                    decisionParam.setAttribute("value", (String) paramEntry.getValue());
-                    eventElem.appendChild(decisionParam);
+                    writer.startElement("parameter");
+                    writer.attribute("name", paramEntry.getKey());
+                    writer.attribute("value", (String) paramEntry.getValue());
+                    writer.endElement();
                 } else if (paramEntry.getValue() instanceof String[]) {
                     for (String value : (String[]) paramEntry.getValue()) {
-                        Element decisionParam = doc.createElement("parameter");
-                        decisionParam.setAttribute("name", paramEntry.getKey());
-                        decisionParam.setAttribute("value", value);
-                        eventElem.appendChild(decisionParam);
+                        writer.startElement("parameter");
+                        writer.attribute("name", paramEntry.getKey());
+                        writer.attribute("value", value);
+                        writer.endElement();
                     }
                 }
             }
         }
+        writer.endElement();
+    }
+
+    /**
+     * Receives the elements and attributes of a serialized game event.
+     */
+    private interface EventWriter {
+        void startElement(String name) throws XMLStreamException;
+
+        void attribute(String name, String value) throws XMLStreamException;
+
+        void endElement() throws XMLStreamException;
+    }
+
+    /**
+     * Builds the DOM node of a serialized game event.
+     */
+    private static class DomEventWriter implements EventWriter {
+        private Document _doc;
+        private Element _eventElem;
+        private LinkedList<Element> _openElements = new LinkedList<Element>();
 
-        return eventElem;
+        private DomEventWriter(Document doc) {
+            _doc = doc;
+        }
+
+        @Override
+        public void startElement(String name) {
+            Element element = _doc.createElement(name);
+            if (_openElements.isEmpty())
+                _eventElem = element;
+            else
+                _openElements.getLast().appendChild(element);
+            _openElements.add(element);
+        }
+
+        @Override
+        public void attribute(String name, String value) {
+            _openElements.getLast().setAttribute(name, value);
+        }
+
+        @Override
+        public void endElement() {
+            _openElements.removeLast();
+        }
+
+        private Element getEventElem() {
+            return _eventElem;
+        }
     }
 }
@@ -4,13 +4,14 @@ import com.gempukku.swccgo.game.PhysicalCard;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Data that is stored in for remainder of game data.
  */
-public class ForRemainderOfGameData implements Snapshotable<ForRemainderOfGameData> {
+public class ForRemainderOfGameData implements Snapshotable<ForRemainderOfGameData>, Serializable {
     private boolean _booleanValue;
     private List<PhysicalCard> _physicalCards = new ArrayList<PhysicalCard>();
 
@@ -17,10 +17,29 @@ public class GameCommunicationChannel implements GameStateListener, LongPollable
     private long _lastConsumed = System.currentTimeMillis();
     private int _channelNumber;
     private volatile WaitingRequest _waitingRequest;
+    private GameEventLog _eventLog;
+    private volatile long _eventLogPosition;
+    private volatile boolean _resyncRequired;
 
     public GameCommunicationChannel(String self, int channelNumber) {
+        this(self, channelNumber, null);
+    }
+
+    /**
+     * Creates a communication channel for a player. If an event log is specified, the channel reads the game events that
+     * occur from now on from the shared event log, and only game events sent directly to the channel (such as the
+     * initial game state) are kept by the channel itself.
+     * @param self the player
+     * @param channelNumber the channel number
+     * @param eventLog the event log shared by the channels of the game, or null
+     */
+    public GameCommunicationChannel(String self, int channelNumber, GameEventLog eventLog) {
         _self = self;
         _channelNumber = channelNumber;
+        _eventLog = eventLog;
+        if (_eventLog != null) {
+            _eventLogPosition = _eventLog.addChannel(this);
+        }
     }
 
     @Override
@@ -45,7 +64,9 @@ public class GameCommunicationChannel implements GameStateListener, LongPollable
 
     @Override
     public synchronized boolean registerRequest(WaitingRequest waitingRequest) {
-        if (!_events.isEmpty())
+        if (!_events.isEmpty() || _resyncRequired)
+            return true;
+        if (_eventLog != null && _eventLog.hasGameEvents(_eventLogPosition, _self))
             return true;
 
         _waitingRequest = waitingRequest;
@@ -54,12 +75,61 @@ public class GameCommunicationChannel implements GameStateListener, LongPollable
 
     private synchronized void appendEvent(GameEvent event) {
         _events.add(event);
+        gameEventsAvailable();
+    }
+
+    /**
+     * Notifies the channel that game events are available for it, so any waiting request is processed.
+     */
+    synchronized void gameEventsAvailable() {
         if (_waitingRequest != null) {
             _waitingRequest.processRequest();
             _waitingRequest = null;
         }
     }
 
+    /**
+     * Notifies the channel that it has fallen too far behind in the shared event log. The channel stops reading from
+     * the log and drops any game events not yet consumed, until it is resynced with the full game state.
+     */
+    void resyncRequired() {
+        synchronized (this) {
+            _resyncRequired = true;
+            _eventLog = null;
+            _events = Collections.synchronizedList(new LinkedList<GameEvent>());
+        }
+        gameEventsAvailable();
+    }
+
+    /**
+     * Resets a channel that has fallen too far behind in the shared event log, so it reads the game events that occur
+     * from now on from the log again. The full game state must then be sent to the channel, so the client rebuilds its
+     * view of the game.
+     * @param eventLog the event log shared by the channels of the game
+     */
+    public synchronized void resync(GameEventLog eventLog) {
+        _events = Collections.synchronizedList(new LinkedList<GameEvent>());
+        _eventLog = eventLog;
+        _eventLogPosition = _eventLog.addChannel(this);
+        _resyncRequired = false;
+    }
+
+    /**
+     * Determines if the channel has fallen too far behind and the client must resync with the full game state.
+     * @return true or false
+     */
+    public boolean isResyncRequired() {
+        return _resyncRequired;
+    }
+
+    /**
+     * Gets the position in the shared event log of the next game event to read.
+     * @return the position
+     */
+    long getEventLogPosition() {
+        return _eventLogPosition;
+    }
+
     private int[] getCardIds(Collection<PhysicalCard> cards) {
         int[] result = new int[cards.size()];
         int index = 0;
@@ -114,7 +184,7 @@ public class GameCommunicationChannel implements GameStateListener, LongPollable
 
     @Override
     public void cardsRemoved(String zoneOwner, Collection<PhysicalCard> cards) {
-        Set<PhysicalCard> removedCardsVisibleByPlayer = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> removedCardsVisibleByPlayer = new LinkedHashSet<PhysicalCard>();
         for (PhysicalCard card : cards) {
             if (!card.isNotShownOnUserInterface() && (card.getZone().isPublic() || (card.getZone().isVisibleByOwner() && card.getOwner().equals(_self))))
                 removedCardsVisibleByPlayer.add(card);
@@ -236,8 +306,50 @@ public class GameCommunicationChannel implements GameStateListener, LongPollable
 
     public List<GameEvent> consumeGameEvents() {
         updateLastAccess();
-        List<GameEvent> result = _events;
-        _events = Collections.synchronizedList(new LinkedList<GameEvent>());
+        List<GameEvent> result;
+        GameEventLog eventLog;
+        synchronized (this) {
+            result = _events;
+            _events = Collections.synchronizedList(new LinkedList<GameEvent>());
+            eventLog = _eventLog;
+            if (eventLog != null) {
+                _eventLogPosition = eventLog.readGameEvents(_eventLogPosition, _self, result);
+            }
+        }
+        if (eventLog != null) {
+            eventLog.trimConsumedEntries();
+            return coalesceGameEvents(result);
+        }
+        return result;
+    }
+
+    /**
+     * Removes game events that are superseded by later game events in the list. Only the last game stats are kept, and
+     * successive moves (or rotations) of the same card are collapsed into the last one, since those game events carry
+     * the full current state.
+     * @param gameEvents the game events
+     * @return the coalesced game events
+     */
+    private static List<GameEvent> coalesceGameEvents(List<GameEvent> gameEvents) {
+        List<GameEvent> result = new ArrayList<GameEvent>(gameEvents.size());
+        int lastGameStatsIndex = -1;
+        for (GameEvent gameEvent : gameEvents) {
+            if (gameEvent.getType() == GS) {
+                if (lastGameStatsIndex >= 0)
+                    result.set(lastGameStatsIndex, null);
+                lastGameStatsIndex = result.size();
+            }
+            else if ((gameEvent.getType() == MCIP || gameEvent.getType() == ROCIP) && !result.isEmpty()) {
+                GameEvent previousGameEvent = result.get(result.size() - 1);
+                if (previousGameEvent != null && previousGameEvent.getType() == gameEvent.getType()
+                        && gameEvent.getCardId() != null && gameEvent.getCardId().equals(previousGameEvent.getCardId())) {
+                    result.set(result.size() - 1, gameEvent);
+                    continue;
+                }
+            }
+            result.add(gameEvent);
+        }
+        result.removeAll(Collections.<GameEvent>singleton(null));
         return result;
     }
 
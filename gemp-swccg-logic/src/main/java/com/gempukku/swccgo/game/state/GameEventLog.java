@@ -0,0 +1,440 @@
+package com.gempukku.swccgo.game.state;
+
+import com.gempukku.swccgo.communication.GameStateListener;
+import com.gempukku.swccgo.game.PhysicalCard;
+import com.gempukku.swccgo.logic.decisions.AwaitingDecision;
+import com.gempukku.swccgo.logic.timing.GameStats;
+
+import java.util.*;
+
+import static com.gempukku.swccgo.game.state.GameEvent.Type.*;
+
+/**
+ * An append-only log of the game events of a game that is shared by all the communication channels of the game.
+ * Each game event is created once, along with which players are able to see it, and each communication channel keeps
+ * only its position in the log. Entries are removed from the log once every communication channel has consumed them.
+ * A communication channel that falls too far behind (e.g. its client stopped polling) is removed from the log and
+ * marked as requiring a resync with the full game state, so the log does not grow without bound.
+ *
+ * This listener handles visibility for all players, so it is added to the game without a player. Recorders added to
+ * the log get each entry once as it is appended, along with which players are able to see it.
+ */
+public class GameEventLog implements GameStateListener {
+    private static final int MIN_ENTRIES_TO_TRIM = 256;
+    private static final int MAX_ENTRIES_BEHIND = 5000;
+
+    private List<Entry> _entries = new ArrayList<Entry>();
+    private long _firstPosition;
+    private Set<GameCommunicationChannel> _channels = new HashSet<GameCommunicationChannel>();
+    private List<GameEventRecorder> _recorders = new ArrayList<GameEventRecorder>();
+    private Set<String> _recordedPlayerIds = new HashSet<String>();
+
+    @Override
+    public String getPlayerId() {
+        return null;
+    }
+
+    /**
+     * Adds a communication channel that reads from this log, starting from the end of the log.
+     * @param channel the communication channel
+     * @return the position in the log to start reading from
+     */
+    synchronized long addChannel(GameCommunicationChannel channel) {
+        _channels.add(channel);
+        return getEndPosition();
+    }
+
+    /**
+     * Adds a recorder that records the game events appended from now on. Game events that are different for each player
+     * are recorded once for each of the specified players.
+     * @param recorder the recorder
+     * @param playerIds the players to record the game events for
+     */
+    public synchronized void addRecorder(GameEventRecorder recorder, Collection<String> playerIds) {
+        _recorders.add(recorder);
+        _recordedPlayerIds.addAll(playerIds);
+    }
+
+    /**
+     * Removes a communication channel, so entries are no longer kept for it.
+     * @param channel the communication channel
+     */
+    public synchronized void removeChannel(GameCommunicationChannel channel) {
+        _channels.remove(channel);
+        trimConsumedEntries();
+    }
+
+    /**
+     * Gets the position after the last entry in the log.
+     * @return the position
+     */
+    private long getEndPosition() {
+        return _firstPosition + _entries.size();
+    }
+
+    /**
+     * Determines if there are any entries at or after the specified position that are visible to the player.
+     * @param position the position
+     * @param playerId the player
+     * @return true or false
+     */
+    synchronized boolean hasGameEvents(long position, String playerId) {
+        if (position < _firstPosition)
+            return true;
+        for (int i = (int) (position - _firstPosition); i < _entries.size(); i++) {
+            if (_entries.get(i).isVisibleTo(playerId))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Adds the game events at or after the specified position that are visible to the player to the list.
+     * @param position the position
+     * @param playerId the player
+     * @param gameEvents the list to add the game events to
+     * @return the position after the last entry read
+     */
+    synchronized long readGameEvents(long position, String playerId, List<GameEvent> gameEvents) {
+        // Entries already removed means the channel was removed from the log to resync
+        if (position < _firstPosition)
+            return position;
+        for (int i = (int) (position - _firstPosition); i < _entries.size(); i++) {
+            GameEvent gameEvent = _entries.get(i).getGameEvent(playerId);
+            if (gameEvent != null)
+                gameEvents.add(gameEvent);
+        }
+        return getEndPosition();
+    }
+
+    /**
+     * Removes entries from the start of the log that have been consumed by every communication channel.
+     */
+    synchronized void trimConsumedEntries() {
+        long minPosition = getEndPosition();
+        for (GameCommunicationChannel channel : _channels) {
+            minPosition = Math.min(minPosition, channel.getEventLogPosition());
+        }
+        int entriesToRemove = (int) (minPosition - _firstPosition);
+        if (entriesToRemove >= MIN_ENTRIES_TO_TRIM || entriesToRemove == _entries.size()) {
+            _entries.subList(0, entriesToRemove).clear();
+            _firstPosition = minPosition;
+        }
+    }
+
+    private void appendEntry(Entry entry) {
+        List<GameCommunicationChannel> channelsToNotify;
+        List<GameCommunicationChannel> channelsToResync = null;
+        synchronized (this) {
+            _entries.add(entry);
+            for (GameEventRecorder recorder : _recorders)
+                entry.record(recorder, _recordedPlayerIds);
+            long endPosition = getEndPosition();
+            for (GameCommunicationChannel channel : _channels) {
+                if (endPosition - channel.getEventLogPosition() > MAX_ENTRIES_BEHIND) {
+                    if (channelsToResync == null)
+                        channelsToResync = new ArrayList<GameCommunicationChannel>();
+                    channelsToResync.add(channel);
+                }
+            }
+            if (channelsToResync != null) {
+                _channels.removeAll(channelsToResync);
+                trimConsumedEntries();
+            }
+            channelsToNotify = new ArrayList<GameCommunicationChannel>(_channels);
+        }
+        if (channelsToResync != null) {
+            for (GameCommunicationChannel channel : channelsToResync)
+                channel.resyncRequired();
+        }
+        for (GameCommunicationChannel channel : channelsToNotify) {
+            if (entry.isVisibleTo(channel.getPlayerId()))
+                channel.gameEventsAvailable();
+        }
+    }
+
+    private void appendEvent(GameEvent gameEvent) {
+        appendEntry(new Entry(gameEvent, null, null));
+    }
+
+    private void appendCardEvent(PhysicalCard card, GameEvent gameEvent) {
+        if (card.isNotShownOnUserInterface())
+            return;
+        if (card.getZone().isPublic())
+            appendEntry(new Entry(gameEvent, null, null));
+        else if (card.getZone().isVisibleByOwner())
+            appendEntry(new Entry(gameEvent, card.getOwner(), null));
+    }
+
+    private int[] getCardIds(Collection<PhysicalCard> cards) {
+        int[] result = new int[cards.size()];
+        int index = 0;
+        for (PhysicalCard card : cards) {
+            result[index] = card.getCardId();
+            index++;
+        }
+        return result;
+    }
+
+    @Override
+    public void setPlayerOrder(final List<String> participants) {
+        final List<String> participantIds = new LinkedList<String>(participants);
+        appendEntry(new Entry(null, null, null) {
+            @Override
+            GameEvent getGameEvent(String playerId) {
+                return new GameEvent(P).participantId(playerId).allParticipantIds(participantIds);
+            }
+        });
+    }
+
+    @Override
+    public void setCurrentPhase(String phase) {
+        appendEvent(new GameEvent(GPC).phase(phase));
+    }
+
+    @Override
+    public void cardCreated(PhysicalCard card, GameState gameState, boolean restoreSnapshot) {
+        appendCardEvent(card, new GameEvent(restoreSnapshot ? PCIPAR : PCIP).card(card, gameState, false));
+    }
+
+    @Override
+    public void cardReplaced(PhysicalCard card, GameState gameState) {
+        appendCardEvent(card, new GameEvent(RCIP).card(card, gameState, false));
+    }
+
+    @Override
+    public void locationsRemoved(Collection<Integer> locationIndexes) {
+        appendEvent(new GameEvent(RLFP).locationIndexes(locationIndexes));
+    }
+
+    @Override
+    public void cardMoved(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(MCIP).card(card, gameState, false));
+    }
+
+    @Override
+    public void cardRotated(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(ROCIP).card(card, gameState, false));
+    }
+
+    @Override
+    public void cardFlipped(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(FCIP).card(card, gameState, false));
+    }
+
+    @Override
+    public void cardTurnedOver(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(TCO).card(card, gameState, false));
+    }
+
+    @Override
+    public void cardsRemoved(String zoneOwner, Collection<PhysicalCard> cards) {
+        // Each owner of removed cards only visible to the owner gets an event with those cards and the public cards,
+        // and everyone else gets an event with only the public cards
+        Set<PhysicalCard> publicCards = new LinkedHashSet<PhysicalCard>();
+        Map<String, Set<PhysicalCard>> ownerOnlyCards = new HashMap<String, Set<PhysicalCard>>();
+        for (PhysicalCard card : cards) {
+            if (!card.isNotShownOnUserInterface()) {
+                if (card.getZone().isPublic()) {
+                    publicCards.add(card);
+                }
+                else if (card.getZone().isVisibleByOwner()) {
+                    Set<PhysicalCard> cardsForOwner = ownerOnlyCards.get(card.getOwner());
+                    if (cardsForOwner == null) {
+                        cardsForOwner = new LinkedHashSet<PhysicalCard>();
+                        ownerOnlyCards.put(card.getOwner(), cardsForOwner);
+                    }
+                    cardsForOwner.add(card);
+                }
+            }
+        }
+        if (!publicCards.isEmpty())
+            appendEntry(new Entry(new GameEvent(RCFP).otherCardIds(getCardIds(publicCards)).participantId(zoneOwner), null, ownerOnlyCards.keySet()));
+        for (Map.Entry<String, Set<PhysicalCard>> cardsForOwner : ownerOnlyCards.entrySet()) {
+            Set<PhysicalCard> removedCardsVisibleByOwner = new LinkedHashSet<PhysicalCard>(publicCards);
+            removedCardsVisibleByOwner.addAll(cardsForOwner.getValue());
+            appendEntry(new Entry(new GameEvent(RCFP).otherCardIds(getCardIds(removedCardsVisibleByOwner)).participantId(zoneOwner), cardsForOwner.getKey(), null));
+        }
+    }
+
+    @Override
+    public void startBattle(PhysicalCard location, Collection<PhysicalCard> cards) {
+        appendEvent(new GameEvent(SB).locationIndex(location.getLocationZoneIndex()).otherCardIds(getCardIds(cards)));
+    }
+
+    @Override
+    public void addToBattle(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(ATB).card(card, gameState, false));
+    }
+
+    @Override
+    public void removeFromBattle(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(RFB).card(card, gameState, false));
+    }
+
+    @Override
+    public void finishBattle() {
+        appendEvent(new GameEvent(EB));
+    }
+
+    @Override
+    public void startAttack(PhysicalCard location, String playerAttacking, String playerDefending, Collection<PhysicalCard> attackingCards, Collection<PhysicalCard> defendingCards) {
+        GameEvent gameEvent = new GameEvent(SA).locationIndex(location.getLocationZoneIndex()).otherCardIds(getCardIds(attackingCards)).otherCardIds2(getCardIds(defendingCards));
+        gameEvent.playerAttacking(playerAttacking).playerDefending(playerDefending);
+        appendEvent(gameEvent);
+    }
+
+    @Override
+    public void finishAttack() {
+        appendEvent(new GameEvent(EA));
+    }
+
+    @Override
+    public void startDuel(PhysicalCard location, Collection<PhysicalCard> cards) {
+        appendEvent(new GameEvent(SD).locationIndex(location.getLocationZoneIndex()).otherCardIds(getCardIds(cards)));
+    }
+
+    @Override
+    public void finishDuel() {
+        appendEvent(new GameEvent(ED));
+    }
+
+    @Override
+    public void startLightsaberCombat(PhysicalCard location, Collection<PhysicalCard> cards) {
+        appendEvent(new GameEvent(SLC).locationIndex(location.getLocationZoneIndex()).otherCardIds(getCardIds(cards)));
+    }
+
+    @Override
+    public void finishLightsaberCombat() {
+        appendEvent(new GameEvent(ELC));
+    }
+
+    @Override
+    public void startSabacc() {
+        appendEvent(new GameEvent(SS));
+    }
+
+    @Override
+    public void revealSabaccHands() {
+        appendEvent(new GameEvent(RSH));
+    }
+
+    @Override
+    public void finishSabacc() {
+        appendEvent(new GameEvent(ES));
+    }
+
+    @Override
+    public void setCurrentPlayerId(String currentPlayerId) {
+        appendEvent(new GameEvent(TC).participantId(currentPlayerId));
+    }
+
+    @Override
+    public void sendMessage(String message) {
+        appendEvent(new GameEvent(M).message(message));
+    }
+
+    @Override
+    public void sendGameStats(GameStats gameStats) {
+        // Game stats may differ for each player and continue to change, so a copy for each player reading from the
+        // log is made now (players added later start reading after this entry)
+        final Map<String, GameStats> gameStatsCopies = new HashMap<String, GameStats>();
+        synchronized (this) {
+            for (GameCommunicationChannel channel : _channels) {
+                if (!gameStatsCopies.containsKey(channel.getPlayerId()))
+                    gameStatsCopies.put(channel.getPlayerId(), gameStats.makeACopy(channel.getPlayerId()));
+            }
+            for (String playerId : _recordedPlayerIds) {
+                if (!gameStatsCopies.containsKey(playerId))
+                    gameStatsCopies.put(playerId, gameStats.makeACopy(playerId));
+            }
+        }
+        appendEntry(new Entry(null, null, null) {
+            @Override
+            GameEvent getGameEvent(String playerId) {
+                GameStats gameStatsCopy = gameStatsCopies.get(playerId);
+                return gameStatsCopy != null ? new GameEvent(GS).gameStats(gameStatsCopy) : null;
+            }
+        });
+    }
+
+    @Override
+    public void cardAffectedByCard(String playerPerforming, PhysicalCard card, Collection<PhysicalCard> affectedCards, GameState gameState) {
+        appendEvent(new GameEvent(CAC).card(card, gameState, true).participantId(playerPerforming).otherCardIds(getCardIds(affectedCards)));
+    }
+
+    @Override
+    public void interruptPlayed(PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(IP).card(card, gameState, true));
+    }
+
+    @Override
+    public void destinyDrawn(PhysicalCard card, GameState gameState, String destinyText) {
+        appendEvent(new GameEvent(DD).card(card, gameState, false).destinyText(destinyText));
+    }
+
+    @Override
+    public void cardActivated(String playerPerforming, PhysicalCard card, GameState gameState) {
+        appendEvent(new GameEvent(CA).card(card, gameState, false).participantId(playerPerforming));
+    }
+
+    @Override
+    public void decisionRequired(String playerId, AwaitingDecision decision) {
+        appendEntry(new Entry(new GameEvent(D).awaitingDecision(decision).participantId(playerId), playerId, null));
+    }
+
+    /**
+     * An entry in the log, which is a game event along with the players that are able to see it.
+     */
+    private static class Entry {
+        private GameEvent _gameEvent;
+        private String _onlyVisibleTo;
+        private Set<String> _notVisibleTo;
+
+        /**
+         * Creates an entry.
+         * @param gameEvent the game event
+         * @param onlyVisibleTo the only player able to see the game event, or null if not limited to a single player
+         * @param notVisibleTo the players not able to see the game event, or null
+         */
+        private Entry(GameEvent gameEvent, String onlyVisibleTo, Set<String> notVisibleTo) {
+            _gameEvent = gameEvent;
+            _onlyVisibleTo = onlyVisibleTo;
+            _notVisibleTo = (notVisibleTo != null && !notVisibleTo.isEmpty()) ? new HashSet<String>(notVisibleTo) : null;
+        }
+
+        boolean isVisibleTo(String playerId) {
+            if (_onlyVisibleTo != null)
+                return _onlyVisibleTo.equals(playerId);
+            return _notVisibleTo == null || !_notVisibleTo.contains(playerId);
+        }
+
+        /**
+         * Gets the game event to send to the player.
+         * @param playerId the player
+         * @return the game event, or null if the player is not able to see it
+         */
+        GameEvent getGameEvent(String playerId) {
+            return isVisibleTo(playerId) ? _gameEvent : null;
+        }
+
+        /**
+         * Records the entry. An entry without a single game event for all players (the game event is different for
+         * each player) is recorded as a game event only visible to each of the players.
+         * @param recorder the recorder
+         * @param playerIds the players to record the game events for
+         */
+        void record(GameEventRecorder recorder, Collection<String> playerIds) {
+            if (_gameEvent != null) {
+                recorder.recordGameEvent(_gameEvent, _onlyVisibleTo, _notVisibleTo);
+            }
+            else {
+                for (String playerId : playerIds) {
+                    GameEvent gameEvent = getGameEvent(playerId);
+                    if (gameEvent != null)
+                        recorder.recordGameEvent(gameEvent, playerId, null);
+                }
+            }
+        }
+    }
+}
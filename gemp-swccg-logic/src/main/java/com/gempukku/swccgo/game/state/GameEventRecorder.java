@@ -0,0 +1,18 @@
+package com.gempukku.swccgo.game.state;
+
+import java.util.Set;
+
+/**
+ * Records the game events of a game once for all players, along with which players are able to see each game event,
+ * so a single recording can later be filtered for any of the players.
+ */
+public interface GameEventRecorder {
+
+    /**
+     * Records a game event.
+     * @param gameEvent the game event
+     * @param onlyVisibleTo the only player able to see the game event, or null if not limited to a single player
+     * @param notVisibleTo the players not able to see the game event, or null
+     */
+    void recordGameEvent(GameEvent gameEvent, String onlyVisibleTo, Set<String> notVisibleTo);
+}
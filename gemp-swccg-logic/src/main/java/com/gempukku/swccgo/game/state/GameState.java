@@ -23,12 +23,13 @@ import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 import org.apache.log4j.Logger;
 
+import java.io.Serializable;
 import java.util.*;
 
 // This class contains the state information for a
 // game of Gemp-Swccg.
 //
-public class GameState implements Snapshotable<GameState> {
+public class GameState implements Snapshotable<GameState>, Serializable {
     private static Logger _log = Logger.getLogger(GameState.class);
     private static final int LAST_MESSAGE_STORED_COUNT = 25000;
     private SwccgGame _game;
@@ -46,7 +47,7 @@ public class GameState implements Snapshotable<GameState> {
     private Map<String, List<PhysicalCard>> _outsideOfDecks = new HashMap<String, List<PhysicalCard>>();
     private Map<String, List<PhysicalCard>> _sideOfTableNotInPlay = new HashMap<String, List<PhysicalCard>>();
     private Map<String, List<PhysicalCard>> _voids = new HashMap<String, List<PhysicalCard>>();
-    private List<PhysicalCard> _inPlay = new LinkedList<PhysicalCard>();
+    private InPlayCards _inPlay = new InPlayCards();
 
     private Map<Integer, PhysicalCard> _allCards = new HashMap<Integer, PhysicalCard>();
     private Map<Integer, PhysicalCard> _allCardsByPermanentCardId = new HashMap<Integer, PhysicalCard>();
@@ -128,6 +129,9 @@ public class GameState implements Snapshotable<GameState> {
 
     private int _nextCardId;
 
+    // Incremented each time the game state is changed, so cached query results can detect they are stale
+    private long _mutationVersion;
+
     /**
      * Needed to generate snapshot.
      */
@@ -340,6 +344,7 @@ public class GameState implements Snapshotable<GameState> {
         snapshot._renegadePlanet = _renegadePlanet;
         snapshot._subjugatedPlanet = _subjugatedPlanet;
         snapshot._nextCardId = _nextCardId;
+        snapshot._mutationVersion = _mutationVersion;
     }
 
     public GameState(SwccgGame game) {
@@ -399,7 +404,7 @@ public class GameState implements Snapshotable<GameState> {
 
         // Shuffle the Reserve Deck and then make sure that top card is not a double-sided card
         List<PhysicalCard> reserveDeck = _reserveDecks.get(playerId);
-        Collections.shuffle(reserveDeck);
+        Collections.shuffle(reserveDeck, _game.getRandom());
         PhysicalCard topCard = reserveDeck.get(0);
         for (int i=0; i < reserveDeck.size(); ++i) {
             if (!topCard.getBlueprint().isFrontOfDoubleSidedCard()) {
@@ -459,6 +464,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void setFirstPlayer(String playerId) {
+        incrementMutationVersion();
         _currentPlayerId = getOpponent(playerId);
         _playerOrder = new PlayerOrder(new ArrayList<String>(Arrays.asList(playerId, _currentPlayerId)));
     }
@@ -510,7 +516,7 @@ public class GameState implements Snapshotable<GameState> {
                 listener.setCurrentPhase(getPhaseString());
 
             Set<PhysicalCard> cardsLeftToSent = new LinkedHashSet<PhysicalCard>(_inPlay);
-            Set<PhysicalCard> sentCardsFromPlay = new HashSet<PhysicalCard>();
+            Set<PhysicalCard> sentCardsFromPlay = new LinkedHashSet<PhysicalCard>();
 
             // Send locations in order
             List<PhysicalCard> topLocations = getLocationsInOrder();
@@ -556,11 +562,12 @@ public class GameState implements Snapshotable<GameState> {
                 for (PhysicalCard physicalCard : physicalCards)
                     listener.cardCreated(physicalCard, this, restoreSnapshot);
 
-            // Send hand
-            List<PhysicalCard> hand = _hands.get(playerId);
-            if (hand != null) {
-                for (PhysicalCard physicalCard : hand)
-                    listener.cardCreated(physicalCard, this, restoreSnapshot);
+            // Send hand (or every hand when sending to a listener that handles visibility itself)
+            for (String handOwner : _hands.keySet()) {
+                if (playerId == null || handOwner.equals(playerId)) {
+                    for (PhysicalCard physicalCard : _hands.get(handOwner))
+                        listener.cardCreated(physicalCard, this, restoreSnapshot);
+                }
             }
 
             // Send attack in progress
@@ -608,9 +615,15 @@ public class GameState implements Snapshotable<GameState> {
         for (String lastMessage : _lastMessages)
             listener.sendMessage(lastMessage);
 
-        final AwaitingDecision awaitingDecision = _playerDecisions.get(playerId);
-        if (awaitingDecision != null)
-            listener.decisionRequired(playerId, awaitingDecision);
+        if (playerId == null) {
+            for (Map.Entry<String, AwaitingDecision> playerDecision : _playerDecisions.entrySet())
+                listener.decisionRequired(playerDecision.getKey(), playerDecision.getValue());
+        }
+        else {
+            final AwaitingDecision awaitingDecision = _playerDecisions.get(playerId);
+            if (awaitingDecision != null)
+                listener.decisionRequired(playerId, awaitingDecision);
+        }
     }
 
     public void sendMessage(String message) {
@@ -637,6 +650,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param card the card
      */
     public void collapseSite(PhysicalCard card) {
+        incrementMutationVersion();
         card.setCollapsed(true);
         List<PhysicalCard> convertedSites = _game.getGameState().getConvertedLocationsUnderTopLocation(card);
         for (PhysicalCard convertedSite : convertedSites) {
@@ -653,6 +667,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param card the card
      */
     public void freezeCharacter(PhysicalCard card) {
+        incrementMutationVersion();
         card.setFrozen(true);
         card.setCaptive(true);
 
@@ -662,6 +677,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void suspendCard(PhysicalCard card) {
+        incrementMutationVersion();
         card.setSuspended(true);
 
         // Use cardRotated from listener since it just updates the image/overlays and doesn't move/replace the card
@@ -670,6 +686,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void resumeCard(PhysicalCard card) {
+        incrementMutationVersion();
         card.setSuspended(false);
 
         // Use cardRotated from listener since it just updates the image/overlays and doesn't move/replace the card
@@ -678,6 +695,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void turnOffBinaryDroid(PhysicalCard card) {
+        incrementMutationVersion();
         card.setBinaryOff(true);
 
         // Use cardRotated from listener since it just updates the image/overlays and doesn't move/replace the card
@@ -686,6 +704,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void turnOnBinaryDroid(PhysicalCard card) {
+        incrementMutationVersion();
         card.setBinaryOff(false);
 
         // Use cardRotated from listener since it just updates the image/overlays and doesn't move/replace the card
@@ -698,6 +717,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param card the card
      */
     public void putUndercover(PhysicalCard card) {
+        incrementMutationVersion();
         card.setUndercover(true);
         moveCardToLocation(card, _game.getModifiersQuerying().getLocationThatCardIsAt(this, card), false);
     }
@@ -707,6 +727,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param card the card
      */
     public void breakCover(PhysicalCard card) {
+        incrementMutationVersion();
         card.setUndercover(false);
         moveCardToLocation(card, _game.getModifiersQuerying().getLocationThatCardIsAt(this, card), true);
     }
@@ -717,6 +738,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param card the card
      */
     public void makeGoMissing(SwccgGame game, PhysicalCard card) {
+        incrementMutationVersion();
         card.setMissing(true);
         if (!card.isFrozen()) {
             card.setCaptive(false);
@@ -733,6 +755,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param card the card
      */
     public void findMissingCharacter(SwccgGame game, PhysicalCard card) {
+        incrementMutationVersion();
         card.setMissing(false);
         if (card.isInverted()) {
             invertCard(game, card, false);
@@ -746,6 +769,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param prison the prison
      */
     public void imprisonCharacter(SwccgGame game, PhysicalCard card, PhysicalCard prison) {
+        incrementMutationVersion();
         // Move or attach card based on if card was already in play
         if (Filters.in_play.accepts(game.getGameState(), game.getModifiersQuerying(), card)) {
             card.setCaptive(true);
@@ -767,6 +791,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param escort the escort
      */
     public void seizeCharacter(SwccgGame game, PhysicalCard card, PhysicalCard escort) {
+        incrementMutationVersion();
         // Move or attach card based on if card was already in play
         if (Filters.in_play.accepts(game.getGameState(), game.getModifiersQuerying(), card)) {
             card.setCaptive(true);
@@ -788,6 +813,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card the starship will be attached to
      */
     public void captureStarship(SwccgGame game, PhysicalCard starship, PhysicalCard attachTo) {
+        incrementMutationVersion();
         if (Filters.in_play.accepts(game.getGameState(), game.getModifiersQuerying(), starship)) {
             starship.setCapturedStarship(true);
             moveCardToAttached(starship, attachTo);
@@ -801,6 +827,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param zoneOwner the side of the location
      */
     public void playCardToLocation(PhysicalCard card, PhysicalCard atLocation, String zoneOwner) {
+        incrementMutationVersion();
         card.atLocation(atLocation);
         addCardToZone(card, Zone.AT_LOCATION, zoneOwner);
     }
@@ -821,6 +848,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param ownerZone true if put on the card owner's side, otherwise false
      */
     public void moveCardToLocation(PhysicalCard card, PhysicalCard moveTo, boolean ownerZone) {
+        incrementMutationVersion();
         if (getBattleLocation() != null
                 && getBattleLocation().getCardId() != moveTo.getCardId()) {
             removeCardFromBattleGroup(card);
@@ -850,6 +878,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card to attach to
      */
     public void attachCard(PhysicalCard card, PhysicalCard attachTo) {
+        incrementMutationVersion();
         card.attachTo(attachTo, false, false, false, false, false);
         card.stackOn(null, false, false);
         addCardToZone(card, Zone.ATTACHED, attachTo.getZoneOwner());
@@ -861,6 +890,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card to attach to
      */
     public void attachCardInPilotCapacitySlot(PhysicalCard card, PhysicalCard attachTo) {
+        incrementMutationVersion();
         card.attachTo(attachTo, true, false, false, false, false);
         card.stackOn(null, false, false);
         addCardToZone(card, Zone.ATTACHED, attachTo.getZoneOwner());
@@ -872,6 +902,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card to attach to
      */
     public void attachCardInPassengerCapacitySlot(PhysicalCard card, PhysicalCard attachTo) {
+        incrementMutationVersion();
         card.attachTo(attachTo, false, true, false, false, false);
         card.stackOn(null, false, false);
         addCardToZone(card, Zone.ATTACHED, attachTo.getZoneOwner());
@@ -883,6 +914,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card to attach to
      */
     public void attachCardInVehicleCapacitySlot(PhysicalCard card, PhysicalCard attachTo) {
+        incrementMutationVersion();
         card.attachTo(attachTo, false, false, true, false, false);
         card.stackOn(null, false, false);
         addCardToZone(card, Zone.ATTACHED, attachTo.getZoneOwner());
@@ -894,6 +926,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card to attach to
      */
     public void attachCardInStarfighterOrTIECapacitySlot(PhysicalCard card, PhysicalCard attachTo) {
+        incrementMutationVersion();
         card.attachTo(attachTo, false, false, false, true, false);
         card.stackOn(null, false, false);
         addCardToZone(card, Zone.ATTACHED, attachTo.getZoneOwner());
@@ -905,6 +938,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param attachTo the card to attach to
      */
     public void attachCardInCapitalStarshipCapacitySlot(PhysicalCard card, PhysicalCard attachTo) {
+        incrementMutationVersion();
         card.attachTo(attachTo, false, false, false, false, true);
         card.stackOn(null, false, false);
         addCardToZone(card, Zone.ATTACHED, attachTo.getZoneOwner());
@@ -916,6 +950,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param moveTo the card to attach to
      */
     public void moveCardToAttached(PhysicalCard card, PhysicalCard moveTo) {
+        incrementMutationVersion();
         if (!getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).add(card);
@@ -937,6 +972,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param moveTo the card to attach to
      */
     public void moveCardToAttachedInPilotCapacitySlot(PhysicalCard card, PhysicalCard moveTo) {
+        incrementMutationVersion();
         if (!getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).add(card);
@@ -957,6 +993,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param moveTo the card to attach to
      */
     public void moveCardToAttachedInPassengerCapacitySlot(PhysicalCard card, PhysicalCard moveTo) {
+        incrementMutationVersion();
         if (!getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).add(card);
@@ -977,6 +1014,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param moveTo the card to attach to
      */
     public void moveCardToAttachedInVehicleCapacitySlot(PhysicalCard card, PhysicalCard moveTo) {
+        incrementMutationVersion();
         if (!getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).add(card);
@@ -997,6 +1035,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param moveTo the card to attach to
      */
     public void moveCardToAttachedInStarfighterOrTIECapacitySlot(PhysicalCard card, PhysicalCard moveTo) {
+        incrementMutationVersion();
         if (!getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).add(card);
@@ -1017,6 +1056,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param moveTo the card to attach to
      */
     public void moveCardToAttachedInCapitalStarshipCapacitySlot(PhysicalCard card, PhysicalCard moveTo) {
+        incrementMutationVersion();
         if (!getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(moveTo.getZoneOwner(), Zone.ATTACHED).add(card);
@@ -1040,6 +1080,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param fromJediTest5 true if stacked upside-down to be used as substitute destiny via Jedi Test #5, otherwise false
      */
     public void stackCard(PhysicalCard card, PhysicalCard stackOn, boolean faceDown, boolean asInactive, boolean fromJediTest5) {
+        incrementMutationVersion();
         card.stackOn(stackOn, asInactive, fromJediTest5);
         addCardToZone(card, faceDown ? Zone.STACKED_FACE_DOWN : Zone.STACKED, stackOn.getZoneOwner());
     }
@@ -1052,6 +1093,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param asInactive true if card is stacked as inactive state, otherwise card is stacked as supporting state
      */
     public void relocateCardAsStacked(PhysicalCard card, PhysicalCard stackOn, boolean faceDown, boolean asInactive) {
+        incrementMutationVersion();
         if (!getZoneCards(stackOn.getZoneOwner(), faceDown ? Zone.STACKED_FACE_DOWN : Zone.STACKED).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(stackOn.getZoneOwner(), faceDown ? Zone.STACKED_FACE_DOWN : Zone.STACKED).add(card);
@@ -1072,6 +1114,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param zoneOwner the player's whose side of table to relocate to
      */
     public void relocateCardToSideOfTable(PhysicalCard card, String zoneOwner) {
+        incrementMutationVersion();
         if (!getZoneCards(zoneOwner, Zone.SIDE_OF_TABLE).contains(card)) {
             getZoneCards(card.getZoneOwner(), card.getZone()).remove(card);
             getZoneCards(zoneOwner, Zone.SIDE_OF_TABLE).add(card);
@@ -1191,6 +1234,7 @@ public class GameState implements Snapshotable<GameState> {
 
     // If something like an insert card triggers, the pile may change, so we cannot shortcut anymore.
     public void setInsertCardFound(boolean insertFound) {
+        incrementMutationVersion();
         _insertFound = insertFound;
     }
 
@@ -1204,6 +1248,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param sourceCard the card that started the Podrace
      */
     public void setPodraceStarted(PhysicalCard sourceCard) {
+        incrementMutationVersion();
         _podraceInitiatedByCard = sourceCard;
     }
 
@@ -1228,6 +1273,7 @@ public class GameState implements Snapshotable<GameState> {
      * Sets if a Podrace is finishing.
      */
     public void setPodraceFinishing() {
+        incrementMutationVersion();
         _podraceFinishing = true;
     }
 
@@ -1243,6 +1289,7 @@ public class GameState implements Snapshotable<GameState> {
      * Sets if a Podrace has finished.
      */
     public void setPodraceFinished() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfPodrace();
         _podraceInitiatedByCard = null;
         _podraceFinishing = false;
@@ -1253,6 +1300,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param winner the winner
      */
     public void setPodraceWinner(String winner) {
+        incrementMutationVersion();
         _podraceWinner = winner;
     }
 
@@ -1269,6 +1317,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param loser the loser
      */
     public void setPodraceLoser(String loser) {
+        incrementMutationVersion();
         _podraceLoser = loser;
     }
 
@@ -1285,6 +1334,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param raceTotal the winner race total
      */
     public void setPodraceWinnerRaceTotal(float raceTotal) {
+        incrementMutationVersion();
         _podraceWinnerRaceTotal = raceTotal;
     }
 
@@ -1301,6 +1351,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param raceTotal the loser race total
      */
     public void setPodraceLoserRaceTotal(float raceTotal) {
+        incrementMutationVersion();
         _podraceLoserRaceTotal = raceTotal;
     }
 
@@ -1339,6 +1390,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void removeCardsFromZone(Collection<PhysicalCard> cards, boolean skipListenerUpdateOnRemove, boolean skipListenerUpdateOnAdd) {
+        incrementMutationVersion();
         if (cards.isEmpty())
             return;
 
@@ -1441,6 +1493,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void copyCardStats(PhysicalCard fromCard, PhysicalCard toCard) {
+        incrementMutationVersion();
         toCard.setZone(fromCard.getZone());
         toCard.setFlipped(fromCard.isFlipped());
         toCard.setInverted(fromCard.isInverted());
@@ -1485,6 +1538,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void clearCardStats(PhysicalCard card) {
+        incrementMutationVersion();
         card.setZone(null);
         card.setFlipped(false);
         card.setInverted(false);
@@ -1534,6 +1588,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param player the player
      */
     public void recirculate(String player) {
+        incrementMutationVersion();
         List<PhysicalCard> usedPile = getZoneCards(player, Zone.USED_PILE);
         List<PhysicalCard> cardsToRecirculate = new ArrayList<PhysicalCard>(usedPile);
 
@@ -1565,6 +1620,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param toPile the card pile to move the cards to
      */
     public void placeCardPileOnCardPile(String player, Zone fromPile, Zone toPile) {
+        incrementMutationVersion();
         List<PhysicalCard> fromPileCards = getZoneCards(player, fromPile);
         boolean firstCard = true;
         while (!fromPileCards.isEmpty()) {
@@ -1583,6 +1639,7 @@ public class GameState implements Snapshotable<GameState> {
 
 
     public void turnOverLostPile(String playerId, boolean upsideDown) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer)) {
             if (_darkSideLostPileTurnedOver == upsideDown)
                 return;
@@ -1623,6 +1680,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void turnOverUsedPiles(boolean faceUp) {
+        incrementMutationVersion();
         if (_usedPilesTurnedOver == faceUp)
             return;
 
@@ -1660,6 +1718,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void turnOverTopCardOfReserveDeck(String playerId, boolean faceUp) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer)) {
             if (_darkSideTopOfReserveDeckTurnedOver == faceUp)
                 return;
@@ -1702,6 +1761,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void invertCard(SwccgGame game, PhysicalCard card, boolean upsideDown) {
+        incrementMutationVersion();
         if (card.isInverted()==upsideDown)
             return;
 
@@ -1715,6 +1775,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void flipCard(SwccgGame game, PhysicalCard card, boolean toBack) {
+        incrementMutationVersion();
         if (card.getZone() != Zone.STACKED && card.getZone() != Zone.STACKED_FACE_DOWN
                 && card.getZone() != Zone.SIDE_OF_TABLE_NOT_IN_PLAY && card.getZone() != Zone.SIDE_OF_TABLE_FACE_DOWN_NOT_IN_PLAY
                 && card.isFlipped() == toBack)
@@ -1738,6 +1799,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void flipBlownAwayLocations(SwccgGame game, Collection<PhysicalCard> locations) {
+        incrementMutationVersion();
         for (PhysicalCard location : locations) {
 
             location.setBlownAway(true);
@@ -1751,6 +1813,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void turnCardSideways(SwccgGame game, PhysicalCard card, boolean restore) {
+        incrementMutationVersion();
         if (card.isSideways()!=restore)
             return;
 
@@ -1840,6 +1903,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param placement the placement
      */
     public void addLocationToTable(SwccgGame game, PhysicalCard card, LocationPlacement placement) {
+        incrementMutationVersion();
 
         if (placement.getDirection() == LocationPlacementDirection.REPLACE) {
             for (GameStateListener listener : getAllGameStateListeners())
@@ -2129,6 +2193,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     private void addCardToZone(PhysicalCard card, Zone zone, String zoneOwner, boolean skipNewCardId, boolean top, boolean skipListenerUpdateOnRemove, boolean skipListenerUpdateOnAdd, Integer indexOf) {
+        incrementMutationVersion();
         if (!zone.isInPlay() && !card.isInserted() && zone != Zone.VOID) {
             card.setWhileInPlayData(null);
             card.clearTargetedCards();
@@ -2329,6 +2394,7 @@ public class GameState implements Snapshotable<GameState> {
 
     // Call listeners so the card is now shown in the battle group
     public void addCardToBattleGroup(PhysicalCard card) {
+        incrementMutationVersion();
         if (isDuringBattle()) {
             for (GameStateListener listener : getAllGameStateListeners()) {
                 listener.addToBattle(card, this);
@@ -2338,6 +2404,7 @@ public class GameState implements Snapshotable<GameState> {
 
     // Call listeners so the card is now shown not in the battle group
     public void removeCardFromBattleGroup(PhysicalCard card) {
+        incrementMutationVersion();
         if (isDuringBattle()) {
             for (GameStateListener listener : getAllGameStateListeners()) {
                 listener.removeFromBattle(card, this);
@@ -2346,6 +2413,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void assignNewCardId(PhysicalCard card) {
+        incrementMutationVersion();
         int newCardId = nextCardId();
         card.setCardId(newCardId);
         _allCards.put(newCardId, card);
@@ -2353,12 +2421,14 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void assignCardId(PhysicalCard card, int newCardId) {
+        incrementMutationVersion();
         card.setCardId(newCardId);
         _allCards.put(newCardId, card);
         assignAdditionalCardIds(card, Collections.<Integer>emptyList());
     }
 
     public void assignAdditionalCardIds(PhysicalCard card, List<Integer> additionalCardIds) {
+        incrementMutationVersion();
         card.setAdditionalCardIds(additionalCardIds);
         for (Integer additionalCardId : additionalCardIds) {
             _allCards.put(additionalCardId, card);
@@ -2377,7 +2447,24 @@ public class GameState implements Snapshotable<GameState> {
      * @return true if visitor did not need to visit all cards, otherwise false
      */
     public boolean iterateAllCardsOnTable(PhysicalCardVisitor physicalCardVisitor, boolean includeInactiveStackedCards, boolean includeInsertCards, boolean includeConvertedLocations) {
-        for (PhysicalCard physicalCard : _inPlay) {
+        return iterateAllCardsOnTable(physicalCardVisitor, includeInactiveStackedCards, includeInsertCards, includeConvertedLocations, null);
+    }
+
+    /**
+     * This method will iterate through each of the cards that are "in play" (regardless of card state) right now.
+     * Optionally 'insert' cards and/or converted locations can be included in the search. If a card category is
+     * specified, then the cards "in play" that cannot be in that card category are skipped.
+     * This is primarily used to look for cards on the table.
+     *
+     * @param physicalCardVisitor the card visitor
+     * @param includeInactiveStackedCards true if 'inactive' stacked cards are included, otherwise false
+     * @param includeInsertCards true if 'insert' cards are included, otherwise false
+     * @param includeConvertedLocations true if converted locations are included, otherwise false
+     * @param cardCategory the card category that the visitor only accepts cards in, or null
+     * @return true if visitor did not need to visit all cards, otherwise false
+     */
+    public boolean iterateAllCardsOnTable(PhysicalCardVisitor physicalCardVisitor, boolean includeInactiveStackedCards, boolean includeInsertCards, boolean includeConvertedLocations, CardCategory cardCategory) {
+        for (PhysicalCard physicalCard : getCardsInPlay(cardCategory)) {
             if (includeConvertedLocations || physicalCard.getZone() != Zone.CONVERTED_LOCATIONS) {
                 if (physicalCardVisitor.visitPhysicalCard(physicalCard))
                     return true;
@@ -2445,6 +2532,24 @@ public class GameState implements Snapshotable<GameState> {
      */
     public boolean iterateActiveCards(PhysicalCardVisitor physicalCardVisitor, ModifiersQuerying modifiersQuerying, PhysicalCard source,
                                       Map<InactiveReason, Boolean> spotOverrides, Map<TargetingReason, Filterable> targetFiltersMap) {
+        return iterateActiveCards(physicalCardVisitor, modifiersQuerying, source, spotOverrides, targetFiltersMap, null);
+    }
+
+    /**
+     * This method will iterate through each of the cards that are considered "active" right now. If a card category is
+     * specified, then the cards that cannot be in that card category are skipped.
+     * This is primarily used to look if particular cards can be spotted on the table.
+     *
+     * @param physicalCardVisitor the card visitor
+     * @param modifiersQuerying the modifiers querying
+     * @param source the card performing the search, or null if the game itself is performing the search
+     * @param spotOverrides the spot overrides to determine which "inactive" cards can also be seen
+     * @param targetFiltersMap map of targeting reason to filter
+     * @param cardCategory the card category that the visitor only accepts cards in, or null
+     * @return true if visitor did not need to visit all cards, otherwise false
+     */
+    public boolean iterateActiveCards(PhysicalCardVisitor physicalCardVisitor, ModifiersQuerying modifiersQuerying, PhysicalCard source,
+                                      Map<InactiveReason, Boolean> spotOverrides, Map<TargetingReason, Filterable> targetFiltersMap, CardCategory cardCategory) {
         boolean includeExcludedFromBattle = false;
         boolean includeUndercover = false;
         boolean includeCaptives = false;
@@ -2474,7 +2579,7 @@ public class GameState implements Snapshotable<GameState> {
             }
         }
 
-        for (PhysicalCard physicalCard : _inPlay) {
+        for (PhysicalCard physicalCard : getCardsInPlay(cardCategory)) {
 
             // Special rule:
             // For 'undercover' if source card of an Interrupt or if targeting reason is "to be dueled, hit, or lost (include 'choked');
@@ -2515,6 +2620,18 @@ public class GameState implements Snapshotable<GameState> {
         return false;
     }
 
+    /**
+     * Gets the cards "in play" that may be in the specified card category.
+     * @param cardCategory the card category, or null for all cards "in play"
+     * @return the cards
+     */
+    private List<PhysicalCard> getCardsInPlay(CardCategory cardCategory) {
+        if (cardCategory == null)
+            return _inPlay;
+
+        return _inPlay.getCardsByCardCategory(cardCategory);
+    }
+
     /**
      * This method will iterate through each of the stacked on other cards right now.
      * This is primarily used to look for stacked cards.
@@ -3007,6 +3124,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void setPlayersTotalForceGeneration(String playerId, float totalForceGeneration) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSideTotalForceGeneration = totalForceGeneration;
         else
@@ -3021,6 +3139,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void lifeForceDepleted(String playerId) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSideLifeForceDepleted = true;
         else
@@ -3529,6 +3648,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void startPlayerTurn(String playerId) {
+        incrementMutationVersion();
         _currentPlayerId = playerId;
         incrementAndGetCurrentTurnNumber();
 
@@ -3545,6 +3665,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void reapplyAffectingForCard(SwccgGame game, PhysicalCard card) {
+        incrementMutationVersion();
         card.stopAffectingGame();
         card.startAffectingGame(game);
     }
@@ -3558,6 +3679,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void setCurrentPhase(Phase phase) {
+        incrementMutationVersion();
         _currentPhase = phase;
         for (GameStateListener listener : getAllGameStateListeners())
             listener.setCurrentPhase(getPhaseString());
@@ -3581,6 +3703,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param creatureAttacking the creature attacking, otherwise null if non-creature is attacking a creature
      */
     public void beginAttack(String playerId, PhysicalCard location, PhysicalCard cardBeingAttacked, PhysicalCard creatureAttacking) {
+        incrementMutationVersion();
         _attackState = new AttackState(_game, playerId, location);
 
         if (creatureAttacking == null) {
@@ -3659,6 +3782,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endAttack() {
+        incrementMutationVersion();
         if (_attackState != null) {
             _attackState = null;
 
@@ -3682,6 +3806,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param localTroubleParticipants the Local Trouble battle participants, or null if not a Local Trouble battle
      */
     public void beginBattle(String playerId, PhysicalCard location, boolean isLocalTrouble, Collection<PhysicalCard> localTroubleParticipants, Collection<Modifier> extraModifiers) {
+        incrementMutationVersion();
         _battleState = new BattleState(getGame(), playerId, location, isLocalTrouble);
 
         if (isLocalTrouble) {
@@ -3756,6 +3881,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endBattle() {
+        incrementMutationVersion();
         if (_battleState != null) {
             _battleState = null;
 
@@ -3781,6 +3907,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param duelDirections the duel directions
      */
     public void beginDuel(String playerId, PhysicalCard cardToInitiateDuel, PhysicalCard location, PhysicalCard darkSideCharacter, PhysicalCard lightSideCharacter, DuelDirections duelDirections) {
+        incrementMutationVersion();
         _duelState = new DuelState(_game, playerId, cardToInitiateDuel, location, darkSideCharacter, lightSideCharacter, duelDirections);
 
         List<PhysicalCard> cardsToShowInDuel = new ArrayList<PhysicalCard>();
@@ -3814,6 +3941,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endDuel() {
+        incrementMutationVersion();
         if (_duelState != null) {
             _duelState = null;
 
@@ -3844,6 +3972,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param lightsaberCombatDirections the lightsaber combat directions
      */
     public void beginLightsaberCombat(String playerId, PhysicalCard location, PhysicalCard darkSideCharacter, PhysicalCard lightSideCharacter, LightsaberCombatDirections lightsaberCombatDirections) {
+        incrementMutationVersion();
         _lightsaberCombatState = new LightsaberCombatState(_game, playerId, location, darkSideCharacter, lightSideCharacter, lightsaberCombatDirections);
 
         List<PhysicalCard> cardsToShowInLightsaberCombat = new ArrayList<PhysicalCard>();
@@ -3871,6 +4000,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endLightsaberCombat() {
+        incrementMutationVersion();
         if (_lightsaberCombatState != null) {
             _lightsaberCombatState = null;
 
@@ -3887,6 +4017,7 @@ public class GameState implements Snapshotable<GameState> {
     // Deploy as react state info
     //
     public void beginDeployAsReact(RespondableDeployAsReactEffect effect) {
+        incrementMutationVersion();
         _deployAsReactState = new DeployAsReactState(effect);
     }
 
@@ -3899,6 +4030,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void finishDeployAsReact() {
+        incrementMutationVersion();
         if (_deployAsReactState != null) {
             _deployAsReactState = null;
         }
@@ -3908,6 +4040,7 @@ public class GameState implements Snapshotable<GameState> {
     // Move as react state info
     //
     public void beginMoveAsReact(PhysicalCard cardReacting, ReactActionOption reactActionOption) {
+        incrementMutationVersion();
         _moveAsReactState = new MoveAsReactState(cardReacting, reactActionOption);
     }
 
@@ -3920,6 +4053,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void finishMoveAsReact() {
+        incrementMutationVersion();
         if (_moveAsReactState != null)
             _moveAsReactState = null;
     }
@@ -3928,6 +4062,7 @@ public class GameState implements Snapshotable<GameState> {
     // Force drain state info
     //
     public void beginForceDrain(String playerId, PhysicalCard location) {
+        incrementMutationVersion();
         _forceDrainState = new ForceDrainState(_game, playerId, location);
     }
 
@@ -3948,6 +4083,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endForceDrain() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfForceDrain();
         _forceDrainState = null;
     }
@@ -3956,6 +4092,7 @@ public class GameState implements Snapshotable<GameState> {
     // Play card state info
     //
     public void beginPlayCard(PlayCardAction action) {
+        incrementMutationVersion();
         int id = _playCardState.size();
         _playCardState.push(new PlayCardState(id, action));
     }
@@ -3991,6 +4128,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endPlayCard() {
+        incrementMutationVersion();
         PlayCardState state = getTopPlayCardState(null);
         if (state == null) {
             return;
@@ -4007,6 +4145,7 @@ public class GameState implements Snapshotable<GameState> {
     // Game text action state info
     //
     public void beginGameTextAction(GameTextAction action) {
+        incrementMutationVersion();
         int id = _gameTextActionState.size();
         _gameTextActionState.push(new GameTextActionState(id, action));
     }
@@ -4036,6 +4175,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endGameTextAction() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfGameTextAction();
         _gameTextActionState.pop();
     }
@@ -4044,6 +4184,7 @@ public class GameState implements Snapshotable<GameState> {
     // Force loss state info
     //
     public void beginForceLoss(LoseForceEffect loseForceEffect) {
+        incrementMutationVersion();
         int id = _forceLossState.size();
         _forceLossState.push(new ForceLossState(id, loseForceEffect));
     }
@@ -4060,6 +4201,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endForceLoss() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfForceLoss();
         _forceLossState.pop();
     }
@@ -4068,6 +4210,7 @@ public class GameState implements Snapshotable<GameState> {
     // Force retrieval state info
     //
     public void beginForceRetrieval(ForceRetrievalEffect forceRetrievalEffect) {
+        incrementMutationVersion();
         int id = _forceRetrievalState.size();
         _forceRetrievalState.push(new ForceRetrievalState(id, forceRetrievalEffect));
     }
@@ -4084,6 +4227,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endForceRetrieval() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfForceRetrieval();
         _forceRetrievalState.pop();
     }
@@ -4093,6 +4237,7 @@ public class GameState implements Snapshotable<GameState> {
     // Draw destiny state info
     //
     public void beginDrawDestiny(DrawDestinyEffect drawDestinyEffect) {
+        incrementMutationVersion();
         int id = _drawDestinyState.size();
         _drawDestinyState.push(new DrawDestinyState(id, drawDestinyEffect));
     }
@@ -4105,12 +4250,14 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endDrawDestiny() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfDrawDestiny();
         _game.getActionsEnvironment().removeEndOfDrawDestinyActionProxies();
         _drawDestinyState.pop();
     }
 
     public void beginEachDrawnDestiny(DrawDestinyEffect drawDestinyEffect) {
+        incrementMutationVersion();
         int id = _eachDrawnDestinyState.size();
         _eachDrawnDestinyState.push(new EachDrawnDestinyState(id, drawDestinyEffect));
     }
@@ -4123,6 +4270,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endEachDrawnDestiny() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfEachDrawnDestiny();
         _eachDrawnDestinyState.pop();
     }
@@ -4131,6 +4279,7 @@ public class GameState implements Snapshotable<GameState> {
     // Epic Event state info
     //
     public void beginEpicEvent(EpicEventState epicEventState) {
+        incrementMutationVersion();
         _epicEventState = epicEventState;
     }
 
@@ -4147,6 +4296,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void finishEpicEvent() {
+        incrementMutationVersion();
         if (_epicEventState != null) {
             _epicEventState = null;
 
@@ -4158,6 +4308,7 @@ public class GameState implements Snapshotable<GameState> {
     // Blow away info
     //
     public void beginBlowAway(BlowAwayEffect blowAwayEffect) {
+        incrementMutationVersion();
         int id = _blowAwayState.size();
         _blowAwayState.push(new BlowAwayState(id, blowAwayEffect));
     }
@@ -4170,6 +4321,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endBlowAway() {
+        incrementMutationVersion();
         _game.getModifiersEnvironment().removeEndOfBlowAway();
         _game.getActionsEnvironment().removeEndOfBlowAwayActionProxies();
         _blowAwayState.pop();
@@ -4179,6 +4331,7 @@ public class GameState implements Snapshotable<GameState> {
     // Sabacc state info
     //
     public void beginSabacc(PhysicalCard sabaccInterrupt, PhysicalCard sabaccPlayer1, PhysicalCard sabaccPlayer2) {
+        incrementMutationVersion();
         _sabaccState = new SabaccState(sabaccInterrupt, sabaccPlayer1, sabaccPlayer2);
 
         // Tell user interface to show sabacc area
@@ -4195,6 +4348,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void revealSabaccHands() {
+        incrementMutationVersion();
         if (_sabaccState != null) {
             _sabaccState.setHandsRevealed(true);
 
@@ -4234,6 +4388,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endSabacc() {
+        incrementMutationVersion();
         if (_sabaccState != null) {
             _game.getModifiersEnvironment().removeEndOfSabacc();
             _sabaccState = null;
@@ -4247,6 +4402,7 @@ public class GameState implements Snapshotable<GameState> {
     // Asteroid destiny draw state info
     //
     public void beginAsteroidDestinyDraw(PhysicalCard starship, PhysicalCard location) {
+        incrementMutationVersion();
         _asteroidDestinyDrawState = new AsteroidDestinyDrawState(starship, location);
     }
 
@@ -4259,6 +4415,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endAsteroidDestinyDraw() {
+        incrementMutationVersion();
         _asteroidDestinyDrawState = null;
     }
 
@@ -4266,6 +4423,7 @@ public class GameState implements Snapshotable<GameState> {
     // Movement destiny draw state info
     //
     public void beginMovementDestinyDraw(PhysicalCard starship, PhysicalCard location) {
+        incrementMutationVersion();
         _movementDestinyDrawState = new MovementDestinyDrawState(starship, location);
     }
 
@@ -4278,6 +4436,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void endMovementDestinyDraw() {
+        incrementMutationVersion();
         _movementDestinyDrawState = null;
     }
 
@@ -4286,6 +4445,7 @@ public class GameState implements Snapshotable<GameState> {
     // Search party state info
     //
     public void beginSearchParty(Collection<PhysicalCard> searchParty, PhysicalCard location) {
+        incrementMutationVersion();
         _searchPartyState = new SearchPartyState(searchParty, location);
     }
 
@@ -4302,6 +4462,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void finishSearchParty() {
+        incrementMutationVersion();
         if (_searchPartyState != null)
             _searchPartyState = null;
     }
@@ -4310,10 +4471,12 @@ public class GameState implements Snapshotable<GameState> {
     // Weapon firing state info
     //
     public void beginWeaponFiring(PhysicalCard weaponFiring, SwccgBuiltInCardBlueprint permanentWeapon) {
+        incrementMutationVersion();
         _weaponFiringState = new WeaponFiringState(_game, weaponFiring, permanentWeapon);
     }
 
     public void beginCombinedWeaponFiring() {
+        incrementMutationVersion();
         // _weaponFiringState = new WeaponFiringState(true);
     }
 
@@ -4326,6 +4489,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void finishWeaponFiring() {
+        incrementMutationVersion();
         if (_weaponFiringState != null) {
             _game.getModifiersEnvironment().removeEndOfWeaponFiring();
             _game.getActionsEnvironment().removeEndOfWeaponFiringActionProxies();
@@ -4337,6 +4501,7 @@ public class GameState implements Snapshotable<GameState> {
     // Tractor beam state info
     //
     public void beginUsingTractorBeam(PhysicalCard tractorBeam) {
+        incrementMutationVersion();
         _usingTractorBeamState = new UsingTractorBeamState(_game, tractorBeam);
     }
 
@@ -4349,6 +4514,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void finishUsingTractorBeam() {
+        incrementMutationVersion();
         if (_usingTractorBeamState != null) {
             _game.getModifiersEnvironment().removeEndOfTractorBeam();
             _usingTractorBeamState = null;
@@ -4372,6 +4538,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param playerId the player
      */
     public void setDeployedDeathStarLocation(String playerId) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSidePlayerDeployedDeathStarLocation = true;
         else
@@ -4395,6 +4562,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param playerId the player
      */
     public void setDeployedAhchToDagobahLocation(String playerId) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSidePlayerDeployedAhchToDagobahLocation = true;
         else
@@ -4409,6 +4577,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void setObjectivePlayed(String playerId, PhysicalCard objective) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSideObjective = objective;
         else
@@ -4423,6 +4592,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void setStartingInterruptPlayed(String playerId, PhysicalCard startingInterrupt) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSideStartingInterrupt = startingInterrupt;
         else
@@ -4437,6 +4607,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void setRep(String playerId, PhysicalCard rep) {
+        incrementMutationVersion();
         if (playerId.equals(_darkSidePlayer))
             _darkSideRep = rep;
         else
@@ -4468,6 +4639,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param renegadePlanet the Renegade planet
      */
     public void setRenegadePlanet(String renegadePlanet) {
+        incrementMutationVersion();
         _renegadePlanet = renegadePlanet;
     }
 
@@ -4484,6 +4656,7 @@ public class GameState implements Snapshotable<GameState> {
      * @param subjugatedPlanet the Subjugated planet
      */
     public void setSubjugatedPlanet(String subjugatedPlanet) {
+        incrementMutationVersion();
         _subjugatedPlanet = subjugatedPlanet;
     }
 
@@ -4491,6 +4664,7 @@ public class GameState implements Snapshotable<GameState> {
      * Adds a card as being an apprentice.
      */
     public void addApprentice(PhysicalCard card) {
+        incrementMutationVersion();
         Set<Persona> personas = card.getBlueprint().getPersonas();
         if (!personas.isEmpty()) {
             _apprenticePersonas.addAll(card.getBlueprint().getPersonas());
@@ -4526,6 +4700,7 @@ public class GameState implements Snapshotable<GameState> {
      * Removes a card as being an apprentice.
      */
     public void removeApprentice(PhysicalCard card) {
+        incrementMutationVersion();
         Set<Persona> personas = card.getBlueprint().getPersonas();
         if (!personas.isEmpty()) {
             _apprenticePersonas.removeAll(card.getBlueprint().getPersonas());
@@ -4575,6 +4750,7 @@ public class GameState implements Snapshotable<GameState> {
     }
 
     public void shufflePile(String player, Zone zone) {
+        incrementMutationVersion();
         if (zone!=Zone.RESERVE_DECK && zone!=Zone.FORCE_PILE
                 && zone!=Zone.USED_PILE && zone!=Zone.LOST_PILE)
             return;
@@ -4592,7 +4768,7 @@ public class GameState implements Snapshotable<GameState> {
             int minTimesToShuffle = (cardsInPile.size() / 30) + 1;
             int timesShuffled = 0;
             do {
-                Collections.shuffle(cardsInPile);
+                Collections.shuffle(cardsInPile, _game.getRandom());
                 timesShuffled++;
                 topCard = cardsInPile.get(0);
             } while (timesShuffled < minTimesToShuffle || topCard.isInserted());
@@ -4623,6 +4799,22 @@ public class GameState implements Snapshotable<GameState> {
         return _game.getAllGameStateListeners();
     }
 
+    /**
+     * Gets the mutation version of the game state. The version is incremented each time the game state is changed, so
+     * a cached result computed from the game state is only valid while the version is unchanged.
+     * @return the mutation version
+     */
+    public long getMutationVersion() {
+        return _mutationVersion;
+    }
+
+    /**
+     * Increments the mutation version of the game state.
+     */
+    public void incrementMutationVersion() {
+        _mutationVersion++;
+    }
+
     public boolean isTableChangedSinceStatsSent() {
         return _tableChangedSinceStatsSent;
     }
@@ -0,0 +1,74 @@
+package com.gempukku.swccgo.game.state;
+
+import com.gempukku.swccgo.common.CardCategory;
+import com.gempukku.swccgo.game.PhysicalCard;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The list of cards "in play" kept by the game state, along with an index of those cards by card category.
+ *
+ * The index is rebuilt the first time it is used after any card is added to or removed from the list. Double-sided
+ * cards are indexed under the card category of each side, so the cards found for a card category may include cards
+ * that are not currently in that card category, and the caller must still check each card.
+ */
+class InPlayCards extends LinkedList<PhysicalCard> {
+    private int _indexedModCount = -1;
+    private Map<CardCategory, List<PhysicalCard>> _cardsByCardCategory = new EnumMap<CardCategory, List<PhysicalCard>>(CardCategory.class);
+
+    /**
+     * Gets the cards in play that may be in the specified card category, in the same order as they are in play.
+     * @param cardCategory the card category
+     * @return the cards
+     */
+    List<PhysicalCard> getCardsByCardCategory(CardCategory cardCategory) {
+        if (_indexedModCount != modCount) {
+            rebuildIndex();
+        }
+        List<PhysicalCard> cards = _cardsByCardCategory.get(cardCategory);
+        return cards != null ? cards : Collections.<PhysicalCard>emptyList();
+    }
+
+    /**
+     * Rebuilds the index of cards by card category. New lists are created, so any iteration over the previous lists
+     * is not affected.
+     */
+    private void rebuildIndex() {
+        _cardsByCardCategory.clear();
+        for (PhysicalCard card : this) {
+            CardCategory cardCategory = card.getBlueprint().getCardCategory();
+            addToIndex(cardCategory, card);
+            if (card.isDoubleSided() && card.getOtherSideBlueprint() != null) {
+                CardCategory otherSideCardCategory = card.getOtherSideBlueprint().getCardCategory();
+                if (otherSideCardCategory != cardCategory) {
+                    addToIndex(otherSideCardCategory, card);
+                }
+            }
+        }
+        _indexedModCount = modCount;
+    }
+
+    private void addToIndex(CardCategory cardCategory, PhysicalCard card) {
+        if (cardCategory == null)
+            return;
+        List<PhysicalCard> cards = _cardsByCardCategory.get(cardCategory);
+        if (cards == null) {
+            cards = new ArrayList<PhysicalCard>();
+            _cardsByCardCategory.put(cardCategory, cards);
+        }
+        cards.add(card);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        // The modification count is not serialized, so rebuild the index the first time it is used
+        _indexedModCount = -1;
+    }
+}
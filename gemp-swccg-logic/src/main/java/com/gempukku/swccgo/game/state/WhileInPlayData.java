@@ -7,12 +7,13 @@ import com.gempukku.swccgo.logic.evaluators.Evaluator;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
  * Data that is stored in while in play data.
  */
-public class WhileInPlayData implements Snapshotable<WhileInPlayData> {
+public class WhileInPlayData implements Snapshotable<WhileInPlayData>, Serializable {
     private boolean _booleanValue;
     private Float _floatValue;
     private int _intValue;
@@ -13,15 +13,18 @@ import com.gempukku.swccgo.logic.timing.*;
 import com.gempukku.swccgo.logic.timing.results.DestinyDrawnResult;
 import com.google.common.base.Objects;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
  * The implementation of the actions environment interface, which keeps track of action-related information for the game.
  */
-public class DefaultActionsEnvironment implements ActionsEnvironment {
+public class DefaultActionsEnvironment implements ActionsEnvironment, Serializable {
     private SwccgGame _swccgGame;
     private ActionStack _actionStack;
     private List<ActionProxy> _actionProxies = new LinkedList<ActionProxy>();
+    // Action proxies that may have after triggers for each effect result type, built as needed from _actionProxies
+    private Map<EffectResult.Type, List<ActionProxy>> _actionProxiesByEffectResultType = new EnumMap<EffectResult.Type, List<ActionProxy>>(EffectResult.Type.class);
     private List<ActionProxy> _untilEndOfTurnActionProxies = new LinkedList<ActionProxy>();
     private Map<String, List<ActionProxy>> _untilEndOfPlayersNextTurnActionProxies = new HashMap<String, List<ActionProxy>>();
     private List<ActionProxy> _untilEndOfBattleActionProxies = new LinkedList<ActionProxy>();
@@ -30,7 +33,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
     private List<ActionProxy> _untilEndOfWeaponFiringActionProxies = new LinkedList<ActionProxy>();
     private Map<Integer, List<ActionProxy>> _untilEndOfDrawDestinyActionProxies = new HashMap<Integer, List<ActionProxy>>();
     private Map<Integer, List<ActionProxy>> _untilEndOfBlowAwayActionProxies = new HashMap<Integer, List<ActionProxy>>();
-    private Set<EffectResult> _effectResults = new HashSet<EffectResult>();
+    private Set<EffectResult> _effectResults = new LinkedHashSet<EffectResult>();
 
     /**
      * Needed to generate snapshot.
@@ -92,13 +95,66 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
     @Override
     public Set<EffectResult> consumeEffectResults() {
         Set<EffectResult> result = _effectResults;
-        _effectResults = new HashSet<EffectResult>();
+        _effectResults = new LinkedHashSet<EffectResult>();
         return result;
     }
 
+    /**
+     * Adds an action proxy.
+     * @param actionProxy the action proxy
+     */
+    private void addActionProxy(ActionProxy actionProxy) {
+        _actionProxies.add(actionProxy);
+        _actionProxiesByEffectResultType.clear();
+    }
+
+    /**
+     * Removes the specified action proxies.
+     * @param actionProxies the action proxies
+     */
+    private void removeActionProxies(Collection<ActionProxy> actionProxies) {
+        _actionProxies.removeAll(actionProxies);
+        _actionProxiesByEffectResultType.clear();
+    }
+
+    /**
+     * Gets the action proxies that may have after triggers for any of the specified effect results, in the order the
+     * action proxies were added.
+     * @param effectResults the effect results
+     * @return the action proxies
+     */
+    private List<ActionProxy> getActionProxiesForEffectResults(Collection<? extends EffectResult> effectResults) {
+        EffectResult.Type effectResultType = null;
+        for (EffectResult effectResult : effectResults) {
+            if (effectResultType == null) {
+                effectResultType = effectResult.getType();
+            }
+            else if (effectResultType != effectResult.getType()) {
+                // Effect results of different types, so check all action proxies
+                return _actionProxies;
+            }
+        }
+        if (effectResultType == null) {
+            return _actionProxies;
+        }
+
+        List<ActionProxy> actionProxies = _actionProxiesByEffectResultType.get(effectResultType);
+        if (actionProxies == null) {
+            actionProxies = new ArrayList<ActionProxy>();
+            for (ActionProxy actionProxy : _actionProxies) {
+                Set<EffectResult.Type> effectResultTypes = actionProxy.getAfterTriggerEffectResultTypes();
+                if (effectResultTypes == null || effectResultTypes.contains(effectResultType)) {
+                    actionProxies.add(actionProxy);
+                }
+            }
+            _actionProxiesByEffectResultType.put(effectResultType, actionProxies);
+        }
+        return actionProxies;
+    }
+
     @Override
     public void addUntilEndOfGameActionProxy(ActionProxy actionProxy) {
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
     }
 
     /**
@@ -107,7 +163,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
      */
     @Override
     public void addUntilEndOfTurnActionProxy(ActionProxy actionProxy) {
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
         if (_untilEndOfTurnActionProxies == null) {
             _untilEndOfTurnActionProxies = new LinkedList<ActionProxy>();
         }
@@ -116,7 +172,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public void addUntilEndOfPlayersNextTurnActionProxy(ActionProxy actionProxy, String playerId) {
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
         List<ActionProxy> list = _untilEndOfPlayersNextTurnActionProxies.get(playerId);
         if (list == null) {
             list = new LinkedList<ActionProxy>();
@@ -127,7 +183,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public void removeEndOfTurnActionProxies() {
-        _actionProxies.removeAll(_untilEndOfTurnActionProxies);
+        removeActionProxies(_untilEndOfTurnActionProxies);
         _untilEndOfTurnActionProxies.clear();
 
         // Move actionProxies in "until end of player's next turn" list for the next player
@@ -145,13 +201,13 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         if (!_swccgGame.getGameState().isDuringBattle()) {
             throw new UnsupportedOperationException("Adding until end of battle action proxy outside of battle");
         }
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
         _untilEndOfBattleActionProxies.add(actionProxy);
     }
 
     @Override
     public void removeEndOfBattleActionProxies() {
-        _actionProxies.removeAll(_untilEndOfBattleActionProxies);
+        removeActionProxies(_untilEndOfBattleActionProxies);
         _untilEndOfBattleActionProxies.clear();
     }
 
@@ -160,13 +216,13 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         if (!_swccgGame.getGameState().isDuringDuel()) {
             throw new UnsupportedOperationException("Adding until end of duel action proxy outside of duel");
         }
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
         _untilEndOfDuelActionProxies.add(actionProxy);
     }
 
     @Override
     public void removeEndOfDuelActionProxies() {
-        _actionProxies.removeAll(_untilEndOfDuelActionProxies);
+        removeActionProxies(_untilEndOfDuelActionProxies);
         _untilEndOfDuelActionProxies.clear();
     }
 
@@ -179,7 +235,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         if (!_swccgGame.getGameState().isDuringLightsaberCombat()) {
             throw new UnsupportedOperationException("Adding until end of lightsaber combat action proxy outside of lightsaber combat");
         }
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
         _untilEndOfLightsaberCombatActionProxies.add(actionProxy);
     }
 
@@ -188,19 +244,19 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
      */
     @Override
     public void removeEndOfLightsaberCombatActionProxies() {
-        _actionProxies.removeAll(_untilEndOfLightsaberCombatActionProxies);
+        removeActionProxies(_untilEndOfLightsaberCombatActionProxies);
         _untilEndOfLightsaberCombatActionProxies.clear();
     }
 
     @Override
     public void addUntilEndOfWeaponFiringActionProxy(ActionProxy actionProxy) {
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
         _untilEndOfWeaponFiringActionProxies.add(actionProxy);
     }
 
     @Override
     public void removeEndOfWeaponFiringActionProxies() {
-        _actionProxies.removeAll(_untilEndOfWeaponFiringActionProxies);
+        removeActionProxies(_untilEndOfWeaponFiringActionProxies);
         _untilEndOfWeaponFiringActionProxies.clear();
     }
 
@@ -216,7 +272,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
             _untilEndOfDrawDestinyActionProxies.put(currentDrawDestinyState.getId(), list);
         }
         list.add(actionProxy);
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
     }
 
     @Override
@@ -225,7 +281,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         Integer key = currentDrawDestinyState.getId();
         List<ActionProxy> list = _untilEndOfDrawDestinyActionProxies.get(key);
         if (list != null) {
-            _actionProxies.removeAll(list);
+            removeActionProxies(list);
             _untilEndOfDrawDestinyActionProxies.remove(key);
         }
     }
@@ -242,7 +298,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
             _untilEndOfBlowAwayActionProxies.put(currentBlowAwayState.getId(), list);
         }
         list.add(actionProxy);
-        _actionProxies.add(actionProxy);
+        addActionProxy(actionProxy);
     }
 
     @Override
@@ -251,13 +307,23 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         Integer key = currentBlowAwayState.getId();
         List<ActionProxy> list = _untilEndOfBlowAwayActionProxies.get(key);
         if (list != null) {
-            _actionProxies.removeAll(list);
+            removeActionProxies(list);
             _untilEndOfBlowAwayActionProxies.remove(key);
         }
     }
 
     @Override
     public List<TriggerAction> getRequiredBeforeTriggers(Effect effect) {
+        // Gathering actions does not change the game state, so modifier query results can be cached while gathering
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherRequiredBeforeTriggers(effect);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private List<TriggerAction> gatherRequiredBeforeTriggers(Effect effect) {
         List<TriggerAction> actionList = new LinkedList<TriggerAction>();
 
         GatherRequiredBeforeTriggers gatherActions = new GatherRequiredBeforeTriggers(effect);
@@ -298,6 +364,15 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public List<TriggerAction> getOptionalBeforeTriggers(String playerId, Effect effect) {
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherOptionalBeforeTriggers(playerId, effect);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private List<TriggerAction> gatherOptionalBeforeTriggers(String playerId, Effect effect) {
         List<TriggerAction> actionList = new LinkedList<TriggerAction>();
 
         // Gather actions from owners cards and locations
@@ -315,6 +390,15 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public List<Action> getOptionalBeforeActions(String playerId, Effect effect) {
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherOptionalBeforeActions(playerId, effect);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private List<Action> gatherOptionalBeforeActions(String playerId, Effect effect) {
         List<Action> allActions = new LinkedList<Action>();
 
         GatherOptionalBeforeActions gatherActions = new GatherOptionalBeforeActions(playerId, effect);
@@ -327,7 +411,16 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public Map<TriggerAction, EffectResult> getRequiredAfterTriggers(Collection<? extends EffectResult> effectResults) {
-        Map<TriggerAction, EffectResult> allActions = new HashMap<TriggerAction, EffectResult>();
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherRequiredAfterTriggers(effectResults);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private Map<TriggerAction, EffectResult> gatherRequiredAfterTriggers(Collection<? extends EffectResult> effectResults) {
+        Map<TriggerAction, EffectResult> allActions = new LinkedHashMap<TriggerAction, EffectResult>();
 
         GatherRequiredAfterTriggers gatherActions = new GatherRequiredAfterTriggers(effectResults);
         _swccgGame.getGameState().iterateCardsWithRequiredActions(gatherActions);
@@ -378,7 +471,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         }
 
         // Get action proxies
-        for (ActionProxy actionProxy : _actionProxies) {
+        for (ActionProxy actionProxy : getActionProxiesForEffectResults(effectResults)) {
             for (EffectResult effectResult : effectResults) {
                 if (effectResult.isAcceptingResponses()) {
                     List<TriggerAction> actions = actionProxy.getRequiredAfterTriggers(_swccgGame, effectResult);
@@ -413,6 +506,15 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public Map<TriggerAction, EffectResult> getOptionalAfterTriggers(String playerId, Collection<? extends EffectResult> effectResults) {
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherOptionalAfterTriggers(playerId, effectResults);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private Map<TriggerAction, EffectResult> gatherOptionalAfterTriggers(String playerId, Collection<? extends EffectResult> effectResults) {
 
         // Gather actions from owners cards and locations
         GatherOptionalAfterTriggers gatherActions = new GatherOptionalAfterTriggers(playerId, effectResults);
@@ -422,7 +524,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
         GatherOpponentsCardOptionalAfterTriggers gatherOpponentsActions = new GatherOpponentsCardOptionalAfterTriggers(playerId, effectResults);
         _swccgGame.getGameState().iterateOpponentsCardsWithOptionalActions(gatherOpponentsActions, playerId);
 
-        Map<TriggerAction, EffectResult> allActions = new HashMap<TriggerAction, EffectResult>();
+        Map<TriggerAction, EffectResult> allActions = new LinkedHashMap<TriggerAction, EffectResult>();
         allActions.putAll(gatherActions.getActions());
         allActions.putAll(gatherOpponentsActions.getActions());
 
@@ -467,7 +569,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
             }
 
             // Get action proxies
-            for (ActionProxy actionProxy : _actionProxies) {
+            for (ActionProxy actionProxy : getActionProxiesForEffectResults(effectResults)) {
                 for (EffectResult effectResult : effectResults) {
                     if (effectResult.isAcceptingResponses()) {
                         List<TriggerAction> actions = actionProxy.getOptionalAfterTriggers(playerId, _swccgGame, effectResult);
@@ -549,6 +651,15 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public List<Action> getOptionalAfterActions(String playerId, Collection<? extends EffectResult> effectResults) {
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherOptionalAfterActions(playerId, effectResults);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private List<Action> gatherOptionalAfterActions(String playerId, Collection<? extends EffectResult> effectResults) {
         GatherOptionalAfterActions gatherAfterActions = new GatherOptionalAfterActions(playerId, effectResults);
         _swccgGame.getGameState().iterateCardsWithOptionalActions(gatherAfterActions, playerId, true);
 
@@ -564,6 +675,15 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
 
     @Override
     public List<Action> getTopLevelActions(String playerId) {
+        _swccgGame.getModifiersEnvironment().enableQueryCaching();
+        try {
+            return gatherTopLevelActions(playerId);
+        } finally {
+            _swccgGame.getModifiersEnvironment().disableQueryCaching();
+        }
+    }
+
+    private List<Action> gatherTopLevelActions(String playerId) {
         List<Action> allActions = new LinkedList<Action>();
 
         // Gather actions from owner's cards and locations
@@ -779,7 +899,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
      */
     private class GatherOutsideOfDeckRequiredAfterTriggers extends CompletePhysicalCardVisitor {
         private Collection<? extends EffectResult> _effectResults;
-        private Map<TriggerAction, EffectResult> _actions = new HashMap<TriggerAction, EffectResult>();
+        private Map<TriggerAction, EffectResult> _actions = new LinkedHashMap<TriggerAction, EffectResult>();
 
         /**
          * Creates a card visitor that gathers the required "after" responses to an effect result from 'outside of deck' cards.
@@ -836,7 +956,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
      */
     private class GatherRequiredAfterTriggers extends CompletePhysicalCardVisitor {
         private Collection<? extends EffectResult> _effectResults;
-        private Map<TriggerAction, EffectResult> _actions = new HashMap<TriggerAction, EffectResult>();
+        private Map<TriggerAction, EffectResult> _actions = new LinkedHashMap<TriggerAction, EffectResult>();
 
         /**
          * Creates a card visitor that gathers the required "after" responses to an effect result.
@@ -895,7 +1015,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
     private class GatherOptionalAfterTriggers extends CompletePhysicalCardVisitor {
         private String _playerId;
         private Collection<? extends EffectResult> _effectResults;
-        private Map<TriggerAction, EffectResult> _actions = new HashMap<TriggerAction, EffectResult>();
+        private Map<TriggerAction, EffectResult> _actions = new LinkedHashMap<TriggerAction, EffectResult>();
 
         /**
          * Creates a card visitor that gathers the optional "after" responses for the specified player to any of the specified
@@ -958,7 +1078,7 @@ public class DefaultActionsEnvironment implements ActionsEnvironment {
     private class GatherOpponentsCardOptionalAfterTriggers extends CompletePhysicalCardVisitor {
         private String _playerId;
         private Collection<? extends EffectResult> _effectResults;
-        private Map<TriggerAction, EffectResult> _actions = new HashMap<TriggerAction, EffectResult>();
+        private Map<TriggerAction, EffectResult> _actions = new LinkedHashMap<TriggerAction, EffectResult>();
 
         /**
          * Creates a card visitor that gathers the optional "after" responses (from opponent's cards) for the specified
@@ -5,10 +5,12 @@ import com.gempukku.swccgo.logic.actions.GameTextAction;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
+
 /**
  * This class contains the state information for a game text action.
  */
-public class GameTextActionState implements Snapshotable<GameTextActionState> {
+public class GameTextActionState implements Snapshotable<GameTextActionState>, Serializable {
     private int _id;
     private GameTextAction _gameTextAction;
 
@@ -5,6 +5,7 @@ import com.gempukku.swccgo.common.Title;
 import com.gempukku.swccgo.common.Zone;
 import com.gempukku.swccgo.game.PhysicalCard;
 import com.gempukku.swccgo.game.SwccgCardBlueprint;
+import com.gempukku.swccgo.game.SwccgGame;
 
 import java.util.*;
 
@@ -51,14 +52,24 @@ public class GameUtils {
     }
 
     /**
-     * Gets the specified number of random cards from the specified card list.
+     * Gets the specified number of random cards from the specified card list. The cards are put in card id order before
+     * being shuffled, so the same cards are selected whenever the game is played again from its random seed, regardless
+     * of the order of the card list.
+     * @param game the game
      * @param cards the card list
      * @param count the number of random cards to get
      * @return a list of the random cards selected
      */
-    public static List<PhysicalCard> getRandomCards(Collection<PhysicalCard> cards, int count) {
+    public static List<PhysicalCard> getRandomCards(SwccgGame game, Collection<PhysicalCard> cards, int count) {
         List<PhysicalCard> randomizedCards = new ArrayList<PhysicalCard>(cards);
-        Collections.shuffle(randomizedCards);
+        Collections.sort(randomizedCards,
+                new Comparator<PhysicalCard>() {
+                    @Override
+                    public int compare(PhysicalCard card1, PhysicalCard card2) {
+                        return Integer.compare(card1.getCardId(), card2.getCardId());
+                    }
+                });
+        Collections.shuffle(randomizedCards, game.getRandom());
         return new LinkedList<>(randomizedCards.subList(0, Math.min(count, randomizedCards.size())));
     }
 
@@ -3,13 +3,14 @@ package com.gempukku.swccgo.logic;
 import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * A class representing a play order of players.
  */
-public class PlayOrder implements Snapshotable<PlayOrder> {
+public class PlayOrder implements Snapshotable<PlayOrder>, Serializable {
     private List<String> _playOrder = new ArrayList<String>();
     private boolean _looped;
     private int _nextPlayerIndex;
@@ -84,7 +84,7 @@ public abstract class AbstractAction implements Action {
         snapshot._targetingAllMap.putAll(_targetingAllMap);
         snapshot._targetingTypeMap.putAll(_targetingTypeMap);
         for (Integer targetGroupId : _targetGroupMap.keySet()) {
-            Map<PhysicalCard, Set<TargetingReason>> snapshotMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+            Map<PhysicalCard, Set<TargetingReason>> snapshotMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
             snapshot._targetGroupMap.put(targetGroupId, snapshotMap);
             Map<PhysicalCard, Set<TargetingReason>> map = _targetGroupMap.get(targetGroupId);
             for (PhysicalCard card : map.keySet()) {
@@ -480,7 +480,7 @@ public abstract class AbstractAction implements Action {
         _targetingTypeMap.put(_latestTargetGroupId, targetingType);
         Map<PhysicalCard, Set<TargetingReason>> reasonMap = _targetGroupMap.get(_latestTargetGroupId);
         if (reasonMap == null) {
-            reasonMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+            reasonMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
             _targetGroupMap.put(_latestTargetGroupId, reasonMap);
         }
         reasonMap.putAll(targets);
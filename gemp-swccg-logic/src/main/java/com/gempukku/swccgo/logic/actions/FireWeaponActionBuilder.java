@@ -89,7 +89,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -131,7 +131,7 @@ public class FireWeaponActionBuilder {
     private Map<TargetingReason, Filterable> _targetFiltersMap = new HashMap<TargetingReason, Filterable>();
 
     private List<PhysicalCard> _possibleWeaponUsers = new ArrayList<PhysicalCard>();
-    private Set<PhysicalCard> _validWeaponUsers = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _validWeaponUsers = new LinkedHashSet<PhysicalCard>();
     private boolean _artilleryWeaponMayFireWithoutWarriorPresent;
 
     private boolean _firesWithoutTargeting;
@@ -365,7 +365,7 @@ public class FireWeaponActionBuilder {
                 }
                 else {
 
-                    Set<PhysicalCard> validTargets = new HashSet<PhysicalCard>();
+                    Set<PhysicalCard> validTargets = new LinkedHashSet<PhysicalCard>();
                     Collection<PhysicalCard> possibleTargets = Filters.filterActive(_game, _sourceCard, null, targetingReasons, newTargetFilterable);
                     possibleTargets = new LinkedList<PhysicalCard>(possibleTargets);
                     // Also include stacked cards that can be targeted by weapons as if present
@@ -25,13 +25,13 @@ import java.util.*;
 class CancelCardsOnTableSimultaneouslyEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private Collection<PhysicalCard> _originalCardsToCancel;
     private Zone _attachedCardsGoToZone;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private CancelCardsOnTableSimultaneouslyEffect _that;
 
-    private Map<PhysicalCard, PhysicalCard> _wasAttachedWhenCanceled = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new HashMap<PhysicalCard, Collection<PhysicalCard>>();
+    private Map<PhysicalCard, PhysicalCard> _wasAttachedWhenCanceled = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, Collection<PhysicalCard>>();
     private Collection<PhysicalCard> _canceled = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _toPlaceInLostPile = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _toPlaceInUsedPile = new ArrayList<PhysicalCard>();
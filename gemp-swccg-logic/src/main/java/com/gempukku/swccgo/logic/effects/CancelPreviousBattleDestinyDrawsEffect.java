@@ -70,7 +70,7 @@ public class CancelPreviousBattleDestinyDrawsEffect extends AbstractSubActionEff
                         if (numToChoose > 0) {
 
                             // Create map of destiny text
-                            Map<PhysicalCard, String> cardTextMap = new HashMap<PhysicalCard, String>();
+                            Map<PhysicalCard, String> cardTextMap = new LinkedHashMap<PhysicalCard, String>();
                             for (int i = 0; i < originalIndexValue.size(); ++i) {
                                 cardTextMap.put(cancelableDestinyDraws.get(i), "destiny = " + GuiUtils.formatAsString(cancelableDestinyDrawValues.get(i)));
                             }
@@ -25,7 +25,7 @@ class CaptureOneCharacterOnTableEffect extends AbstractSubActionEffect implement
     private PhysicalCard _characterToCapture;
     private boolean _freezeCharacter;
     private PhysicalCard _cardFiringWeapon;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private CaptureOneCharacterOnTableEffect _that;
 
     /**
@@ -20,7 +20,7 @@ public class CaptureStarshipEffect extends AbstractSubActionEffect implements Pr
     private PhysicalCard _tractorBeam;
     private PhysicalCard _starship;
     private PreventableCardEffect _that;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
 
     /**
      * Creates an effect that captures the specified starship and attaches it to a specific card based on the tractor beam that captured it
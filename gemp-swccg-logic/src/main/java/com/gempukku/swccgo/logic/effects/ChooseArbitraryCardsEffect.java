@@ -11,7 +11,7 @@ import com.gempukku.swccgo.logic.timing.Action;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 
 /**
  * An effect that involves choosing cards from a pop-up window in the User Interface.
@@ -51,7 +51,7 @@ public abstract class ChooseArbitraryCardsEffect extends AbstractStandardEffect
         super(action);
         _playerId = playerId;
         _choiceText = choiceText;
-        _cards = new HashSet<PhysicalCard>(cards);
+        _cards = new LinkedHashSet<PhysicalCard>(cards);
         _filter = filter;
         _minimum = minimum;
         _maximum = maximum;
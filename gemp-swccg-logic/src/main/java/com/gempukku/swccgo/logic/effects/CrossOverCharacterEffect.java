@@ -17,7 +17,7 @@ import com.gempukku.swccgo.logic.timing.results.AboutToCrossOverResult;
 import com.gempukku.swccgo.logic.timing.results.CrossedOverResult;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -25,7 +25,7 @@ import java.util.Set;
  */
 public class CrossOverCharacterEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private PhysicalCard _characterToCrossOver;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private CrossOverCharacterEffect _that;
 
     /**
@@ -268,7 +268,7 @@ public class DeploySingleCardEffect extends AbstractSubActionEffect implements P
                                             }
 
                                             // Get other cards targeted
-                                            Collection<PhysicalCard> otherTargetedCards = new HashSet<PhysicalCard>();
+                                            Collection<PhysicalCard> otherTargetedCards = new LinkedHashSet<PhysicalCard>();
                                             for (Map<PhysicalCard, Set<TargetingReason>> targetedCardMap : subAction.getParentAction().getAllPrimaryTargetCards().values()) {
                                                 otherTargetedCards.addAll(targetedCardMap.keySet());
                                             }
@@ -445,7 +445,7 @@ public class DeploySingleCardEffect extends AbstractSubActionEffect implements P
                                                         modifiersQuerying.cardJustDeployed(_cardToPlay);
 
                                                         // Get other cards targeted
-                                                        Collection<PhysicalCard> otherTargetedCards = new HashSet<PhysicalCard>();
+                                                        Collection<PhysicalCard> otherTargetedCards = new LinkedHashSet<PhysicalCard>();
                                                         for (Map<PhysicalCard, Set<TargetingReason>> targetedCardMap : subAction.getParentAction().getAllPrimaryTargetCards().values()) {
                                                             otherTargetedCards.addAll(targetedCardMap.keySet());
                                                         }
@@ -38,6 +38,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -1274,7 +1275,7 @@ public abstract class DrawDestinyEffect extends AbstractSubActionEffect {
                             int numToChoose = Math.min(_drawXCardsToChooseFrom.size(), _chooseY);
                             if (numToChoose > 0) {
                                 // Create map of destiny text
-                                Map<PhysicalCard, String> cardTextMap = new HashMap<PhysicalCard, String>();
+                                Map<PhysicalCard, String> cardTextMap = new LinkedHashMap<PhysicalCard, String>();
                                 for (int i = 0; i < _drawXCardsToChooseFrom.size(); ++i) {
                                     cardTextMap.put(_drawXCardsToChooseFrom.get(i), "destiny = " + GuiUtils.formatAsString(_drawXValuesToChooseFrom.get(i)));
                                 }
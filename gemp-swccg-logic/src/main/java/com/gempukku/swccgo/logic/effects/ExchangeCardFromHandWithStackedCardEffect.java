@@ -14,7 +14,7 @@ import com.gempukku.swccgo.logic.timing.AbstractSubActionEffect;
 import com.gempukku.swccgo.logic.timing.Action;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -65,7 +65,7 @@ public class ExchangeCardFromHandWithStackedCardEffect extends AbstractSubAction
                                         PhysicalCard stackedCard = selectedStackedCards.iterator().next();
                                         boolean stackedAsInactive = stackedCard.isStackedAsInactive();
                                         PhysicalCard stackedOn = stackedCard.getStackedOn();
-                                        Set<PhysicalCard> cardsToRemove = new HashSet<PhysicalCard>();
+                                        Set<PhysicalCard> cardsToRemove = new LinkedHashSet<PhysicalCard>();
                                         cardsToRemove.add(cardFromHand);
                                         cardsToRemove.add(stackedCard);
                                         gameState.sendMessage(_playerId + " exchanges " + GameUtils.getCardLink(cardFromHand) + " from hand with " + GameUtils.getCardLink(stackedCard) + " stacked on " + GameUtils.getCardLink(stackedOn));
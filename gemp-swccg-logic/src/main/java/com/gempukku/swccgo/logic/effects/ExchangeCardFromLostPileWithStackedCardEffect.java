@@ -14,7 +14,7 @@ import com.gempukku.swccgo.logic.timing.AbstractSubActionEffect;
 import com.gempukku.swccgo.logic.timing.Action;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -69,7 +69,7 @@ public class ExchangeCardFromLostPileWithStackedCardEffect extends AbstractSubAc
                                         PhysicalCard stackedCard = selectedStackedCards.iterator().next();
                                         boolean stackedAsInactive = stackedCard.isStackedAsInactive();
                                         PhysicalCard stackedOn = stackedCard.getStackedOn();
-                                        Set<PhysicalCard> cardsToRemove = new HashSet<PhysicalCard>();
+                                        Set<PhysicalCard> cardsToRemove = new LinkedHashSet<PhysicalCard>();
                                         cardsToRemove.add(cardFromLostPile);
                                         cardsToRemove.add(stackedCard);
                                         gameState.sendMessage(_playerId + " exchanges " + GameUtils.getCardLink(cardFromLostPile) + " from Lost Pile with " + GameUtils.getCardLink(stackedCard) + " stacked on " + GameUtils.getCardLink(stackedOn));
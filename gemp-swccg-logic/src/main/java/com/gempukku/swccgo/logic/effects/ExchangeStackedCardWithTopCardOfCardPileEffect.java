@@ -15,7 +15,7 @@ import com.gempukku.swccgo.logic.timing.Action;
 import com.gempukku.swccgo.logic.timing.results.ExchangedCardsInCardPileResult;
 
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -91,7 +91,7 @@ public class ExchangeStackedCardWithTopCardOfCardPileEffect extends AbstractSubA
                             PhysicalCard stackedCard = selectedStackedCards.iterator().next();
                             boolean stackedAsInactive = stackedCard.isStackedAsInactive();
                             PhysicalCard stackedOn = stackedCard.getStackedOn();
-                            Set<PhysicalCard> cardsToRemove = new HashSet<PhysicalCard>();
+                            Set<PhysicalCard> cardsToRemove = new LinkedHashSet<PhysicalCard>();
                             cardsToRemove.add(topCardOfCardPile);
                             cardsToRemove.add(stackedCard);
                             gameState.sendMessage(_playerId + " exchanges " + GameUtils.getCardLink(stackedCard) + " stacked on " + GameUtils.getCardLink(stackedOn) + " with " + GameUtils.getCardLink(topCardOfCardPile) + " from top of " + _cardPile.getHumanReadable());
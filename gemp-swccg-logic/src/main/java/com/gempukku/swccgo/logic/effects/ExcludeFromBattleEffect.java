@@ -24,9 +24,9 @@ import java.util.*;
 public class ExcludeFromBattleEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private SwccgBuiltInCardBlueprint _excludedByPermanentWeapon;
     private PhysicalCard _cardFiringWeapon;
-    private Map<PhysicalCard, List<PhysicalCard>> _excludedByCardMap = new HashMap<PhysicalCard, List<PhysicalCard>>();
+    private Map<PhysicalCard, List<PhysicalCard>> _excludedByCardMap = new LinkedHashMap<PhysicalCard, List<PhysicalCard>>();
     private List<PhysicalCard> _excludedByRule = new ArrayList<PhysicalCard>();
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private ExcludeFromBattleEffect _that;
 
     /**
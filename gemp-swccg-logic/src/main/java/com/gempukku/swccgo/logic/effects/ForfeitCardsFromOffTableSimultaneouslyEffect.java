@@ -15,7 +15,7 @@ import com.gempukku.swccgo.logic.timing.results.ForfeitedCardToUsedPileFromOffTa
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -27,8 +27,8 @@ class ForfeitCardsFromOffTableSimultaneouslyEffect extends AbstractSubActionEffe
     private Zone _forfeitCardsToZone;
     private boolean _toBottomOfPile;
 
-    private Map<PhysicalCard, Float> _totalBattleDamageToSatisfyMap = new HashMap<PhysicalCard, Float>();
-    private Map<PhysicalCard, Float> _totalAttritionToSatisfyMap = new HashMap<PhysicalCard, Float>();
+    private Map<PhysicalCard, Float> _totalBattleDamageToSatisfyMap = new LinkedHashMap<PhysicalCard, Float>();
+    private Map<PhysicalCard, Float> _totalAttritionToSatisfyMap = new LinkedHashMap<PhysicalCard, Float>();
 
     /**
      * Creates an effect that causes one more cards not on table (e.g. in a card pile, in hand, etc.) to be forfeited
@@ -30,19 +30,19 @@ public class ForfeitCardsFromTableSimultaneouslyEffect extends AbstractSubAction
     private Float _forfeitValueToUse;
     private boolean _toBottomOfPile;
     private boolean _releaseCaptives;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
-    private Map<PhysicalCard, Float> _totalBattleDamageToSatisfyMap = new HashMap<PhysicalCard, Float>();
-    private Map<PhysicalCard, Float> _totalAttritionToSatisfyMap = new HashMap<PhysicalCard, Float>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
+    private Map<PhysicalCard, Float> _totalBattleDamageToSatisfyMap = new LinkedHashMap<PhysicalCard, Float>();
+    private Map<PhysicalCard, Float> _totalAttritionToSatisfyMap = new LinkedHashMap<PhysicalCard, Float>();
     private boolean _satisfyAllBattleDamage;
     private boolean _satisfyAllAttrition;
     private ForfeitCardsFromTableSimultaneouslyEffect _that;
 
-    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new HashMap<PhysicalCard, Collection<PhysicalCard>>();
+    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, Collection<PhysicalCard>>();
     private Collection<PhysicalCard> _forfeitedCards = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _forfeitedFromPlay = new ArrayList<PhysicalCard>();
-    private Map<PhysicalCard, Float> _forfeitedAndRemainsInPlay = new HashMap<PhysicalCard, Float>();
+    private Map<PhysicalCard, Float> _forfeitedAndRemainsInPlay = new LinkedHashMap<PhysicalCard, Float>();
     private Collection<PhysicalCard> _lostFromPlay = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _attachedCardsToLeaveTable = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _releasedCaptives = new ArrayList<PhysicalCard>();
@@ -17,7 +17,7 @@ import com.gempukku.swccgo.logic.timing.results.AboutToBeHitResult;
 import com.gempukku.swccgo.logic.timing.results.HitResult;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -30,7 +30,7 @@ public class HitCardAndMayActivateForceEffect extends AbstractSubActionEffect im
     private PhysicalCard _hitByCard;
     private SwccgBuiltInCardBlueprint _hitByPermanentWeapon;
     private PhysicalCard _cardFiringWeapon;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private HitCardAndMayActivateForceEffect _that;
 
     /**
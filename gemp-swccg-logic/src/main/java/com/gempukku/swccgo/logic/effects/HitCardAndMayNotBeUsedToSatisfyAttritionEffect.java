@@ -22,7 +22,7 @@ import com.gempukku.swccgo.logic.timing.results.HitResult;
 import com.gempukku.swccgo.logic.timing.results.ResetOrModifyCardAttributeResult;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -34,7 +34,7 @@ public class HitCardAndMayNotBeUsedToSatisfyAttritionEffect extends AbstractSubA
     private PhysicalCard _hitByCard;
     private SwccgBuiltInCardBlueprint _hitByPermanentWeapon;
     private PhysicalCard _cardFiringWeapon;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private HitCardAndMayNotBeUsedToSatisfyAttritionEffect _that;
 
     /**
@@ -28,12 +28,12 @@ public class LoseCardsFromTableSimultaneouslyEffect extends AbstractSubActionEff
     private boolean _allCardsSituation;
     private boolean _releaseCaptives;
     private Zone _attachedCardsGoToZone;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private LoseCardsFromTableSimultaneouslyEffect _that;
 
-    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new HashMap<PhysicalCard, Collection<PhysicalCard>>();
+    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, Collection<PhysicalCard>>();
     private Collection<PhysicalCard> _lostFromPlay = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _attachedCardsToLeaveTable = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _releasedCaptives = new ArrayList<PhysicalCard>();
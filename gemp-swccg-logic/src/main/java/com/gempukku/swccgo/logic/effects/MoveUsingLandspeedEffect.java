@@ -30,7 +30,7 @@ public class MoveUsingLandspeedEffect extends AbstractSubActionEffect implements
     private List<PhysicalCard> _locationsAlongPath = new ArrayList<PhysicalCard>();
     private boolean _initialMove;
     private boolean _moveCompleted;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private MoveUsingLandspeedEffect _that;
 
     /**
@@ -19,7 +19,7 @@ import com.gempukku.swccgo.logic.timing.Action;
 import com.gempukku.swccgo.logic.timing.PassthruEffect;
 import com.gempukku.swccgo.logic.timing.results.AboutToRemoveJustLostCardFromLostPileResult;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -28,7 +28,7 @@ import java.util.Set;
 public class PlaceAtLocationFromLostPileEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private String _playerId;
     private Filterable _cardFilter;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private Filterable _locationFilter;
     private boolean _reshuffle;
     private boolean _justLost;
@@ -37,12 +37,12 @@ class PlaceCardsInCardPileFromTableSimultaneouslyEffect extends AbstractSubActio
     private boolean _allCardsSituation;
     private boolean _lostCardsDoNotCountAsJustLost;
     private PhysicalCard _cardFiringWeaponToCapture;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private PlaceCardsInCardPileFromTableSimultaneouslyEffect _that;
 
-    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new HashMap<PhysicalCard, PhysicalCard>();
-    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new HashMap<PhysicalCard, Collection<PhysicalCard>>();
+    private Map<PhysicalCard, PhysicalCard> _wasAttachedToWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, PhysicalCard> _locationLostOrForfeitedFrom = new LinkedHashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, Collection<PhysicalCard>> _wasPresentWithWhenLostOrForfeited = new LinkedHashMap<PhysicalCard, Collection<PhysicalCard>>();
     private Collection<PhysicalCard> _placedInCardPile = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _attachedCardsToLeaveTable = new ArrayList<PhysicalCard>();
     private Collection<PhysicalCard> _releasedCaptives = new ArrayList<PhysicalCard>();
@@ -23,7 +23,7 @@ import java.util.*;
  */
 class PlaceCardsOutOfPlayFromOffTableSimultaneouslyEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private Collection<PhysicalCard> _originalCardsToPlaceOutOfPlay;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private PlaceCardsOutOfPlayFromOffTableSimultaneouslyEffect _that;
     private Collection<PhysicalCard> _placedOutOfPlay = new ArrayList<PhysicalCard>();
 
@@ -9,6 +9,7 @@ import com.gempukku.swccgo.logic.timing.Action;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -33,7 +34,7 @@ public abstract class TargetCardBeingPlayedForCancelingEffect extends AbstractTa
         if (_playingCardEffect.isCanceled())
             return new FullEffectResult(false);
 
-        Map<PhysicalCard, Set<TargetingReason>> targetMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+        Map<PhysicalCard, Set<TargetingReason>> targetMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
         targetMap.put(_playingCardEffect.getCard(), Collections.singleton(TargetingReason.TO_BE_CANCELED));
         Map<TargetingReason, Filterable> targetFiltersMap = new HashMap<TargetingReason, Filterable>();
         targetFiltersMap.put(TargetingReason.TO_BE_CANCELED, _playingCardEffect.getCard());
@@ -388,7 +388,7 @@ public abstract class TargetCardsAtSameLocationEffect extends AbstractTargetCard
             initialMatchingCards.addAll(Filters.filter(Filters.filterStacked(game, _matchPartialModelType, _targetFiltersMap), game, Filters.canBeTargetedByWeaponAsIfPresent));
         }
 
-        final Map<PhysicalCard, List<PhysicalCard>> locationToCardsMap = new HashMap<PhysicalCard, List<PhysicalCard>>();
+        final Map<PhysicalCard, List<PhysicalCard>> locationToCardsMap = new LinkedHashMap<PhysicalCard, List<PhysicalCard>>();
         for (PhysicalCard curMatchingCard : initialMatchingCards) {
             PhysicalCard location = modifiersQuerying.getLocationHere(gameState, curMatchingCard);
             if (location != null) {
@@ -461,7 +461,7 @@ public abstract class TargetCardsAtSameLocationEffect extends AbstractTargetCard
         else if (matchingCards.size() == minimum && (getUseShortcut() || !_action.isAllowAbort())) {
 
             // Let the action know the targeted cards (and reasons), so that info can be seen by responses to that action
-            Map<PhysicalCard, Set<TargetingReason>> targetMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+            Map<PhysicalCard, Set<TargetingReason>> targetMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
             for (PhysicalCard matchingCard : matchingCards) {
                 targetMap.put(matchingCard, getTargetingReasons(game, matchingCard));
             }
@@ -481,7 +481,7 @@ public abstract class TargetCardsAtSameLocationEffect extends AbstractTargetCard
                             }
 
                             // Let the action know the targeted cards (and reasons), so that info can be seen by responses to that action
-                            Map<PhysicalCard, Set<TargetingReason>> targetMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+                            Map<PhysicalCard, Set<TargetingReason>> targetMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
                             for (PhysicalCard selectedCard : selectedCards) {
                                 targetMap.put(selectedCard, getTargetingReasons(game, selectedCard));
                             }
@@ -403,7 +403,7 @@ public abstract class TargetCardsOnTableEffect extends AbstractTargetCardsEffect
         else if (matchingCards.size() == minimum && (getUseShortcut() || !_action.isAllowAbort())) {
 
             // Let the action know the targeted cards (and reasons), so that info can be seen by responses to that action
-            Map<PhysicalCard, Set<TargetingReason>> targetMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+            Map<PhysicalCard, Set<TargetingReason>> targetMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
             for (PhysicalCard matchingCard : matchingCards) {
                 targetMap.put(matchingCard, getTargetingReasons(game, matchingCard));
             }
@@ -423,7 +423,7 @@ public abstract class TargetCardsOnTableEffect extends AbstractTargetCardsEffect
                             }
 
                             // Let the action know the targeted cards (and reasons), so that info can be seen by responses to that action
-                            Map<PhysicalCard, Set<TargetingReason>> targetMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+                            Map<PhysicalCard, Set<TargetingReason>> targetMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
                             for (PhysicalCard selectedCard : selectedCards) {
                                 targetMap.put(selectedCard, getTargetingReasons(game, selectedCard));
                             }
@@ -10,6 +10,7 @@ import com.gempukku.swccgo.logic.timing.results.InsertCardRevealedResult;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 
@@ -35,7 +36,7 @@ public abstract class TargetRevealedInsertCardForCancelingEffect extends Abstrac
         if (!insertCard.isInsertCardRevealed())
             return new FullEffectResult(false);
 
-        Map<PhysicalCard, Set<TargetingReason>> targetMap = new HashMap<PhysicalCard, Set<TargetingReason>>();
+        Map<PhysicalCard, Set<TargetingReason>> targetMap = new LinkedHashMap<PhysicalCard, Set<TargetingReason>>();
         targetMap.put(insertCard, Collections.singleton(TargetingReason.TO_BE_CANCELED));
         Map<TargetingReason, Filterable> targetFiltersMap = new HashMap<TargetingReason, Filterable>();
         targetFiltersMap.put(TargetingReason.TO_BE_CANCELED, insertCard);
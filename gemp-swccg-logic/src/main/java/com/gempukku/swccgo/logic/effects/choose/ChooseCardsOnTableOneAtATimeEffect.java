@@ -8,7 +8,7 @@ import com.gempukku.swccgo.logic.timing.AbstractStandardEffect;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -18,7 +18,7 @@ public abstract class ChooseCardsOnTableOneAtATimeEffect extends AbstractStandar
     private String _playerToChoose;
     private String _choiceText;
     private Collection<PhysicalCard> _cardsToChoose;
-    private Set<PhysicalCard> _alreadyChosen = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _alreadyChosen = new LinkedHashSet<PhysicalCard>();
 
     /**
      * Creates an effect to choose from the specified cards on the table one at a time.
@@ -26,7 +26,7 @@ import java.util.*;
 class StealCapturedStarshipToLocationEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private String _playerId;
     private PhysicalCard _cardToBeStolen;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private StealCapturedStarshipToLocationEffect _that;
 
     /**
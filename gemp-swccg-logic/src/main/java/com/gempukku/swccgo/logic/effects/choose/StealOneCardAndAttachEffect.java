@@ -26,7 +26,7 @@ class StealOneCardAndAttachEffect extends AbstractSubActionEffect implements Pre
     private String _playerId;
     private PhysicalCard _cardToBeStolen;
     private PhysicalCard _attachTo;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private StealOneCardAndAttachEffect _that;
 
     /**
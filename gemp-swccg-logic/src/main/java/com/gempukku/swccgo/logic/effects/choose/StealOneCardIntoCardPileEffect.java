@@ -26,7 +26,7 @@ public class StealOneCardIntoCardPileEffect extends AbstractSubActionEffect impl
     private String _playerId;
     private PhysicalCard _cardToBeStolen;
     private Zone _cardPile;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private StealOneCardIntoCardPileEffect _that;
 
     /**
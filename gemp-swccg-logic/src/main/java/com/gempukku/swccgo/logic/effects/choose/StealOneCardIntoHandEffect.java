@@ -25,7 +25,7 @@ import java.util.*;
 public class StealOneCardIntoHandEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private String _playerId;
     private PhysicalCard _cardToBeStolen;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private StealOneCardIntoHandEffect _that;
 
     /**
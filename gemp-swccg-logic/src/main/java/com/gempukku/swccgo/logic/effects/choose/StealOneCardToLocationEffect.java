@@ -25,7 +25,7 @@ import java.util.*;
 class StealOneCardToLocationEffect extends AbstractSubActionEffect implements PreventableCardEffect {
     private String _playerId;
     private PhysicalCard _cardToBeStolen;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private StealOneCardToLocationEffect _that;
 
     /**
@@ -20,7 +20,7 @@ import com.gempukku.swccgo.logic.timing.results.RemovedFromCardPileResult;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -33,7 +33,7 @@ abstract class TakeCardsIntoHandFromPileEffect extends AbstractSubActionEffect i
     private boolean _topmost;
     private Filter _filters;
     private Collection<PhysicalCard> _cardsToTakeIntoHand;
-    private Set<PhysicalCard> _preventedCards = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _preventedCards = new LinkedHashSet<PhysicalCard>();
     private Zone _zone;
     private String _cardPileOwner;
     private boolean _reshuffle;
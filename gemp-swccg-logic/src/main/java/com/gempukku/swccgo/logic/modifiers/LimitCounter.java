@@ -2,7 +2,9 @@ package com.gempukku.swccgo.logic.modifiers;
 
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
-public interface LimitCounter extends Snapshotable<LimitCounter> {
+import java.io.Serializable;
+
+public interface LimitCounter extends Snapshotable<LimitCounter>, Serializable {
     int incrementToLimit(int limit, int incrementBy);
 
     int getUsedLimit();
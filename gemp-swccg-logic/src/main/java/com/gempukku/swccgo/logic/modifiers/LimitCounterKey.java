@@ -0,0 +1,78 @@
+package com.gempukku.swccgo.logic.modifiers;
+
+import com.gempukku.swccgo.common.CardCategory;
+import com.gempukku.swccgo.common.GameTextActionId;
+import com.gempukku.swccgo.game.PhysicalCard;
+
+import java.io.Serializable;
+
+/**
+ * The key used to find a limit counter. A key either identifies a game text action of a specific card (or of any
+ * copy of an Interrupt) performed by a player, or identifies a game text action of any card with a specific title.
+ */
+final class LimitCounterKey implements Serializable {
+    private static final int NO_CARD_ID = -1;
+    private final int _cardId;
+    private final String _playerId;
+    private final int _gameTextSourceCardId;
+    private final String _title;
+    private final GameTextActionId _gameTextActionId;
+
+    /**
+     * Creates the key for a game text action of a card performed by a player. For Interrupts, the key does not
+     * include the card, so all copies of the Interrupt share the limit.
+     * @param card the card
+     * @param playerId the player
+     * @param gameTextSourceCardId the card id of the card the game text is from
+     * @param gameTextActionId the game text action id
+     * @return the key
+     */
+    static LimitCounterKey forCard(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId) {
+        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
+            return new LimitCounterKey(NO_CARD_ID, playerId, NO_CARD_ID, null, gameTextActionId);
+        }
+        return new LimitCounterKey(card.getCardId(), playerId, gameTextSourceCardId, null, gameTextActionId);
+    }
+
+    /**
+     * Creates the key for a game text action of any card with the specified title.
+     * @param title the card title
+     * @param gameTextActionId the game text action id
+     * @return the key
+     */
+    static LimitCounterKey forTitle(String title, GameTextActionId gameTextActionId) {
+        return new LimitCounterKey(NO_CARD_ID, null, NO_CARD_ID, title, gameTextActionId);
+    }
+
+    private LimitCounterKey(int cardId, String playerId, int gameTextSourceCardId, String title, GameTextActionId gameTextActionId) {
+        _cardId = cardId;
+        _playerId = playerId;
+        _gameTextSourceCardId = gameTextSourceCardId;
+        _title = title;
+        _gameTextActionId = gameTextActionId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof LimitCounterKey))
+            return false;
+        LimitCounterKey other = (LimitCounterKey) o;
+        return _cardId == other._cardId
+                && _gameTextSourceCardId == other._gameTextSourceCardId
+                && _gameTextActionId == other._gameTextActionId
+                && (_playerId != null ? _playerId.equals(other._playerId) : other._playerId == null)
+                && (_title != null ? _title.equals(other._title) : other._title == null);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = _cardId;
+        result = 31 * result + _gameTextSourceCardId;
+        result = 31 * result + (_playerId != null ? _playerId.hashCode() : 0);
+        result = 31 * result + (_title != null ? _title.hashCode() : 0);
+        result = 31 * result + (_gameTextActionId != null ? _gameTextActionId.hashCode() : 0);
+        return result;
+    }
+}
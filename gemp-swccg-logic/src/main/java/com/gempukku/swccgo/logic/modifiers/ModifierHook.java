@@ -2,6 +2,8 @@ package com.gempukku.swccgo.logic.modifiers;
 
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 
-public interface ModifierHook extends Snapshotable<ModifierHook> {
+import java.io.Serializable;
+
+public interface ModifierHook extends Snapshotable<ModifierHook>, Serializable {
     void stop();
 }
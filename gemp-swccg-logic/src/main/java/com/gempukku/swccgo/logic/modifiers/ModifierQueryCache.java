@@ -0,0 +1,132 @@
+package com.gempukku.swccgo.logic.modifiers;
+
+import com.gempukku.swccgo.common.Keyword;
+import com.gempukku.swccgo.game.PhysicalCard;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class keeps the results of modifier queries (the live modifiers of a modifier type affecting a card) so the
+ * modifiers do not need to be scanned again when the same query is repeated. Results are only kept while caching is
+ * enabled, and all results are discarded when the game state mutation version changes, when the set of modifiers
+ * changes, or when caching is disabled.
+ */
+public class ModifierQueryCache implements Serializable {
+    private int _enabledDepth;
+    private long _gameStateVersion;
+    private Map<ModifierType, Map<QueryKey, List<Modifier>>> _results = new EnumMap<ModifierType, Map<QueryKey, List<Modifier>>>(ModifierType.class);
+
+    /**
+     * Enables caching of modifier query results. Calls may be nested, and caching remains enabled until each call
+     * has been matched by a call to disable.
+     */
+    public void enable() {
+        _enabledDepth++;
+    }
+
+    /**
+     * Disables caching of modifier query results, and discards any cached results once no enable calls remain.
+     */
+    public void disable() {
+        if (_enabledDepth > 0) {
+            _enabledDepth--;
+            if (_enabledDepth == 0) {
+                clear();
+            }
+        }
+    }
+
+    /**
+     * Determines if caching of modifier query results is enabled.
+     * @return true or false
+     */
+    public boolean isEnabled() {
+        return _enabledDepth > 0;
+    }
+
+    /**
+     * Discards all cached results.
+     */
+    public void clear() {
+        _results.clear();
+    }
+
+    /**
+     * Gets the cached result of a modifier query.
+     * @param gameStateVersion the current game state mutation version
+     * @param modifierType the modifier type
+     * @param keyword the keyword, or null
+     * @param card the card, or null
+     * @return the cached modifiers, or null if the result is not cached
+     */
+    public List<Modifier> get(long gameStateVersion, ModifierType modifierType, Keyword keyword, PhysicalCard card) {
+        if (gameStateVersion != _gameStateVersion) {
+            clear();
+            _gameStateVersion = gameStateVersion;
+            return null;
+        }
+        Map<QueryKey, List<Modifier>> resultsForType = _results.get(modifierType);
+        if (resultsForType == null)
+            return null;
+        return resultsForType.get(new QueryKey(keyword, card));
+    }
+
+    /**
+     * Caches the result of a modifier query.
+     * @param gameStateVersion the game state mutation version the result was computed from
+     * @param modifierType the modifier type
+     * @param keyword the keyword, or null
+     * @param card the card, or null
+     * @param modifiers the live modifiers
+     * @return the cached modifiers
+     */
+    public List<Modifier> put(long gameStateVersion, ModifierType modifierType, Keyword keyword, PhysicalCard card, List<Modifier> modifiers) {
+        List<Modifier> result = Collections.unmodifiableList(modifiers);
+        if (gameStateVersion != _gameStateVersion) {
+            clear();
+            _gameStateVersion = gameStateVersion;
+        }
+        Map<QueryKey, List<Modifier>> resultsForType = _results.get(modifierType);
+        if (resultsForType == null) {
+            resultsForType = new HashMap<QueryKey, List<Modifier>>();
+            _results.put(modifierType, resultsForType);
+        }
+        resultsForType.put(new QueryKey(keyword, card), result);
+        return result;
+    }
+
+    /**
+     * The key of a cached modifier query within a modifier type.
+     */
+    private static class QueryKey implements Serializable {
+        private Keyword _keyword;
+        private PhysicalCard _card;
+
+        private QueryKey(Keyword keyword, PhysicalCard card) {
+            _keyword = keyword;
+            _card = card;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof QueryKey))
+                return false;
+            QueryKey other = (QueryKey) o;
+            return _keyword == other._keyword && _card == other._card;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (_keyword != null) ? _keyword.hashCode() : 0;
+            result = 31 * result + ((_card != null) ? System.identityHashCode(_card) : 0);
+            return result;
+        }
+    }
+}
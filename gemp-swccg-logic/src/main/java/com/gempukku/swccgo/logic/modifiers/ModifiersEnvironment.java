@@ -266,4 +266,16 @@ public interface ModifiersEnvironment {
      * Removes modifiers that expire when the current tractor beam is finished.
      */
     void removeEndOfTractorBeam();
+
+    /**
+     * Enables caching of modifier query results. This is only to be used while the game state is not expected to
+     * change (such as while gathering the actions available to a player), and must be matched by a call to
+     * disableQueryCaching.
+     */
+    void enableQueryCaching();
+
+    /**
+     * Disables caching of modifier query results.
+     */
+    void disableQueryCaching();
 }
@@ -63,12 +63,16 @@ import com.gempukku.swccgo.logic.timing.SnapshotData;
 import com.gempukku.swccgo.logic.timing.Snapshotable;
 import com.gempukku.swccgo.logic.timing.TargetingActionUtils;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -76,9 +80,11 @@ import java.util.Set;
 
 // This class implements the applying of the modifiers.
 //
-public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying, Snapshotable<ModifiersLogic> {
+public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying, Snapshotable<ModifiersLogic>, Serializable {
     private SwccgGame _swccgGame;
-    private Map<ModifierType, List<Modifier>> _modifiers = new HashMap<ModifierType, List<Modifier>>();
+    private Map<ModifierType, List<Modifier>> _modifiers = new EnumMap<ModifierType, List<Modifier>>(ModifierType.class);
+    // Modifier lists shared with a snapshot, which are copied the first time they are changed after the snapshot
+    private Set<ModifierType> _sharedModifierTypes = EnumSet.noneOf(ModifierType.class);
     private Map<Integer, List<Modifier>> _alwaysOnModifiersMap = new HashMap<>();
     private Map<Modifier, Set<Integer>> _excludedFromBeingAffected = new HashMap<Modifier, Set<Integer>>();
 
@@ -89,8 +95,8 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     private Map<Integer, List<Modifier>> _untilEndOfDrawDestinyModifiers = new HashMap<Integer, List<Modifier>>();
     private Map<Integer, List<Modifier>> _untilEndOfEachDrawnDestinyModifiers = new HashMap<Integer, List<Modifier>>();
     private Map<Integer, List<Modifier>> _untilEndOfBlowAwayModifiers = new HashMap<Integer, List<Modifier>>();
-    private Map<PhysicalCard, List<Modifier>> _untilEndOfCardPlayedModifiers = new HashMap<PhysicalCard, List<Modifier>>();
-    private Map<EffectResult, List<Modifier>> _untilEndOfEffectResultModifiers = new HashMap<EffectResult, List<Modifier>>();
+    private Map<PhysicalCard, List<Modifier>> _untilEndOfCardPlayedModifiers = new LinkedHashMap<PhysicalCard, List<Modifier>>();
+    private Map<EffectResult, List<Modifier>> _untilEndOfEffectResultModifiers = new LinkedHashMap<EffectResult, List<Modifier>>();
     private Map<Integer, List<Modifier>> _untilEndOfGameTextActionModifiers = new HashMap<Integer, List<Modifier>>();
     private List<Modifier> _untilEndOfWeaponFiringModifiers = new LinkedList<Modifier>();
     private List<Modifier> _untilEndOfTractorBeamModifiers = new LinkedList<Modifier>();
@@ -104,20 +110,22 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     private Map<String, List<Modifier>> _untilEndOfPlayersNextTurnModifiers = new HashMap<String, List<Modifier>>();
 
     private Set<Modifier> _skipSet = new HashSet<Modifier>();
-
-    private Map<Phase, Map<String, LimitCounter>> _endOfPhaseLimitCounters = new HashMap<Phase, Map<String, LimitCounter>>();
-    private Map<Phase, Map<String, LimitCounter>> _startOfPhaseLimitCounters = new HashMap<Phase, Map<String, LimitCounter>>();
-    private Map<String, LimitCounter> _forceDrainLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<String, LimitCounter> _gameLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<String, LimitCounter> _turnLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<String, LimitCounter> _turnForCardTitleLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<String, LimitCounter> _battleLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<String, LimitCounter> _attackLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<String, LimitCounter> _duelLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<Integer, Map<String, LimitCounter>> _forceLossLimitCounters = new HashMap<Integer, Map<String, LimitCounter>>();
+    private ModifierQueryCache _queryCache = new ModifierQueryCache();
+    private long _modifiersVersion;
+
+    private Map<Phase, Map<LimitCounterKey, LimitCounter>> _endOfPhaseLimitCounters = new HashMap<Phase, Map<LimitCounterKey, LimitCounter>>();
+    private Map<Phase, Map<LimitCounterKey, LimitCounter>> _startOfPhaseLimitCounters = new HashMap<Phase, Map<LimitCounterKey, LimitCounter>>();
+    private Map<LimitCounterKey, LimitCounter> _forceDrainLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<LimitCounterKey, LimitCounter> _gameLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<LimitCounterKey, LimitCounter> _turnLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<LimitCounterKey, LimitCounter> _turnForCardTitleLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<LimitCounterKey, LimitCounter> _battleLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<LimitCounterKey, LimitCounter> _attackLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<LimitCounterKey, LimitCounter> _duelLimitCounters = new HashMap<LimitCounterKey, LimitCounter>();
+    private Map<Integer, Map<LimitCounterKey, LimitCounter>> _forceLossLimitCounters = new HashMap<Integer, Map<LimitCounterKey, LimitCounter>>();
     private Map<String, LimitCounter> _cardTitlePlayedTurnLimitCounters = new HashMap<String, LimitCounter>();
-    private Map<Integer, Map<String, LimitCounter>> _captivityLimitCounters = new HashMap<Integer, Map<String, LimitCounter>>();
-    private Map<Float, Map<String, LimitCounter>> _raceTotalLimitCounters = new HashMap<Float, Map<String, LimitCounter>>();
+    private Map<Integer, Map<LimitCounterKey, LimitCounter>> _captivityLimitCounters = new HashMap<Integer, Map<LimitCounterKey, LimitCounter>>();
+    private Map<Float, Map<LimitCounterKey, LimitCounter>> _raceTotalLimitCounters = new HashMap<Float, Map<LimitCounterKey, LimitCounter>>();
 
     // These collections are used to keep track of game stats for a period of time
     // for modifiers and game rules that have a limit to how many times something
@@ -125,8 +133,8 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     private Map<String, Integer> _forceGenerationActivatedThisTurnMap = new HashMap<String, Integer>();
     private Map<String, Integer> _forceActivatedThisTurnMap = new HashMap<String, Integer>();
     private Map<Phase, Map<String, Integer>> _forceActivatedPerPhaseMap = new HashMap<Phase, Map<String, Integer>>();
-    private Set<PhysicalCard> _forceDrainStartedSet = new HashSet<PhysicalCard>();
-    private Map<PhysicalCard, Float> _forceDrainCompletedMap = new HashMap<PhysicalCard, Float>();
+    private Set<PhysicalCard> _forceDrainStartedSet = new LinkedHashSet<PhysicalCard>();
+    private Map<PhysicalCard, Float> _forceDrainCompletedMap = new LinkedHashMap<PhysicalCard, Float>();
     private Set<Integer> _regularMoveSet = new HashSet<Integer>();
     private Map<String, Integer> _battleInitiatedByPlayerMap = new HashMap<String, Integer>();
     private Map<Integer, Integer> _locationBattleMap = new HashMap<Integer, Integer>();
@@ -160,7 +168,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     private Map<String, Map<String, SwccgBuiltInCardBlueprint>> _permWeaponFiredInBattleByCardMap = new HashMap<String, Map<String, SwccgBuiltInCardBlueprint>>();
     private Map<String, Map<String, SwccgBuiltInCardBlueprint>> _permWeaponFiredInBattleByCardCompletedMap = new HashMap<String, Map<String, SwccgBuiltInCardBlueprint>>();
     private Map<String, Integer> _specialDownloadBattlegroundMap = new HashMap<String, Integer>();
-    private Map<PhysicalCard, Set<PhysicalCard>> _forfeitedFromLocationMap = new HashMap<PhysicalCard, Set<PhysicalCard>>();
+    private Map<PhysicalCard, Set<PhysicalCard>> _forfeitedFromLocationMap = new LinkedHashMap<PhysicalCard, Set<PhysicalCard>>();
     private Map<Integer, Set<Integer>> _asteroidDestinyDrawnAgainstMap = new HashMap<Integer, Set<Integer>>();
     private Map<String, List<PhysicalCard>> _cardPlayedThisGame = new HashMap<String, List<PhysicalCard>>();
     private Map<String, List<PhysicalCard>> _cardPlayedThisTurn = new HashMap<String, List<PhysicalCard>>();
@@ -175,8 +183,8 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     private Map<Integer, List<PhysicalCard>> _hitOrMadeLostByWeaponMap = new HashMap<>();
     private Map<Integer, PhysicalCard> _attemptedJediTestThisTurnMap = new HashMap<Integer, PhysicalCard>();
 
-    private Set<PhysicalCard> _blownAwayCards = new HashSet<PhysicalCard>();
-    private Set<PhysicalCard> _cardsThatWonSabacc = new HashSet<PhysicalCard>();
+    private Set<PhysicalCard> _blownAwayCards = new LinkedHashSet<PhysicalCard>();
+    private Set<PhysicalCard> _cardsThatWonSabacc = new LinkedHashSet<PhysicalCard>();
     private Set<Persona> _personasCrossedOver = new HashSet<Persona>();
     private Map<String, List<PhysicalCard>> _completedUtinniEffect = new HashMap<String, List<PhysicalCard>>();
     private Map<Integer, PhysicalCard> _completedJediTest = new HashMap<Integer, PhysicalCard>();
@@ -194,14 +202,13 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
         // Set each field
         snapshot._swccgGame = _swccgGame;
-        for (ModifierType modifierType : _modifiers.keySet()) {
-            List<Modifier> snapshotList = new LinkedList<Modifier>(_modifiers.get(modifierType));
-            snapshot._modifiers.put(modifierType, snapshotList);
-        }
-        for (Integer permanentCardId : _alwaysOnModifiersMap.keySet()) {
-            List<Modifier> snapshotList = new LinkedList<>(_alwaysOnModifiersMap.get(permanentCardId));
-            snapshot._alwaysOnModifiersMap.put(permanentCardId, snapshotList);
-        }
+        // Modifiers are not copied for a snapshot, so the modifier lists are shared with the snapshot instead of copied,
+        // and whichever of this and the snapshot changes a shared list first copies it then
+        snapshot._modifiers.putAll(_modifiers);
+        snapshot._sharedModifierTypes.addAll(_modifiers.keySet());
+        _sharedModifierTypes.addAll(_modifiers.keySet());
+        // Always on modifier lists are never changed once added, so they are shared as is
+        snapshot._alwaysOnModifiersMap.putAll(_alwaysOnModifiersMap);
         for (Modifier modifier : _excludedFromBeingAffected.keySet()) {
             Set<Integer> snapshotSet = new HashSet<Integer>(_excludedFromBeingAffected.get(modifier));
             snapshot._excludedFromBeingAffected.put(modifier, snapshotSet);
@@ -254,45 +261,46 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
             snapshot._untilEndOfPlayersNextTurnModifiers.put(playerId, snapshotList);
         }
         snapshot._skipSet.addAll(_skipSet);
+        snapshot._modifiersVersion = _modifiersVersion;
         for (Phase phase : _endOfPhaseLimitCounters.keySet()) {
-            Map<String, LimitCounter> snapshotMap = new HashMap<String, LimitCounter>();
+            Map<LimitCounterKey, LimitCounter> snapshotMap = new HashMap<LimitCounterKey, LimitCounter>();
             snapshot._endOfPhaseLimitCounters.put(phase, snapshotMap);
-            for (Map.Entry<String, LimitCounter> entry : _endOfPhaseLimitCounters.get(phase).entrySet()) {
+            for (Map.Entry<LimitCounterKey, LimitCounter> entry : _endOfPhaseLimitCounters.get(phase).entrySet()) {
                 snapshotMap.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
             }
         }
         for (Phase phase : _startOfPhaseLimitCounters.keySet()) {
-            Map<String, LimitCounter> snapshotMap = new HashMap<String, LimitCounter>();
+            Map<LimitCounterKey, LimitCounter> snapshotMap = new HashMap<LimitCounterKey, LimitCounter>();
             snapshot._startOfPhaseLimitCounters.put(phase, snapshotMap);
-            for (Map.Entry<String, LimitCounter> entry : _startOfPhaseLimitCounters.get(phase).entrySet()) {
+            for (Map.Entry<LimitCounterKey, LimitCounter> entry : _startOfPhaseLimitCounters.get(phase).entrySet()) {
                 snapshotMap.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
             }
         }
-        for (Map.Entry<String, LimitCounter> entry : _forceDrainLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _forceDrainLimitCounters.entrySet()) {
             snapshot._forceDrainLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
-        for (Map.Entry<String, LimitCounter> entry : _gameLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _gameLimitCounters.entrySet()) {
             snapshot._gameLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
-        for (Map.Entry<String, LimitCounter> entry : _turnLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _turnLimitCounters.entrySet()) {
             snapshot._turnLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
-        for (Map.Entry<String, LimitCounter> entry : _turnForCardTitleLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _turnForCardTitleLimitCounters.entrySet()) {
             snapshot._turnForCardTitleLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
-        for (Map.Entry<String, LimitCounter> entry : _battleLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _battleLimitCounters.entrySet()) {
             snapshot._battleLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
-        for (Map.Entry<String, LimitCounter> entry : _attackLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _attackLimitCounters.entrySet()) {
             snapshot._attackLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
-        for (Map.Entry<String, LimitCounter> entry : _duelLimitCounters.entrySet()) {
+        for (Map.Entry<LimitCounterKey, LimitCounter> entry : _duelLimitCounters.entrySet()) {
             snapshot._duelLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
         for (Integer forceLossId : _forceLossLimitCounters.keySet()) {
-            Map<String, LimitCounter> snapshotMap = new HashMap<String, LimitCounter>();
+            Map<LimitCounterKey, LimitCounter> snapshotMap = new HashMap<LimitCounterKey, LimitCounter>();
             snapshot._forceLossLimitCounters.put(forceLossId, snapshotMap);
-            for (Map.Entry<String, LimitCounter> entry : _forceLossLimitCounters.get(forceLossId).entrySet()) {
+            for (Map.Entry<LimitCounterKey, LimitCounter> entry : _forceLossLimitCounters.get(forceLossId).entrySet()) {
                 snapshotMap.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
             }
         }
@@ -300,16 +308,16 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
             snapshot._cardTitlePlayedTurnLimitCounters.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
         }
         for (Integer cardId : _captivityLimitCounters.keySet()) {
-            Map<String, LimitCounter> snapshotMap = new HashMap<String, LimitCounter>();
+            Map<LimitCounterKey, LimitCounter> snapshotMap = new HashMap<LimitCounterKey, LimitCounter>();
             snapshot._captivityLimitCounters.put(cardId, snapshotMap);
-            for (Map.Entry<String, LimitCounter> entry : _captivityLimitCounters.get(cardId).entrySet()) {
+            for (Map.Entry<LimitCounterKey, LimitCounter> entry : _captivityLimitCounters.get(cardId).entrySet()) {
                 snapshotMap.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
             }
         }
         for (Float raceTotal : _raceTotalLimitCounters.keySet()) {
-            Map<String, LimitCounter> snapshotMap = new HashMap<String, LimitCounter>();
+            Map<LimitCounterKey, LimitCounter> snapshotMap = new HashMap<LimitCounterKey, LimitCounter>();
             snapshot._raceTotalLimitCounters.put(raceTotal, snapshotMap);
-            for (Map.Entry<String, LimitCounter> entry : _raceTotalLimitCounters.get(raceTotal).entrySet()) {
+            for (Map.Entry<LimitCounterKey, LimitCounter> entry : _raceTotalLimitCounters.get(raceTotal).entrySet()) {
                 snapshotMap.put(entry.getKey(), snapshotData.getDataForSnapshot(entry.getValue()));
             }
         }
@@ -462,7 +470,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
         snapshot._specialDownloadBattlegroundMap.putAll(_specialDownloadBattlegroundMap);
         for (PhysicalCard card : _forfeitedFromLocationMap.keySet()) {
             PhysicalCard snapshotCard = snapshotData.getDataForSnapshot(card);
-            Set<PhysicalCard> snapshotSet = new HashSet<PhysicalCard>();
+            Set<PhysicalCard> snapshotSet = new LinkedHashSet<PhysicalCard>();
             snapshot._forfeitedFromLocationMap.put(snapshotCard, snapshotSet);
             for (PhysicalCard card2 : _forfeitedFromLocationMap.get(card)) {
                 snapshotSet.add(snapshotData.getDataForSnapshot(card2));
@@ -561,15 +569,12 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilStartOfPhaseLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId, Phase phase) {
-        Map<String, LimitCounter> limitCounterMap = _startOfPhaseLimitCounters.get(phase);
+        Map<LimitCounterKey, LimitCounter> limitCounterMap = _startOfPhaseLimitCounters.get(phase);
         if (limitCounterMap == null) {
-            limitCounterMap = new HashMap<String, LimitCounter>();
+            limitCounterMap = new HashMap<LimitCounterKey, LimitCounter>();
             _startOfPhaseLimitCounters.put(phase, limitCounterMap);
         }
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = limitCounterMap.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -580,15 +585,12 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfPhaseLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId, Phase phase) {
-        Map<String, LimitCounter> limitCounterMap = _endOfPhaseLimitCounters.get(phase);
+        Map<LimitCounterKey, LimitCounter> limitCounterMap = _endOfPhaseLimitCounters.get(phase);
         if (limitCounterMap == null) {
-            limitCounterMap = new HashMap<String, LimitCounter>();
+            limitCounterMap = new HashMap<LimitCounterKey, LimitCounter>();
             _endOfPhaseLimitCounters.put(phase, limitCounterMap);
         }
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = limitCounterMap.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -599,10 +601,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfBattleLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId) {
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = _battleLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -613,10 +612,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfAttackLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId) {
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = _attackLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -627,10 +623,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfDuelLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId) {
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = _duelLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -641,10 +634,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfTurnLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId) {
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = _turnLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -655,7 +645,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfTurnForCardTitleLimitCounter(String title, GameTextActionId cardAction) {
-        String key = title+"|"+cardAction;
+        LimitCounterKey key = LimitCounterKey.forTitle(title, cardAction);
         LimitCounter limitCounter = _turnForCardTitleLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -666,12 +656,12 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfCaptivityLimitCounter(String title, GameTextActionId cardAction, PhysicalCard captive) {
-        Map<String, LimitCounter> mapForCaptive = _captivityLimitCounters.get(captive.getCardId());
+        Map<LimitCounterKey, LimitCounter> mapForCaptive = _captivityLimitCounters.get(captive.getCardId());
         if (mapForCaptive == null) {
-            mapForCaptive = new HashMap<String, LimitCounter>();
+            mapForCaptive = new HashMap<LimitCounterKey, LimitCounter>();
             _captivityLimitCounters.put(captive.getCardId(), mapForCaptive);
         }
-        String key = title+"|"+cardAction;
+        LimitCounterKey key = LimitCounterKey.forTitle(title, cardAction);
         LimitCounter limitCounter = mapForCaptive.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -682,12 +672,12 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getPerRaceTotalLimitCounter(String title, GameTextActionId cardAction, float raceTotal) {
-        Map<String, LimitCounter> mapForRaceTotal = _raceTotalLimitCounters.get(raceTotal);
+        Map<LimitCounterKey, LimitCounter> mapForRaceTotal = _raceTotalLimitCounters.get(raceTotal);
         if (mapForRaceTotal == null) {
-            mapForRaceTotal = new HashMap<String, LimitCounter>();
+            mapForRaceTotal = new HashMap<LimitCounterKey, LimitCounter>();
             _raceTotalLimitCounters.put(raceTotal, mapForRaceTotal);
         }
-        String key = title+"|"+cardAction;
+        LimitCounterKey key = LimitCounterKey.forTitle(title, cardAction);
         LimitCounter limitCounter = mapForRaceTotal.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -698,7 +688,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfGameLimitCounter(String title, GameTextActionId cardAction) {
-        String key = title+"|"+cardAction;
+        LimitCounterKey key = LimitCounterKey.forTitle(title, cardAction);
         LimitCounter limitCounter = _gameLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -709,7 +699,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public LimitCounter getUntilEndOfForceDrainLimitCounter(String title, GameTextActionId cardAction) {
-        String key = title+"|"+cardAction;
+        LimitCounterKey key = LimitCounterKey.forTitle(title, cardAction);
         LimitCounter limitCounter = _forceDrainLimitCounters.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -721,15 +711,12 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     @Override
     public LimitCounter getUntilEndOfForceLossLimitCounter(PhysicalCard card, String playerId, int gameTextSourceCardId, GameTextActionId gameTextActionId) {
         Integer forceLossId = _swccgGame.getGameState().getTopForceLossState().getId();
-        Map<String, LimitCounter> mapForForceLoss = _forceLossLimitCounters.get(forceLossId);
+        Map<LimitCounterKey, LimitCounter> mapForForceLoss = _forceLossLimitCounters.get(forceLossId);
         if (mapForForceLoss == null) {
-            mapForForceLoss = new HashMap<String, LimitCounter>();
+            mapForForceLoss = new HashMap<LimitCounterKey, LimitCounter>();
             _forceLossLimitCounters.put(forceLossId, mapForForceLoss);
         }
-        String key = card.getCardId()+"|"+playerId+"|"+gameTextSourceCardId+"|"+ gameTextActionId;
-        if (card.getBlueprint().getCardCategory() == CardCategory.INTERRUPT) {
-            key = "|"+playerId+"|" + "|"+ gameTextActionId;
-        }
+        LimitCounterKey key = LimitCounterKey.forCard(card, playerId, gameTextSourceCardId, gameTextActionId);
         LimitCounter limitCounter = mapForForceLoss.get(key);
         if (limitCounter == null) {
             limitCounter = new DefaultLimitCounter();
@@ -787,6 +774,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
             _excludedFromBeingAffected.put(modifier, excludedCards);
         }
         excludedCards.add(card.getCardId());
+        modifiersChanged();
     }
 
     /**
@@ -3423,12 +3411,12 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
      * @return the map containing a card that must be used first and max Force that may be used
      */
     private Map<PhysicalCard, Integer> getCardsToUseOpponentsForceFirst(GameState gameState, String playerId, int forceToUse, int opponentsForcePileSize) {
-        Map<PhysicalCard, Integer> validCardsToUseFirst = new HashMap<PhysicalCard, Integer>();
+        Map<PhysicalCard, Integer> validCardsToUseFirst = new LinkedHashMap<PhysicalCard, Integer>();
 
         // Look at modifiers that allow player to use opponent's Force
         List<PhysicalCard> cardList = new ArrayList<PhysicalCard>();
-        Map<PhysicalCard, Integer> maxUsableByCardMap = new HashMap<PhysicalCard, Integer>();
-        Map<PhysicalCard, Integer> minForcePileRequiredByCardMap = new HashMap<PhysicalCard, Integer>();
+        Map<PhysicalCard, Integer> maxUsableByCardMap = new LinkedHashMap<PhysicalCard, Integer>();
+        Map<PhysicalCard, Integer> minForcePileRequiredByCardMap = new LinkedHashMap<PhysicalCard, Integer>();
         for (Modifier modifier : getModifiers(gameState, ModifierType.MAY_USE_OPPONENTS_FORCE)) {
             if (modifier.isForPlayer(playerId)) {
                 cardList.add(modifier.getSource(gameState));
@@ -3960,7 +3948,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     public void forfeitedFromLocation(PhysicalCard location, PhysicalCard forfeitedCard) {
         Set<PhysicalCard> forfeitedCards = _forfeitedFromLocationMap.get(location);
         if (forfeitedCards == null) {
-            forfeitedCards = new HashSet<PhysicalCard>();
+            forfeitedCards = new LinkedHashSet<PhysicalCard>();
             _forfeitedFromLocationMap.put(location, forfeitedCards);
         }
         forfeitedCards.add(forfeitedCard);
@@ -6565,12 +6553,21 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
         return false;
     }
 
+    /**
+     * Gets the list of modifiers of the specified type to change, copying it first if it is shared with a snapshot.
+     * @param modifierType the modifier type
+     * @return the modifiers
+     */
     private List<Modifier> getEffectModifiers(ModifierType modifierType) {
         List<Modifier> modifiers = _modifiers.get(modifierType);
         if (modifiers == null) {
             modifiers = new LinkedList<Modifier>();
             _modifiers.put(modifierType, modifiers);
         }
+        else if (_sharedModifierTypes.remove(modifierType)) {
+            modifiers = new LinkedList<Modifier>(modifiers);
+            _modifiers.put(modifierType, modifiers);
+        }
         return modifiers;
     }
 
@@ -7819,7 +7816,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
      */
     @Override
     public Collection<PhysicalCard> getCardsMarkingGameTextCanceled(GameState gameState, PhysicalCard card, ModifierCollector modifierCollector) {
-        Set<PhysicalCard> cards = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> cards = new LinkedHashSet<PhysicalCard>();
         if (!isProhibitedFromHavingGameTextCanceled(gameState, card)) {
             for (Modifier modifier : getModifiersAffectingCard(gameState, ModifierType.CANCEL_GAME_TEXT, card)) {
                 cards.add(modifier.getSource(gameState));
@@ -7894,7 +7891,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
      */
     @Override
     public Collection<PhysicalCard> getCardsMarkingGameTextCanceledForPlayer(GameState gameState, PhysicalCard card, String playerId, ModifierCollector modifierCollector) {
-        Set<PhysicalCard> cards = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> cards = new LinkedHashSet<PhysicalCard>();
 
         for (Modifier modifier : getModifiersAffectingCard(gameState, ModifierType.CANCEL_LOCATION_GAME_TEXT_FOR_PLAYER, card)) {
             if (modifier.isCanceledTextForPlayer(playerId)) {
@@ -7943,7 +7940,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
      */
     @Override
     public Collection<PhysicalCard> getCardsMarkingCardSuspended(GameState gameState, PhysicalCard card, ModifierCollector modifierCollector) {
-        Set<PhysicalCard> cards = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> cards = new LinkedHashSet<PhysicalCard>();
         if (isProhibitedFromBeingSuspended(gameState, card))
             return cards;
 
@@ -12270,7 +12267,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
                 result += getPower(gameState, presentCard);
         }
 
-        Map<PhysicalCard, Float> modifierSourceMap = new HashMap<>(); // for cumulative rule
+        Map<PhysicalCard, Float> modifierSourceMap = new LinkedHashMap<>(); // for cumulative rule
         if (!onlyPresent) {
             // Apply modifiers to total power at location
             for (Modifier modifier : getModifiersAffectingCard(gameState, ModifierType.TOTAL_POWER_AT_LOCATION, location)) {
@@ -13835,7 +13832,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
      */
     @Override
     public Collection<PhysicalCard> getLocationsThatCardsAreAt(GameState gameState, Collection<PhysicalCard> cards) {
-        Set<PhysicalCard> locations = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> locations = new LinkedHashSet<PhysicalCard>();
         for (PhysicalCard card : cards) {
             PhysicalCard location = getLocationThatCardIsAt(gameState, card);
             if (location != null) {
@@ -13871,7 +13868,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
      */
     @Override
     public Collection<PhysicalCard> getLocationsThatCardsArePresentAt(GameState gameState, Collection<PhysicalCard> cards) {
-        Set<PhysicalCard> locations = new HashSet<PhysicalCard>();
+        Set<PhysicalCard> locations = new LinkedHashSet<PhysicalCard>();
         for (PhysicalCard card : cards) {
             PhysicalCard location = getLocationThatCardIsPresentAt(gameState, card);
             if (location != null) {
@@ -15430,13 +15427,19 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     }
 
     private void removeModifiers(List<Modifier> modifiers) {
-        for (List<Modifier> list : _modifiers.values())
-            list.removeAll(modifiers);
+        for (Map.Entry<ModifierType, List<Modifier>> entry : _modifiers.entrySet()) {
+            if (!Collections.disjoint(entry.getValue(), modifiers))
+                getEffectModifiers(entry.getKey()).removeAll(modifiers);
+        }
+        modifiersChanged();
     }
 
     void removeModifier(Modifier modifier) {
-        for (List<Modifier> list : _modifiers.values())
-            list.remove(modifier);
+        for (Map.Entry<ModifierType, List<Modifier>> entry : _modifiers.entrySet()) {
+            if (entry.getValue().contains(modifier))
+                getEffectModifiers(entry.getKey()).remove(modifier);
+        }
+        modifiersChanged();
     }
 
     @Override
@@ -15447,13 +15450,39 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public void addCardSpecificAlwaysOnModifiers(SwccgGame game, PhysicalCard card) {
-        if (card.getBlueprint().getAlwaysOnModifiers(game, card) != null)
+        if (card.getBlueprint().getAlwaysOnModifiers(game, card) != null) {
             _alwaysOnModifiersMap.put(card.getPermanentCardId(), card.getBlueprint().getAlwaysOnModifiers(game, card));
+            modifiersChanged();
+        }
     }
 
     private void addModifier(Modifier modifier) {
         ModifierType modifierType = modifier.getModifierType();
         getEffectModifiers(modifierType).add(modifier);
+        modifiersChanged();
+    }
+
+    /**
+     * Records that the set of modifiers (or the cards excluded from being affected by them) changed.
+     */
+    private void modifiersChanged() {
+        _modifiersVersion++;
+        _queryCache.clear();
+    }
+
+    @Override
+    public long getModifiersVersion() {
+        return _modifiersVersion;
+    }
+
+    @Override
+    public void enableQueryCaching() {
+        _queryCache.enable();
+    }
+
+    @Override
+    public void disableQueryCaching() {
+        _queryCache.disable();
     }
 
     /**
@@ -15581,6 +15610,25 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     }
 
     private List<Modifier> getKeywordModifiersAffectingCard(GameState gameState, ModifierType modifierType, Keyword keyword, PhysicalCard card) {
+        // Results are only cached for top-level queries, since results found while other modifiers are being
+        // skipped (to prevent recursion) depend on which modifiers are being skipped
+        if (!_queryCache.isEnabled() || !_skipSet.isEmpty()) {
+            return findKeywordModifiersAffectingCard(gameState, modifierType, keyword, card);
+        }
+        long gameStateVersion = gameState.getMutationVersion();
+        List<Modifier> liveModifiers = _queryCache.get(gameStateVersion, modifierType, keyword, card);
+        if (liveModifiers == null) {
+            liveModifiers = findKeywordModifiersAffectingCard(gameState, modifierType, keyword, card);
+            // Checking the conditions of the modifiers is not expected to change the game state, but if it did, then
+            // the result is not cached
+            if (gameStateVersion == gameState.getMutationVersion()) {
+                liveModifiers = _queryCache.put(gameStateVersion, modifierType, keyword, card, liveModifiers);
+            }
+        }
+        return liveModifiers;
+    }
+
+    private List<Modifier> findKeywordModifiersAffectingCard(GameState gameState, ModifierType modifierType, Keyword keyword, PhysicalCard card) {
         // Get always on modifiers
         List<? extends Modifier> alwaysOnModifiers = null;
         if (card != null && _alwaysOnModifiersMap.containsKey(card.getPermanentCardId())) {
@@ -15677,15 +15725,21 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
         GameState gameState = _swccgGame.getGameState();
         ModifiersQuerying modifiersQuerying = _swccgGame.getModifiersQuerying();
 
-        for (List<Modifier> list : _modifiers.values()) {
-            for (Iterator<Modifier> iterator = list.iterator(); iterator.hasNext(); ) {
-                Modifier modifier = iterator.next();
+        for (Map.Entry<ModifierType, List<Modifier>> entry : _modifiers.entrySet()) {
+            List<Modifier> expiredModifiers = null;
+            for (Modifier modifier : entry.getValue()) {
                 Condition expireCondition = modifier.getExpireCondition();
                 if (expireCondition != null
                         && expireCondition.isFulfilled(gameState, modifiersQuerying)) {
-                    iterator.remove();
+                    if (expiredModifiers == null)
+                        expiredModifiers = new LinkedList<Modifier>();
+                    expiredModifiers.add(modifier);
                 }
             }
+            if (expiredModifiers != null) {
+                getEffectModifiers(entry.getKey()).removeAll(expiredModifiers);
+                modifiersChanged();
+            }
         }
     }
 
@@ -15781,7 +15835,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
             removeModifiers(list);
             list.clear();
         }
-        Map<String, LimitCounter> counterMap = _forceLossLimitCounters.get(forceLossId);
+        Map<LimitCounterKey, LimitCounter> counterMap = _forceLossLimitCounters.get(forceLossId);
         if (counterMap != null) {
             counterMap.clear();
         }
@@ -16314,7 +16368,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     @Override
     public Collection<Modifier> getModifiersAffecting(GameState gameState, PhysicalCard card) {
 
-        Set<Modifier> result = new HashSet<Modifier>();
+        Set<Modifier> result = new LinkedHashSet<Modifier>();
         for (List<Modifier> modifiers : _modifiers.values()) {
             for (Modifier modifier : modifiers) {
                 Condition condition = modifier.getCondition();
@@ -16826,7 +16880,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     @Override
     public Collection<PhysicalCard> getLocationsHere(GameState gameState, Collection<PhysicalCard> cards) {
-        Collection<PhysicalCard> locations = new HashSet<PhysicalCard>();
+        Collection<PhysicalCard> locations = new LinkedHashSet<PhysicalCard>();
 
         for (PhysicalCard card : cards) {
             if (card.getBlueprint().getCardCategory() == CardCategory.LOCATION) {
@@ -16891,7 +16945,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
     }
 
     public Collection<PhysicalCard> getCardsConsideredOutOfPlay(GameState gameState) {
-        Collection<PhysicalCard> cards = new HashSet<PhysicalCard>();
+        Collection<PhysicalCard> cards = new LinkedHashSet<PhysicalCard>();
         for(PhysicalCard card: Filters.filterStacked(gameState.getGame(), Filters.any)) {
             if (!getModifiersAffectingCard(gameState, ModifierType.CONSIDERED_OUT_OF_PLAY, card).isEmpty())
                 cards.add(card);
@@ -16906,7 +16960,7 @@ public class ModifiersLogic implements ModifiersEnvironment, ModifiersQuerying,
 
     public Collection<PhysicalCard> getActiveCardsAffectedByModifier(GameState gameState, ModifierType modifierType) {
         Collection<PhysicalCard> allCards = Filters.filterActive(gameState.getGame(), null, Filters.any);
-        Collection<PhysicalCard> subset = new HashSet<PhysicalCard>();
+        Collection<PhysicalCard> subset = new LinkedHashSet<PhysicalCard>();
         for(PhysicalCard card: allCards) {
             if (!getModifiersAffectingCard(gameState, modifierType, card).isEmpty())
                 subset.add(card);
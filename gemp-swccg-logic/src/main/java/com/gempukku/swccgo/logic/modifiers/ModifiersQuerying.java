@@ -67,6 +67,12 @@ public interface ModifiersQuerying {
 
     LimitCounter getCardTitlePlayedTurnLimitCounter(String title);
 
+    /**
+     * Gets the version of the set of modifiers. The version is incremented each time a modifier is added or removed.
+     * @return the modifiers version
+     */
+    long getModifiersVersion();
+
     /**
      * Gets all the cards that are targeting the specified card. This is used for the card info screen on the user interface.
      * @param gameState the game state
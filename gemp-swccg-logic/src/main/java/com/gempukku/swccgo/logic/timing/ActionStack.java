@@ -7,12 +7,13 @@ import com.gempukku.swccgo.logic.actions.*;
 import com.gempukku.swccgo.logic.timing.actions.attack.AttackWeaponsSegmentAction;
 import com.gempukku.swccgo.logic.timing.actions.battle.BattleWeaponsSegmentAction;
 
+import java.io.Serializable;
 import java.util.Stack;
 
 /**
  * The action stack for the action that occur within a game process (phase of turn, battle, etc.).
  */
-public class ActionStack implements Snapshotable<ActionStack> {
+public class ActionStack implements Snapshotable<ActionStack>, Serializable {
     private Stack<Action> _actionStack = new Stack<Action>();
 
     /**
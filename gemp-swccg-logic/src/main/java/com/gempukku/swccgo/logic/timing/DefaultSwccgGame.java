@@ -18,6 +18,7 @@ import com.gempukku.swccgo.logic.modifiers.ModifiersLogic;
 import com.gempukku.swccgo.logic.modifiers.ModifiersQuerying;
 import com.gempukku.swccgo.logic.vo.SwccgDeck;
 
+import java.io.File;
 import java.util.*;
 
 /**
@@ -57,6 +58,11 @@ public class DefaultSwccgGame implements SwccgGame {
     private GameSnapshot _snapshotToRestore;
     private List<GameSnapshot> _snapshots = new LinkedList<GameSnapshot>();
     private static final int NUM_PREV_TURN_SNAPSHOTS_TO_KEEPS = 1;
+    private int _liveSnapshotsToKeep = -1;
+    private File _snapshotSpillDirectory;
+
+    private long _randomSeed;
+    private Random _random;
 
     /**
      * Creates a game.
@@ -66,6 +72,20 @@ public class DefaultSwccgGame implements SwccgGame {
      * @param library the library of all cards
      */
     public DefaultSwccgGame(SwccgFormat format, Map<String, SwccgDeck> decks, UserFeedback userFeedback, final SwccgCardBlueprintLibrary library, Map<String, Integer> playerClocks, boolean useBonusAbilities) {
+        this(format, decks, userFeedback, library, playerClocks, useBonusAbilities, new Random().nextLong());
+    }
+
+    /**
+     * Creates a game that uses the specified seed for all shuffles and random selections.
+     * @param format the format of the game
+     * @param decks the decks
+     * @param userFeedback the user feedback
+     * @param library the library of all cards
+     * @param randomSeed the random seed
+     */
+    public DefaultSwccgGame(SwccgFormat format, Map<String, SwccgDeck> decks, UserFeedback userFeedback, final SwccgCardBlueprintLibrary library, Map<String, Integer> playerClocks, boolean useBonusAbilities, long randomSeed) {
+        _randomSeed = randomSeed;
+        _random = new Random(randomSeed);
         _format = format;
         _library = library;
         _allPlayers = decks.keySet();
@@ -215,6 +235,7 @@ public class DefaultSwccgGame implements SwccgGame {
             }
 
             _finished = true;
+            discardSnapshots();
         }
     }
 
@@ -242,6 +263,7 @@ public class DefaultSwccgGame implements SwccgGame {
             }
 
             _finished = true;
+            discardSnapshots();
         }
     }
 
@@ -267,6 +289,7 @@ public class DefaultSwccgGame implements SwccgGame {
         }
 
         _finished = true;
+        discardSnapshots();
     }
 
     @Override
@@ -413,6 +436,37 @@ public class DefaultSwccgGame implements SwccgGame {
         return Collections.unmodifiableList(_snapshots);
     }
 
+    /**
+     * Sets the game to freeze its older snapshots, so only the newest snapshots keep their state on the heap. The
+     * state of each older snapshot is serialized to compressed bytes, and is deserialized again if the snapshot is
+     * restored. Snapshots are not frozen unless this is set.
+     * @param liveSnapshotsToKeep the number of newest snapshots to not freeze
+     * @param spillDirectory the directory to write the frozen snapshots to, or null to keep them in memory
+     */
+    public void setFrozenSnapshots(int liveSnapshotsToKeep, File spillDirectory) {
+        _liveSnapshotsToKeep = liveSnapshotsToKeep;
+        _snapshotSpillDirectory = spillDirectory;
+    }
+
+    @Override
+    public long getFrozenSnapshotBytes() {
+        long bytes = 0;
+        for (GameSnapshot gameSnapshot : _snapshots) {
+            bytes += gameSnapshot.getFrozenSize();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Random getRandom() {
+        return _random;
+    }
+
+    @Override
+    public long getRandomSeed() {
+        return _randomSeed;
+    }
+
     /**
      * Requests a game snapshot to be restored as current state of the game.
      * @param snapshotId the snapshot ID
@@ -429,6 +483,9 @@ public class DefaultSwccgGame implements SwccgGame {
                 if (_snapshotToRestore != null) {
                     // Remove the current snapshot from the iterator and the list.
                     iterator.remove();
+                    if (gameSnapshot != _snapshotToRestore) {
+                        gameSnapshot.discard();
+                    }
                 }
             }
         }
@@ -478,8 +535,33 @@ public class DefaultSwccgGame implements SwccgGame {
     public void takeSnapshot(String description) {
         pruneSnapshots();
         // need to specifically exclude when getPlayCardStates() is not empty to allow for battles to be initiated by interrupts
-        if (_gameState.getPlayCardStates().isEmpty())
+        if (_gameState.getPlayCardStates().isEmpty()) {
             _snapshots.add(GameSnapshot.createGameSnapshot(getNextSnapshotId(), description, _gameState, _modifiersLogic, _actionsEnvironment, _turnProcedure));
+            freezeOlderSnapshots();
+        }
+    }
+
+    /**
+     * Freezes the snapshots older than the newest snapshots to keep on the heap.
+     */
+    private void freezeOlderSnapshots() {
+        if (_liveSnapshotsToKeep < 0)
+            return;
+
+        int snapshotsToFreeze = _snapshots.size() - _liveSnapshotsToKeep;
+        for (Iterator<GameSnapshot> iterator = _snapshots.iterator(); iterator.hasNext() && snapshotsToFreeze > 0; snapshotsToFreeze--) {
+            iterator.next().freeze(_snapshotSpillDirectory);
+        }
+    }
+
+    /**
+     * Discards all the snapshots, since snapshots are not restored once the game is finished.
+     */
+    private void discardSnapshots() {
+        for (GameSnapshot gameSnapshot : _snapshots) {
+            gameSnapshot.discard();
+        }
+        _snapshots.clear();
     }
 
     /**
@@ -500,6 +582,7 @@ public class DefaultSwccgGame implements SwccgGame {
             }
             // Remove the current snapshot from the iterator and the list.
             iterator.remove();
+            gameSnapshot.discard();
         }
     }
 
@@ -4,19 +4,45 @@ import com.gempukku.swccgo.common.Phase;
 import com.gempukku.swccgo.game.ActionsEnvironment;
 import com.gempukku.swccgo.game.state.GameState;
 import com.gempukku.swccgo.logic.modifiers.ModifiersLogic;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Defines a snapshot of a game. Since the SwccgGame class is not a snapshotable,
  * this class is used as a starting point to snapshot of all the elements of the game.
+ *
+ * A snapshot that is not likely to be restored can be frozen, which serializes its state to compressed bytes kept in
+ * memory or in a file, and the state is deserialized again when it is needed.
  */
 public class GameSnapshot implements Snapshotable<GameSnapshot> {
+    private static final Logger _log = Logger.getLogger(GameSnapshot.class);
+
     private int _id;
     private String _description;
+    private String _currentPlayerId;
+    private int _currentTurnNumber;
+    private Phase _currentPhase;
     private GameState _gameState;
     private ModifiersLogic _modifiersLogic;
     private ActionsEnvironment _actionsEnvironment;
     private TurnProcedure _turnProcedure;
 
+    // The state of a frozen snapshot, as compressed bytes kept in memory or in a file
+    private byte[] _frozenBytes;
+    private File _frozenFile;
+    private int _frozenSize;
+    private List<Object> _sharedObjects;
+    private boolean _notSerializable;
+
     /**
      * Creates a game snapshot of the game.
      * @param id the snapshot ID
@@ -46,6 +72,9 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
         // Set each field
         snapshot._id = _id;
         snapshot._description = _description;
+        snapshot._currentPlayerId = _gameState.getCurrentPlayerId();
+        snapshot._currentTurnNumber = _gameState.getPlayersLatestTurnNumber(snapshot._currentPlayerId);
+        snapshot._currentPhase = _gameState.getCurrentPhase();
         snapshot._gameState = snapshotData.getDataForSnapshot(_gameState);
         snapshot._modifiersLogic = snapshotData.getDataForSnapshot(_modifiersLogic);
         snapshot._actionsEnvironment = snapshotData.getDataForSnapshot(_actionsEnvironment);
@@ -91,7 +120,7 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the current player at time of snapshot
      */
     public String getCurrentPlayerId() {
-        return _gameState.getCurrentPlayerId();
+        return _currentPlayerId;
     }
 
     /**
@@ -99,7 +128,7 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the turn number at time of snapshot
      */
     public int getCurrentTurnNumber() {
-        return _gameState.getPlayersLatestTurnNumber(getCurrentPlayerId());
+        return _currentTurnNumber;
     }
 
     /**
@@ -107,7 +136,7 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the phase at time of snapshot
      */
     public Phase getCurrentPhase() {
-        return _gameState.getCurrentPhase();
+        return _currentPhase;
     }
 
     /**
@@ -115,6 +144,7 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the game state
      */
     public GameState getGameState() {
+        thaw();
         return _gameState;
     }
 
@@ -123,6 +153,7 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the modifiers logic
      */
     public ModifiersLogic getModifiersLogic() {
+        thaw();
         return _modifiersLogic;
     }
 
@@ -131,6 +162,7 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the actions environement
      */
     public ActionsEnvironment getActionsEnvironment() {
+        thaw();
         return _actionsEnvironment;
     }
 
@@ -139,6 +171,112 @@ public class GameSnapshot implements Snapshotable<GameSnapshot> {
      * @return the turn procedure
      */
     public TurnProcedure getTurnProcedure() {
+        thaw();
         return _turnProcedure;
     }
+
+    /**
+     * Determines if the snapshot is frozen.
+     * @return true or false
+     */
+    public boolean isFrozen() {
+        return _gameState == null;
+    }
+
+    /**
+     * Gets the number of compressed bytes the state of the snapshot takes while it is frozen.
+     * @return the number of bytes, or 0 if the snapshot is not frozen
+     */
+    public int getFrozenSize() {
+        return _frozenSize;
+    }
+
+    /**
+     * Determines if the state of the snapshot is frozen to a file instead of kept in memory.
+     * @return true or false
+     */
+    public boolean isFrozenToFile() {
+        return _frozenFile != null;
+    }
+
+    /**
+     * Freezes the snapshot, so its state is no longer kept on the heap. The state is serialized to compressed bytes,
+     * which are kept in memory or written to a file in the specified directory. Nothing is done if the state cannot be
+     * serialized (for example, if it includes an action in progress), and the snapshot stays as is.
+     * @param spillDirectory the directory to write the file to, or null to keep the compressed bytes in memory
+     */
+    void freeze(File spillDirectory) {
+        if (isFrozen() || _notSerializable)
+            return;
+
+        List<Object> sharedObjects = new ArrayList<Object>();
+        byte[] bytes;
+        try {
+            bytes = SnapshotSerializer.serialize(new Object[] {_gameState, _modifiersLogic, _actionsEnvironment, _turnProcedure}, sharedObjects);
+        } catch (NotSerializableException exp) {
+            _notSerializable = true;
+            return;
+        } catch (IOException exp) {
+            _log.warn("Unable to serialize game snapshot", exp);
+            _notSerializable = true;
+            return;
+        }
+
+        _frozenBytes = bytes;
+        if (spillDirectory != null) {
+            File file = null;
+            try {
+                file = File.createTempFile("snapshot", ".dat", spillDirectory);
+                try (FileOutputStream out = new FileOutputStream(file)) {
+                    out.write(bytes);
+                }
+                _frozenFile = file;
+                _frozenBytes = null;
+            } catch (IOException exp) {
+                // Keep the compressed bytes in memory instead
+                _log.warn("Unable to write game snapshot to " + spillDirectory, exp);
+                if (file != null)
+                    file.delete();
+            }
+        }
+        _frozenSize = bytes.length;
+        _sharedObjects = sharedObjects;
+        _gameState = null;
+        _modifiersLogic = null;
+        _actionsEnvironment = null;
+        _turnProcedure = null;
+    }
+
+    /**
+     * Deserializes the state of a frozen snapshot, so it is kept on the heap again.
+     */
+    private void thaw() {
+        if (!isFrozen())
+            return;
+
+        Object[] state;
+        try (InputStream in = (_frozenFile != null) ? new FileInputStream(_frozenFile) : new ByteArrayInputStream(_frozenBytes)) {
+            state = (Object[]) SnapshotSerializer.deserialize(in, _sharedObjects);
+        } catch (IOException | ClassNotFoundException exp) {
+            throw new IllegalStateException("Unable to deserialize game snapshot " + _id, exp);
+        }
+        _gameState = (GameState) state[0];
+        _modifiersLogic = (ModifiersLogic) state[1];
+        _actionsEnvironment = (ActionsEnvironment) state[2];
+        _turnProcedure = (TurnProcedure) state[3];
+        discard();
+    }
+
+    /**
+     * Discards the frozen state of the snapshot, which deletes its file if the state is frozen to a file. This is done
+     * when the snapshot is no longer kept by the game.
+     */
+    void discard() {
+        if (_frozenFile != null && !_frozenFile.delete())
+            _frozenFile.deleteOnExit();
+        _frozenFile = null;
+        _frozenBytes = null;
+        _frozenSize = 0;
+        _sharedObjects = null;
+    }
 }
@@ -53,12 +53,31 @@ public class GameStats {
     private Map<Integer, Float> _darkPowerAtLocations = new HashMap<Integer, Float>();
     private Map<Integer, Float> _lightPowerAtLocations = new HashMap<Integer, Float>();
 
+    // The game state and modifiers the table stats were last calculated from
+    private GameState _tableStatsGameState;
+    private ModifiersQuerying _tableStatsModifiersQuerying;
+    private long _tableStatsGameStateVersion;
+    private long _tableStatsModifiersVersion;
+
     /**
-     * Updates game stats.
+     * Updates all game stats.
      *
      * @return true if any of the stats changed, otherwise false
      */
     public boolean updateGameStats(SwccgGame game) {
+        return updateGameStats(game, true);
+    }
+
+    /**
+     * Updates game stats. The stats calculated from the cards on the table (Force generation and power at each location)
+     * are the most expensive to calculate, so unless a full update is requested, those are only recalculated if the
+     * game state or the set of modifiers changed since they were last calculated.
+     *
+     * @param game the game
+     * @param fullUpdate true if all stats are to be recalculated, otherwise false
+     * @return true if any of the stats changed, otherwise false
+     */
+    public boolean updateGameStats(SwccgGame game, boolean fullUpdate) {
         _game = game;
         String darkPlayer = game.getDarkPlayer();
         String lightPlayer = game.getLightPlayer();
@@ -67,16 +86,14 @@ public class GameStats {
 
         boolean changed = false;
 
-        float newLightForceGenerationTotal = GuiUtils.calculateForceGeneration(game, lightPlayer);
-        if (newLightForceGenerationTotal != _lightForceGeneration) {
-            changed = true;
-            _lightForceGeneration = newLightForceGenerationTotal;
-        }
-
-        float newDarkForceGenerationTotal = GuiUtils.calculateForceGeneration(game, darkPlayer);
-        if (newDarkForceGenerationTotal != _darkForceGeneration) {
-            changed = true;
-            _darkForceGeneration = newDarkForceGenerationTotal;
+        if (fullUpdate || isTableStatsOutdated(gameState, modifiersQuerying)) {
+            if (updateTableStats(game, gameState, modifiersQuerying)) {
+                changed = true;
+            }
+            _tableStatsGameState = gameState;
+            _tableStatsModifiersQuerying = modifiersQuerying;
+            _tableStatsGameStateVersion = gameState.getMutationVersion();
+            _tableStatsModifiersVersion = modifiersQuerying.getModifiersVersion();
         }
 
         float newLightBattlePower = GuiUtils.getBattleTotalPower(game, lightPlayer);
@@ -247,24 +264,67 @@ public class GameStats {
             _darkPoliticsTotal = newDarkPoliticsTotal;
         }
 
-        Map<String, Map<Zone, Integer>> newZoneSizes = new HashMap<String, Map<Zone, Integer>>();
-        PlayerOrder playerOrder = game.getGameState().getPlayerOrder();
+        // Only build new zone sizes for a player when the sizes of that player's zones changed
+        PlayerOrder playerOrder = gameState.getPlayerOrder();
         if (playerOrder != null) {
+            Map<String, Map<Zone, Integer>> newZoneSizes = null;
             for (String player : playerOrder.getAllPlayers()) {
-                final HashMap<Zone, Integer> playerZoneSizes = new HashMap<Zone, Integer>();
-                playerZoneSizes.put(Zone.HAND, game.getGameState().getHand(player).size());
-                playerZoneSizes.put(Zone.SABACC_HAND, game.getGameState().getSabaccHand(player).size());
-                playerZoneSizes.put(Zone.RESERVE_DECK, game.getGameState().getReserveDeckSize(player));
-                playerZoneSizes.put(Zone.FORCE_PILE, game.getGameState().getForcePile(player).size());
-                playerZoneSizes.put(Zone.USED_PILE, game.getGameState().getUsedPile(player).size());
-                playerZoneSizes.put(Zone.LOST_PILE, game.getGameState().getLostPile(player).size());
-                playerZoneSizes.put(Zone.OUT_OF_PLAY, game.getGameState().getOutOfPlayPile(player).size());
-                newZoneSizes.put(player, playerZoneSizes);
+                Map<Zone, Integer> playerZoneSizes = _zoneSizes.get(player);
+                if (playerZoneSizes == null || isZoneSizesChanged(gameState, player, playerZoneSizes)) {
+                    if (newZoneSizes == null) {
+                        newZoneSizes = new HashMap<String, Map<Zone, Integer>>(_zoneSizes);
+                    }
+                    newZoneSizes.put(player, getZoneSizes(gameState, player));
+                }
+            }
+            if (newZoneSizes != null) {
+                changed = true;
+                _zoneSizes = newZoneSizes;
             }
         }
-        if (!newZoneSizes.equals(_zoneSizes) || game.getGameState().isTableChangedSinceStatsSent()) {
+        if (gameState.isTableChangedSinceStatsSent()) {
             changed = true;
-            _zoneSizes = newZoneSizes;
+        }
+
+        return changed;
+    }
+
+    /**
+     * Determines if the game state or set of modifiers changed since the table stats were last calculated.
+     * @param gameState the game state
+     * @param modifiersQuerying the modifiers querying
+     * @return true or false
+     */
+    private boolean isTableStatsOutdated(GameState gameState, ModifiersQuerying modifiersQuerying) {
+        return _tableStatsGameState != gameState
+                || _tableStatsModifiersQuerying != modifiersQuerying
+                || _tableStatsGameStateVersion != gameState.getMutationVersion()
+                || _tableStatsModifiersVersion != modifiersQuerying.getModifiersVersion();
+    }
+
+    /**
+     * Updates the stats calculated from the cards on the table.
+     * @param game the game
+     * @param gameState the game state
+     * @param modifiersQuerying the modifiers querying
+     * @return true if any of the stats changed, otherwise false
+     */
+    private boolean updateTableStats(SwccgGame game, GameState gameState, ModifiersQuerying modifiersQuerying) {
+        String darkPlayer = game.getDarkPlayer();
+        String lightPlayer = game.getLightPlayer();
+
+        boolean changed = false;
+
+        float newLightForceGenerationTotal = GuiUtils.calculateForceGeneration(game, lightPlayer);
+        if (newLightForceGenerationTotal != _lightForceGeneration) {
+            changed = true;
+            _lightForceGeneration = newLightForceGenerationTotal;
+        }
+
+        float newDarkForceGenerationTotal = GuiUtils.calculateForceGeneration(game, darkPlayer);
+        if (newDarkForceGenerationTotal != _darkForceGeneration) {
+            changed = true;
+            _darkForceGeneration = newDarkForceGenerationTotal;
         }
 
         List<PhysicalCard> locations = _game.getGameState().getTopLocations();
@@ -295,12 +355,49 @@ public class GameStats {
         if (_darkPowerAtLocations.size() != newDarkPowerAtLocations.size() || _lightPowerAtLocations.size() != newLightPowerAtLocations.size()) {
             changed = true;
         }
-        _darkPowerAtLocations = newDarkPowerAtLocations;
-        _lightPowerAtLocations = newLightPowerAtLocations;
+        if (changed) {
+            _darkPowerAtLocations = newDarkPowerAtLocations;
+            _lightPowerAtLocations = newLightPowerAtLocations;
+        }
 
         return changed;
     }
 
+    /**
+     * Determines if the sizes of the specified player's zones differ from the specified zone sizes.
+     * @param gameState the game state
+     * @param player the player
+     * @param playerZoneSizes the zone sizes
+     * @return true or false
+     */
+    private boolean isZoneSizesChanged(GameState gameState, String player, Map<Zone, Integer> playerZoneSizes) {
+        return playerZoneSizes.get(Zone.HAND) != gameState.getHand(player).size()
+                || playerZoneSizes.get(Zone.SABACC_HAND) != gameState.getSabaccHand(player).size()
+                || playerZoneSizes.get(Zone.RESERVE_DECK) != gameState.getReserveDeckSize(player)
+                || playerZoneSizes.get(Zone.FORCE_PILE) != gameState.getForcePile(player).size()
+                || playerZoneSizes.get(Zone.USED_PILE) != gameState.getUsedPile(player).size()
+                || playerZoneSizes.get(Zone.LOST_PILE) != gameState.getLostPile(player).size()
+                || playerZoneSizes.get(Zone.OUT_OF_PLAY) != gameState.getOutOfPlayPile(player).size();
+    }
+
+    /**
+     * Gets the sizes of the specified player's zones.
+     * @param gameState the game state
+     * @param player the player
+     * @return the zone sizes
+     */
+    private Map<Zone, Integer> getZoneSizes(GameState gameState, String player) {
+        Map<Zone, Integer> playerZoneSizes = new HashMap<Zone, Integer>();
+        playerZoneSizes.put(Zone.HAND, gameState.getHand(player).size());
+        playerZoneSizes.put(Zone.SABACC_HAND, gameState.getSabaccHand(player).size());
+        playerZoneSizes.put(Zone.RESERVE_DECK, gameState.getReserveDeckSize(player));
+        playerZoneSizes.put(Zone.FORCE_PILE, gameState.getForcePile(player).size());
+        playerZoneSizes.put(Zone.USED_PILE, gameState.getUsedPile(player).size());
+        playerZoneSizes.put(Zone.LOST_PILE, gameState.getLostPile(player).size());
+        playerZoneSizes.put(Zone.OUT_OF_PLAY, gameState.getOutOfPlayPile(player).size());
+        return playerZoneSizes;
+    }
+
     public Float getLightForceGeneration() {
         return _lightForceGeneration;
     }
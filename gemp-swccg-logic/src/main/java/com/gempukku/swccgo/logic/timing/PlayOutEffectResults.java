@@ -3,14 +3,14 @@ package com.gempukku.swccgo.logic.timing;
 import com.gempukku.swccgo.game.SwccgGame;
 import com.gempukku.swccgo.logic.actions.SystemQueueAction;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * An action for playing out effect results.
  */
 public class PlayOutEffectResults extends SystemQueueAction {
-    private Set<EffectResult> _effectResults = new HashSet<>();
+    private Set<EffectResult> _effectResults = new LinkedHashSet<>();
     private boolean _initialized;
 
     /**
@@ -1,13 +1,17 @@
 package com.gempukku.swccgo.logic.timing;
 
-import java.util.HashMap;
+import java.lang.reflect.Constructor;
+import java.util.IdentityHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Defines data that is used while creating a snapshot.
  */
 public class SnapshotData {
-    private Map<Snapshotable, Snapshotable> snapshotableMap = new HashMap<Snapshotable, Snapshotable>();
+    private static final int EXPECTED_SNAPSHOTABLES = 1024;
+    private static final Map<Class<?>, Constructor<?>> _constructorMap = new ConcurrentHashMap<Class<?>, Constructor<?>>();
+    private Map<Snapshotable, Snapshotable> snapshotableMap = new IdentityHashMap<Snapshotable, Snapshotable>(EXPECTED_SNAPSHOTABLES);
 
     /**
      * Gets the snapshotable to store in the snapshot given a snapshotable. This will return the same snapshotable
@@ -21,7 +25,7 @@ public class SnapshotData {
         Snapshotable dataToReturn = snapshotableMap.get(data);
         if (dataToReturn == null) {
             try {
-                dataToReturn = data.getClass().newInstance();
+                dataToReturn = (Snapshotable) getConstructor(data.getClass()).newInstance();
             } catch (Exception e) {
                 throw new RuntimeException(e);
             }
@@ -31,4 +35,21 @@ public class SnapshotData {
         }
         return (T) dataToReturn;
     }
+
+    /**
+     * Gets the no-argument constructor used to create snapshots of the specified class. The constructor is looked up
+     * once per class and reused for every snapshot taken after that.
+     * @param dataClass the class
+     * @return the constructor
+     * @throws NoSuchMethodException if the class does not have a no-argument constructor
+     */
+    private static Constructor<?> getConstructor(Class<?> dataClass) throws NoSuchMethodException {
+        Constructor<?> constructor = _constructorMap.get(dataClass);
+        if (constructor == null) {
+            constructor = dataClass.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            _constructorMap.put(dataClass, constructor);
+        }
+        return constructor;
+    }
 }
@@ -0,0 +1,129 @@
+package com.gempukku.swccgo.logic.timing;
+
+import com.gempukku.swccgo.communication.UserFeedback;
+import com.gempukku.swccgo.filters.Filter;
+import com.gempukku.swccgo.game.ActionProxy;
+import com.gempukku.swccgo.game.SwccgBuiltInCardBlueprint;
+import com.gempukku.swccgo.game.SwccgCardBlueprint;
+import com.gempukku.swccgo.game.SwccgCardBlueprintLibrary;
+import com.gempukku.swccgo.game.SwccgGame;
+import com.gempukku.swccgo.logic.PlayerOrder;
+import com.gempukku.swccgo.logic.decisions.AwaitingDecision;
+import com.gempukku.swccgo.logic.evaluators.Evaluator;
+import com.gempukku.swccgo.logic.modifiers.Modifier;
+import com.gempukku.swccgo.logic.timing.processes.GameProcess;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Serializes the state copied for a game snapshot to compressed bytes, so a snapshot that is not likely to be restored
+ * does not keep its copy of the game state on the heap.
+ *
+ * A snapshot shares some objects with the game instead of copying them (the game, card blueprints, modifiers, action
+ * proxies, awaiting decisions, etc.). Those objects are not serialized, but kept in a list and put back as is when the
+ * state is deserialized, so the deserialized state is the same as the state that was serialized. Any other object in
+ * the state that is not serializable (such as an action in progress) means the state cannot be serialized.
+ */
+final class SnapshotSerializer {
+    private static final Class<?>[] SHARED_TYPES = new Class<?>[] {
+            SwccgGame.class, SwccgCardBlueprintLibrary.class, SwccgCardBlueprint.class, SwccgBuiltInCardBlueprint.class,
+            Modifier.class, ActionProxy.class, AwaitingDecision.class, UserFeedback.class, GameProcess.class,
+            GameStats.class, PlayerOrder.class, Filter.class, Evaluator.class};
+
+    private SnapshotSerializer() {
+    }
+
+    /**
+     * Serializes the state to compressed bytes.
+     * @param state the state
+     * @param sharedObjects the list to add the objects shared with the game to, which is needed to deserialize the state
+     * @return the compressed bytes
+     * @throws IOException if the state cannot be serialized
+     */
+    static byte[] serialize(Object state, List<Object> sharedObjects) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new SharingObjectOutputStream(new DeflaterOutputStream(bytes), sharedObjects)) {
+            out.writeObject(state);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes state from compressed bytes.
+     * @param in the compressed bytes
+     * @param sharedObjects the objects shared with the game, as listed when the state was serialized
+     * @return the state
+     * @throws IOException if the state cannot be read
+     * @throws ClassNotFoundException if a class of the state is not found
+     */
+    static Object deserialize(InputStream in, List<Object> sharedObjects) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream objectIn = new SharingObjectInputStream(new InflaterInputStream(in), sharedObjects)) {
+            return objectIn.readObject();
+        }
+    }
+
+    private static boolean isShared(Object obj) {
+        for (Class<?> sharedType : SHARED_TYPES) {
+            if (sharedType.isInstance(obj))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Stands in for an object shared with the game in the serialized state.
+     */
+    private static class SharedReference implements Serializable {
+        private int _index;
+
+        private SharedReference(int index) {
+            _index = index;
+        }
+    }
+
+    private static class SharingObjectOutputStream extends ObjectOutputStream {
+        private List<Object> _sharedObjects;
+
+        private SharingObjectOutputStream(OutputStream out, List<Object> sharedObjects) throws IOException {
+            super(out);
+            _sharedObjects = sharedObjects;
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            // Each object is only replaced once, since later references to it are written as back references
+            if (isShared(obj)) {
+                _sharedObjects.add(obj);
+                return new SharedReference(_sharedObjects.size() - 1);
+            }
+            return obj;
+        }
+    }
+
+    private static class SharingObjectInputStream extends ObjectInputStream {
+        private List<Object> _sharedObjects;
+
+        private SharingObjectInputStream(InputStream in, List<Object> sharedObjects) throws IOException {
+            super(in);
+            _sharedObjects = sharedObjects;
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            if (obj instanceof SharedReference)
+                return _sharedObjects.get(((SharedReference) obj)._index);
+            return obj;
+        }
+    }
+}
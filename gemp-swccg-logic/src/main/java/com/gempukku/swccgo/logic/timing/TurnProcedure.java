@@ -16,6 +16,7 @@ import com.gempukku.swccgo.logic.effects.RespondablePlayingCardEffect;
 import com.gempukku.swccgo.logic.timing.processes.GameProcess;
 import com.gempukku.swccgo.logic.timing.processes.pregame.PlayStartingEffectsGameProcess;
 
+import java.io.Serializable;
 import java.util.*;
 
 /**
@@ -23,7 +24,7 @@ import java.util.*;
  * During each GameProcess actions on the action stack are processed. When the action stack is empty, that GameProcess
  * is complete. Each GameProcess specifies the next GameProcess to be performed.
  */
-public class TurnProcedure implements Snapshotable<TurnProcedure> {
+public class TurnProcedure implements Snapshotable<TurnProcedure>, Serializable {
     private SwccgGame _game;
     private UserFeedback _userFeedback;
     private ActionStack _actionStack;
@@ -125,8 +126,9 @@ public class TurnProcedure implements Snapshotable<TurnProcedure> {
                 }
             }
 
-            // If any game stats changed, send the game stats to the User Interface.
-            if (_gameStats.updateGameStats(_game))
+            // If any game stats changed, send the game stats to the User Interface. A full update is only done when
+            // the game stops for a user decision (or ends), otherwise only stats that may have changed are updated.
+            if (_gameStats.updateGameStats(_game, _userFeedback.hasPendingDecisions() || _game.getWinner() != null))
                 _game.getGameState().sendGameStats(_gameStats);
 
             // Check if a winner of the game can be declared.
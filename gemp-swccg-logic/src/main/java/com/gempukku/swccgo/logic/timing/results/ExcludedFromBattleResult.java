@@ -14,7 +14,7 @@ import java.util.*;
 public class ExcludedFromBattleResult extends EffectResult {
     private List<PhysicalCard> _allCardsExcluded = new ArrayList<PhysicalCard>();
     private List<PhysicalCard> _excludedByRule = new ArrayList<PhysicalCard>();
-    private Map<PhysicalCard, PhysicalCard> _excludedByCard = new HashMap<PhysicalCard, PhysicalCard>();
+    private Map<PhysicalCard, PhysicalCard> _excludedByCard = new LinkedHashMap<PhysicalCard, PhysicalCard>();
     private SwccgBuiltInCardBlueprint _excludedByPermanentWeapon;
     private PhysicalCard _cardFiringWeapon;
 
@@ -35,7 +35,7 @@ public class AdmiralsOrderRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(EffectResult.Type.PLAY) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
                         // Check condition(s)
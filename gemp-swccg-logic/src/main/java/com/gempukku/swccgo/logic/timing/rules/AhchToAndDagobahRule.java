@@ -33,7 +33,7 @@ public class AhchToAndDagobahRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(EffectResult.Type.PLAY) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
                         GameState gameState = game.getGameState();
@@ -35,7 +35,7 @@ public class AsteroidDestinyRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(EffectResult.Type.DESTINY_DRAWN) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
                         GameState gameState = game.getGameState();
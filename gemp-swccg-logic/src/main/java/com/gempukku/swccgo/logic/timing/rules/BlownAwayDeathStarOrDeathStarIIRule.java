@@ -41,7 +41,7 @@ public class BlownAwayDeathStarOrDeathStarIIRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(EffectResult.Type.BLOWN_AWAY_CALCULATE_FORCE_LOSS_STEP) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
                         GameState gameState = game.getGameState();
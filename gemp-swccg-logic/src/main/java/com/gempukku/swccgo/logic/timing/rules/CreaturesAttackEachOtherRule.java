@@ -78,7 +78,7 @@ public class CreaturesAttackEachOtherRule implements Rule {
                                         new PassthruEffect(action) {
                                             @Override
                                             protected void doPlayEffect(SwccgGame game) {
-                                                Map<PhysicalCard, PhysicalCard> creaturesToAttack = new HashMap<>();
+                                                Map<PhysicalCard, PhysicalCard> creaturesToAttack = new LinkedHashMap<>();
                                                 Collection<PhysicalCard> creatures = Filters.filterAllOnTable(game, Filters.and(Filters.creature, Filters.present(locationWithCreaturesToAttackEachOther)));
                                                 for (PhysicalCard creature : creatures) {
                                                     for (PhysicalCard otherCreature : Filters.filter(creatures, game, Filters.presentWith(creature))) {
@@ -91,7 +91,7 @@ public class CreaturesAttackEachOtherRule implements Rule {
                                                     }
                                                 }
                                                 if (!creaturesToAttack.isEmpty()) {
-                                                    PhysicalCard randomCreature = GameUtils.getRandomCards(creaturesToAttack.keySet(), 1).get(0);
+                                                    PhysicalCard randomCreature = GameUtils.getRandomCards(game, creaturesToAttack.keySet(), 1).get(0);
                                                     PhysicalCard otherCreature = creaturesToAttack.get(randomCreature);
                                                     gameState.activatedCard(null, randomCreature);
                                                     gameState.activatedCard(null, otherCreature);
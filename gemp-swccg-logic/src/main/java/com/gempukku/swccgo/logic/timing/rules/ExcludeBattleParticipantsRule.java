@@ -60,7 +60,7 @@ public class ExcludeBattleParticipantsRule implements Rule {
                             }
 
                             List<PhysicalCard> cardsExcludedByRule = new ArrayList<PhysicalCard>();
-                            Map<PhysicalCard, PhysicalCard> cardsExcludedByCard = new HashMap<PhysicalCard, PhysicalCard>();
+                            Map<PhysicalCard, PhysicalCard> cardsExcludedByCard = new LinkedHashMap<PhysicalCard, PhysicalCard>();
 
                             for (PhysicalCard cardToExclude : ineligibleParticipants) {
                                 // Get card that is causing this card to not be able to participate in the battle.
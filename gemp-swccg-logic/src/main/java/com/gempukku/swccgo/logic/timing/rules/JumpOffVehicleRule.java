@@ -40,7 +40,7 @@ public class JumpOffVehicleRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(EffectResult.Type.ABOUT_TO_BE_LOST_FROM_TABLE, EffectResult.Type.ABOUT_TO_BE_FORFEITED_TO_FROM_TABLE) {
                     @Override
                     public List<TriggerAction> getOptionalAfterTriggers(String playerId, SwccgGame game, EffectResult effectResult) {
                         final GameState gameState = game.getGameState();
@@ -31,7 +31,18 @@ public class LeavesTableCardRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(
+                        EffectResult.Type.LOST_FROM_TABLE,
+                        EffectResult.Type.FORFEITED_TO_LOST_PILE_FROM_TABLE,
+                        EffectResult.Type.FORFEITED_TO_USED_PILE_FROM_TABLE,
+                        EffectResult.Type.CANCELED_ON_TABLE,
+                        EffectResult.Type.STACKED_FROM_TABLE,
+                        EffectResult.Type.RETURNED_TO_HAND_FROM_TABLE,
+                        EffectResult.Type.PUT_IN_RESERVE_DECK_FROM_TABLE,
+                        EffectResult.Type.PUT_IN_FORCE_PILE_FROM_TABLE,
+                        EffectResult.Type.PUT_IN_USED_PILE_FROM_TABLE,
+                        EffectResult.Type.PLACED_OUT_OF_PLAY_FROM_TABLE,
+                        EffectResult.Type.CAPTURED) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
                         PhysicalCard cardThatLeftTable = getCardThatLeftTable(effectResult);
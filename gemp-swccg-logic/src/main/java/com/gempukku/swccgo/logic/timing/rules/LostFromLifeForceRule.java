@@ -30,7 +30,7 @@ public class LostFromLifeForceRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(EffectResult.Type.FORCE_LOST) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
                         PhysicalCard cardThatLeftTable = getCardLostFromLifeForce(effectResult);
@@ -35,7 +35,14 @@ public class LukesBackpackRule implements Rule {
 
     public void applyRule() {
         _actionsEnvironment.addUntilEndOfGameActionProxy(
-                new AbstractActionProxy() {
+                new AbstractActionProxy(
+                        EffectResult.Type.ABOUT_TO_BE_CANCELED_ON_TABLE,
+                        EffectResult.Type.ABOUT_TO_BE_LOST_FROM_TABLE,
+                        EffectResult.Type.ABOUT_TO_BE_FORFEITED_TO_FROM_TABLE,
+                        EffectResult.Type.ABOUT_TO_BE_PLACED_OUT_OF_PLAY_FROM_TABLE,
+                        EffectResult.Type.ABOUT_TO_BE_RETURNED_TO_HAND_FROM_TABLE,
+                        EffectResult.Type.ABOUT_TO_BE_PLACE_IN_CARD_PILE_FROM_TABLE,
+                        EffectResult.Type.ABOUT_TO_BE_STACK_CARD_FROM_TABLE) {
                     @Override
                     public List<TriggerAction> getRequiredAfterTriggers(SwccgGame game, EffectResult effectResult) {
 
@@ -0,0 +1,219 @@
+package com.gempukku.swccgo.game.state;
+
+import com.gempukku.swccgo.common.Zone;
+import com.gempukku.swccgo.logic.decisions.MultipleChoiceAwaitingDecision;
+import com.gempukku.swccgo.logic.timing.GameStats;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONWriter;
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Serializes game events to the compact JSON encoding, reads them back, and checks they carry the same values as the
+ * XML encoding of the same game events.
+ */
+public class CompactEventSerializerTest {
+    private static final Map<String, String> EVENT_FIELDS = new HashMap<String, String>();
+    static {
+        String[] fields = new String[] {
+                "t", "type", "b", "blueprintId", "tt", "testingText", "bt", "backSideTestingText", "c", "cardId",
+                "i", "index", "zo", "zoneOwnerId", "sn", "systemName", "l", "locationIndex", "ls", "locationIndexes",
+                "p", "participantId", "ps", "allParticipantIds", "ph", "phase", "tc", "targetCardId", "z", "zone",
+                "iv", "inverted", "sw", "sideways", "fr", "frozen", "su", "suspended", "co", "collapsed", "n", "count",
+                "dt", "destinyText", "pa", "playerAttacking", "pd", "playerDefending", "o", "otherCardIds",
+                "o2", "otherCardIds2", "m", "message"};
+        for (int i = 0; i < fields.length; i += 2)
+            EVENT_FIELDS.put(fields[i], fields[i + 1]);
+    }
+
+    private static final Map<String, String> GAME_STATS_FIELDS = new HashMap<String, String>();
+    static {
+        String[] fields = new String[] {
+                "dfg", "darkForceGeneration", "lfg", "lightForceGeneration", "dbp", "darkBattlePower", "lbp", "lightBattlePower",
+                "dbndtp", "darkBattleNumDestinyToPower", "lbndtp", "lightBattleNumDestinyToPower",
+                "dbnbd", "darkBattleNumBattleDestiny", "lbnbd", "lightBattleNumBattleDestiny",
+                "dbndta", "darkBattleNumDestinyToAttrition", "lbndta", "lightBattleNumDestinyToAttrition",
+                "dbdr", "darkBattleDamageRemaining", "lbdr", "lightBattleDamageRemaining",
+                "dbar", "darkBattleAttritionRemaining", "lbar", "lightBattleAttritionRemaining",
+                "ditra", "darkImmuneToRemainingAttrition", "litra", "lightImmuneToRemainingAttrition",
+                "dst", "darkSabaccTotal", "lst", "lightSabaccTotal",
+                "ddolct", "darkDuelOrLightsaberCombatTotal", "ldolct", "lightDuelOrLightsaberCombatTotal",
+                "ddolcnd", "darkDuelOrLightsaberCombatNumDestiny", "ldolcnd", "lightDuelOrLightsaberCombatNumDestiny",
+                "apofia", "attackingPowerOrFerocityInAttack", "dpofia", "defendingPowerOrFerocityInAttack",
+                "andia", "attackingNumDestinyInAttack", "dndia", "defendingNumDestinyInAttack",
+                "drt", "darkRaceTotal", "lrt", "lightRaceTotal", "dpt", "darkPoliticsTotal", "lpt", "lightPoliticsTotal"};
+        for (int i = 0; i < fields.length; i += 2)
+            GAME_STATS_FIELDS.put(fields[i], fields[i + 1]);
+    }
+
+    @Test
+    public void participantsRoundTrip() throws Exception {
+        assertRoundTrip(new GameEvent(GameEvent.Type.P).participantId("darkPlayer").allParticipantIds(Arrays.asList("darkPlayer", "lightPlayer")));
+    }
+
+    @Test
+    public void cardPutInPlayRoundTrip() throws Exception {
+        assertRoundTrip(new GameEvent(GameEvent.Type.PCIP).blueprintId("1_168").cardId(12).participantId("darkPlayer")
+                .zoneOwnerId("darkPlayer").zone(Zone.AT_LOCATION).targetCardId(3).locationIndex(2).systemName("Tatooine")
+                .inverted(true).sideways(false).frozen(false).otherCardIds(new int[] {7, 8}));
+    }
+
+    @Test
+    public void messageRoundTrip() throws Exception {
+        assertRoundTrip(new GameEvent(GameEvent.Type.M).message("<b>darkPlayer</b> plays \"Vader\" & wins\nnext line"));
+    }
+
+    @Test
+    public void gameStatsRoundTrip() throws Exception {
+        assertRoundTrip(new GameEvent(GameEvent.Type.GS).gameStats(new GameStats()));
+    }
+
+    @Test
+    public void decisionRoundTrip() throws Exception {
+        MultipleChoiceAwaitingDecision decision = new MultipleChoiceAwaitingDecision("Choose one", new String[] {"Yes", "No"}) {
+            @Override
+            protected void validDecisionMade(int index, String result) {
+            }
+        };
+        assertRoundTrip(new GameEvent(GameEvent.Type.D).participantId("lightPlayer").awaitingDecision(decision));
+    }
+
+    private void assertRoundTrip(GameEvent gameEvent) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        new CompactEventSerializer().serializeEvent(new JSONWriter(sb), gameEvent);
+        JSONObject compactEvent = new JSONObject(sb.toString());
+
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element eventElem = (Element) new EventSerializer().serializeEvent(doc, gameEvent);
+
+        assertEquals(getAttributes(eventElem), readAttributes(compactEvent));
+
+        // The order of the players, locations and decision parameters follows the order of the maps they come from
+        List<String> childElements = getChildElements(eventElem);
+        List<String> compactChildElements = readChildElements(compactEvent);
+        Collections.sort(childElements);
+        Collections.sort(compactChildElements);
+        assertEquals(childElements, compactChildElements);
+    }
+
+    /**
+     * Reads the compact encoding of a game event as the attributes of its XML element.
+     */
+    private Map<String, String> readAttributes(JSONObject compactEvent) {
+        Map<String, String> attributes = new TreeMap<String, String>();
+        for (String code : JSONObject.getNames(compactEvent)) {
+            if (code.equals("gs")) {
+                JSONObject gameStats = compactEvent.getJSONObject(code);
+                for (String statsCode : JSONObject.getNames(gameStats)) {
+                    if (!statsCode.equals("zs") && !statsCode.equals("dpl") && !statsCode.equals("lpl"))
+                        attributes.put(GAME_STATS_FIELDS.get(statsCode), toAttributeValue(gameStats.get(statsCode)));
+                }
+            } else if (code.equals("d")) {
+                JSONObject decision = compactEvent.getJSONObject(code);
+                attributes.put("id", toAttributeValue(decision.get("id")));
+                attributes.put("decisionType", decision.getString("ty"));
+                if (decision.has("tx"))
+                    attributes.put("text", decision.getString("tx"));
+            } else {
+                attributes.put(EVENT_FIELDS.get(code), toAttributeValue(compactEvent.get(code)));
+            }
+        }
+        return attributes;
+    }
+
+    /**
+     * Reads the game stats and decision of the compact encoding as the child elements of the XML element, each as its
+     * name followed by its attributes.
+     */
+    private List<String> readChildElements(JSONObject compactEvent) {
+        List<String> childElements = new ArrayList<String>();
+        if (compactEvent.has("gs")) {
+            JSONObject gameStats = compactEvent.getJSONObject("gs");
+            JSONObject zoneSizes = gameStats.getJSONObject("zs");
+            for (String playerId : sortedNames(zoneSizes)) {
+                Map<String, String> attributes = new TreeMap<String, String>();
+                attributes.put("name", playerId);
+                JSONObject playerZoneSizes = zoneSizes.getJSONObject(playerId);
+                for (String zone : sortedNames(playerZoneSizes))
+                    attributes.put(zone, toAttributeValue(playerZoneSizes.get(zone)));
+                childElements.add("playerZones" + attributes);
+            }
+            childElements.add("darkPowerAtLocations" + readPowerAtLocations(gameStats.getJSONObject("dpl")));
+            childElements.add("lightPowerAtLocations" + readPowerAtLocations(gameStats.getJSONObject("lpl")));
+        }
+        if (compactEvent.has("d")) {
+            JSONObject parameters = compactEvent.getJSONObject("d").getJSONObject("pm");
+            for (String name : sortedNames(parameters)) {
+                JSONArray values = parameters.getJSONArray(name);
+                for (int i = 0; i < values.length(); i++) {
+                    Map<String, String> attributes = new TreeMap<String, String>();
+                    attributes.put("name", name);
+                    attributes.put("value", values.getString(i));
+                    childElements.add("parameter" + attributes);
+                }
+            }
+        }
+        return childElements;
+    }
+
+    private Map<String, String> readPowerAtLocations(JSONObject powerAtLocations) {
+        Map<String, String> attributes = new TreeMap<String, String>();
+        for (String locationIndex : sortedNames(powerAtLocations))
+            attributes.put("locationIndex" + locationIndex, toAttributeValue(powerAtLocations.get(locationIndex)));
+        return attributes;
+    }
+
+    private List<String> sortedNames(JSONObject object) {
+        List<String> names = new ArrayList<String>();
+        if (object.length() > 0)
+            names.addAll(Arrays.asList(JSONObject.getNames(object)));
+        Collections.sort(names);
+        return names;
+    }
+
+    private String toAttributeValue(Object value) {
+        if (value instanceof JSONArray) {
+            JSONArray values = (JSONArray) value;
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < values.length(); i++) {
+                if (i > 0)
+                    sb.append(",");
+                sb.append(values.get(i));
+            }
+            return sb.toString();
+        }
+        return String.valueOf(value);
+    }
+
+    private Map<String, String> getAttributes(Element element) {
+        Map<String, String> attributes = new TreeMap<String, String>();
+        NamedNodeMap nodeMap = element.getAttributes();
+        for (int i = 0; i < nodeMap.getLength(); i++)
+            attributes.put(nodeMap.item(i).getNodeName(), nodeMap.item(i).getNodeValue());
+        return attributes;
+    }
+
+    private List<String> getChildElements(Element element) {
+        List<String> childElements = new ArrayList<String>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element)
+                childElements.add(child.getNodeName() + getAttributes((Element) child));
+        }
+        return childElements;
+    }
+}
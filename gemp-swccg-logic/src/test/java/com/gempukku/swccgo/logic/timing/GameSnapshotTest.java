@@ -0,0 +1,150 @@
+package com.gempukku.swccgo.logic.timing;
+
+import com.gempukku.swccgo.communication.UserFeedback;
+import com.gempukku.swccgo.game.PhysicalCard;
+import com.gempukku.swccgo.game.SwccgCardBlueprint;
+import com.gempukku.swccgo.game.SwccgCardBlueprintLibrary;
+import com.gempukku.swccgo.game.SwccgGame;
+import com.gempukku.swccgo.game.state.GameState;
+import com.gempukku.swccgo.game.state.actions.DefaultActionsEnvironment;
+import com.gempukku.swccgo.logic.PlayerOrder;
+import com.gempukku.swccgo.logic.modifiers.ModifiersEnvironment;
+import com.gempukku.swccgo.logic.modifiers.ModifiersLogic;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Freezes a snapshot of a game state with cards in both players' Reserve Decks, thaws it, and checks the thawed state
+ * has the same cards, and the same objects shared with the game, as the state that was frozen.
+ */
+public class GameSnapshotTest {
+    private static final String DARK_PLAYER = "darkPlayer";
+    private static final String LIGHT_PLAYER = "lightPlayer";
+
+    @TempDir
+    File _spillDirectory;
+
+    private final Map<String, Object> _gameAnswers = new HashMap<String, Object>();
+    private final SwccgGame _game = stub(SwccgGame.class, _gameAnswers);
+    private final SwccgCardBlueprint _blueprint = stub(SwccgCardBlueprint.class, Collections.<String, Object>emptyMap());
+
+    @Test
+    public void frozenSnapshotIsThawedWithSameState() throws Exception {
+        GameSnapshot snapshot = createSnapshot();
+        List<String> cards = describeCards(snapshot.getGameState());
+
+        snapshot.freeze(null);
+        assertTrue(snapshot.isFrozen());
+        assertFalse(snapshot.isFrozenToFile());
+        assertTrue(snapshot.getFrozenSize() > 0);
+
+        GameState gameState = snapshot.getGameState();
+        assertFalse(snapshot.isFrozen());
+        assertEquals(0, snapshot.getFrozenSize());
+        assertEquals(cards, describeCards(gameState));
+        assertEquals(DARK_PLAYER, gameState.getCurrentPlayerId());
+        assertTrue(gameState.getGame() == _game, "Thawed game state does not refer to the game");
+        for (PhysicalCard card : gameState.getReserveDeck(DARK_PLAYER))
+            assertTrue(card.getBlueprint() == _blueprint, "Thawed card does not refer to its blueprint");
+        assertTrue(snapshot.getModifiersLogic() != null);
+        assertTrue(snapshot.getActionsEnvironment() != null);
+        assertTrue(snapshot.getTurnProcedure() != null);
+    }
+
+    @Test
+    public void snapshotFrozenToFileIsThawedWithSameStateAndFileIsDeleted() throws Exception {
+        GameSnapshot snapshot = createSnapshot();
+        List<String> cards = describeCards(snapshot.getGameState());
+
+        snapshot.freeze(_spillDirectory);
+        assertTrue(snapshot.isFrozen());
+        assertTrue(snapshot.isFrozenToFile());
+        assertEquals(1, _spillDirectory.listFiles().length);
+
+        assertEquals(cards, describeCards(snapshot.getGameState()));
+        assertFalse(snapshot.isFrozenToFile());
+        assertEquals(0, _spillDirectory.listFiles().length);
+    }
+
+    private GameSnapshot createSnapshot() {
+        GameState gameState = new GameState(_game);
+        _gameAnswers.put("getGameState", gameState);
+        _gameAnswers.put("getModifiersEnvironment", stub(ModifiersEnvironment.class, Collections.<String, Object>emptyMap()));
+        _gameAnswers.put("getRandom", new Random(1));
+        _gameAnswers.put("getAllGameStateListeners", Collections.emptyList());
+
+        SwccgCardBlueprintLibrary library = new SwccgCardBlueprintLibrary() {
+            @Override
+            public SwccgCardBlueprint getSwccgoCardBlueprint(String blueprintId) {
+                return _blueprint;
+            }
+        };
+        Map<String, List<String>> cards = new HashMap<String, List<String>>();
+        cards.put(DARK_PLAYER, Arrays.asList("1_1", "1_2", "1_3"));
+        cards.put(LIGHT_PLAYER, Arrays.asList("2_1", "2_2"));
+        Map<String, List<String>> outsideOfDeckCards = new HashMap<String, List<String>>();
+        outsideOfDeckCards.put(DARK_PLAYER, Collections.<String>emptyList());
+        outsideOfDeckCards.put(LIGHT_PLAYER, Collections.<String>emptyList());
+        gameState.init(new PlayerOrder(Arrays.asList(DARK_PLAYER, LIGHT_PLAYER)), DARK_PLAYER, LIGHT_PLAYER, cards, outsideOfDeckCards, library);
+
+        ActionStack actionStack = new ActionStack();
+        return GameSnapshot.createGameSnapshot(1, "Snapshot", gameState, new ModifiersLogic(_game),
+                new DefaultActionsEnvironment(_game, actionStack), new TurnProcedure(_game, stub(UserFeedback.class, Collections.<String, Object>emptyMap()), actionStack));
+    }
+
+    private List<String> describeCards(GameState gameState) {
+        List<String> result = new ArrayList<String>();
+        for (String playerId : new String[] {DARK_PLAYER, LIGHT_PLAYER}) {
+            for (PhysicalCard card : gameState.getReserveDeck(playerId))
+                result.add(card.getCardId() + " " + card.getBlueprintId(true) + " " + card.getZone() + " " + card.getOwner());
+        }
+        return result;
+    }
+
+    /**
+     * Creates a stub of an interface, which returns the specified answers by method name, and otherwise false, 0 or
+     * null.
+     */
+    private static <T> T stub(Class<T> type, final Map<String, Object> answers) {
+        return type.cast(Proxy.newProxyInstance(GameSnapshotTest.class.getClassLoader(), new Class<?>[] {type},
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] args) {
+                        if (method.getName().equals("equals"))
+                            return proxy == args[0];
+                        if (method.getName().equals("hashCode"))
+                            return System.identityHashCode(proxy);
+                        if (answers.containsKey(method.getName()))
+                            return answers.get(method.getName());
+                        Class<?> returnType = method.getReturnType();
+                        if (returnType == boolean.class)
+                            return false;
+                        if (returnType == int.class)
+                            return 0;
+                        if (returnType == long.class)
+                            return 0L;
+                        if (returnType == float.class)
+                            return 0f;
+                        if (returnType == double.class)
+                            return 0d;
+                        return null;
+                    }
+                }));
+    }
+}
@@ -5,12 +5,14 @@ import com.gempukku.swccgo.collection.CachedCollectionDAO;
 import com.gempukku.swccgo.collection.CachedTransferDAO;
 import com.gempukku.swccgo.collection.CollectionSerializer;
 import com.gempukku.swccgo.collection.TransferDAO;
+import com.gempukku.swccgo.common.ApplicationConfiguration;
 import com.gempukku.swccgo.db.*;
 import com.gempukku.swccgo.game.SwccgCardBlueprintLibrary;
 import com.gempukku.swccgo.tournament.TournamentDAO;
 import com.gempukku.swccgo.tournament.TournamentMatchDAO;
 import com.gempukku.swccgo.tournament.TournamentPlayerDAO;
 
+import java.io.File;
 import java.lang.reflect.Type;
 import java.util.Map;
 
@@ -27,14 +29,19 @@ public class DaoBuilder {
         objectMap.put(TournamentPlayerDAO.class, new DbTournamentPlayerDAO(dbAccess, library));
         objectMap.put(TournamentMatchDAO.class, new DbTournamentMatchDAO(dbAccess));
         objectMap.put(GempSettingDAO.class, new DbGempSettingDAO(dbAccess));
-        objectMap.put(InGameStatisticsDAO.class, new DbInGameStatisticsDAO(dbAccess));
+        JournaledGameHistoryDAO gameHistoryDao = new JournaledGameHistoryDAO(new DbGameHistoryDAO(dbAccess),
+                new File(ApplicationConfiguration.getProperty("application.root"), "journal"));
+        WriteBehindInGameStatisticsDAO inGameStatisticsDao = new WriteBehindInGameStatisticsDAO(new DbInGameStatisticsDAO(dbAccess), gameHistoryDao);
+        objectMap.put(InGameStatisticsDAO.class, inGameStatisticsDao);
+        objectMap.put(WriteBehindInGameStatisticsDAO.class, inGameStatisticsDao);
 
         DbMerchantDAO dbMerchantDao = new DbMerchantDAO(dbAccess);
         CachedMerchantDAO merchantDao = new CachedMerchantDAO(dbMerchantDao);
         objectMap.put(MerchantDAO.class, merchantDao);
 
         objectMap.put(LeagueDAO.class, new DbLeagueDAO(dbAccess));
-        objectMap.put(GameHistoryDAO.class, new DbGameHistoryDAO(dbAccess));
+        objectMap.put(GameHistoryDAO.class, gameHistoryDao);
+        objectMap.put(JournaledGameHistoryDAO.class, gameHistoryDao);
 
         DbDeckDAO dbDeckDao = new DbDeckDAO(dbAccess, library);
         CachedDeckDAO deckDao = new CachedDeckDAO(dbDeckDao);
@@ -1,5 +1,6 @@
 package com.gempukku.swccgo.builder;
 
+import com.gempukku.swccgo.cache.CacheManager;
 import com.gempukku.swccgo.chat.ChatServer;
 import com.gempukku.swccgo.collection.CollectionsManager;
 import com.gempukku.swccgo.collection.TransferDAO;
@@ -26,12 +27,15 @@ public class ServerBuilder {
         objectMap.put(SwccgoFormatLibrary.class,
                 new SwccgoFormatLibrary(
                         extract(objectMap, SwccgCardBlueprintLibrary.class)));
-        objectMap.put(GameHistoryService.class,
-                new GameHistoryService(
-                        extract(objectMap, GameHistoryDAO.class)));
+        GameHistoryService gameHistoryService = new GameHistoryService(
+                extract(objectMap, GameHistoryDAO.class));
+        extract(objectMap, CacheManager.class).addCache(gameHistoryService);
+        objectMap.put(GameHistoryService.class, gameHistoryService);
         objectMap.put(GameRecorder.class,
                 new GameRecorder(
-                        extract(objectMap, GameHistoryService.class)));
+                        extract(objectMap, GameHistoryService.class),
+                        extract(objectMap, SwccgCardBlueprintLibrary.class),
+                        extract(objectMap, SwccgoFormatLibrary.class)));
 
         objectMap.put(CollectionsManager.class,
                 new CollectionsManager(
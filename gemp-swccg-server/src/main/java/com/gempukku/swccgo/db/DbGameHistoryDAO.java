@@ -1,15 +1,19 @@
 package com.gempukku.swccgo.db;
 
 import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.GameHistoryRecord;
 import com.gempukku.swccgo.game.Player;
+import org.apache.log4j.Logger;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.*;
 
 public class DbGameHistoryDAO implements GameHistoryDAO {
+    private static final Logger LOG = Logger.getLogger(DbGameHistoryDAO.class);
     private DbAccess _dbAccess;
 
     public DbGameHistoryDAO(DbAccess dbAccess) {
@@ -17,34 +21,64 @@ public class DbGameHistoryDAO implements GameHistoryDAO {
     }
 
     public void addGameHistory(String winner, String loser, String winReason, String loseReason, String winRecordingId, String loseRecordingId, String formatName, String tournament, String winnerDeckName, String loserDeckName, String winnerDeckArchetype, String loserDeckArchetype, String winnerSide, String darkDeckString, String lightDeckString, String leagueType, String sealedLeagueType, Date startDate, Date endDate) {
+        addGameHistory(Collections.singletonList(new GameHistoryRecord(winner, loser, winReason, loseReason, winRecordingId, loseRecordingId, formatName, tournament, winnerDeckName, loserDeckName, winnerDeckArchetype, loserDeckArchetype, winnerSide, darkDeckString, lightDeckString, leagueType, sealedLeagueType, startDate, endDate)));
+    }
+
+    @Override
+    public void addGameHistory(List<GameHistoryRecord> records) {
+        if (records.isEmpty())
+            return;
+
         try {
             Connection connection = _dbAccess.getDataSource().getConnection();
             try {
-                PreparedStatement statement = connection.prepareStatement("insert into game_history (winner, loser, win_reason, lose_reason, win_recording_id, lose_recording_id, format_name, tournament, winner_deck_name, loser_deck_name, winner_deck_archetype, loser_deck_archetype, winner_side, dark_deck_string, light_deck_string, league_type, sealed_league_type, start_date, end_date) values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)");
+                connection.setAutoCommit(false);
+                PreparedStatement statement = connection.prepareStatement("insert into game_history (winner, loser, win_reason, lose_reason, win_recording_id, lose_recording_id, format_name, tournament, winner_deck_name, loser_deck_name, winner_deck_archetype, loser_deck_archetype, winner_side, dark_deck_string, light_deck_string, league_type, sealed_league_type, start_date, end_date) values (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)", Statement.RETURN_GENERATED_KEYS);
                 try {
-                    statement.setString(1, winner);
-                    statement.setString(2, loser);
-                    statement.setString(3, winReason);
-                    statement.setString(4, loseReason);
-                    statement.setString(5, winRecordingId);
-                    statement.setString(6, loseRecordingId);
-                    statement.setString(7, formatName);
-                    statement.setString(8, tournament);
-                    statement.setString(9, winnerDeckName);
-                    statement.setString(10, loserDeckName);
-                    statement.setString(11, (winnerDeckArchetype==null?"":winnerDeckArchetype));
-                    statement.setString(12, (loserDeckArchetype==null?"":loserDeckArchetype));
-                    statement.setString(13, winnerSide);
-                    statement.setString(14, darkDeckString);
-                    statement.setString(15, lightDeckString);
-                    statement.setString(16, leagueType);
-                    statement.setString(17, sealedLeagueType);
-                    statement.setLong(18, startDate.getTime());
-                    statement.setLong(19, endDate.getTime());
-
-                    statement.execute();
+                    for (GameHistoryRecord record : records) {
+                        statement.setString(1, record.getWinner());
+                        statement.setString(2, record.getLoser());
+                        statement.setString(3, record.getWinReason());
+                        statement.setString(4, record.getLoseReason());
+                        statement.setString(5, record.getWinRecordingId());
+                        statement.setString(6, record.getLoseRecordingId());
+                        statement.setString(7, record.getFormatName());
+                        statement.setString(8, record.getTournament());
+                        statement.setString(9, record.getWinnerDeckName());
+                        statement.setString(10, record.getLoserDeckName());
+                        statement.setString(11, (record.getWinnerDeckArchetype()==null?"":record.getWinnerDeckArchetype()));
+                        statement.setString(12, (record.getLoserDeckArchetype()==null?"":record.getLoserDeckArchetype()));
+                        statement.setString(13, record.getWinningSide());
+                        statement.setString(14, record.getDarkDeckString());
+                        statement.setString(15, record.getLightDeckString());
+                        statement.setString(16, record.getLeagueType());
+                        statement.setString(17, record.getSealedLeagueType());
+                        statement.setLong(18, record.getStartDate().getTime());
+                        statement.setLong(19, record.getEndDate().getTime());
+                        statement.addBatch();
+                    }
+                    statement.executeBatch();
+                    List<Integer> ids = new ArrayList<Integer>();
+                    ResultSet generatedKeys = statement.getGeneratedKeys();
+                    try {
+                        while (generatedKeys.next())
+                            ids.add(generatedKeys.getInt(1));
+                    } finally {
+                        generatedKeys.close();
+                    }
+                    connection.commit();
+                    // The ids are only set once the results are committed
+                    if (ids.size() == records.size()) {
+                        for (int i = 0; i < records.size(); i++)
+                            records.get(i).setId(ids.get(i));
+                    }
+                    addRollups(connection, records);
+                } catch (SQLException exp) {
+                    connection.rollback();
+                    throw exp;
                 } finally {
                     statement.close();
+                    connection.setAutoCommit(true);
                 }
             } finally {
                 connection.close();
@@ -54,6 +88,99 @@ public class DbGameHistoryDAO implements GameHistoryDAO {
         }
     }
 
+    /**
+     * Adds the games to the hourly and daily rollups and to the all time totals, in a transaction of its own after the
+     * games are committed. A failure is only logged, so it never fails adding the games, and the rollups and totals
+     * are corrected by running RebuildStatsRollupsConsole.
+     * @param connection the connection
+     * @param records the games
+     */
+    private void addRollups(Connection connection, List<GameHistoryRecord> records) {
+        try {
+            try {
+                addRollupsAndTotals(connection, records);
+                connection.commit();
+            } catch (SQLException exp) {
+                connection.rollback();
+                throw exp;
+            }
+        } catch (SQLException exp) {
+            LOG.error("Unable to add " + records.size() + " games to the game history rollups, run RebuildStatsRollupsConsole to correct them", exp);
+        }
+    }
+
+    private void addRollupsAndTotals(Connection connection, List<GameHistoryRecord> records) throws SQLException {
+        PreparedStatement gamesStatement = connection.prepareStatement("insert into game_history_rollup (period_length, period_start, format_name, casual, games_count) values (?,?,?,?,1) on duplicate key update games_count = games_count + 1");
+        PreparedStatement playersStatement = connection.prepareStatement("insert ignore into game_history_rollup_player (period_length, period_start, player) values (?,?,?)");
+        PreparedStatement playerStatement = connection.prepareStatement("insert ignore into game_history_player (player) values (?)");
+        PreparedStatement totalsStatement = connection.prepareStatement("insert into game_history_totals (id, games_count, players_count) values (1,?,?) on duplicate key update games_count = games_count + values(games_count), players_count = players_count + values(players_count)");
+        try {
+            Set<String> players = new HashSet<String>();
+            for (GameHistoryRecord record : records) {
+                for (long periodLength : new long[] {ROLLUP_HOUR, ROLLUP_DAY}) {
+                    long periodStart = record.getEndDate().getTime() - record.getEndDate().getTime() % periodLength;
+                    gamesStatement.setLong(1, periodLength);
+                    gamesStatement.setLong(2, periodStart);
+                    gamesStatement.setString(3, record.getFormatName() == null ? "" : record.getFormatName());
+                    gamesStatement.setBoolean(4, record.getTournament() == null || record.getTournament().equals("Casual"));
+                    gamesStatement.addBatch();
+                    for (String player : new String[] {record.getWinner(), record.getLoser()}) {
+                        playersStatement.setLong(1, periodLength);
+                        playersStatement.setLong(2, periodStart);
+                        playersStatement.setString(3, player);
+                        playersStatement.addBatch();
+                    }
+                }
+                players.add(record.getWinner());
+                players.add(record.getLoser());
+            }
+            gamesStatement.executeBatch();
+            playersStatement.executeBatch();
+
+            // A player not yet in the game history inserts a row, and a player already in it inserts none
+            int newPlayers = 0;
+            for (String player : players) {
+                playerStatement.setString(1, player);
+                newPlayers += playerStatement.executeUpdate();
+            }
+            totalsStatement.setInt(1, records.size());
+            totalsStatement.setInt(2, newPlayers);
+            totalsStatement.execute();
+        } finally {
+            gamesStatement.close();
+            playersStatement.close();
+            playerStatement.close();
+            totalsStatement.close();
+        }
+    }
+
+    @Override
+    public boolean containsGameHistory(GameHistoryRecord record) {
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                PreparedStatement statement = connection.prepareStatement("select count(*) from game_history where winner=? and loser=? and end_date=?");
+                try {
+                    statement.setString(1, record.getWinner());
+                    statement.setString(2, record.getLoser());
+                    statement.setLong(3, record.getEndDate().getTime());
+                    ResultSet rs = statement.executeQuery();
+                    try {
+                        return rs.next() && rs.getInt(1) > 0;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    statement.close();
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to check game history", exp);
+        }
+    }
+
     public List<GameHistoryEntry> getGameHistoryForPlayer(Player player, int start, int count) {
         try {
             Connection connection = _dbAccess.getDataSource().getConnection();
@@ -133,8 +260,7 @@ public class DbGameHistoryDAO implements GameHistoryDAO {
         try {
             Connection connection = _dbAccess.getDataSource().getConnection();
             try {
-                PreparedStatement statement = connection.prepareStatement(
-                        "select count(*) from (SELECT winner FROM game_history union select loser from game_history) as u");
+                PreparedStatement statement = connection.prepareStatement("select players_count from game_history_totals where id=1");
                 try {
                     ResultSet rs = statement.executeQuery();
                     try {
@@ -191,7 +317,7 @@ public class DbGameHistoryDAO implements GameHistoryDAO {
         try {
             Connection connection = _dbAccess.getDataSource().getConnection();
             try {
-                PreparedStatement statement = connection.prepareStatement("select count(*) from game_history");
+                PreparedStatement statement = connection.prepareStatement("select games_count from game_history_totals where id=1");
                 try {
                     ResultSet rs = statement.executeQuery();
                     try {
@@ -371,4 +497,193 @@ public class DbGameHistoryDAO implements GameHistoryDAO {
             throw new RuntimeException("Unable to get league decklists", exp);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public int getRollupGamesPlayedCount(long periodLength, long from, long to) {
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                PreparedStatement statement = connection.prepareStatement("select sum(games_count) from game_history_rollup where period_length=? and period_start>=? and period_start<?");
+                try {
+                    statement.setLong(1, periodLength);
+                    statement.setLong(2, from);
+                    statement.setLong(3, to);
+                    ResultSet rs = statement.executeQuery();
+                    try {
+                        if (rs.next())
+                            return rs.getInt(1);
+                        else
+                            return 0;
+                    } finally {
+                        rs.close();
+                    }
+                } finally {
+                    statement.close();
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to get count of games played", exp);
+        }
+    }
+
+    @Override
+    public Map<String, Integer> getRollupCasualGamesPlayedPerFormat(long periodLength, long from, long to) {
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                PreparedStatement statement = connection.prepareStatement("select sum(games_count), format_name from game_history_rollup where period_length=? and period_start>=? and period_start<? and casual=1 group by format_name");
+                try {
+                    statement.setLong(1, periodLength);
+                    statement.setLong(2, from);
+                    statement.setLong(3, to);
+                    ResultSet rs = statement.executeQuery();
+                    Map<String, Integer> result = new HashMap<String, Integer>();
+                    try {
+                        while (rs.next()) {
+                            String formatName = rs.getString(2);
+                            result.put(formatName.isEmpty() ? null : formatName, rs.getInt(1));
+                        }
+                    } finally {
+                        rs.close();
+                    }
+                    return result;
+                } finally {
+                    statement.close();
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to get count of games played", exp);
+        }
+    }
+
+    @Override
+    public Set<String> getRollupActivePlayers(long periodLength, long from, long to) {
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                PreparedStatement statement = connection.prepareStatement("select distinct player from game_history_rollup_player where period_length=? and period_start>=? and period_start<?");
+                try {
+                    statement.setLong(1, periodLength);
+                    statement.setLong(2, from);
+                    statement.setLong(3, to);
+                    ResultSet rs = statement.executeQuery();
+                    Set<String> result = new HashSet<String>();
+                    try {
+                        while (rs.next())
+                            result.add(rs.getString(1));
+                    } finally {
+                        rs.close();
+                    }
+                    return result;
+                } finally {
+                    statement.close();
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to get active players", exp);
+        }
+    }
+
+    @Override
+    public Date getEarliestUncommittedEndDate() {
+        return null;
+    }
+
+    @Override
+    public void rebuildRollups(long from, long to) {
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                connection.setAutoCommit(false);
+                PreparedStatement deleteGamesStatement = connection.prepareStatement("delete from game_history_rollup where period_start>=? and period_start<?");
+                PreparedStatement deletePlayersStatement = connection.prepareStatement("delete from game_history_rollup_player where period_start>=? and period_start<?");
+                PreparedStatement insertGamesStatement = connection.prepareStatement(
+                        "insert into game_history_rollup (period_length, period_start, format_name, casual, games_count)" +
+                                " select ?, end_date - mod(end_date, ?), coalesce(format_name, ''), (tournament is null or tournament = 'Casual'), count(*)" +
+                                " from game_history where end_date>=? and end_date<? group by 2, 3, 4");
+                PreparedStatement insertPlayersStatement = connection.prepareStatement(
+                        "insert ignore into game_history_rollup_player (period_length, period_start, player)" +
+                                " select ?, end_date - mod(end_date, ?), winner from game_history where end_date>=? and end_date<?" +
+                                " union select ?, end_date - mod(end_date, ?), loser from game_history where end_date>=? and end_date<?");
+                try {
+                    deleteGamesStatement.setLong(1, from);
+                    deleteGamesStatement.setLong(2, to);
+                    deleteGamesStatement.execute();
+                    deletePlayersStatement.setLong(1, from);
+                    deletePlayersStatement.setLong(2, to);
+                    deletePlayersStatement.execute();
+
+                    for (long periodLength : new long[] {ROLLUP_HOUR, ROLLUP_DAY}) {
+                        insertGamesStatement.setLong(1, periodLength);
+                        insertGamesStatement.setLong(2, periodLength);
+                        insertGamesStatement.setLong(3, from);
+                        insertGamesStatement.setLong(4, to);
+                        insertGamesStatement.execute();
+
+                        for (int i = 0; i < 2; i++) {
+                            insertPlayersStatement.setLong(4 * i + 1, periodLength);
+                            insertPlayersStatement.setLong(4 * i + 2, periodLength);
+                            insertPlayersStatement.setLong(4 * i + 3, from);
+                            insertPlayersStatement.setLong(4 * i + 4, to);
+                        }
+                        insertPlayersStatement.execute();
+                    }
+                    connection.commit();
+                } catch (SQLException exp) {
+                    connection.rollback();
+                    throw exp;
+                } finally {
+                    deleteGamesStatement.close();
+                    deletePlayersStatement.close();
+                    insertGamesStatement.close();
+                    insertPlayersStatement.close();
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to rebuild game history rollups", exp);
+        }
+    }
+
+    @Override
+    public void rebuildTotals() {
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                connection.setAutoCommit(false);
+                PreparedStatement deletePlayersStatement = connection.prepareStatement("delete from game_history_player");
+                PreparedStatement insertPlayersStatement = connection.prepareStatement(
+                        "insert ignore into game_history_player (player) select winner from game_history union select loser from game_history");
+                PreparedStatement replaceTotalsStatement = connection.prepareStatement(
+                        "replace into game_history_totals (id, games_count, players_count)" +
+                                " select 1, (select count(*) from game_history), (select count(*) from game_history_player)");
+                try {
+                    deletePlayersStatement.execute();
+                    insertPlayersStatement.execute();
+                    replaceTotalsStatement.execute();
+                    connection.commit();
+                } catch (SQLException exp) {
+                    connection.rollback();
+                    throw exp;
+                } finally {
+                    deletePlayersStatement.close();
+                    insertPlayersStatement.close();
+                    replaceTotalsStatement.close();
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to rebuild game history totals", exp);
+        }
+    }
+}
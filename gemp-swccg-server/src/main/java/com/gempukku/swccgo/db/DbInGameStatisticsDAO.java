@@ -1,6 +1,8 @@
 package com.gempukku.swccgo.db;
 
+import com.gempukku.swccgo.db.vo.ActivationCounts;
 import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.PileCounts;
 import com.gempukku.swccgo.game.Player;
 
 import java.sql.Connection;
@@ -202,4 +204,123 @@ public class DbInGameStatisticsDAO implements InGameStatisticsDAO {
 		}
 	}
 
+    @Override
+    public void addPileCounts(List<PileCounts> pileCounts) {
+        if (pileCounts.isEmpty())
+            return;
+
+        // A row replaced by a later row of the same game (after a revert that crosses over turns) is not inserted, and
+        // the existing rows of each game from its first sequence in the batch on are deleted once
+        Map<Integer, Integer> firstSequences = new LinkedHashMap<Integer, Integer>();
+        List<PileCounts> rowsToInsert = new ArrayList<PileCounts>();
+        for (PileCounts pileCount : pileCounts) {
+            Iterator<PileCounts> iterator = rowsToInsert.iterator();
+            while (iterator.hasNext()) {
+                PileCounts rowToInsert = iterator.next();
+                if (rowToInsert.getGameId() == pileCount.getGameId() && rowToInsert.getSequence() >= pileCount.getSequence())
+                    iterator.remove();
+            }
+            Integer firstSequence = firstSequences.get(pileCount.getGameId());
+            if (firstSequence == null || pileCount.getSequence() < firstSequence)
+                firstSequences.put(pileCount.getGameId(), pileCount.getSequence());
+            rowsToInsert.add(pileCount);
+        }
+
+        StringBuilder insertSql = new StringBuilder("insert into pile_count_by_turn (gameId, activeGame, sequence, turnNumber, side, darkHand, darkReserveDeck, darkForcePile, darkUsedPile, darkLostPile, darkOutOfPlay, lightHand, lightReserveDeck, lightForcePile, lightUsedPile, lightLostPile, lightOutOfPlay, darkSecondsElapsed, lightSecondsElapsed, datetimeStored) values ");
+        for (int i = 0; i < rowsToInsert.size(); i++)
+            insertSql.append(i > 0 ? "," : "").append("(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,now())");
+
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                connection.setAutoCommit(false);
+                PreparedStatement deleteStatement = connection.prepareStatement("delete from pile_count_by_turn where gameId = ? and sequence >= ? and activeGame = 1");
+                PreparedStatement insertStatement = connection.prepareStatement(insertSql.toString());
+                try {
+                    for (Map.Entry<Integer, Integer> firstSequence : firstSequences.entrySet()) {
+                        deleteStatement.setInt(1, firstSequence.getKey());
+                        deleteStatement.setInt(2, firstSequence.getValue());
+                        deleteStatement.addBatch();
+                    }
+                    deleteStatement.executeBatch();
+
+                    int index = 1;
+                    for (PileCounts rowToInsert : rowsToInsert) {
+                        insertStatement.setInt(index++, rowToInsert.getGameId());
+                        insertStatement.setInt(index++, 1);
+                        insertStatement.setInt(index++, rowToInsert.getSequence());
+                        insertStatement.setInt(index++, rowToInsert.getTurnNumber());
+                        insertStatement.setString(index++, rowToInsert.getSide());
+                        insertStatement.setInt(index++, rowToInsert.getDarkHand());
+                        insertStatement.setInt(index++, rowToInsert.getDarkReserveDeck());
+                        insertStatement.setInt(index++, rowToInsert.getDarkForcePile());
+                        insertStatement.setInt(index++, rowToInsert.getDarkUsedPile());
+                        insertStatement.setInt(index++, rowToInsert.getDarkLostPile());
+                        insertStatement.setInt(index++, rowToInsert.getDarkOutOfPlay());
+                        insertStatement.setInt(index++, rowToInsert.getLightHand());
+                        insertStatement.setInt(index++, rowToInsert.getLightReserveDeck());
+                        insertStatement.setInt(index++, rowToInsert.getLightForcePile());
+                        insertStatement.setInt(index++, rowToInsert.getLightUsedPile());
+                        insertStatement.setInt(index++, rowToInsert.getLightLostPile());
+                        insertStatement.setInt(index++, rowToInsert.getLightOutOfPlay());
+                        insertStatement.setInt(index++, rowToInsert.getDarkSecondsElapsed());
+                        insertStatement.setInt(index++, rowToInsert.getLightSecondsElapsed());
+                    }
+                    insertStatement.execute();
+                    connection.commit();
+                } catch (SQLException exp) {
+                    connection.rollback();
+                    throw exp;
+                } finally {
+                    deleteStatement.close();
+                    insertStatement.close();
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to write pile counts to database", exp);
+        }
+    }
+
+    @Override
+    public void updateActivationCounts(List<ActivationCounts> activationCounts) {
+        if (activationCounts.isEmpty())
+            return;
+
+        try {
+            Connection connection = _dbAccess.getDataSource().getConnection();
+            try {
+                connection.setAutoCommit(false);
+                PreparedStatement updateActivationStatement = connection.prepareStatement("update pile_count_by_turn set darkActivation = ?, lightActivation = ? where gameId = ? and sequence = ? and activeGame = 1 and side in ('Dark','Light')");
+                try {
+                    for (ActivationCounts activationCount : activationCounts) {
+                        updateActivationStatement.setInt(1, activationCount.getDarkActivation());
+                        updateActivationStatement.setInt(2, activationCount.getLightActivation());
+                        updateActivationStatement.setInt(3, activationCount.getGameId());
+                        updateActivationStatement.setInt(4, activationCount.getSequence());
+                        updateActivationStatement.addBatch();
+                    }
+                    updateActivationStatement.executeBatch();
+                    connection.commit();
+                } catch (SQLException exp) {
+                    connection.rollback();
+                    throw exp;
+                } finally {
+                    updateActivationStatement.close();
+                    connection.setAutoCommit(true);
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException exp) {
+            throw new RuntimeException("Unable to write activation totals to database", exp);
+        }
+    }
+
+    @Override
+    public void updatePileCountsEndOfGame(int gameId, String winner, String dark, String light) {
+        updatePileCountsEndOfGame(gameId, findGameIDinGameHistory(winner, dark, light));
+    }
 }
@@ -1,23 +1,56 @@
 package com.gempukku.swccgo.db;
 
 import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.GameHistoryRecord;
 import com.gempukku.swccgo.game.Player;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public interface GameHistoryDAO {
+    /**
+     * The length of the hourly rollup periods, in milliseconds.
+     */
+    public static final long ROLLUP_HOUR = 60 * 60 * 1000L;
+
+    /**
+     * The length of the daily rollup periods, in milliseconds.
+     */
+    public static final long ROLLUP_DAY = 24 * ROLLUP_HOUR;
+
     public void addGameHistory(String winner, String loser, String winReason, String loseReason, String winRecordingId, String loseRecordingId, String formatName, String tournament, String winnerDeckName, String loserDeckName, String winnerDeckArchetype, String loserDeckArchetype, String winningSide, String darkDeckString, String lightDeckString, String leagueType, String sealedLeagueType, Date startDate, Date endDate);
 
+    /**
+     * Adds the results of any number of finished games to the game history, all at once.
+     * @param records the results
+     */
+    public void addGameHistory(List<GameHistoryRecord> records);
+
+    /**
+     * Determines if the result of a finished game is already in the game history.
+     * @param record the result
+     * @return true or false
+     */
+    public boolean containsGameHistory(GameHistoryRecord record);
+
     public List<GameHistoryEntry> getGameHistoryForPlayer(Player player, int start, int count);
 
     public int getGameHistoryForPlayerCount(Player player);
 
+    /**
+     * Gets the number of players that ever played, from the all time totals kept as games are added.
+     * @return the number of players
+     */
     public int getActivePlayersCount();
 
     public int getActivePlayersCount(long from, long duration);
 
+    /**
+     * Gets the number of games ever played, from the all time totals kept as games are added.
+     * @return the number of games
+     */
     public int getGamesPlayedCount();
 
     public int getGamesPlayedCount(long from, long duration);
@@ -29,4 +62,49 @@ public interface GameHistoryDAO {
     public List<PlayerStatistic> getCompetitivePlayerStatistics(Player player);
 
     List<LeagueDecklistEntry> getLeagueDecklists(String leagueId);
+
+    /**
+     * Gets the number of games played in a range, from the rollups of games played per period.
+     * @param periodLength the length of the rollup periods to use
+     * @param from the start of the range, which is the start of a period
+     * @param to the end of the range, which is the start of a period
+     * @return the number of games
+     */
+    public int getRollupGamesPlayedCount(long periodLength, long from, long to);
+
+    /**
+     * Gets the number of casual games played per format in a range, from the rollups of games played per period.
+     * @param periodLength the length of the rollup periods to use
+     * @param from the start of the range, which is the start of a period
+     * @param to the end of the range, which is the start of a period
+     * @return the number of games by format name
+     */
+    public Map<String, Integer> getRollupCasualGamesPlayedPerFormat(long periodLength, long from, long to);
+
+    /**
+     * Gets the players that played in a range, from the rollups of players per period.
+     * @param periodLength the length of the rollup periods to use
+     * @param from the start of the range, which is the start of a period
+     * @param to the end of the range, which is the start of a period
+     * @return the players
+     */
+    public Set<String> getRollupActivePlayers(long periodLength, long from, long to);
+
+    /**
+     * Rebuilds the rollups of a range from the game history.
+     * @param from the start of the range, which is the start of a day
+     * @param to the end of the range, which is the start of a day
+     */
+    public void rebuildRollups(long from, long to);
+
+    /**
+     * Rebuilds the all time totals of games played and players from the game history.
+     */
+    public void rebuildTotals();
+
+    /**
+     * Gets the earliest end date of the games added to the game history that are not yet in the rollups.
+     * @return the end date, or null if all games added are in the rollups
+     */
+    public Date getEarliestUncommittedEndDate();
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package com.gempukku.swccgo.db;
 
+import com.gempukku.swccgo.db.vo.ActivationCounts;
 import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.PileCounts;
 import com.gempukku.swccgo.game.Player;
 
 import java.util.Date;
@@ -11,6 +13,27 @@ public interface InGameStatisticsDAO {
 	public void addPileCounts(int gameId, int sequence, int turnNumber, String side, int darkHand, int darkReserveDeck, int darkForcePile, int darkUsedPile, int darkLostPile, int darkOutOfPlay, int lightHand, int lightReserveDeck, int lightForcePile, int lightUsedPile, int lightLostPile, int lightOutOfPlay, int darkSecondsElapsed, int lightSecondsElapsed);
 	public void updatePileCountsEndOfGame(int gameId, int updatedGameId);
 	public void updateActivationCounts(int gameId, int sequence, int darkActivation, int lightActivation);
+
+	/**
+	 * Adds the pile counts of any number of turns, of any number of games, in the order they occurred.
+	 * @param pileCounts the pile counts
+	 */
+	public void addPileCounts(List<PileCounts> pileCounts);
+
+	/**
+	 * Updates the activation totals of any number of turns, of any number of games, in the order they occurred.
+	 * @param activationCounts the activation totals
+	 */
+	public void updateActivationCounts(List<ActivationCounts> activationCounts);
+
+	/**
+	 * Updates the pile counts of a finished game to use the id of the game in the game history.
+	 * @param gameId the id the pile counts were added with
+	 * @param winner the winner, or null if not known
+	 * @param dark the dark side player
+	 * @param light the light side player
+	 */
+	public void updatePileCountsEndOfGame(int gameId, String winner, String dark, String light);
 	
     public List<GameHistoryEntry> getPileCountByTurn();
 	public int findGameIDinGameHistory(String winner, String dark, String light);
@@ -0,0 +1,675 @@
+package com.gempukku.swccgo.db;
+
+import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.GameHistoryRecord;
+import com.gempukku.swccgo.game.Player;
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds the results of finished games to the game history without waiting for the database. Each result is appended to
+ * a local journal file and written to disk, and is then written to the database on a dedicated committer thread, in
+ * batches of the results journaled since the last batch. The offset up to which the journal has been committed is
+ * kept next to the journal, and the journal is emptied whenever everything in it has been committed.
+ *
+ * When the server starts, the results in the journal that were not committed are committed again. A result that may
+ * have been committed just before the server stopped is only added if it is not already in the game history.
+ *
+ * A batch that fails to be committed is retried until the database is available again, so no results are lost. After
+ * a batch fails several times, its results are committed one at a time instead. If a result still fails while the
+ * database can be read, the result itself cannot be committed. It is moved to a dead letter file next to the journal
+ * and logged, so the results after it are still committed.
+ *
+ * The most recently added results are kept in memory with their ids in the game history once they are committed, so
+ * the in-game statistics of a finished game can be tagged with the id of its own result instead of looking it up.
+ */
+public class JournaledGameHistoryDAO implements GameHistoryDAO {
+    private static final Logger LOG = Logger.getLogger(JournaledGameHistoryDAO.class);
+    private static final String JOURNAL_FILE = "game_history.journal";
+    private static final String COMMITTED_SUFFIX = ".committed";
+    private static final String DEAD_LETTER_FILE = "game_history.deadletter";
+    private static final int MAX_RECORDS_PER_BATCH = 100;
+    private static final long RETRY_DELAY = 5000;
+    private static final int MAX_BATCH_FAILURES = 3;
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+    private static final int FIELD_COUNT = 19;
+    private static final int MAX_RECENT_RECORDS = 1000;
+
+    /**
+     * The id of a result that is not yet committed to the database.
+     */
+    public static final int PENDING_ID = -1;
+
+    /**
+     * The id of a result that was moved to the dead letter file, or whose id in the game history is not known.
+     */
+    public static final int UNKNOWN_ID = 0;
+
+    private GameHistoryDAO _delegate;
+    private File _journalFile;
+    private File _committedFile;
+    private File _deadLetterFile;
+    private FileOutputStream _journalStream;
+    private long _journalLength;
+    private long _committedOffset;
+    private final LinkedList<JournaledRecord> _pendingRecords = new LinkedList<JournaledRecord>();
+    private final LinkedList<JournaledRecord> _recentRecords = new LinkedList<JournaledRecord>();
+    private boolean _stopped;
+    private Thread _committerThread;
+
+    /**
+     * Creates the journaled game history, and recovers the results in the journal that were not committed.
+     * @param delegate the game history to commit the results to
+     * @param journalFolder the folder of the journal
+     */
+    public JournaledGameHistoryDAO(GameHistoryDAO delegate, File journalFolder) {
+        _delegate = delegate;
+        journalFolder.mkdirs();
+        _journalFile = new File(journalFolder, JOURNAL_FILE);
+        _committedFile = new File(journalFolder, JOURNAL_FILE + COMMITTED_SUFFIX);
+        _deadLetterFile = new File(journalFolder, DEAD_LETTER_FILE);
+        try {
+            recoverJournal();
+            _journalStream = new FileOutputStream(_journalFile, true);
+        } catch (IOException exp) {
+            LOG.error("Unable to open game history journal, game history is written directly", exp);
+        }
+
+        _committerThread = new Thread(new CommitterRunnable(), "GameHistoryCommitter");
+        _committerThread.setDaemon(true);
+        _committerThread.start();
+        Runtime.getRuntime().addShutdownHook(
+                new Thread() {
+                    @Override
+                    public void run() {
+                        shutdown();
+                    }
+                });
+    }
+
+    /**
+     * Stops committing, once the results already journaled are committed or the timeout passes. Any results not
+     * committed stay in the journal, and are committed when the server starts again.
+     */
+    public void shutdown() {
+        synchronized (_pendingRecords) {
+            _stopped = true;
+            _pendingRecords.notifyAll();
+        }
+        try {
+            _committerThread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException exp) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Finds the latest of the recently added results for a game between the two players, whether or not it is
+     * committed to the database yet.
+     * @param winner the winner, or null if not known
+     * @param playerOne one of the players
+     * @param playerTwo the other player
+     * @param endedFrom the earliest time the game may have ended at
+     * @return the result, to get the id of with {@link #getGameHistoryId(Object)}, or null if there is none
+     */
+    public Object findRecentGameHistory(String winner, String playerOne, String playerTwo, long endedFrom) {
+        synchronized (_pendingRecords) {
+            Iterator<JournaledRecord> iterator = _recentRecords.descendingIterator();
+            while (iterator.hasNext()) {
+                JournaledRecord record = iterator.next();
+                if (record._record.getEndDate().getTime() < endedFrom)
+                    continue;
+                if (winner != null && !winner.equals(record._record.getWinner()))
+                    continue;
+                String recordWinner = record._record.getWinner();
+                String recordLoser = record._record.getLoser();
+                if ((playerOne.equals(recordWinner) && playerTwo.equals(recordLoser))
+                        || (playerOne.equals(recordLoser) && playerTwo.equals(recordWinner)))
+                    return record;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Gets the id in the game history of a result, without waiting for it to be committed.
+     * @param journaledRecord the result, from {@link #findRecentGameHistory(String, String, String, long)}
+     * @return the id, {@link #PENDING_ID} if the result is not yet committed, or {@link #UNKNOWN_ID} if it was moved
+     * to the dead letter file or its id is not known
+     */
+    public int getGameHistoryId(Object journaledRecord) {
+        synchronized (_pendingRecords) {
+            JournaledRecord record = (JournaledRecord) journaledRecord;
+            return record._done ? record._record.getId() : PENDING_ID;
+        }
+    }
+
+    /**
+     * Gets the number of results waiting to be committed to the database.
+     * @return the number of results
+     */
+    public int getPendingRecordCount() {
+        synchronized (_pendingRecords) {
+            return _pendingRecords.size();
+        }
+    }
+
+    @Override
+    public void addGameHistory(String winner, String loser, String winReason, String loseReason, String winRecordingId, String loseRecordingId, String formatName, String tournament, String winnerDeckName, String loserDeckName, String winnerDeckArchetype, String loserDeckArchetype, String winningSide, String darkDeckString, String lightDeckString, String leagueType, String sealedLeagueType, Date startDate, Date endDate) {
+        addGameHistory(Collections.singletonList(new GameHistoryRecord(winner, loser, winReason, loseReason, winRecordingId, loseRecordingId, formatName, tournament, winnerDeckName, loserDeckName, winnerDeckArchetype, loserDeckArchetype, winningSide, darkDeckString, lightDeckString, leagueType, sealedLeagueType, startDate, endDate)));
+    }
+
+    @Override
+    public void addGameHistory(List<GameHistoryRecord> records) {
+        synchronized (_pendingRecords) {
+            if (_journalStream != null && !_stopped) {
+                try {
+                    List<JournaledRecord> journaledRecords = new ArrayList<JournaledRecord>();
+                    long journalLength = _journalLength;
+                    for (GameHistoryRecord record : records) {
+                        byte[] line = (writeRecord(record) + "\n").getBytes("UTF-8");
+                        _journalStream.write(line);
+                        journalLength += line.length;
+                        journaledRecords.add(new JournaledRecord(record, journalLength, false));
+                    }
+                    _journalStream.getFD().sync();
+                    _journalLength = journalLength;
+                    _pendingRecords.addAll(journaledRecords);
+                    addRecentRecords(journaledRecords);
+                    _pendingRecords.notifyAll();
+                    return;
+                } catch (IOException exp) {
+                    LOG.error("Unable to write game history journal, game history is written directly", exp);
+                    closeJournal();
+                }
+            }
+        }
+        _delegate.addGameHistory(records);
+
+        List<JournaledRecord> addedRecords = new ArrayList<JournaledRecord>();
+        for (GameHistoryRecord record : records) {
+            JournaledRecord addedRecord = new JournaledRecord(record, -1, false);
+            addedRecord._done = true;
+            addedRecords.add(addedRecord);
+        }
+        synchronized (_pendingRecords) {
+            addRecentRecords(addedRecords);
+        }
+    }
+
+    /**
+     * Keeps the results as recently added, so they can be found by {@link #findRecentGameHistory(String, String, String, long)},
+     * dropping the oldest recently added results.
+     * @param records the results
+     */
+    private void addRecentRecords(List<JournaledRecord> records) {
+        _recentRecords.addAll(records);
+        while (_recentRecords.size() > MAX_RECENT_RECORDS)
+            _recentRecords.removeFirst();
+    }
+
+    @Override
+    public boolean containsGameHistory(GameHistoryRecord record) {
+        return _delegate.containsGameHistory(record);
+    }
+
+    @Override
+    public List<GameHistoryEntry> getGameHistoryForPlayer(Player player, int start, int count) {
+        return _delegate.getGameHistoryForPlayer(player, start, count);
+    }
+
+    @Override
+    public int getGameHistoryForPlayerCount(Player player) {
+        return _delegate.getGameHistoryForPlayerCount(player);
+    }
+
+    @Override
+    public int getActivePlayersCount() {
+        return _delegate.getActivePlayersCount();
+    }
+
+    @Override
+    public int getActivePlayersCount(long from, long duration) {
+        return _delegate.getActivePlayersCount(from, duration);
+    }
+
+    @Override
+    public int getGamesPlayedCount() {
+        return _delegate.getGamesPlayedCount();
+    }
+
+    @Override
+    public int getGamesPlayedCount(long from, long duration) {
+        return _delegate.getGamesPlayedCount(from, duration);
+    }
+
+    @Override
+    public Map<String, Integer> getCasualGamesPlayedPerFormat(long from, long duration) {
+        return _delegate.getCasualGamesPlayedPerFormat(from, duration);
+    }
+
+    @Override
+    public List<PlayerStatistic> getCasualPlayerStatistics(Player player) {
+        return _delegate.getCasualPlayerStatistics(player);
+    }
+
+    @Override
+    public List<PlayerStatistic> getCompetitivePlayerStatistics(Player player) {
+        return _delegate.getCompetitivePlayerStatistics(player);
+    }
+
+    @Override
+    public List<LeagueDecklistEntry> getLeagueDecklists(String leagueId) {
+        return _delegate.getLeagueDecklists(leagueId);
+    }
+
+    @Override
+    public int getRollupGamesPlayedCount(long periodLength, long from, long to) {
+        return _delegate.getRollupGamesPlayedCount(periodLength, from, to);
+    }
+
+    @Override
+    public Map<String, Integer> getRollupCasualGamesPlayedPerFormat(long periodLength, long from, long to) {
+        return _delegate.getRollupCasualGamesPlayedPerFormat(periodLength, from, to);
+    }
+
+    @Override
+    public Set<String> getRollupActivePlayers(long periodLength, long from, long to) {
+        return _delegate.getRollupActivePlayers(periodLength, from, to);
+    }
+
+    @Override
+    public void rebuildRollups(long from, long to) {
+        _delegate.rebuildRollups(from, to);
+    }
+
+    @Override
+    public void rebuildTotals() {
+        _delegate.rebuildTotals();
+    }
+
+    @Override
+    public Date getEarliestUncommittedEndDate() {
+        Date result = null;
+        synchronized (_pendingRecords) {
+            for (JournaledRecord record : _pendingRecords) {
+                if (result == null || record._record.getEndDate().before(result))
+                    result = record._record.getEndDate();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the results in the journal after the committed offset as pending results. A partial result left at the end
+     * of the journal by a crash is removed from the journal.
+     * @throws IOException if an error occurs
+     */
+    private void recoverJournal() throws IOException {
+        if (!_journalFile.isFile())
+            return;
+
+        _committedOffset = readCommittedOffset();
+        byte[] journal = readFully(_journalFile);
+        if (_committedOffset > journal.length)
+            _committedOffset = 0;
+
+        long offset = _committedOffset;
+        int lineStart = (int) _committedOffset;
+        for (int i = lineStart; i < journal.length; i++) {
+            if (journal[i] == '\n') {
+                String line = new String(journal, lineStart, i - lineStart, "UTF-8");
+                offset = i + 1;
+                GameHistoryRecord record = readRecord(line);
+                if (record != null)
+                    _pendingRecords.add(new JournaledRecord(record, offset, true));
+                else
+                    LOG.error("Skipping invalid game history journal entry: " + line);
+                lineStart = i + 1;
+            }
+        }
+
+        if (offset < journal.length) {
+            RandomAccessFile journalFile = new RandomAccessFile(_journalFile, "rw");
+            try {
+                journalFile.setLength(offset);
+            } finally {
+                journalFile.close();
+            }
+        }
+        _journalLength = offset;
+        if (!_pendingRecords.isEmpty())
+            LOG.info("Recovered " + _pendingRecords.size() + " game history entries from journal");
+    }
+
+    private long readCommittedOffset() {
+        if (!_committedFile.isFile())
+            return 0;
+        try {
+            return Long.parseLong(new String(readFully(_committedFile), "UTF-8").trim());
+        } catch (Exception exp) {
+            LOG.error("Unable to read committed offset of game history journal", exp);
+            return 0;
+        }
+    }
+
+    private void writeCommittedOffset(long committedOffset) throws IOException {
+        File temporaryFile = new File(_committedFile.getParentFile(), _committedFile.getName() + ".tmp");
+        FileOutputStream outputStream = new FileOutputStream(temporaryFile);
+        try {
+            outputStream.write(String.valueOf(committedOffset).getBytes("UTF-8"));
+            // Synced before the rename, so a crash cannot leave the committed offset file empty
+            outputStream.getFD().sync();
+        } finally {
+            outputStream.close();
+        }
+        if (!temporaryFile.renameTo(_committedFile))
+            throw new IOException("Unable to replace " + _committedFile);
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1)
+                result.write(buffer, 0, count);
+        } finally {
+            inputStream.close();
+        }
+        return result.toByteArray();
+    }
+
+    private void closeJournal() {
+        try {
+            _journalStream.close();
+        } catch (IOException exp) {
+            // Ignore
+        }
+        _journalStream = null;
+    }
+
+    /**
+     * Commits a batch of pending results to the database.
+     * @return true if a batch was committed, false if the committer should stop
+     */
+    private boolean commitBatch() {
+        List<JournaledRecord> batch = new ArrayList<JournaledRecord>();
+        synchronized (_pendingRecords) {
+            while (_pendingRecords.isEmpty() && !_stopped) {
+                try {
+                    _pendingRecords.wait();
+                } catch (InterruptedException exp) {
+                    // Ignore
+                }
+            }
+            for (JournaledRecord record : _pendingRecords) {
+                if (batch.size() >= MAX_RECORDS_PER_BATCH)
+                    break;
+                batch.add(record);
+            }
+        }
+        if (batch.isEmpty())
+            return false;
+
+        int failures = 0;
+        while (true) {
+            try {
+                commitRecords(batch);
+                break;
+            } catch (RuntimeException exp) {
+                failures++;
+                if (failures >= MAX_BATCH_FAILURES) {
+                    LOG.error("Unable to commit game history, committing the results one at a time", exp);
+                    if (!commitEachRecord(batch))
+                        return false;
+                    break;
+                }
+                LOG.error("Unable to commit game history, retrying", exp);
+                if (!waitToRetry())
+                    return false;
+            }
+        }
+
+        synchronized (_pendingRecords) {
+            _pendingRecords.removeAll(batch);
+            for (JournaledRecord record : batch)
+                record._done = true;
+            _committedOffset = batch.get(batch.size() - 1)._journalOffset;
+            try {
+                if (_pendingRecords.isEmpty() && _journalStream != null) {
+                    // Everything in the journal is committed, so it is emptied
+                    writeCommittedOffset(0);
+                    _journalStream.getChannel().truncate(0);
+                    _journalLength = 0;
+                    _committedOffset = 0;
+                }
+                else {
+                    writeCommittedOffset(_committedOffset);
+                }
+            } catch (IOException exp) {
+                LOG.error("Unable to update game history journal", exp);
+            }
+            _pendingRecords.notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * Commits the results of a batch one at a time. A result that fails while the database can be read is moved to
+     * the dead letter file, and a result that fails while the database cannot be read is retried.
+     * @param batch the batch
+     * @return true if each result was committed or moved to the dead letter file, false if the committer should stop
+     */
+    private boolean commitEachRecord(List<JournaledRecord> batch) {
+        for (JournaledRecord record : batch) {
+            while (true) {
+                try {
+                    commitRecords(Collections.singletonList(record));
+                    break;
+                } catch (RuntimeException exp) {
+                    if (isDatabaseAvailable(record)) {
+                        deadLetter(record, exp);
+                        break;
+                    }
+                    LOG.error("Unable to commit game history, retrying", exp);
+                    if (!waitToRetry())
+                        return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Commits results to the database. A recovered result is skipped if it is already in the game history.
+     * @param journaledRecords the results
+     */
+    private void commitRecords(List<JournaledRecord> journaledRecords) {
+        List<GameHistoryRecord> records = new ArrayList<GameHistoryRecord>();
+        for (JournaledRecord record : journaledRecords) {
+            if (!record._recovered || !_delegate.containsGameHistory(record._record))
+                records.add(record._record);
+        }
+        if (!records.isEmpty())
+            _delegate.addGameHistory(records);
+    }
+
+    /**
+     * Determines if the database can be read, by looking for the result in the game history.
+     * @param record the result
+     * @return true or false
+     */
+    private boolean isDatabaseAvailable(JournaledRecord record) {
+        try {
+            _delegate.containsGameHistory(record._record);
+            return true;
+        } catch (RuntimeException exp) {
+            return false;
+        }
+    }
+
+    /**
+     * Appends a result that cannot be committed to the dead letter file, in the same format as the journal.
+     * @param record the result
+     * @param cause the reason the result cannot be committed
+     */
+    private void deadLetter(JournaledRecord record, RuntimeException cause) {
+        String line = writeRecord(record._record);
+        LOG.error("Unable to commit game history of " + record._record.getWinner() + " vs " + record._record.getLoser()
+                + " (" + record._record.getWinRecordingId() + ", " + record._record.getLoseRecordingId() + "), moved to " + _deadLetterFile, cause);
+        try {
+            FileOutputStream outputStream = new FileOutputStream(_deadLetterFile, true);
+            try {
+                outputStream.write((line + "\n").getBytes("UTF-8"));
+                outputStream.getFD().sync();
+            } finally {
+                outputStream.close();
+            }
+        } catch (IOException exp) {
+            LOG.error("Unable to write game history dead letter file, lost entry: " + line, exp);
+        }
+    }
+
+    /**
+     * Waits before committing again.
+     * @return true if committing should be retried, false if the committer should stop
+     */
+    private boolean waitToRetry() {
+        synchronized (_pendingRecords) {
+            if (_stopped)
+                return false;
+            try {
+                _pendingRecords.wait(RETRY_DELAY);
+            } catch (InterruptedException exp) {
+                // Ignore
+            }
+            return true;
+        }
+    }
+
+    private class CommitterRunnable implements Runnable {
+        @Override
+        public void run() {
+            while (commitBatch()) {
+                // Continue
+            }
+        }
+    }
+
+    /**
+     * Writes a result as a journal line, with tab separated fields.
+     * @param record the result
+     * @return the line
+     */
+    private static String writeRecord(GameHistoryRecord record) {
+        String[] fields = new String[] {record.getWinner(), record.getLoser(), record.getWinReason(), record.getLoseReason(),
+                record.getWinRecordingId(), record.getLoseRecordingId(), record.getFormatName(), record.getTournament(),
+                record.getWinnerDeckName(), record.getLoserDeckName(), record.getWinnerDeckArchetype(), record.getLoserDeckArchetype(),
+                record.getWinningSide(), record.getDarkDeckString(), record.getLightDeckString(), record.getLeagueType(),
+                record.getSealedLeagueType(), String.valueOf(record.getStartDate().getTime()), String.valueOf(record.getEndDate().getTime())};
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0)
+                line.append('\t');
+            line.append(escape(fields[i]));
+        }
+        return line.toString();
+    }
+
+    /**
+     * Reads a result from a journal line.
+     * @param line the line
+     * @return the result, or null if the line is not a valid result
+     */
+    private static GameHistoryRecord readRecord(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != FIELD_COUNT)
+            return null;
+        for (int i = 0; i < fields.length; i++)
+            fields[i] = unescape(fields[i]);
+        try {
+            return new GameHistoryRecord(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5], fields[6], fields[7],
+                    fields[8], fields[9], fields[10], fields[11], fields[12], fields[13], fields[14], fields[15], fields[16],
+                    new Date(Long.parseLong(fields[17])), new Date(Long.parseLong(fields[18])));
+        } catch (NumberFormatException exp) {
+            return null;
+        }
+    }
+
+    private static String escape(String value) {
+        if (value == null)
+            return "\\N";
+        StringBuilder result = new StringBuilder();
+        for (char c : value.toCharArray()) {
+            if (c == '\\')
+                result.append("\\\\");
+            else if (c == '\t')
+                result.append("\\t");
+            else if (c == '\n')
+                result.append("\\n");
+            else if (c == '\r')
+                result.append("\\r");
+            else
+                result.append(c);
+        }
+        return result.toString();
+    }
+
+    private static String unescape(String value) {
+        if (value.equals("\\N"))
+            return null;
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                if (next == 't')
+                    result.append('\t');
+                else if (next == 'n')
+                    result.append('\n');
+                else if (next == 'r')
+                    result.append('\r');
+                else
+                    result.append(next);
+            }
+            else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * A result in the journal, waiting to be committed, or a recently added result.
+     */
+    private static class JournaledRecord {
+        private GameHistoryRecord _record;
+        private long _journalOffset;
+        private boolean _recovered;
+        // Set once the result is committed or moved to the dead letter file
+        private boolean _done;
+
+        /**
+         * Creates a journaled result.
+         * @param record the result
+         * @param journalOffset the offset in the journal just after the result
+         * @param recovered true if the result was recovered from the journal, so it may already be committed
+         */
+        private JournaledRecord(GameHistoryRecord record, long journalOffset, boolean recovered) {
+            _record = record;
+            _journalOffset = journalOffset;
+            _recovered = recovered;
+        }
+    }
+}
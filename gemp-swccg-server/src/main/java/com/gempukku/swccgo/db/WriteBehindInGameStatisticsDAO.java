@@ -0,0 +1,361 @@
+package com.gempukku.swccgo.db;
+
+import com.gempukku.swccgo.db.vo.ActivationCounts;
+import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.PileCounts;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queues the in-game statistics written by the games, and writes them to the database on a dedicated writer thread, so
+ * a slow database does not hold up the games. The writes queued since the last round are written together, with the
+ * pile counts of all games in a single insert and the activation totals of all games in a single batch, while the
+ * writes of each game stay in the order they occurred.
+ *
+ * The queue is bounded. When it is full, pile counts and activation totals are dropped instead of making the game wait,
+ * since they are only statistics. The end of game updates are always queued, so the pile counts already written are
+ * not left marked as belonging to a game in progress. The queue is written to the database before the server exits.
+ *
+ * The end of game updates tag the pile counts with the id of the game's own result in the game history, which is
+ * found among the results recently added to the journaled game history. An update is deferred while its result is
+ * not yet added or not yet committed. A deferred update is put back on the queue with the writes of its game after it,
+ * and the writer goes on with the other games, checking the deferred update again on a later round. The game history
+ * is never searched for the result, since that could find another game between the same players. If the result is
+ * not added within a minute, was moved to the dead letter file, or is still not committed when the server stops, the
+ * pile counts are left marked as belonging to a game in progress instead, and a warning is logged.
+ */
+public class WriteBehindInGameStatisticsDAO implements InGameStatisticsDAO {
+    private static final Logger LOG = Logger.getLogger(WriteBehindInGameStatisticsDAO.class);
+    static final int MAX_QUEUED_WRITES = 20000;
+    private static final int MAX_WRITES_PER_ROUND = 1000;
+    private static final long SHUTDOWN_TIMEOUT = 10000;
+    private static final long GAME_HISTORY_TIMEOUT = 60000;
+    private static final long GAME_HISTORY_MATCH_WINDOW = 10000;
+    private static final long DEFERRED_WRITE_DELAY = 1000;
+
+    private InGameStatisticsDAO _delegate;
+    private JournaledGameHistoryDAO _gameHistoryDao;
+    private final LinkedList<QueuedWrite> _queue = new LinkedList<QueuedWrite>();
+    private int _queuedStatisticsCount;
+    private boolean _stopped;
+    private final AtomicLong _droppedCount = new AtomicLong();
+    private Thread _writerThread;
+
+    public WriteBehindInGameStatisticsDAO(InGameStatisticsDAO delegate, JournaledGameHistoryDAO gameHistoryDao) {
+        _delegate = delegate;
+        _gameHistoryDao = gameHistoryDao;
+        _writerThread = new Thread(new WriterRunnable(), "InGameStatisticsWriter");
+        _writerThread.setDaemon(true);
+        _writerThread.start();
+        Runtime.getRuntime().addShutdownHook(
+                new Thread() {
+                    @Override
+                    public void run() {
+                        shutdown();
+                    }
+                });
+    }
+
+    /**
+     * Stops accepting writes, and waits for the queued writes to be written to the database.
+     */
+    public void shutdown() {
+        synchronized (_queue) {
+            _stopped = true;
+            _queue.notifyAll();
+        }
+        try {
+            _writerThread.join(SHUTDOWN_TIMEOUT);
+        } catch (InterruptedException exp) {
+            // Ignore
+        }
+    }
+
+    /**
+     * Gets the number of writes waiting to be written to the database.
+     * @return the number of writes
+     */
+    public int getQueuedWriteCount() {
+        synchronized (_queue) {
+            return _queue.size();
+        }
+    }
+
+    /**
+     * Gets the number of writes dropped because the queue was full, since the server started.
+     * @return the number of writes
+     */
+    public long getDroppedWriteCount() {
+        return _droppedCount.get();
+    }
+
+    @Override
+    public void addPileCounts(int gameId, int sequence, int turnNumber, String side, int darkHand, int darkReserveDeck, int darkForcePile, int darkUsedPile, int darkLostPile, int darkOutOfPlay, int lightHand, int lightReserveDeck, int lightForcePile, int lightUsedPile, int lightLostPile, int lightOutOfPlay, int darkSecondsElapsed, int lightSecondsElapsed) {
+        queueStatistics(new QueuedWrite(gameId, new PileCounts(gameId, sequence, turnNumber, side, darkHand, darkReserveDeck, darkForcePile, darkUsedPile, darkLostPile, darkOutOfPlay, lightHand, lightReserveDeck, lightForcePile, lightUsedPile, lightLostPile, lightOutOfPlay, darkSecondsElapsed, lightSecondsElapsed), null));
+    }
+
+    @Override
+    public void updateActivationCounts(int gameId, int sequence, int darkActivation, int lightActivation) {
+        queueStatistics(new QueuedWrite(gameId, null, new ActivationCounts(gameId, sequence, darkActivation, lightActivation)));
+    }
+
+    @Override
+    public void addPileCounts(List<PileCounts> pileCounts) {
+        for (PileCounts pileCount : pileCounts)
+            queueStatistics(new QueuedWrite(pileCount.getGameId(), pileCount, null));
+    }
+
+    @Override
+    public void updateActivationCounts(List<ActivationCounts> activationCounts) {
+        for (ActivationCounts activationCount : activationCounts)
+            queueStatistics(new QueuedWrite(activationCount.getGameId(), null, activationCount));
+    }
+
+    @Override
+    public void updatePileCountsEndOfGame(int gameId, String winner, String dark, String light) {
+        queue(new QueuedWrite(gameId, winner, dark, light));
+    }
+
+    @Override
+    public void updatePileCountsEndOfGame(int gameId, int updatedGameId) {
+        queue(new QueuedWrite(gameId, updatedGameId));
+    }
+
+    @Override
+    public List<GameHistoryEntry> getPileCountByTurn() {
+        return _delegate.getPileCountByTurn();
+    }
+
+    @Override
+    public int findGameIDinGameHistory(String winner, String dark, String light) {
+        return _delegate.findGameIDinGameHistory(winner, dark, light);
+    }
+
+    private void queueStatistics(QueuedWrite write) {
+        synchronized (_queue) {
+            if (_queuedStatisticsCount >= MAX_QUEUED_WRITES) {
+                if (_droppedCount.getAndIncrement() % MAX_QUEUED_WRITES == 0)
+                    LOG.warn("In-game statistics queue is full, dropping writes (" + _droppedCount.get() + " dropped so far)");
+                return;
+            }
+            _queuedStatisticsCount++;
+        }
+        queue(write);
+    }
+
+    private void queue(QueuedWrite write) {
+        synchronized (_queue) {
+            if (!_stopped) {
+                _queue.add(write);
+                _queue.notifyAll();
+                return;
+            }
+        }
+        // The writer thread has stopped, so the write is written directly
+        write(Collections.singletonList(write));
+    }
+
+    /**
+     * Takes the next round of writes from the queue.
+     * @param deferred true if writes were deferred in the last round, so the writer waits a while before checking them
+     *                 again, unless new writes are queued first
+     * @return the writes, or an empty list if the writer is stopped and the queue is empty
+     * @throws InterruptedException if the writer thread is interrupted
+     */
+    private List<QueuedWrite> takeWrites(boolean deferred) throws InterruptedException {
+        synchronized (_queue) {
+            if (deferred && !_stopped)
+                _queue.wait(DEFERRED_WRITE_DELAY);
+            while (_queue.isEmpty() && !_stopped)
+                _queue.wait();
+
+            List<QueuedWrite> writes = new ArrayList<QueuedWrite>();
+            while (!_queue.isEmpty() && writes.size() < MAX_WRITES_PER_ROUND) {
+                QueuedWrite write = _queue.removeFirst();
+                if (!write._endOfGame)
+                    _queuedStatisticsCount--;
+                writes.add(write);
+            }
+            return writes;
+        }
+    }
+
+    /**
+     * Writes a round of queued writes. The writes are grouped by game, and then repeatedly the pile counts at the front
+     * of each game's writes are written together, then the activation totals at the front, then the end of game
+     * updates at the front, until all the writes are written or deferred.
+     * @param writes the writes, in the order they were queued
+     * @return true if any writes were deferred, otherwise false
+     */
+    private boolean write(List<QueuedWrite> writes) {
+        boolean deferred = false;
+        Map<Integer, LinkedList<QueuedWrite>> writesByGame = new LinkedHashMap<Integer, LinkedList<QueuedWrite>>();
+        for (QueuedWrite write : writes) {
+            LinkedList<QueuedWrite> gameWrites = writesByGame.get(write._gameId);
+            if (gameWrites == null) {
+                gameWrites = new LinkedList<QueuedWrite>();
+                writesByGame.put(write._gameId, gameWrites);
+            }
+            gameWrites.add(write);
+        }
+
+        while (!writesByGame.isEmpty()) {
+            List<PileCounts> pileCounts = new ArrayList<PileCounts>();
+            for (LinkedList<QueuedWrite> gameWrites : writesByGame.values()) {
+                while (!gameWrites.isEmpty() && gameWrites.getFirst()._pileCounts != null)
+                    pileCounts.add(gameWrites.removeFirst()._pileCounts);
+            }
+            try {
+                _delegate.addPileCounts(pileCounts);
+            } catch (RuntimeException exp) {
+                LOG.error("Unable to write " + pileCounts.size() + " pile counts", exp);
+            }
+
+            List<ActivationCounts> activationCounts = new ArrayList<ActivationCounts>();
+            for (LinkedList<QueuedWrite> gameWrites : writesByGame.values()) {
+                while (!gameWrites.isEmpty() && gameWrites.getFirst()._activationCounts != null)
+                    activationCounts.add(gameWrites.removeFirst()._activationCounts);
+            }
+            try {
+                _delegate.updateActivationCounts(activationCounts);
+            } catch (RuntimeException exp) {
+                LOG.error("Unable to write " + activationCounts.size() + " activation totals", exp);
+            }
+
+            Iterator<LinkedList<QueuedWrite>> iterator = writesByGame.values().iterator();
+            while (iterator.hasNext()) {
+                LinkedList<QueuedWrite> gameWrites = iterator.next();
+                while (!gameWrites.isEmpty() && gameWrites.getFirst()._endOfGame) {
+                    QueuedWrite endOfGame = gameWrites.getFirst();
+                    int gameHistoryId = getGameHistoryId(endOfGame);
+                    if (gameHistoryId == JournaledGameHistoryDAO.PENDING_ID && defer(gameWrites)) {
+                        deferred = true;
+                        gameWrites.clear();
+                        break;
+                    }
+                    gameWrites.removeFirst();
+                    if (gameHistoryId <= 0) {
+                        LOG.warn("Game history id of game " + endOfGame._gameId + " is not known, leaving its pile counts marked as a game in progress");
+                        continue;
+                    }
+                    try {
+                        _delegate.updatePileCountsEndOfGame(endOfGame._gameId, gameHistoryId);
+                    } catch (RuntimeException exp) {
+                        LOG.error("Unable to update pile counts at end of game", exp);
+                    }
+                }
+                if (gameWrites.isEmpty())
+                    iterator.remove();
+            }
+        }
+        return deferred;
+    }
+
+    /**
+     * Gets the id in the game history of the result of the game an end of game update is for. The first time the
+     * update finds its result among the recently added results, it is tied to that result, and from then on only
+     * that result is checked.
+     * @param write the end of game update
+     * @return the id, {@link JournaledGameHistoryDAO#PENDING_ID} if the result is not yet added or not yet committed,
+     * or {@link JournaledGameHistoryDAO#UNKNOWN_ID} if the id will not be known
+     */
+    private int getGameHistoryId(QueuedWrite write) {
+        if (write._dark == null || write._light == null)
+            return write._updatedGameId;
+        if (write._gameHistory == null) {
+            write._gameHistory = _gameHistoryDao.findRecentGameHistory(write._winner, write._dark, write._light, write._queuedTime - GAME_HISTORY_MATCH_WINDOW);
+            if (write._gameHistory == null)
+                return (System.currentTimeMillis() - write._queuedTime < GAME_HISTORY_TIMEOUT) ? JournaledGameHistoryDAO.PENDING_ID : JournaledGameHistoryDAO.UNKNOWN_ID;
+        }
+        return _gameHistoryDao.getGameHistoryId(write._gameHistory);
+    }
+
+    /**
+     * Puts the writes of a game back at the front of the queue, starting with the end of game update that waits for
+     * its result in the game history, so they are written on a later round.
+     * @param gameWrites the writes of the game
+     * @return true if the writes were deferred, or false if the writer is stopped
+     */
+    private boolean defer(LinkedList<QueuedWrite> gameWrites) {
+        synchronized (_queue) {
+            if (_stopped)
+                return false;
+            for (QueuedWrite write : gameWrites) {
+                if (!write._endOfGame)
+                    _queuedStatisticsCount++;
+            }
+            _queue.addAll(0, gameWrites);
+        }
+        return true;
+    }
+
+    private class WriterRunnable implements Runnable {
+        @Override
+        public void run() {
+            boolean deferred = false;
+            while (true) {
+                List<QueuedWrite> writes;
+                try {
+                    writes = takeWrites(deferred);
+                } catch (InterruptedException exp) {
+                    continue;
+                }
+                if (writes.isEmpty())
+                    return;
+                deferred = write(writes);
+            }
+        }
+    }
+
+    /**
+     * A write waiting to be written to the database, which is either pile counts, activation totals, or an end of game
+     * update.
+     */
+    private static class QueuedWrite {
+        private int _gameId;
+        private PileCounts _pileCounts;
+        private ActivationCounts _activationCounts;
+        private boolean _endOfGame;
+        private int _updatedGameId;
+        private String _winner;
+        private String _dark;
+        private String _light;
+        private long _queuedTime;
+        private Object _gameHistory;
+
+        private QueuedWrite(int gameId, PileCounts pileCounts, ActivationCounts activationCounts) {
+            _gameId = gameId;
+            _pileCounts = pileCounts;
+            _activationCounts = activationCounts;
+        }
+
+        /**
+         * Creates an end of game update with the id of the game in the game history.
+         */
+        private QueuedWrite(int gameId, int updatedGameId) {
+            _gameId = gameId;
+            _endOfGame = true;
+            _updatedGameId = updatedGameId;
+        }
+
+        /**
+         * Creates an end of game update that finds the id of the game from the result recently added for its players.
+         */
+        private QueuedWrite(int gameId, String winner, String dark, String light) {
+            _gameId = gameId;
+            _endOfGame = true;
+            _winner = winner;
+            _dark = dark;
+            _light = light;
+            _queuedTime = System.currentTimeMillis();
+        }
+    }
+}
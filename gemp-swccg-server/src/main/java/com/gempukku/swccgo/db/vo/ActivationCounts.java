@@ -0,0 +1,34 @@
+package com.gempukku.swccgo.db.vo;
+
+/**
+ * The Force activation totals of both players at the start of a turn of a game in progress.
+ */
+public class ActivationCounts {
+    private int _gameId;
+    private int _sequence;
+    private int _darkActivation;
+    private int _lightActivation;
+
+    public ActivationCounts(int gameId, int sequence, int darkActivation, int lightActivation) {
+        _gameId = gameId;
+        _sequence = sequence;
+        _darkActivation = darkActivation;
+        _lightActivation = lightActivation;
+    }
+
+    public int getGameId() {
+        return _gameId;
+    }
+
+    public int getSequence() {
+        return _sequence;
+    }
+
+    public int getDarkActivation() {
+        return _darkActivation;
+    }
+
+    public int getLightActivation() {
+        return _lightActivation;
+    }
+}
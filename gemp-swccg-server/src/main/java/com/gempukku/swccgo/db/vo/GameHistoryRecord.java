@@ -0,0 +1,143 @@
+package com.gempukku.swccgo.db.vo;
+
+import java.util.Date;
+
+/**
+ * The result of a finished game, to be stored in the game history.
+ */
+public class GameHistoryRecord {
+    private String _winner;
+    private String _loser;
+    private String _winReason;
+    private String _loseReason;
+    private String _winRecordingId;
+    private String _loseRecordingId;
+    private String _formatName;
+    private String _tournament;
+    private String _winnerDeckName;
+    private String _loserDeckName;
+    private String _winnerDeckArchetype;
+    private String _loserDeckArchetype;
+    private String _winningSide;
+    private String _darkDeckString;
+    private String _lightDeckString;
+    private String _leagueType;
+    private String _sealedLeagueType;
+    private Date _startDate;
+    private Date _endDate;
+    private int _id;
+
+    public GameHistoryRecord(String winner, String loser, String winReason, String loseReason, String winRecordingId, String loseRecordingId, String formatName, String tournament, String winnerDeckName, String loserDeckName, String winnerDeckArchetype, String loserDeckArchetype, String winningSide, String darkDeckString, String lightDeckString, String leagueType, String sealedLeagueType, Date startDate, Date endDate) {
+        _winner = winner;
+        _loser = loser;
+        _winReason = winReason;
+        _loseReason = loseReason;
+        _winRecordingId = winRecordingId;
+        _loseRecordingId = loseRecordingId;
+        _formatName = formatName;
+        _tournament = tournament;
+        _winnerDeckName = winnerDeckName;
+        _loserDeckName = loserDeckName;
+        _winnerDeckArchetype = winnerDeckArchetype;
+        _loserDeckArchetype = loserDeckArchetype;
+        _winningSide = winningSide;
+        _darkDeckString = darkDeckString;
+        _lightDeckString = lightDeckString;
+        _leagueType = leagueType;
+        _sealedLeagueType = sealedLeagueType;
+        _startDate = startDate;
+        _endDate = endDate;
+    }
+
+    public String getWinner() {
+        return _winner;
+    }
+
+    public String getLoser() {
+        return _loser;
+    }
+
+    public String getWinReason() {
+        return _winReason;
+    }
+
+    public String getLoseReason() {
+        return _loseReason;
+    }
+
+    public String getWinRecordingId() {
+        return _winRecordingId;
+    }
+
+    public String getLoseRecordingId() {
+        return _loseRecordingId;
+    }
+
+    public String getFormatName() {
+        return _formatName;
+    }
+
+    public String getTournament() {
+        return _tournament;
+    }
+
+    public String getWinnerDeckName() {
+        return _winnerDeckName;
+    }
+
+    public String getLoserDeckName() {
+        return _loserDeckName;
+    }
+
+    public String getWinnerDeckArchetype() {
+        return _winnerDeckArchetype;
+    }
+
+    public String getLoserDeckArchetype() {
+        return _loserDeckArchetype;
+    }
+
+    public String getWinningSide() {
+        return _winningSide;
+    }
+
+    public String getDarkDeckString() {
+        return _darkDeckString;
+    }
+
+    public String getLightDeckString() {
+        return _lightDeckString;
+    }
+
+    public String getLeagueType() {
+        return _leagueType;
+    }
+
+    public String getSealedLeagueType() {
+        return _sealedLeagueType;
+    }
+
+    public Date getStartDate() {
+        return _startDate;
+    }
+
+    public Date getEndDate() {
+        return _endDate;
+    }
+
+    /**
+     * Gets the id of the result in the game history.
+     * @return the id, or 0 if the result is not known to be in the game history
+     */
+    public int getId() {
+        return _id;
+    }
+
+    /**
+     * Sets the id of the result, once it is added to the game history.
+     * @param id the id
+     */
+    public void setId(int id) {
+        _id = id;
+    }
+}
@@ -0,0 +1,118 @@
+package com.gempukku.swccgo.db.vo;
+
+/**
+ * The sizes of the piles of both players at the start of a turn of a game in progress.
+ */
+public class PileCounts {
+    private int _gameId;
+    private int _sequence;
+    private int _turnNumber;
+    private String _side;
+    private int _darkHand;
+    private int _darkReserveDeck;
+    private int _darkForcePile;
+    private int _darkUsedPile;
+    private int _darkLostPile;
+    private int _darkOutOfPlay;
+    private int _lightHand;
+    private int _lightReserveDeck;
+    private int _lightForcePile;
+    private int _lightUsedPile;
+    private int _lightLostPile;
+    private int _lightOutOfPlay;
+    private int _darkSecondsElapsed;
+    private int _lightSecondsElapsed;
+
+    public PileCounts(int gameId, int sequence, int turnNumber, String side, int darkHand, int darkReserveDeck, int darkForcePile, int darkUsedPile, int darkLostPile, int darkOutOfPlay, int lightHand, int lightReserveDeck, int lightForcePile, int lightUsedPile, int lightLostPile, int lightOutOfPlay, int darkSecondsElapsed, int lightSecondsElapsed) {
+        _gameId = gameId;
+        _sequence = sequence;
+        _turnNumber = turnNumber;
+        _side = side;
+        _darkHand = darkHand;
+        _darkReserveDeck = darkReserveDeck;
+        _darkForcePile = darkForcePile;
+        _darkUsedPile = darkUsedPile;
+        _darkLostPile = darkLostPile;
+        _darkOutOfPlay = darkOutOfPlay;
+        _lightHand = lightHand;
+        _lightReserveDeck = lightReserveDeck;
+        _lightForcePile = lightForcePile;
+        _lightUsedPile = lightUsedPile;
+        _lightLostPile = lightLostPile;
+        _lightOutOfPlay = lightOutOfPlay;
+        _darkSecondsElapsed = darkSecondsElapsed;
+        _lightSecondsElapsed = lightSecondsElapsed;
+    }
+
+    public int getGameId() {
+        return _gameId;
+    }
+
+    public int getSequence() {
+        return _sequence;
+    }
+
+    public int getTurnNumber() {
+        return _turnNumber;
+    }
+
+    public String getSide() {
+        return _side;
+    }
+
+    public int getDarkHand() {
+        return _darkHand;
+    }
+
+    public int getDarkReserveDeck() {
+        return _darkReserveDeck;
+    }
+
+    public int getDarkForcePile() {
+        return _darkForcePile;
+    }
+
+    public int getDarkUsedPile() {
+        return _darkUsedPile;
+    }
+
+    public int getDarkLostPile() {
+        return _darkLostPile;
+    }
+
+    public int getDarkOutOfPlay() {
+        return _darkOutOfPlay;
+    }
+
+    public int getLightHand() {
+        return _lightHand;
+    }
+
+    public int getLightReserveDeck() {
+        return _lightReserveDeck;
+    }
+
+    public int getLightForcePile() {
+        return _lightForcePile;
+    }
+
+    public int getLightUsedPile() {
+        return _lightUsedPile;
+    }
+
+    public int getLightLostPile() {
+        return _lightLostPile;
+    }
+
+    public int getLightOutOfPlay() {
+        return _lightOutOfPlay;
+    }
+
+    public int getDarkSecondsElapsed() {
+        return _darkSecondsElapsed;
+    }
+
+    public int getLightSecondsElapsed() {
+        return _lightSecondsElapsed;
+    }
+}
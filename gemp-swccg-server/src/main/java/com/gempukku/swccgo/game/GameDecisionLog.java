@@ -0,0 +1,285 @@
+package com.gempukku.swccgo.game;
+
+import com.gempukku.swccgo.common.Phase;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The decision log of a game. Along with the decks and the random seed of the game, this records everything that was
+ * provided to the game from outside (player decisions, concessions, timeouts, messages, etc.) in the order it happened,
+ * so the game can be re-run to regenerate the game events instead of storing the game events themselves.
+ */
+public class GameDecisionLog {
+    private static final int VERSION = 1;
+
+    private String _formatName;
+    private long _randomSeed;
+    private boolean _useBonusAbilities;
+    private Map<String, String> _deckNames = new LinkedHashMap<String, String>();
+    private Map<String, String> _deckContents = new LinkedHashMap<String, String>();
+    private List<Entry> _entries = new ArrayList<Entry>();
+
+    /**
+     * The types of entries in the decision log.
+     */
+    public enum EntryType {
+        START_GAME,
+        DECISION,
+        AUTO_PASS_SETTINGS,
+        MESSAGE,
+        EXTEND_GAME_TIMER,
+        DISABLE_ACTION_TIMER,
+        CANCEL,
+        PLAYER_LOST,
+        AUTO_CANCEL,
+        ABORT
+    }
+
+    /**
+     * An entry in the decision log.
+     */
+    public static class Entry {
+        private EntryType _type;
+        private String _playerId;
+        private int _number;
+        private String _value;
+
+        private Entry(EntryType type, String playerId, int number, String value) {
+            _type = type;
+            _playerId = playerId;
+            _number = number;
+            _value = value;
+        }
+
+        public EntryType getType() {
+            return _type;
+        }
+
+        public String getPlayerId() {
+            return _playerId;
+        }
+
+        /**
+         * Gets the number for the entry. This is the decision id for a decision, or the minutes for extending the game
+         * timer.
+         * @return the number
+         */
+        public int getNumber() {
+            return _number;
+        }
+
+        /**
+         * Gets the value for the entry. This is the answer for a decision, the message for a message, the game end
+         * reason for a player lost, or the phases for auto-pass settings.
+         * @return the value
+         */
+        public String getValue() {
+            return _value;
+        }
+    }
+
+    /**
+     * Creates a decision log for a game.
+     * @param formatName the name of the format
+     * @param randomSeed the random seed of the game
+     * @param useBonusAbilities true if bonus abilities are used in the game
+     */
+    public GameDecisionLog(String formatName, long randomSeed, boolean useBonusAbilities) {
+        _formatName = formatName;
+        _randomSeed = randomSeed;
+        _useBonusAbilities = useBonusAbilities;
+    }
+
+    public String getFormatName() {
+        return _formatName;
+    }
+
+    public long getRandomSeed() {
+        return _randomSeed;
+    }
+
+    public boolean isUseBonusAbilities() {
+        return _useBonusAbilities;
+    }
+
+    /**
+     * Adds the deck of a player. Decks must be added in the same order the participants were provided to the game.
+     * @param playerId the player
+     * @param deckName the deck name
+     * @param deckContents the deck contents
+     */
+    public void addDeck(String playerId, String deckName, String deckContents) {
+        _deckNames.put(playerId, deckName);
+        _deckContents.put(playerId, deckContents);
+    }
+
+    /**
+     * Gets the players, in the order their decks were added.
+     * @return the players
+     */
+    public List<String> getPlayerIds() {
+        return new ArrayList<String>(_deckContents.keySet());
+    }
+
+    public String getDeckName(String playerId) {
+        return _deckNames.get(playerId);
+    }
+
+    public String getDeckContents(String playerId) {
+        return _deckContents.get(playerId);
+    }
+
+    public synchronized void startGame() {
+        addEntry(EntryType.START_GAME, null, 0, null);
+    }
+
+    public synchronized void decisionMade(String playerId, int decisionId, String answer) {
+        addEntry(EntryType.DECISION, playerId, decisionId, answer);
+    }
+
+    public synchronized void autoPassSettings(String playerId, Set<Phase> phases) {
+        StringBuilder sb = new StringBuilder();
+        for (Phase phase : phases) {
+            if (sb.length() > 0)
+                sb.append(",");
+            sb.append(phase.name());
+        }
+        addEntry(EntryType.AUTO_PASS_SETTINGS, playerId, 0, sb.toString());
+    }
+
+    public synchronized void message(String message) {
+        addEntry(EntryType.MESSAGE, null, 0, message);
+    }
+
+    public synchronized void extendGameTimer(String playerId, int minutes) {
+        addEntry(EntryType.EXTEND_GAME_TIMER, playerId, minutes, null);
+    }
+
+    public synchronized void disableActionTimer(String playerId) {
+        addEntry(EntryType.DISABLE_ACTION_TIMER, playerId, 0, null);
+    }
+
+    public synchronized void cancel(String playerId) {
+        addEntry(EntryType.CANCEL, playerId, 0, null);
+    }
+
+    public synchronized void playerLost(String playerId, String gameEndReason) {
+        addEntry(EntryType.PLAYER_LOST, playerId, 0, gameEndReason);
+    }
+
+    public synchronized void autoCancel() {
+        addEntry(EntryType.AUTO_CANCEL, null, 0, null);
+    }
+
+    public synchronized void abort() {
+        addEntry(EntryType.ABORT, null, 0, null);
+    }
+
+    private void addEntry(EntryType type, String playerId, int number, String value) {
+        _entries.add(new Entry(type, playerId, number, value));
+    }
+
+    /**
+     * Gets the entries in the order they happened.
+     * @return the entries
+     */
+    public synchronized List<Entry> getEntries() {
+        return Collections.unmodifiableList(new ArrayList<Entry>(_entries));
+    }
+
+    /**
+     * Parses the phases from the value of an auto-pass settings entry.
+     * @param value the value
+     * @return the phases
+     */
+    public static Set<Phase> parseAutoPassPhases(String value) {
+        Set<Phase> phases = EnumSet.noneOf(Phase.class);
+        if (!value.isEmpty()) {
+            for (String phaseName : value.split(",")) {
+                phases.add(Phase.valueOf(phaseName));
+            }
+        }
+        return phases;
+    }
+
+    /**
+     * Writes the decision log to the output stream. The stream is not closed.
+     * @param outputStream the output stream
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void write(OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(VERSION);
+        out.writeUTF(_formatName);
+        out.writeLong(_randomSeed);
+        out.writeBoolean(_useBonusAbilities);
+        out.writeInt(_deckContents.size());
+        for (Map.Entry<String, String> deck : _deckContents.entrySet()) {
+            out.writeUTF(deck.getKey());
+            writeNullableString(out, _deckNames.get(deck.getKey()));
+            out.writeUTF(deck.getValue());
+        }
+        out.writeInt(_entries.size());
+        for (Entry entry : _entries) {
+            out.writeByte(entry._type.ordinal());
+            writeNullableString(out, entry._playerId);
+            out.writeInt(entry._number);
+            writeNullableString(out, entry._value);
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads a decision log from the input stream. The stream is not closed.
+     * @param inputStream the input stream
+     * @return the decision log
+     * @throws IOException if an I/O error occurs or the data is not a decision log
+     */
+    public static GameDecisionLog read(InputStream inputStream) throws IOException {
+        DataInputStream in = new DataInputStream(inputStream);
+        int version = in.readInt();
+        if (version != VERSION)
+            throw new IOException("Unsupported decision log version: " + version);
+
+        GameDecisionLog decisionLog = new GameDecisionLog(in.readUTF(), in.readLong(), in.readBoolean());
+        int deckCount = in.readInt();
+        for (int i = 0; i < deckCount; i++) {
+            String playerId = in.readUTF();
+            String deckName = readNullableString(in);
+            decisionLog.addDeck(playerId, deckName, in.readUTF());
+        }
+        EntryType[] entryTypes = EntryType.values();
+        int entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            EntryType type = entryTypes[in.readUnsignedByte()];
+            String playerId = readNullableString(in);
+            int number = in.readInt();
+            String value = readNullableString(in);
+            decisionLog.addEntry(type, playerId, number, value);
+        }
+        return decisionLog;
+    }
+
+    private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null)
+            out.writeUTF(value);
+    }
+
+    private static String readNullableString(DataInputStream in) throws IOException {
+        if (in.readBoolean())
+            return in.readUTF();
+        return null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.gempukku.swccgo.game;
+
+import com.gempukku.swccgo.common.GameEndReason;
+import com.gempukku.swccgo.db.DeckSerialization;
+import com.gempukku.swccgo.game.formats.SwccgoFormatLibrary;
+import com.gempukku.swccgo.game.state.GameCommunicationChannel;
+import com.gempukku.swccgo.game.state.GameEvent;
+import com.gempukku.swccgo.logic.decisions.AwaitingDecision;
+import com.gempukku.swccgo.logic.decisions.DecisionResultInvalidException;
+import com.gempukku.swccgo.logic.timing.DefaultSwccgGame;
+import com.gempukku.swccgo.logic.timing.DefaultUserFeedback;
+import com.gempukku.swccgo.logic.vo.SwccgDeck;
+import org.apache.log4j.Logger;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Re-runs a game from its decision log to regenerate the game events seen by a player.
+ */
+public class GameDecisionLogReplayer {
+    private static final Logger LOG = Logger.getLogger(GameDecisionLogReplayer.class);
+
+    private SwccgCardBlueprintLibrary _library;
+    private SwccgoFormatLibrary _formatLibrary;
+
+    public GameDecisionLogReplayer(SwccgCardBlueprintLibrary library, SwccgoFormatLibrary formatLibrary) {
+        _library = library;
+        _formatLibrary = formatLibrary;
+    }
+
+    /**
+     * Re-runs the game in the decision log and gets the game events seen by the specified player.
+     * @param decisionLog the decision log
+     * @param playerId the player
+     * @return the game events, or null if the game could not be re-run
+     */
+    public List<GameEvent> regenerateGameEvents(GameDecisionLog decisionLog, String playerId) {
+        SwccgFormat format = getFormat(decisionLog.getFormatName());
+        if (format == null) {
+            LOG.error("Unable to replay game, unknown format: " + decisionLog.getFormatName());
+            return null;
+        }
+
+        Map<String, SwccgDeck> decks = new HashMap<String, SwccgDeck>();
+        Map<String, Integer> playerClocks = new HashMap<String, Integer>();
+        for (String participantId : decisionLog.getPlayerIds()) {
+            decks.put(participantId, DeckSerialization.buildDeckFromContents(decisionLog.getDeckName(participantId), decisionLog.getDeckContents(participantId), _library));
+            playerClocks.put(participantId, 0);
+        }
+
+        DefaultUserFeedback userFeedback = new DefaultUserFeedback();
+        DefaultSwccgGame game = new DefaultSwccgGame(format, decks, userFeedback, _library, playerClocks, decisionLog.isUseBonusAbilities(), decisionLog.getRandomSeed());
+        userFeedback.setGame(game);
+
+        GameCommunicationChannel channel = new GameCommunicationChannel(playerId, 0);
+        game.addGameStateListener(playerId, channel);
+
+        try {
+            for (GameDecisionLog.Entry entry : decisionLog.getEntries()) {
+                if (!applyEntry(game, userFeedback, entry)) {
+                    LOG.error("Unable to replay game, decision log does not match the game at decision " + entry.getNumber() + " of " + entry.getPlayerId());
+                    break;
+                }
+            }
+        } catch (RuntimeException exp) {
+            LOG.error("Error replaying game", exp);
+            game.abortGame();
+        }
+
+        return channel.consumeGameEvents();
+    }
+
+    private boolean applyEntry(DefaultSwccgGame game, DefaultUserFeedback userFeedback, GameDecisionLog.Entry entry) {
+        switch (entry.getType()) {
+            case START_GAME:
+                game.startGame();
+                return true;
+            case DECISION:
+                AwaitingDecision awaitingDecision = userFeedback.getAwaitingDecision(entry.getPlayerId());
+                if (awaitingDecision == null || awaitingDecision.getAwaitingDecisionId() != entry.getNumber())
+                    return false;
+                try {
+                    userFeedback.participantDecided(entry.getPlayerId());
+                    awaitingDecision.decisionMade(entry.getValue());
+                } catch (DecisionResultInvalidException exp) {
+                    // The player was asked again for the same decision
+                    userFeedback.sendWarning(entry.getPlayerId(), exp.getWarningMessage());
+                    userFeedback.sendAwaitingDecision(entry.getPlayerId(), awaitingDecision);
+                    return true;
+                }
+                game.carryOutPendingActionsUntilDecisionNeeded();
+                return true;
+            case AUTO_PASS_SETTINGS:
+                game.setPlayerAutoPassSettings(entry.getPlayerId(), GameDecisionLog.parseAutoPassPhases(entry.getValue()));
+                return true;
+            case MESSAGE:
+                game.getGameState().sendMessage(entry.getValue());
+                return true;
+            case EXTEND_GAME_TIMER:
+                game.requestExtendGameTimer(entry.getPlayerId(), entry.getNumber());
+                return true;
+            case DISABLE_ACTION_TIMER:
+                game.requestDisableActionTimer(entry.getPlayerId());
+                return true;
+            case CANCEL:
+                game.requestCancel(entry.getPlayerId());
+                return true;
+            case PLAYER_LOST:
+                game.playerLost(entry.getPlayerId(), GameEndReason.valueOf(entry.getValue()));
+                return true;
+            case AUTO_CANCEL:
+                game.performAutoCancelGame();
+                return true;
+            case ABORT:
+                game.abortGame();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private SwccgFormat getFormat(String formatName) {
+        for (SwccgFormat format : _formatLibrary.getAllFormats().values()) {
+            if (format.getName().equals(formatName))
+                return format;
+        }
+        return null;
+    }
+}
@@ -1,25 +1,70 @@
 package com.gempukku.swccgo.game;
 
+import com.gempukku.swccgo.cache.Cached;
 import com.gempukku.swccgo.db.GameHistoryDAO;
 import com.gempukku.swccgo.db.LeagueDecklistEntry;
 import com.gempukku.swccgo.db.PlayerStatistic;
 import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import org.apache.log4j.Logger;
 
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class GameHistoryService {
+/**
+ * Provides the game history, and the statistics of the games played.
+ *
+ * The statistics of ranges that start and end at the start of a day (or an hour) are answered from the daily (or
+ * hourly) rollups of the game history, instead of aggregating the game history itself. The statistics of completed
+ * ranges are cached, and the statistics of the current day are kept in memory and updated as games finish, so a range
+ * that includes the whole current day so far only reads the rollups before the current day once.
+ *
+ * The statistics of the current day are loaded from the rollups when the service is created, or on the first request
+ * for statistics if that fails. Adding a game never reads the database: the game is added to the game history first,
+ * and then only counted in memory, and a new day starts with empty statistics.
+ *
+ * The statistics of a completed range are only cached once every game that ended in the range is in the rollups, and
+ * are reloaded after an hour, or when the cache is cleared, so corrections from rebuilding the rollups are seen.
+ *
+ * The all time statistics are read from the all time totals kept as games are added, and cached for a minute. If they
+ * cannot be read, the last ones read are shown.
+ */
+public class GameHistoryService implements Cached {
+    private static final Logger LOG = Logger.getLogger(GameHistoryService.class);
+    private static final int MAX_CACHED_PERIOD_STATS = 256;
+    private static final long CACHED_PERIOD_STATS_TTL = 60 * 60 * 1000L;
+    private static final long CACHED_TOTALS_TTL = 60 * 1000L;
+
     private GameHistoryDAO _gameHistoryDAO;
     private Map<String, Integer> _playerGameCount = new ConcurrentHashMap<String, Integer>();
+    private final Map<String, PeriodStats> _cachedPeriodStats = new LinkedHashMap<String, PeriodStats>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PeriodStats> eldest) {
+            return size() > MAX_CACHED_PERIOD_STATS;
+        }
+    };
+    private long _currentDayStart = -1;
+    private PeriodStats _currentDayStats;
+    private final Object _totalsLock = new Object();
+    private Totals _totals;
 
     public GameHistoryService(GameHistoryDAO gameHistoryDAO) {
         _gameHistoryDAO = gameHistoryDAO;
+        try {
+            loadCurrentDayStats();
+        } catch (RuntimeException exp) {
+            LOG.error("Unable to load the statistics of the current day, they are loaded when first requested", exp);
+        }
     }
 
     public void addGameHistory(String winner, String loser, String winReason, String loseReason, String winRecordingId, String loseRecordingId, String formatName, String tournament, String winnerDeckName, String loserDeckName, String winnerDeckArchetype, String loserDeckArchetype, String winningSide, String darkDeckString, String lightDeckString, String leagueType, String sealedLeagueType, Date startDate, Date endDate) {
         _gameHistoryDAO.addGameHistory(winner, loser, winReason, loseReason, winRecordingId, loseRecordingId, formatName, tournament, winnerDeckName, loserDeckName, winnerDeckArchetype, loserDeckArchetype, winningSide, darkDeckString, lightDeckString, leagueType, sealedLeagueType, startDate, endDate);
+        addToCurrentDayStats(winner, loser, formatName, tournament, endDate);
         Integer winnerCount = _playerGameCount.get(winner);
         Integer loserCount = _playerGameCount.get(loser);
         if (winnerCount != null)
@@ -42,27 +87,215 @@ public class GameHistoryService {
     }
 
     public int getActivePlayersCount() {
-        return _gameHistoryDAO.getActivePlayersCount();
+        return getTotals()._activePlayersCount;
     }
 
     public int getActivePlayersCount(long from, long duration) {
+        PeriodStats periodStats = getPeriodStats(from, duration);
+        if (periodStats != null)
+            return periodStats._activePlayers.size();
         return _gameHistoryDAO.getActivePlayersCount(from, duration);
     }
 
     public int getGamesPlayedCount() {
-        return _gameHistoryDAO.getGamesPlayedCount();
+        return getTotals()._gamesCount;
     }
 
     public int getGamesPlayedCount(long from, long duration) {
+        PeriodStats periodStats = getPeriodStats(from, duration);
+        if (periodStats != null)
+            return periodStats._gamesCount;
         return _gameHistoryDAO.getGamesPlayedCount(from, duration);
     }
 
     public GameHistoryStatistics getGameHistoryStatistics(long from, long duration) {
         GameHistoryStatistics stats = new GameHistoryStatistics(from, duration);
-        stats.init(_gameHistoryDAO);
+        PeriodStats periodStats = getPeriodStats(from, duration);
+        if (periodStats != null)
+            stats.init(periodStats._casualGamesPerFormat);
+        else
+            stats.init(_gameHistoryDAO.getCasualGamesPlayedPerFormat(from, duration));
         return stats;
     }
 
+    /**
+     * Gets the statistics of a range from the rollups.
+     * @param from the start of the range
+     * @param duration the length of the range
+     * @return the statistics, or null if the range does not start and end at the start of an hour
+     */
+    private PeriodStats getPeriodStats(long from, long duration) {
+        long to = from + duration;
+        long periodLength;
+        if (from % GameHistoryDAO.ROLLUP_DAY == 0 && to % GameHistoryDAO.ROLLUP_DAY == 0)
+            periodLength = GameHistoryDAO.ROLLUP_DAY;
+        else if (from % GameHistoryDAO.ROLLUP_HOUR == 0 && to % GameHistoryDAO.ROLLUP_HOUR == 0)
+            periodLength = GameHistoryDAO.ROLLUP_HOUR;
+        else
+            return null;
+
+        long now = System.currentTimeMillis();
+        long currentDayStart = getDayStart(now);
+        long currentDayEnd = currentDayStart + GameHistoryDAO.ROLLUP_DAY;
+
+        PeriodStats result = new PeriodStats();
+        if (from < currentDayStart)
+            result.add(getCompletedPeriodStats(periodLength, from, Math.min(to, currentDayStart)));
+        if (from < currentDayEnd && to > currentDayStart) {
+            // No game ended after now, so a range covering the current day up to now has all of the current day's games
+            if (from <= currentDayStart && to > now)
+                addCurrentDayStats(result);
+            else
+                result.add(loadPeriodStats(periodLength, Math.max(from, currentDayStart), Math.min(to, currentDayEnd)));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the statistics of a completed range, from the cache if they are cached and have not expired.
+     * @param periodLength the length of the rollup periods to use
+     * @param from the start of the range
+     * @param to the end of the range
+     * @return the statistics
+     */
+    private PeriodStats getCompletedPeriodStats(long periodLength, long from, long to) {
+        String key = periodLength + ":" + from + ":" + to;
+        long now = System.currentTimeMillis();
+        synchronized (_cachedPeriodStats) {
+            PeriodStats periodStats = _cachedPeriodStats.get(key);
+            if (periodStats != null && now - periodStats._loadTime < CACHED_PERIOD_STATS_TTL)
+                return periodStats;
+        }
+        // Checked before and after loading, since a game that ended in the range may be added to the rollups while loading
+        boolean cacheable = isInRollups(to);
+        PeriodStats periodStats = loadPeriodStats(periodLength, from, to);
+        periodStats._loadTime = now;
+        if (cacheable && isInRollups(to)) {
+            synchronized (_cachedPeriodStats) {
+                _cachedPeriodStats.put(key, periodStats);
+            }
+        }
+        return periodStats;
+    }
+
+    /**
+     * Determines if every game added to the game history that ended before the specified time is in the rollups.
+     * @param time the time
+     * @return true or false
+     */
+    private boolean isInRollups(long time) {
+        Date earliestUncommittedEndDate = _gameHistoryDAO.getEarliestUncommittedEndDate();
+        return earliestUncommittedEndDate == null || earliestUncommittedEndDate.getTime() >= time;
+    }
+
+    /**
+     * Gets the all time totals, from the cache if they were read in the last minute.
+     * @return the totals
+     */
+    private Totals getTotals() {
+        synchronized (_totalsLock) {
+            long now = System.currentTimeMillis();
+            if (_totals == null || now - _totals._loadTime >= CACHED_TOTALS_TTL) {
+                try {
+                    Totals totals = new Totals();
+                    totals._activePlayersCount = _gameHistoryDAO.getActivePlayersCount();
+                    totals._gamesCount = _gameHistoryDAO.getGamesPlayedCount();
+                    totals._loadTime = now;
+                    _totals = totals;
+                } catch (RuntimeException exp) {
+                    if (_totals == null)
+                        throw exp;
+                    LOG.error("Unable to read the all time statistics, showing the last ones read", exp);
+                    _totals._loadTime = now;
+                }
+            }
+            return _totals;
+        }
+    }
+
+    @Override
+    public void clearCache() {
+        synchronized (_cachedPeriodStats) {
+            _cachedPeriodStats.clear();
+        }
+        synchronized (_totalsLock) {
+            _totals = null;
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        synchronized (_cachedPeriodStats) {
+            return _cachedPeriodStats.size();
+        }
+    }
+
+    private PeriodStats loadPeriodStats(long periodLength, long from, long to) {
+        PeriodStats periodStats = new PeriodStats();
+        periodStats._gamesCount = _gameHistoryDAO.getRollupGamesPlayedCount(periodLength, from, to);
+        periodStats._casualGamesPerFormat.putAll(_gameHistoryDAO.getRollupCasualGamesPlayedPerFormat(periodLength, from, to));
+        periodStats._activePlayers.addAll(_gameHistoryDAO.getRollupActivePlayers(periodLength, from, to));
+        return periodStats;
+    }
+
+    /**
+     * Makes sure the statistics of the current day are in memory, loading them from the rollups if they are not. The
+     * rollups are read without holding the lock that adding a game takes.
+     */
+    private void loadCurrentDayStats() {
+        long currentDayStart;
+        synchronized (this) {
+            rollOverCurrentDay();
+            if (_currentDayStats != null)
+                return;
+            currentDayStart = _currentDayStart;
+        }
+        PeriodStats currentDayStats = loadPeriodStats(GameHistoryDAO.ROLLUP_DAY, currentDayStart, currentDayStart + GameHistoryDAO.ROLLUP_DAY);
+        synchronized (this) {
+            if (_currentDayStats == null && _currentDayStart == currentDayStart)
+                _currentDayStats = currentDayStats;
+        }
+    }
+
+    /**
+     * Moves on to the current day if the day changed. The statistics of the new day start empty if the statistics of
+     * the day before were in memory, since every game that ended in the new day was counted, and otherwise are left to
+     * be loaded.
+     */
+    private void rollOverCurrentDay() {
+        long currentDayStart = getDayStart(System.currentTimeMillis());
+        if (_currentDayStart != currentDayStart) {
+            _currentDayStats = (_currentDayStats != null) ? new PeriodStats() : null;
+            _currentDayStart = currentDayStart;
+        }
+    }
+
+    private void addCurrentDayStats(PeriodStats result) {
+        loadCurrentDayStats();
+        synchronized (this) {
+            if (_currentDayStats != null)
+                result.add(_currentDayStats);
+        }
+    }
+
+    private synchronized void addToCurrentDayStats(String winner, String loser, String formatName, String tournament, Date endDate) {
+        rollOverCurrentDay();
+        if (_currentDayStats == null || getDayStart(endDate.getTime()) != _currentDayStart)
+            return;
+
+        _currentDayStats._gamesCount++;
+        if (tournament == null || tournament.equals("Casual")) {
+            Integer count = _currentDayStats._casualGamesPerFormat.get(formatName);
+            _currentDayStats._casualGamesPerFormat.put(formatName, (count != null ? count : 0) + 1);
+        }
+        _currentDayStats._activePlayers.add(winner);
+        _currentDayStats._activePlayers.add(loser);
+    }
+
+    private long getDayStart(long time) {
+        return time - time % GameHistoryDAO.ROLLUP_DAY;
+    }
+
     public List<PlayerStatistic> getCasualPlayerStatistics(Player player) {
         return _gameHistoryDAO.getCasualPlayerStatistics(player);
     }
@@ -74,4 +307,33 @@ public class GameHistoryService {
     public List<LeagueDecklistEntry> getDeckCheck(String leagueId) {
         return _gameHistoryDAO.getLeagueDecklists(leagueId);
     }
+
+    /**
+     * The number of games played, the number of casual games played per format, and the players that played, in a
+     * range.
+     */
+    private static class PeriodStats {
+        private long _loadTime;
+        private int _gamesCount;
+        private Map<String, Integer> _casualGamesPerFormat = new HashMap<String, Integer>();
+        private Set<String> _activePlayers = new HashSet<String>();
+
+        private void add(PeriodStats periodStats) {
+            _gamesCount += periodStats._gamesCount;
+            for (Map.Entry<String, Integer> formatCount : periodStats._casualGamesPerFormat.entrySet()) {
+                Integer count = _casualGamesPerFormat.get(formatCount.getKey());
+                _casualGamesPerFormat.put(formatCount.getKey(), (count != null ? count : 0) + formatCount.getValue());
+            }
+            _activePlayers.addAll(periodStats._activePlayers);
+        }
+    }
+
+    /**
+     * The number of players that ever played and the number of games ever played.
+     */
+    private static class Totals {
+        private long _loadTime;
+        private int _activePlayersCount;
+        private int _gamesCount;
+    }
 }
@@ -1,7 +1,5 @@
 package com.gempukku.swccgo.game;
 
-import com.gempukku.swccgo.db.GameHistoryDAO;
-
 import java.util.*;
 
 public class GameHistoryStatistics {
@@ -14,8 +12,11 @@ public class GameHistoryStatistics {
         _duration = duration;
     }
 
-    public void init(GameHistoryDAO gameHistoryDao) {
-        Map<String, Integer> countsPerFormat = gameHistoryDao.getCasualGamesPlayedPerFormat(_start, _duration);
+    /**
+     * Initializes the statistics from the number of casual games played per format in the range.
+     * @param countsPerFormat the number of casual games by format name
+     */
+    public void init(Map<String, Integer> countsPerFormat) {
         Map<String, Integer> result = new HashMap<String, Integer>();
         for (Map.Entry<String, Integer> formatCount : countsPerFormat.entrySet()) {
             String format = formatCount.getKey();
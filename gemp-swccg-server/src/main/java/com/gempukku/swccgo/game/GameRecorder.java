@@ -2,35 +2,110 @@ package com.gempukku.swccgo.game;
 
 import com.gempukku.swccgo.common.ApplicationConfiguration;
 import com.gempukku.swccgo.common.Side;
+import com.gempukku.swccgo.game.formats.SwccgoFormatLibrary;
 import com.gempukku.swccgo.game.state.EventSerializer;
-import com.gempukku.swccgo.game.state.GameCommunicationChannel;
 import com.gempukku.swccgo.game.state.GameEvent;
+import com.gempukku.swccgo.game.state.GameEventRecorder;
 import com.gempukku.swccgo.league.NewSealedLeagueData;
-import org.w3c.dom.Document;
-import org.w3c.dom.Element;
-
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.transform.Result;
-import javax.xml.transform.Source;
-import javax.xml.transform.Transformer;
-import javax.xml.transform.TransformerFactory;
-import javax.xml.transform.dom.DOMSource;
-import javax.xml.transform.stream.StreamResult;
+import org.apache.commons.lang.StringUtils;
+import org.apache.log4j.Logger;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.Deflater;
 import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
 import java.util.zip.InflaterInputStream;
 
+/**
+ * Records games for replays. Unless games are recorded as decision logs, the game events of a game are appended to a
+ * single compressed recording file as the game is played, so the recording is not kept in memory. Each game event is
+ * stored once, along with which players are able to see it, and the recording is filtered for the player when the
+ * replay is read. Recordings are written to a partial file, which is completed and renamed when the game finishes.
+ * Partial files left behind by a server crash are completed when the server starts, and the partial file of a recording
+ * that failed to be written is completed when its game finishes.
+ *
+ * The compression of a recording is fully flushed at the start of each turn, and the offsets of the turns are kept in
+ * a turn index next to the recording, so a range of turns can be read without decompressing the turns before it.
+ *
+ * Recordings made before games were recorded once for all players are stored for each player, and are still read.
+ * Games recorded as decision logs are re-run the first time a player views the replay, and the game events seen by the
+ * player are stored as a recording for the player, which is read the next time. The regenerated recording is written
+ * to a temporary file in a folder of its own, which is emptied when the server starts, so a crash does not leave
+ * temporary files among the recordings.
+ *
+ * Replay files older than the configured number of days are moved into the replay archive in the background, and are
+ * read from there.
+ */
 public class GameRecorder {
+    private static final Logger LOG = Logger.getLogger(GameRecorder.class);
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final String TURN_INDEX_SUFFIX = ".turns";
+    private static final String GAMES_FOLDER = "games";
+    private static final String LEGACY_RECOVERED_MARKER = ".legacy-partials-recovered";
+    private static final String REGENERATING_FOLDER = ".regenerating";
+    private static final String REGENERATING_SUFFIX = ".tmp";
+    private static final String REPLAY_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?><gameReplay>\n";
+    private static final String REPLAY_FOOTER = "</gameReplay>";
+    private static final String PLAYERS_ATTRIBUTE = "players";
+    private static final String VISIBLE_TO_ATTRIBUTE = "visibleTo";
+    private static final String HIDDEN_FROM_ATTRIBUTE = "hiddenFrom";
+    private static final long ARCHIVE_INTERVAL = 60 * 60 * 1000;
     private static String _possibleChars = "abcdefghijklmnopqrstuvwxyz0123456789";
     private static int _charsCount = _possibleChars.length();
 
     private GameHistoryService _gameHistoryService;
+    private GameDecisionLogReplayer _decisionLogReplayer;
+    private boolean _recordDecisionLogs;
+    private ReplayArchive _replayArchive;
+    private ExecutorService _recordingExecutor = Executors.newSingleThreadExecutor();
+    private ScheduledExecutorService _archiveExecutor = Executors.newSingleThreadScheduledExecutor();
 
-    public GameRecorder(GameHistoryService gameHistoryService) {
+    public GameRecorder(GameHistoryService gameHistoryService, SwccgCardBlueprintLibrary library, SwccgoFormatLibrary formatLibrary) {
         _gameHistoryService = gameHistoryService;
+        _decisionLogReplayer = new GameDecisionLogReplayer(library, formatLibrary);
+        _recordDecisionLogs = "decisions".equals(ApplicationConfiguration.getProperty("replay.format"));
+        _replayArchive = new ReplayArchive(getReplayFolder());
+        deleteRegeneratingFiles();
+        _archiveExecutor.submit(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        _replayArchive.load();
+                    }
+                });
+        _recordingExecutor.submit(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        recoverPartialRecordings();
+                    }
+                });
+
+        String archiveAfterDays = ApplicationConfiguration.getProperty("replay.archiveAfterDays");
+        final long archiveAfter = (archiveAfterDays != null) ? Long.parseLong(archiveAfterDays.trim()) * 24 * 60 * 60 * 1000 : 0;
+        if (archiveAfter > 0) {
+            _archiveExecutor.scheduleWithFixedDelay(
+                    new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                int archivedCount = _replayArchive.archiveFilesOlderThan(System.currentTimeMillis() - archiveAfter);
+                                if (archivedCount > 0)
+                                    LOG.info("Archived " + archivedCount + " replay files");
+                            } catch (RuntimeException exp) {
+                                LOG.error("Unable to archive replay files", exp);
+                            }
+                        }
+                    }, ARCHIVE_INTERVAL, ARCHIVE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
     }
 
     private String randomUid() {
@@ -43,21 +118,229 @@ public class GameRecorder {
         return new String(chars);
     }
 
+    /**
+     * Gets the stored recording of a game as seen by the player, if it was recorded for the player only. The recording
+     * is compressed in the zlib format, which is the "deflate" content encoding of HTTP. Games recorded once for all
+     * players are filtered for the player when read, so they are not returned.
+     * @param playerId the player
+     * @param gameId the recording id
+     * @return the stream of the recording, or null if the game was not recorded for the player only
+     * @throws IOException if an error occurs
+     */
+    public InputStream getStoredRecording(String playerId, String gameId) throws IOException {
+        return _replayArchive.open(getRecordingPath(playerId, gameId));
+    }
+
+    /**
+     * Gets a range of turns of the recording of a game as seen by the player. Turn 0 is the setup before the first turn
+     * starts. The game events of the turns are returned as a complete replay document.
+     * @param playerId the player
+     * @param gameId the recording id
+     * @param fromTurn the first turn
+     * @param toTurn the last turn
+     * @return the replay of the turns, or null if the recording has no turn index or does not have the turns
+     * @throws IOException if an error occurs
+     */
+    public InputStream getRecordedGameTurns(String playerId, String gameId, int fromTurn, int toTurn) throws IOException {
+        String recordingPath = getRecordingPath(playerId, gameId);
+        boolean recordedForAllPlayers = false;
+        if (!_replayArchive.exists(recordingPath)) {
+            recordingPath = getGameRecordingPath(gameId);
+            if (!_replayArchive.exists(recordingPath) || !readRecordedPlayers(recordingPath).contains(playerId))
+                return null;
+            recordedForAllPlayers = true;
+        }
+
+        List<Long> turnOffsets = readTurnIndex(recordingPath + TURN_INDEX_SUFFIX);
+        if (turnOffsets == null || fromTurn < 0 || fromTurn >= turnOffsets.size() || toTurn < fromTurn)
+            return null;
+
+        boolean toLastTurn = toTurn + 1 >= turnOffsets.size();
+        long start = turnOffsets.get(fromTurn);
+        long end = toLastTurn ? Long.MAX_VALUE : turnOffsets.get(toTurn + 1);
+        InputStream turnRange = _replayArchive.open(recordingPath, start, end);
+        if (turnRange == null)
+            return null;
+
+        // The last turn already ends with the footer
+        List<InputStream> replayParts = new ArrayList<InputStream>();
+        replayParts.add(new ByteArrayInputStream(REPLAY_HEADER.getBytes("UTF-8")));
+        replayParts.add(new TurnRangeInputStream(turnRange));
+        if (!toLastTurn)
+            replayParts.add(new ByteArrayInputStream(REPLAY_FOOTER.getBytes("UTF-8")));
+        InputStream replay = new SequenceInputStream(Collections.enumeration(replayParts));
+        return recordedForAllPlayers ? new VisibilityFilterInputStream(replay, playerId) : replay;
+    }
+
+    /**
+     * Reads the turn index of a recording.
+     * @param turnIndexPath the path of the turn index
+     * @return the offsets of the turns, or null if the recording has no turn index
+     * @throws IOException if an error occurs
+     */
+    private List<Long> readTurnIndex(String turnIndexPath) throws IOException {
+        InputStream turnIndexStream = _replayArchive.open(turnIndexPath);
+        if (turnIndexStream == null)
+            return null;
+
+        List<Long> turnOffsets = new ArrayList<Long>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(turnIndexStream, "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty())
+                    turnOffsets.add(Long.parseLong(line));
+            }
+        } catch (NumberFormatException exp) {
+            throw new IOException("Invalid turn index " + turnIndexPath, exp);
+        } finally {
+            reader.close();
+        }
+        return turnOffsets;
+    }
+
+    /**
+     * Reads the players of a game recorded once for all players, which are listed on the root element.
+     * @param recordingPath the path of the recording
+     * @return the players
+     * @throws IOException if an error occurs
+     */
+    private List<String> readRecordedPlayers(String recordingPath) throws IOException {
+        InputStream recordingStream = _replayArchive.open(recordingPath);
+        if (recordingStream == null)
+            return Collections.emptyList();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new InflaterInputStream(recordingStream), "UTF-8"));
+        try {
+            String header = reader.readLine();
+            String attributePrefix = PLAYERS_ATTRIBUTE + "=\"";
+            int start = (header != null) ? header.indexOf(attributePrefix) : -1;
+            if (start < 0)
+                return Collections.emptyList();
+            start += attributePrefix.length();
+            return Arrays.asList(unescapeAttribute(header.substring(start, header.indexOf('"', start))).split(","));
+        } finally {
+            reader.close();
+        }
+    }
+
     public InputStream getRecordedGame(String playerId, String gameId) throws IOException {
-        final File file = getRecordingFile(playerId, gameId);
-        if (!file.exists() || !file.isFile())
+        InputStream recordingStream = _replayArchive.open(getRecordingPath(playerId, gameId));
+        if (recordingStream != null)
+            return new InflaterInputStream(recordingStream);
+
+        String gameRecordingPath = getGameRecordingPath(gameId);
+        if (_replayArchive.exists(gameRecordingPath)) {
+            if (!readRecordedPlayers(gameRecordingPath).contains(playerId))
+                return null;
+            InputStream gameRecordingStream = _replayArchive.open(gameRecordingPath);
+            if (gameRecordingStream == null)
+                return null;
+            return new VisibilityFilterInputStream(new InflaterInputStream(gameRecordingStream), playerId);
+        }
+
+        // Games recorded as a decision log are re-run to produce the game events seen by the player
+        InputStream decisionLogFileStream = _replayArchive.open(getDecisionLogPath(gameId));
+        if (decisionLogFileStream == null)
+            return null;
+
+        GameDecisionLog decisionLog;
+        InputStream decisionLogStream = new InflaterInputStream(decisionLogFileStream);
+        try {
+            decisionLog = GameDecisionLog.read(decisionLogStream);
+        } finally {
+            decisionLogStream.close();
+        }
+        if (!decisionLog.getPlayerIds().contains(playerId))
+            return null;
+
+        List<GameEvent> gameEvents = _decisionLogReplayer.regenerateGameEvents(decisionLog, playerId);
+        if (gameEvents == null)
             return null;
-        return new InflaterInputStream(new FileInputStream(file));
+
+        // The replay is stored as a recording for the player, so the game is only re-run the first time it is viewed
+        File recordingFile = new File(getReplayFolder(), getRecordingPath(playerId, gameId));
+        try {
+            writeRegeneratedRecording(recordingFile, gameEvents);
+        } catch (Exception exp) {
+            throw new IOException("Unable to write replay of game " + gameId, exp);
+        }
+        return new InflaterInputStream(new BufferedInputStream(new FileInputStream(recordingFile)));
+    }
+
+    /**
+     * Writes the game events re-run from a decision log as the recording of the game for the player, along with its
+     * turn index. Both are written to temporary files in the regenerating folder that are renamed once complete, so a
+     * replay viewed by the player at the same time never reads an incomplete recording.
+     * @param recordingFile the recording file
+     * @param gameEvents the game events
+     * @throws XMLStreamException if an error occurs serializing the game events
+     * @throws IOException if an error occurs
+     */
+    private void writeRegeneratedRecording(File recordingFile, List<GameEvent> gameEvents) throws XMLStreamException, IOException {
+        recordingFile.getParentFile().mkdirs();
+        File regeneratingFolder = getRegeneratingFolder();
+        regeneratingFolder.mkdirs();
+        File tempFile = File.createTempFile(recordingFile.getName() + ".", REGENERATING_SUFFIX, regeneratingFolder);
+        File tempTurnIndexFile = File.createTempFile(recordingFile.getName() + TURN_INDEX_SUFFIX + ".", REGENERATING_SUFFIX, regeneratingFolder);
+        try {
+            RecordingOutputStream outputStream = new RecordingOutputStream(new FileOutputStream(tempFile));
+            List<Long> turnOffsets;
+            try {
+                ReplayWriter replayWriter = new ReplayWriter(outputStream, outputStream, null);
+                for (GameEvent gameEvent : gameEvents)
+                    replayWriter.writeGameEvent(gameEvent, null, null);
+                replayWriter.finish();
+                turnOffsets = replayWriter.getTurnOffsets();
+            } finally {
+                outputStream.close();
+            }
+            writeTurnIndex(tempTurnIndexFile, turnOffsets);
+
+            // The turn index is in place before the recording, since the turn index is looked up once the recording exists
+            if (!tempTurnIndexFile.renameTo(getTurnIndexFile(recordingFile)) || !tempFile.renameTo(recordingFile))
+                throw new IOException("Unable to complete recording " + recordingFile);
+        } finally {
+            tempFile.delete();
+            tempTurnIndexFile.delete();
+        }
     }
 
+    /**
+     * Deletes the temporary files of recordings that were being regenerated when the server stopped.
+     */
+    private void deleteRegeneratingFiles() {
+        File[] files = getRegeneratingFolder().listFiles();
+        if (files == null)
+            return;
+        for (File file : files) {
+            if (!file.delete())
+                LOG.warn("Unable to delete " + file);
+        }
+    }
+
+    private void writeTurnIndex(File turnIndexFile, List<Long> turnOffsets) throws IOException {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(turnIndexFile), "UTF-8");
+        try {
+            for (Long turnOffset : turnOffsets)
+                writer.write(turnOffset + "\n");
+        } finally {
+            writer.close();
+        }
+    }
     public GameRecordingInProgress recordGame(SwccgGameMediator swccgoGame, final String formatName, final String tournament, final Map<String, String> deckNames) {
         final Date startData = new Date();
-        final Map<String, GameCommunicationChannel> recordingChannels = new HashMap<String, GameCommunicationChannel>();
-        for (SwccgGameParticipant player : swccgoGame.getPlayersPlaying()) {
-            String playerId = player.getPlayerId();
-            GameCommunicationChannel recordChannel = new GameCommunicationChannel(playerId, 0);
-            swccgoGame.addGameStateListener(playerId, recordChannel);
-            recordingChannels.put(playerId, recordChannel);
+        List<String> playerIds = new ArrayList<String>();
+        for (SwccgGameParticipant player : swccgoGame.getPlayersPlaying())
+            playerIds.add(player.getPlayerId());
+
+        final StreamingRecording recording;
+        if (!_recordDecisionLogs) {
+            recording = new StreamingRecording(getRecordingId(playerIds), playerIds);
+            swccgoGame.addGameEventRecorder(recording);
+        }
+        else {
+            recording = null;
         }
         final SwccgGameMediator mediator = swccgoGame;
         final String leagueType = mediator.getLeague()==null?"":mediator.getLeague().getType();
@@ -66,7 +349,7 @@ public class GameRecorder {
         return new GameRecordingInProgress() {
             @Override
             public void finishRecording(String winner, String winReason, String loser, String loseReason) {
-                Map<String, String> playerRecordingId = saveRecordedChannels(recordingChannels);
+                Map<String, String> playerRecordingId = _recordDecisionLogs ? saveDecisionLog(mediator) : finishStreamingRecording(recording);
                 _gameHistoryService.addGameHistory(winner, loser, winReason, loseReason, playerRecordingId.get(winner), playerRecordingId.get(loser), formatName, tournament, deckNames.get(winner), deckNames.get(loser), mediator.getDeckArchetypeLabel(winner), mediator.getDeckArchetypeLabel(loser), mediator.getWinningSideString(), mediator.getDeckString(Side.DARK), mediator.getDeckString(Side.LIGHT), leagueType, sealedLeagueType, startData, new Date());
             }
         };
@@ -76,69 +359,578 @@ public class GameRecorder {
         public void finishRecording(String winner, String winReason, String loser, String loseReason);
     }
 
-    private File getRecordingFile(String playerId, String gameId) {
-        File gameReplayFolder = new File(ApplicationConfiguration.getProperty("application.root"), "replay");
-        File playerReplayFolder = new File(gameReplayFolder, playerId);
-        return new File(playerReplayFolder, gameId + ".xml.gz");
+    private static File getReplayFolder() {
+        return new File(ApplicationConfiguration.getProperty("application.root"), "replay");
     }
 
-    private OutputStream getRecordingWriteStream(String playerId, String gameId) throws IOException {
-        File recordingFile = getRecordingFile(playerId, gameId);
-        recordingFile.getParentFile().mkdirs();
+    private static File getRegeneratingFolder() {
+        return new File(getReplayFolder(), REGENERATING_FOLDER);
+    }
+
+    private String getRecordingPath(String playerId, String gameId) {
+        return playerId + "/" + gameId + ".xml.gz";
+    }
+
+    private String getGameRecordingPath(String gameId) {
+        return GAMES_FOLDER + "/" + gameId + ".xml.gz";
+    }
+
+    private String getDecisionLogPath(String gameId) {
+        return "decisions/" + gameId + ".decisions.gz";
+    }
+
+    private File getGameRecordingFile(String gameId) {
+        return new File(getReplayFolder(), getGameRecordingPath(gameId));
+    }
+
+    private File getDecisionLogFile(String gameId) {
+        return new File(getReplayFolder(), getDecisionLogPath(gameId));
+    }
+
+    private File getTurnIndexFile(File recordingFile) {
+        return new File(recordingFile.getParentFile(), recordingFile.getName() + TURN_INDEX_SUFFIX);
+    }
 
-        Deflater deflater = new Deflater(9);
-        return new DeflaterOutputStream(new FileOutputStream(recordingFile), deflater);
+    private File getPartialFile(File recordingFile) {
+        return new File(recordingFile.getParentFile(), recordingFile.getName() + PARTIAL_SUFFIX);
     }
 
-    private Map<String, String> saveRecordedChannels(Map<String, GameCommunicationChannel> gameProgress) {
+    /**
+     * Finishes the recording of a game. The remaining game events are written and the recording is completed on the
+     * recording thread, so the thread finishing the game does not wait for it.
+     * @param recording the recording
+     * @return the recording id by player
+     */
+    private Map<String, String> finishStreamingRecording(final StreamingRecording recording) {
+        _recordingExecutor.submit(
+                new Runnable() {
+                    @Override
+                    public void run() {
+                        recording.finish();
+                    }
+                });
+
+        // The same recording is used by all players
         Map<String, String> result = new HashMap<String, String>();
-        for (Map.Entry<String, GameCommunicationChannel> playerRecordings : gameProgress.entrySet()) {
-            String playerId = playerRecordings.getKey();
+        for (String playerId : recording.getPlayerIds())
+            result.put(playerId, recording.getRecordingId());
+        return result;
+    }
 
-            String gameRecordingId = getRecordingId(playerId);
-            final List<GameEvent> gameEvents = playerRecordings.getValue().consumeGameEvents();
+    /**
+     * Completes the partial recordings left behind when the server stopped while games were being played. The game
+     * events up to the last one written completely are kept. Partial recordings are only written to the games folder,
+     * so the folders of each player (where recordings were written before games were recorded once for all players)
+     * are only searched the first time.
+     */
+    private void recoverPartialRecordings() {
+        File replayFolder = getReplayFolder();
+        File legacyRecoveredMarker = new File(replayFolder, LEGACY_RECOVERED_MARKER);
+        if (legacyRecoveredMarker.exists()) {
+            recoverPartialRecordings(new File(replayFolder, GAMES_FOLDER));
+            return;
+        }
 
-            try {
-                OutputStream replayStream = getRecordingWriteStream(playerId, gameRecordingId);
-                try {
-                    DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
-                    DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
-                    Document doc = documentBuilder.newDocument();
-                    Element gameReplay = doc.createElement("gameReplay");
-                    EventSerializer serializer = new EventSerializer();
-                    for (GameEvent gameEvent : gameEvents) {
-                        gameReplay.appendChild(serializer.serializeEvent(doc, gameEvent));
+        File[] replayFolders = replayFolder.listFiles();
+        if (replayFolders == null)
+            return;
+        for (File folder : replayFolders) {
+            if (folder.isDirectory())
+                recoverPartialRecordings(folder);
+        }
+        try {
+            legacyRecoveredMarker.createNewFile();
+        } catch (IOException exp) {
+            LOG.error("Unable to create " + legacyRecoveredMarker, exp);
+        }
+    }
+
+    private void recoverPartialRecordings(File folder) {
+        File[] partialFiles = folder.listFiles(
+                new FilenameFilter() {
+                    @Override
+                    public boolean accept(File dir, String name) {
+                        return name.endsWith(PARTIAL_SUFFIX);
                     }
+                });
+        if (partialFiles == null)
+            return;
+
+        for (File partialFile : partialFiles)
+            recoverPartialRecordingQuietly(partialFile);
+    }
 
-                    doc.appendChild(gameReplay);
+    private void recoverPartialRecordingQuietly(File partialFile) {
+        try {
+            recoverPartialRecording(partialFile);
+        } catch (IOException exp) {
+            LOG.error("Unable to recover partial recording " + partialFile, exp);
+        }
+    }
 
-                    // Prepare the DOM document for writing
-                    Source source = new DOMSource(doc);
+    private void recoverPartialRecording(File partialFile) throws IOException {
+        // Everything up to the last complete game event is readable, since the stream is flushed after game events
+        ByteArrayOutputStream contents = new ByteArrayOutputStream();
+        InputStream partialStream = new InflaterInputStream(new BufferedInputStream(new FileInputStream(partialFile)));
+        try {
+            byte[] buffer = new byte[8192];
+            int count;
+            while ((count = partialStream.read(buffer)) != -1)
+                contents.write(buffer, 0, count);
+        } catch (EOFException exp) {
+            // The stream was not completed
+        } finally {
+            partialStream.close();
+        }
 
-                    // Prepare the output file
-                    Result streamResult = new StreamResult(replayStream);
+        String replay = new String(contents.toByteArray(), "UTF-8");
+        int end = replay.lastIndexOf("</ge>\n");
+        if (end < 0)
+            end = replay.indexOf("<gameReplay");
+        int cut = (end >= 0) ? replay.indexOf('\n', end) : -1;
+        if (cut < 0) {
+            LOG.warn("Deleting unreadable partial recording " + partialFile);
+            partialFile.delete();
+            return;
+        }
+        replay = replay.substring(0, cut + 1) + REPLAY_FOOTER;
 
-                    // Write the DOM document to the file
-                    Transformer xformer = TransformerFactory.newInstance().newTransformer();
-                    xformer.transform(source, streamResult);
-                } finally {
-                    replayStream.close();
-                }
-            } catch (Exception exp) {
+        String partialName = partialFile.getName();
+        File recordingFile = new File(partialFile.getParentFile(), partialName.substring(0, partialName.length() - PARTIAL_SUFFIX.length()));
+        OutputStream recordingStream = new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(recordingFile)), new Deflater(9));
+        try {
+            recordingStream.write(replay.getBytes("UTF-8"));
+        } finally {
+            recordingStream.close();
+        }
+        partialFile.delete();
+    }
 
+    private Map<String, String> saveDecisionLog(SwccgGameMediator mediator) {
+        GameDecisionLog decisionLog = mediator.getDecisionLog();
+        String gameRecordingId = getRecordingId(decisionLog.getPlayerIds());
+        try {
+            File decisionLogFile = getDecisionLogFile(gameRecordingId);
+            decisionLogFile.getParentFile().mkdirs();
+            OutputStream decisionLogStream = new DeflaterOutputStream(new BufferedOutputStream(new FileOutputStream(decisionLogFile)), new Deflater(9));
+            try {
+                decisionLog.write(decisionLogStream);
+            } finally {
+                decisionLogStream.close();
             }
+        } catch (Exception exp) {
+            LOG.error("Unable to save decision log " + gameRecordingId, exp);
+        }
+
+        // The same recording is used by all players
+        Map<String, String> result = new HashMap<String, String>();
+        for (String playerId : decisionLog.getPlayerIds()) {
             result.put(playerId, gameRecordingId);
         }
         return result;
     }
 
-    private String getRecordingId(String playerId) {
+    /**
+     * Gets a new recording id for a game, which is not used by any recording the players can see.
+     * @param playerIds the players
+     * @return the recording id
+     */
+    private String getRecordingId(List<String> playerIds) {
         String result;
-        File recordingFile;
+        boolean exists;
         do {
             result = randomUid();
-            recordingFile = getRecordingFile(playerId, result);
-        } while (recordingFile.exists());
+            exists = _replayArchive.exists(getDecisionLogPath(result)) || _replayArchive.exists(getGameRecordingPath(result))
+                    || getPartialFile(getGameRecordingFile(result)).exists();
+            for (String playerId : playerIds) {
+                exists |= _replayArchive.exists(getRecordingPath(playerId, result));
+            }
+        } while (exists);
         return result;
     }
+
+    private static String unescapeAttribute(String value) {
+        return value.replace("&lt;", "<").replace("&gt;", ">").replace("&quot;", "\"").replace("&apos;", "'").replace("&amp;", "&");
+    }
+
+    /**
+     * Writes a replay to a stream, one game event at a time.
+     */
+    private static class ReplayWriter {
+        private OutputStream _outputStream;
+        private RecordingOutputStream _recordingStream;
+        private List<Long> _turnOffsets = new ArrayList<Long>();
+        private XMLStreamWriter _writer;
+        private EventSerializer _serializer = new EventSerializer();
+
+        /**
+         * Creates a replay writer.
+         * @param outputStream the stream to write to
+         * @param recordingStream the recording stream, if the offsets of the turns should be indexed, otherwise null
+         * @param playerIds the players, if the game events are written along with which players are able to see them,
+         *                  otherwise null
+         * @throws XMLStreamException if an error occurs
+         * @throws IOException if an error occurs
+         */
+        private ReplayWriter(OutputStream outputStream, RecordingOutputStream recordingStream, List<String> playerIds) throws XMLStreamException, IOException {
+            _outputStream = outputStream;
+            _recordingStream = recordingStream;
+            _writer = XMLOutputFactory.newInstance().createXMLStreamWriter(outputStream, "UTF-8");
+            _writer.writeStartDocument("UTF-8", "1.0");
+            _writer.writeStartElement("gameReplay");
+            if (playerIds != null)
+                _writer.writeAttribute(PLAYERS_ATTRIBUTE, StringUtils.join(playerIds, ","));
+            _writer.writeCharacters("\n");
+            markTurnStart();
+        }
+
+        /**
+         * Writes a game event. Each game event is written on its own line, so a partial recording can be cut after the
+         * last complete game event, and the game events not visible to a player can be skipped line by line. Which
+         * players are able to see the game event is written as the first attribute.
+         * @param gameEvent the game event
+         * @param onlyVisibleTo the only player able to see the game event, or null if not limited to a single player
+         * @param notVisibleTo the players not able to see the game event, or null
+         * @throws XMLStreamException if an error occurs serializing the game event
+         * @throws IOException if an error occurs writing to the stream
+         */
+        private void writeGameEvent(GameEvent gameEvent, String onlyVisibleTo, Set<String> notVisibleTo) throws XMLStreamException, IOException {
+            if (gameEvent.getType() == GameEvent.Type.TC)
+                markTurnStart();
+
+            Map<String, String> visibility = null;
+            if (onlyVisibleTo != null)
+                visibility = Collections.singletonMap(VISIBLE_TO_ATTRIBUTE, onlyVisibleTo);
+            else if (notVisibleTo != null && !notVisibleTo.isEmpty())
+                visibility = Collections.singletonMap(HIDDEN_FROM_ATTRIBUTE, StringUtils.join(notVisibleTo, ","));
+            _serializer.serializeEvent(_writer, gameEvent, visibility);
+            _writer.writeCharacters("\n");
+        }
+
+        /**
+         * Flushes the game events written to the stream.
+         * @throws XMLStreamException if an error occurs
+         * @throws IOException if an error occurs
+         */
+        private void flush() throws XMLStreamException, IOException {
+            _writer.flush();
+            _outputStream.flush();
+        }
+
+        private void markTurnStart() throws XMLStreamException, IOException {
+            if (_recordingStream != null) {
+                _writer.flush();
+                _turnOffsets.add(_recordingStream.markTurnStart());
+            }
+        }
+
+        private List<Long> getTurnOffsets() {
+            return _turnOffsets;
+        }
+
+        private void finish() throws XMLStreamException, IOException {
+            _writer.writeEndElement();
+            _writer.writeEndDocument();
+            flush();
+        }
+    }
+
+    /**
+     * The compressed stream of a recording file. At the start of each turn the compression is fully flushed, so the
+     * recording can be decompressed from that offset without the data before it.
+     */
+    private static class RecordingOutputStream extends DeflaterOutputStream {
+        private FileOutputStream _fileStream;
+
+        private RecordingOutputStream(FileOutputStream fileStream) {
+            super(new BufferedOutputStream(fileStream), new Deflater(9), true);
+            _fileStream = fileStream;
+        }
+
+        /**
+         * Fully flushes the compression.
+         * @return the offset in the file the next data starts at
+         * @throws IOException if an error occurs
+         */
+        private long markTurnStart() throws IOException {
+            int length;
+            while ((length = def.deflate(buf, 0, buf.length, Deflater.FULL_FLUSH)) > 0) {
+                out.write(buf, 0, length);
+                if (length < buf.length)
+                    break;
+            }
+            out.flush();
+            return _fileStream.getChannel().position();
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            def.end();
+        }
+    }
+
+    /**
+     * Decompresses a range of a recording that starts at a turn offset. The range is raw deflate data, which ends either
+     * at the start of another turn or at the end of the recording.
+     */
+    private static class TurnRangeInputStream extends InflaterInputStream {
+
+        private TurnRangeInputStream(InputStream turnRange) {
+            super(turnRange, new Inflater(true));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (EOFException exp) {
+                // A range that ends at the start of another turn has no final block
+                return -1;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            super.close();
+            inf.end();
+        }
+    }
+
+    /**
+     * Filters a game recorded once for all players for one of the players. The game events the player is not able to
+     * see are skipped, and which players are able to see each game event is removed, so the player gets the same
+     * replay as if the game was recorded for the player only.
+     */
+    private static class VisibilityFilterInputStream extends InputStream {
+        private BufferedReader _reader;
+        private String _playerId;
+        private byte[] _line = new byte[0];
+        private int _linePosition;
+        private boolean _inGameEvent;
+        private boolean _gameEventVisible;
+
+        private VisibilityFilterInputStream(InputStream replay, String playerId) throws IOException {
+            _reader = new BufferedReader(new InputStreamReader(replay, "UTF-8"));
+            _playerId = playerId;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextLineIfNeeded())
+                return -1;
+            return _line[_linePosition++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0)
+                return 0;
+            if (!nextLineIfNeeded())
+                return -1;
+            int count = Math.min(len, _line.length - _linePosition);
+            System.arraycopy(_line, _linePosition, b, off, count);
+            _linePosition += count;
+            return count;
+        }
+
+        @Override
+        public void close() throws IOException {
+            _reader.close();
+        }
+
+        private boolean nextLineIfNeeded() throws IOException {
+            while (_linePosition >= _line.length) {
+                String line = _reader.readLine();
+                if (line == null)
+                    return false;
+                String filteredLine = filterLine(line);
+                if (filteredLine != null) {
+                    _line = (filteredLine + "\n").getBytes("UTF-8");
+                    _linePosition = 0;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Filters a line of the recording. A game event may continue over more than one line if an attribute value has
+         * a line break, and its last line ends with the end of the game event element.
+         * @param line the line
+         * @return the line to send to the player, or null if the line is skipped
+         */
+        private String filterLine(String line) {
+            if (!_inGameEvent && line.startsWith("<ge ")) {
+                _inGameEvent = true;
+                _gameEventVisible = true;
+                String visibleTo = getVisibilityAttribute(line, VISIBLE_TO_ATTRIBUTE);
+                String hiddenFrom = getVisibilityAttribute(line, HIDDEN_FROM_ATTRIBUTE);
+                if (visibleTo != null) {
+                    _gameEventVisible = visibleTo.equals(_playerId);
+                    line = removeVisibilityAttribute(line, VISIBLE_TO_ATTRIBUTE);
+                }
+                else if (hiddenFrom != null) {
+                    _gameEventVisible = !Arrays.asList(hiddenFrom.split(",")).contains(_playerId);
+                    line = removeVisibilityAttribute(line, HIDDEN_FROM_ATTRIBUTE);
+                }
+            }
+            if (_inGameEvent) {
+                if (line.endsWith("</ge>"))
+                    _inGameEvent = false;
+                return _gameEventVisible ? line : null;
+            }
+
+            int rootStart = line.indexOf("<gameReplay ");
+            if (rootStart >= 0)
+                return line.substring(0, rootStart) + "<gameReplay>" + line.substring(line.indexOf('>', rootStart) + 1);
+            return line;
+        }
+
+        private String getVisibilityAttribute(String line, String attributeName) {
+            String attributePrefix = "<ge " + attributeName + "=\"";
+            if (!line.startsWith(attributePrefix))
+                return null;
+            return unescapeAttribute(line.substring(attributePrefix.length(), line.indexOf('"', attributePrefix.length())));
+        }
+
+        private String removeVisibilityAttribute(String line, String attributeName) {
+            String attributePrefix = "<ge " + attributeName + "=\"";
+            return "<ge" + line.substring(line.indexOf('"', attributePrefix.length()) + 1);
+        }
+    }
+
+    /**
+     * A recording of the game events of a game, written to a partial recording file as they occur. The game events
+     * are recorded on the game thread and written on the recording thread.
+     */
+    private class StreamingRecording implements GameEventRecorder {
+        private String _recordingId;
+        private List<String> _playerIds;
+        private List<RecordedGameEvent> _pendingGameEvents = new ArrayList<RecordedGameEvent>();
+        private RecordingOutputStream _outputStream;
+        private ReplayWriter _replayWriter;
+        private boolean _failed;
+        private boolean _finished;
+
+        private StreamingRecording(String recordingId, List<String> playerIds) {
+            _recordingId = recordingId;
+            _playerIds = playerIds;
+        }
+
+        public String getRecordingId() {
+            return _recordingId;
+        }
+
+        public List<String> getPlayerIds() {
+            return _playerIds;
+        }
+
+        @Override
+        public void recordGameEvent(GameEvent gameEvent, String onlyVisibleTo, Set<String> notVisibleTo) {
+            boolean writeScheduled;
+            synchronized (this) {
+                writeScheduled = !_pendingGameEvents.isEmpty();
+                _pendingGameEvents.add(new RecordedGameEvent(gameEvent, onlyVisibleTo, notVisibleTo));
+            }
+            if (!writeScheduled) {
+                _recordingExecutor.submit(
+                        new Runnable() {
+                            @Override
+                            public void run() {
+                                if (!_finished)
+                                    writeGameEvents();
+                            }
+                        });
+            }
+        }
+
+        private void writeGameEvents() {
+            List<RecordedGameEvent> gameEvents;
+            synchronized (this) {
+                gameEvents = _pendingGameEvents;
+                _pendingGameEvents = new ArrayList<RecordedGameEvent>();
+            }
+            if (_failed)
+                return;
+
+            File recordingFile = getGameRecordingFile(_recordingId);
+            try {
+                if (_replayWriter == null) {
+                    File partialFile = getPartialFile(recordingFile);
+                    partialFile.getParentFile().mkdirs();
+                    _outputStream = new RecordingOutputStream(new FileOutputStream(partialFile));
+                    _replayWriter = new ReplayWriter(_outputStream, _outputStream, _playerIds);
+                }
+                for (RecordedGameEvent gameEvent : gameEvents)
+                    _replayWriter.writeGameEvent(gameEvent._gameEvent, gameEvent._onlyVisibleTo, gameEvent._notVisibleTo);
+                _replayWriter.flush();
+            } catch (Exception exp) {
+                // The game events written so far are kept, and are recovered when the game finishes
+                LOG.error("Unable to write recording " + _recordingId, exp);
+                _failed = true;
+                closeQuietly();
+            }
+        }
+
+        private void finish() {
+            if (_finished)
+                return;
+
+            writeGameEvents();
+            _finished = true;
+            File recordingFile = getGameRecordingFile(_recordingId);
+            if (_failed) {
+                recoverFailedRecording(recordingFile);
+                return;
+            }
+
+            try {
+                _replayWriter.finish();
+                _outputStream.close();
+                writeTurnIndex(getTurnIndexFile(recordingFile), _replayWriter.getTurnOffsets());
+                if (!getPartialFile(recordingFile).renameTo(recordingFile))
+                    LOG.error("Unable to complete recording " + _recordingId);
+            } catch (Exception exp) {
+                LOG.error("Unable to complete recording " + _recordingId, exp);
+                closeQuietly();
+                recoverFailedRecording(recordingFile);
+            }
+        }
+
+        /**
+         * Completes the partial recording of a game whose recording failed, with the game events written before it
+         * failed, so the replay of the game is available without waiting for the server to restart.
+         * @param recordingFile the recording file
+         */
+        private void recoverFailedRecording(File recordingFile) {
+            File partialFile = getPartialFile(recordingFile);
+            if (partialFile.exists())
+                recoverPartialRecordingQuietly(partialFile);
+        }
+
+        private void closeQuietly() {
+            if (_outputStream != null) {
+                try {
+                    _outputStream.close();
+                } catch (IOException exp) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    /**
+     * A game event recorded along with which players are able to see it.
+     */
+    private static class RecordedGameEvent {
+        private GameEvent _gameEvent;
+        private String _onlyVisibleTo;
+        private Set<String> _notVisibleTo;
+
+        private RecordedGameEvent(GameEvent gameEvent, String onlyVisibleTo, Set<String> notVisibleTo) {
+            _gameEvent = gameEvent;
+            _onlyVisibleTo = onlyVisibleTo;
+            _notVisibleTo = notVisibleTo;
+        }
+    }
 }
@@ -75,8 +75,7 @@ public class GameStatisticsProcessor implements InGameStatisticsListener {
 		_pileCountByTurnDAO.addPileCounts(_currentGameID, sequence, Math.max(darkTurn, lightTurn), side, darkHand, darkReserveDeck, darkForcePile, darkUsedPile, darkLostPile, darkOutOfPlay, lightHand, lightReserveDeck, lightForcePile, lightUsedPile, lightLostPile, lightOutOfPlay, darkSecondsElapsed, lightSecondsElapsed);
 		
 		if(gameComplete) {
-			int updatedGameId = _pileCountByTurnDAO.findGameIDinGameHistory(gameState.getGame().getWinner(),dark,light);
-			_pileCountByTurnDAO.updatePileCountsEndOfGame(_currentGameID, updatedGameId);
+			_pileCountByTurnDAO.updatePileCountsEndOfGame(_currentGameID, gameState.getGame().getWinner(), dark, light);
 		}
 	
 	}
@@ -0,0 +1,55 @@
+package com.gempukku.swccgo.game;
+
+import com.gempukku.swccgo.db.DbAccess;
+import com.gempukku.swccgo.db.DbGameHistoryDAO;
+import com.gempukku.swccgo.db.GameHistoryDAO;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Rebuilds the hourly and daily rollups of the game history, which the server statistics are answered from, and the
+ * all time totals of games played and players. This is run once to create the rollups of the existing game history,
+ * and can be run again to correct the rollups of a range, for example after adding games to the rollups failed. The
+ * totals are always rebuilt from the whole game history. A running server sees the corrected rollups within an hour,
+ * or once its caches are cleared from the admin page.
+ *
+ * Usage: RebuildStatsRollupsConsole [from] [to], where from and to are days formatted as yyyy-MM-dd (GMT). By default,
+ * the rollups are rebuilt from 2012-01-01 to the end of the current day.
+ */
+public class RebuildStatsRollupsConsole {
+    private static final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+    public static void main(String[] args) throws ParseException {
+        dayFormat.setTimeZone(TimeZone.getTimeZone("GMT"));
+        Date from = dayFormat.parse(args.length > 0 ? args[0] : "2012-01-01");
+        long to = (args.length > 1) ? dayFormat.parse(args[1]).getTime()
+                : System.currentTimeMillis() - System.currentTimeMillis() % GameHistoryDAO.ROLLUP_DAY + GameHistoryDAO.ROLLUP_DAY;
+
+        DbAccess dbAccess = new DbAccess();
+        GameHistoryDAO gameHistoryDAO = new DbGameHistoryDAO(dbAccess);
+
+        // Rebuilt a month at a time, so each transaction stays small
+        long start = System.currentTimeMillis();
+        Calendar chunkEnd = Calendar.getInstance(TimeZone.getTimeZone("GMT"));
+        chunkEnd.setTime(from);
+        long chunkStart = from.getTime();
+        while (chunkStart < to) {
+            chunkEnd.add(Calendar.MONTH, 1);
+            long chunkEndTime = Math.min(chunkEnd.getTimeInMillis(), to);
+
+            gameHistoryDAO.rebuildRollups(chunkStart, chunkEndTime);
+            System.out.println("Rebuilt rollups from " + dayFormat.format(new Date(chunkStart)) + " to " + dayFormat.format(new Date(chunkEndTime)));
+
+            chunkStart = chunkEndTime;
+        }
+
+        gameHistoryDAO.rebuildTotals();
+        System.out.println("Rebuilt all time totals");
+
+        System.out.println("Rebuilt rollups in " + (System.currentTimeMillis() - start) / 1000 + " seconds");
+    }
+}
@@ -0,0 +1,609 @@
+package com.gempukku.swccgo.game;
+
+import org.apache.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Stores the replay files, either as separate files in the replay folder, or packed into the archive. Older replay
+ * files are moved into the archive, which is a few large append-only segment files, so the replay folder does not keep
+ * a small file for each recording of each game. Each archived file is stored in a segment as it is, so an archived file
+ * is read with a single seek.
+ *
+ * The index of the archive is kept on disk, in an index file for each segment that maps the path of each file in the
+ * segment (relative to the replay folder) to the range in the segment. The index of the segment being appended to is
+ * an append-only log, which is read into memory. When a segment is full, its index is written as a file sorted by
+ * path, which is not read into memory but memory-mapped and binary searched when a file is looked up. Later segments
+ * are searched first, so a file archived again replaces the earlier one.
+ *
+ * The index is loaded when it is first used, and not when the archive is created.
+ *
+ * Only one process may archive files at a time, so the offline migration must not run while the server is running.
+ */
+public class ReplayArchive {
+    private static final Logger LOG = Logger.getLogger(ReplayArchive.class);
+    private static final String ARCHIVE_FOLDER = "archive";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final String INDEX_LOG_SUFFIX = ".log";
+    private static final String SORTED_INDEX_SUFFIX = ".idx";
+    private static final String PARTIAL_SUFFIX = ".part";
+    private static final long MAX_SEGMENT_LENGTH = 1024L * 1024 * 1024;
+    private static final int FILES_PER_BATCH = 1000;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private File _replayFolder;
+    private File _archiveFolder;
+    private long _maxSegmentLength;
+    private boolean _loaded;
+    private int _segment;
+    private Map<String, ArchivedFile> _segmentFiles = new HashMap<String, ArchivedFile>();
+    private TreeMap<Integer, SortedIndex> _sortedIndexes = new TreeMap<Integer, SortedIndex>();
+    private FileOutputStream _segmentStream;
+    private FileOutputStream _indexFileStream;
+    private DataOutputStream _indexStream;
+
+    /**
+     * Creates the replay archive. The index is loaded when it is first used.
+     * @param replayFolder the replay folder
+     */
+    public ReplayArchive(File replayFolder) {
+        this(replayFolder, MAX_SEGMENT_LENGTH);
+    }
+
+    /**
+     * Creates the replay archive with segments of a maximum length.
+     * @param replayFolder the replay folder
+     * @param maxSegmentLength the length a segment is sealed at, unless it only contains one file
+     */
+    ReplayArchive(File replayFolder, long maxSegmentLength) {
+        _replayFolder = replayFolder;
+        _archiveFolder = new File(replayFolder, ARCHIVE_FOLDER);
+        _maxSegmentLength = maxSegmentLength;
+    }
+
+    /**
+     * Loads the index, unless it is already loaded. Only the index log of the segment being appended to is read.
+     */
+    public synchronized void load() {
+        if (_loaded)
+            return;
+        _loaded = true;
+        try {
+            loadIndex();
+        } catch (IOException exp) {
+            LOG.error("Unable to load replay archive index", exp);
+        }
+    }
+
+    /**
+     * Determines if the replay file exists, either in the replay folder or in the archive.
+     * @param path the path of the file, relative to the replay folder
+     * @return true or false
+     */
+    public boolean exists(String path) {
+        return getLength(path) >= 0;
+    }
+
+    /**
+     * Gets the length of the replay file.
+     * @param path the path of the file, relative to the replay folder
+     * @return the length, or -1 if the file does not exist
+     */
+    public long getLength(String path) {
+        File file = new File(_replayFolder, path);
+        if (file.isFile())
+            return file.length();
+        ArchivedFile archivedFile = getArchivedFile(path);
+        return archivedFile != null ? archivedFile._length : -1;
+    }
+
+    /**
+     * Opens the replay file.
+     * @param path the path of the file, relative to the replay folder
+     * @return the stream, or null if the file does not exist
+     * @throws IOException if an error occurs
+     */
+    public InputStream open(String path) throws IOException {
+        return open(path, 0, Long.MAX_VALUE);
+    }
+
+    /**
+     * Opens a range of the replay file.
+     * @param path the path of the file, relative to the replay folder
+     * @param start the offset the range starts at
+     * @param end the offset the range ends at, which is limited to the length of the file
+     * @return the stream, or null if the file does not exist
+     * @throws IOException if an error occurs
+     */
+    public InputStream open(String path, long start, long end) throws IOException {
+        File file = new File(_replayFolder, path);
+        if (file.isFile()) {
+            try {
+                return openRange(file, start, end);
+            } catch (FileNotFoundException exp) {
+                // The file was archived after it was found
+            }
+        }
+
+        ArchivedFile archivedFile = getArchivedFile(path);
+        if (archivedFile == null)
+            return null;
+        return openRange(getSegmentFile(archivedFile._segment), archivedFile._offset + start, archivedFile._offset + Math.min(end, archivedFile._length));
+    }
+
+    /**
+     * Looks up the file in the index of the segment being appended to, and then in the sorted index files from the
+     * latest segment to the first.
+     * @param path the path of the file, relative to the replay folder
+     * @return the archived file, or null if it is not archived
+     */
+    private synchronized ArchivedFile getArchivedFile(String path) {
+        load();
+        ArchivedFile archivedFile = _segmentFiles.get(path);
+        if (archivedFile != null)
+            return archivedFile;
+
+        byte[] key = path.getBytes(UTF8);
+        for (SortedIndex sortedIndex : _sortedIndexes.descendingMap().values()) {
+            try {
+                archivedFile = sortedIndex.find(key);
+            } catch (IOException exp) {
+                LOG.error("Unable to read replay archive index " + sortedIndex._file, exp);
+            }
+            if (archivedFile != null)
+                return archivedFile;
+        }
+        return null;
+    }
+
+    private InputStream openRange(File file, long start, long end) throws IOException {
+        final FileInputStream fileStream = new FileInputStream(file);
+        try {
+            fileStream.getChannel().position(start);
+        } catch (IOException exp) {
+            fileStream.close();
+            throw exp;
+        }
+        return new BoundedInputStream(new BufferedInputStream(fileStream), end - start);
+    }
+
+    /**
+     * Moves the completed replay files last modified before the specified time into the archive. The files are only
+     * deleted from the replay folder once the archive has been written to disk, so a crash while archiving does not
+     * lose any of them.
+     * @param time the time
+     * @return the number of files archived
+     */
+    public int archiveFilesOlderThan(long time) {
+        load();
+        int archivedCount = 0;
+        File[] folders = _replayFolder.listFiles();
+        if (folders == null)
+            return archivedCount;
+
+        for (File folder : folders) {
+            if (!folder.isDirectory() || folder.equals(_archiveFolder))
+                continue;
+
+            File[] files = folder.listFiles();
+            if (files == null)
+                continue;
+
+            List<File> batch = new ArrayList<File>();
+            for (File file : files) {
+                if (file.isFile() && !file.getName().endsWith(PARTIAL_SUFFIX) && file.lastModified() < time) {
+                    batch.add(file);
+                    if (batch.size() >= FILES_PER_BATCH) {
+                        archivedCount += archiveBatch(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            archivedCount += archiveBatch(batch);
+        }
+        return archivedCount;
+    }
+
+    private int archiveBatch(List<File> files) {
+        List<File> archivedFiles = new ArrayList<File>();
+        try {
+            for (File file : files) {
+                archive(_replayFolder.toURI().relativize(file.toURI()).getPath(), file);
+                archivedFiles.add(file);
+            }
+        } catch (IOException exp) {
+            LOG.error("Unable to archive replay files", exp);
+        }
+
+        try {
+            syncArchive();
+        } catch (IOException exp) {
+            LOG.error("Unable to write replay archive to disk", exp);
+            return 0;
+        }
+
+        for (File file : archivedFiles)
+            file.delete();
+        return archivedFiles.size();
+    }
+
+    /**
+     * Appends the file to the current segment, and adds it to the index log of the segment. If the segment is full,
+     * it is sealed first and the file is appended to a new segment.
+     * @param path the path of the file, relative to the replay folder
+     * @param file the file
+     * @throws IOException if an error occurs
+     */
+    private synchronized void archive(String path, File file) throws IOException {
+        long length = file.length();
+        if (_segmentStream == null)
+            openSegment();
+        if (_segmentStream.getChannel().size() > 0 && _segmentStream.getChannel().size() + length > _maxSegmentLength) {
+            sealSegment();
+            openSegment();
+        }
+
+        long offset = _segmentStream.getChannel().size();
+        InputStream fileStream = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[8192];
+            long copied = 0;
+            int count;
+            while (copied < length && (count = fileStream.read(buffer, 0, (int) Math.min(buffer.length, length - copied))) != -1) {
+                _segmentStream.write(buffer, 0, count);
+                copied += count;
+            }
+            if (copied < length)
+                throw new IOException("Replay file " + file + " changed while archiving");
+        } finally {
+            fileStream.close();
+        }
+
+        ArchivedFile archivedFile = new ArchivedFile(_segment, offset, length);
+        if (_indexStream == null) {
+            _indexFileStream = new FileOutputStream(getIndexLogFile(_segment), true);
+            _indexStream = new DataOutputStream(new BufferedOutputStream(_indexFileStream));
+        }
+        writeIndexEntry(_indexStream, path, archivedFile);
+        _segmentFiles.put(path, archivedFile);
+    }
+
+    private void openSegment() throws IOException {
+        _archiveFolder.mkdirs();
+        _segmentStream = new FileOutputStream(getSegmentFile(_segment), true);
+    }
+
+    /**
+     * Writes the sorted index file of the current segment, replacing its index log, and starts the next segment.
+     * @throws IOException if an error occurs
+     */
+    private void sealSegment() throws IOException {
+        _segmentStream.getFD().sync();
+        _segmentStream.close();
+        _segmentStream = null;
+        if (_indexStream != null) {
+            _indexStream.flush();
+            _indexFileStream.getFD().sync();
+            _indexStream.close();
+            _indexStream = null;
+            _indexFileStream = null;
+        }
+
+        writeSortedIndex(_segment, _segmentFiles);
+        _sortedIndexes.put(_segment, new SortedIndex(_segment, getSortedIndexFile(_segment)));
+        getIndexLogFile(_segment).delete();
+        _segmentFiles.clear();
+        _segment++;
+    }
+
+    private synchronized void syncArchive() throws IOException {
+        if (_segmentStream != null)
+            _segmentStream.getFD().sync();
+        if (_indexStream != null) {
+            _indexStream.flush();
+            _indexFileStream.getFD().sync();
+        }
+    }
+
+    private File getSegmentFile(int segment) {
+        return new File(_archiveFolder, SEGMENT_PREFIX + String.format("%06d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private File getIndexLogFile(int segment) {
+        return new File(_archiveFolder, SEGMENT_PREFIX + String.format("%06d", segment) + INDEX_LOG_SUFFIX);
+    }
+
+    private File getSortedIndexFile(int segment) {
+        return new File(_archiveFolder, SEGMENT_PREFIX + String.format("%06d", segment) + SORTED_INDEX_SUFFIX);
+    }
+
+    /**
+     * Gets the segment number in the name of a file in the archive folder.
+     * @param name the name of the file
+     * @param suffix the suffix of the file
+     * @return the segment number, or -1 if the name is not of a file of a segment with the suffix
+     */
+    private static int getSegmentNumber(String name, String suffix) {
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(suffix))
+            return -1;
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - suffix.length()));
+        } catch (NumberFormatException exp) {
+            return -1;
+        }
+    }
+
+    /**
+     * Loads the index. A segment before the last one that still has an index log (because of a crash while it was
+     * sealed) is sealed, and the index log of the last segment is read, unless the last segment is already sealed.
+     * @throws IOException if an error occurs
+     */
+    private void loadIndex() throws IOException {
+        File[] files = _archiveFolder.listFiles();
+        if (files == null)
+            return;
+        for (File file : files)
+            _segment = Math.max(_segment, getSegmentNumber(file.getName(), SEGMENT_SUFFIX));
+
+        for (File file : _archiveFolder.listFiles()) {
+            int segment = getSegmentNumber(file.getName(), INDEX_LOG_SUFFIX);
+            if (segment >= 0 && (segment < _segment || getSortedIndexFile(segment).isFile())) {
+                writeSortedIndex(segment, readIndexLog(segment));
+                file.delete();
+            }
+        }
+
+        for (File file : _archiveFolder.listFiles()) {
+            int segment = getSegmentNumber(file.getName(), SORTED_INDEX_SUFFIX);
+            if (segment >= 0)
+                _sortedIndexes.put(segment, new SortedIndex(segment, file));
+        }
+
+        if (_sortedIndexes.containsKey(_segment))
+            _segment++;
+        else
+            _segmentFiles = readIndexLog(_segment);
+    }
+
+    /**
+     * Reads the index log of a segment. A partial entry left at the end of the log by a crash is removed from the log.
+     * @param segment the segment
+     * @return the files in the segment
+     * @throws IOException if an error occurs
+     */
+    private Map<String, ArchivedFile> readIndexLog(int segment) throws IOException {
+        Map<String, ArchivedFile> segmentFiles = new HashMap<String, ArchivedFile>();
+        File indexLogFile = getIndexLogFile(segment);
+        if (!indexLogFile.isFile())
+            return segmentFiles;
+
+        byte[] indexLog = Files.readAllBytes(indexLogFile.toPath());
+        DataInputStream indexStream = new DataInputStream(new ByteArrayInputStream(indexLog));
+        int validLength = 0;
+        try {
+            while (validLength < indexLog.length) {
+                String path = indexStream.readUTF();
+                segmentFiles.put(path, new ArchivedFile(segment, indexStream.readLong(), indexStream.readLong()));
+                validLength = indexLog.length - indexStream.available();
+            }
+        } catch (EOFException exp) {
+            // A partial entry left by a crash
+        }
+
+        if (validLength < indexLog.length) {
+            RandomAccessFile file = new RandomAccessFile(indexLogFile, "rw");
+            try {
+                file.setLength(validLength);
+            } finally {
+                file.close();
+            }
+        }
+        return segmentFiles;
+    }
+
+    private void writeIndexEntry(DataOutputStream indexStream, String path, ArchivedFile archivedFile) throws IOException {
+        indexStream.writeUTF(path);
+        indexStream.writeLong(archivedFile._offset);
+        indexStream.writeLong(archivedFile._length);
+    }
+
+    /**
+     * Writes the sorted index file of a segment. The file starts with the number of entries and the offset of each
+     * entry in the file, followed by the entries sorted by the UTF-8 bytes of the path. Each entry is the length of the
+     * path, the path, and the offset and length of the file in the segment.
+     * @param segment the segment
+     * @param segmentFiles the files in the segment
+     * @throws IOException if an error occurs
+     */
+    private void writeSortedIndex(int segment, Map<String, ArchivedFile> segmentFiles) throws IOException {
+        TreeMap<byte[], ArchivedFile> entries = new TreeMap<byte[], ArchivedFile>(
+                new Comparator<byte[]>() {
+                    @Override
+                    public int compare(byte[] key1, byte[] key2) {
+                        return compareKeys(key1, key2);
+                    }
+                });
+        for (Map.Entry<String, ArchivedFile> archivedFile : segmentFiles.entrySet()) {
+            byte[] key = archivedFile.getKey().getBytes(UTF8);
+            if (key.length > 0xffff)
+                throw new IOException("Path of archived replay file is too long: " + archivedFile.getKey());
+            entries.put(key, archivedFile.getValue());
+        }
+
+        File temporaryFile = new File(_archiveFolder, getSortedIndexFile(segment).getName() + ".tmp");
+        FileOutputStream fileStream = new FileOutputStream(temporaryFile);
+        DataOutputStream indexStream = new DataOutputStream(new BufferedOutputStream(fileStream));
+        try {
+            indexStream.writeInt(entries.size());
+            int entryOffset = 4 + 4 * entries.size();
+            for (byte[] key : entries.keySet()) {
+                indexStream.writeInt(entryOffset);
+                entryOffset += 2 + key.length + 16;
+            }
+            for (Map.Entry<byte[], ArchivedFile> entry : entries.entrySet()) {
+                indexStream.writeShort(entry.getKey().length);
+                indexStream.write(entry.getKey());
+                indexStream.writeLong(entry.getValue()._offset);
+                indexStream.writeLong(entry.getValue()._length);
+            }
+            indexStream.flush();
+            fileStream.getFD().sync();
+        } finally {
+            indexStream.close();
+        }
+        if (!temporaryFile.renameTo(getSortedIndexFile(segment)))
+            throw new IOException("Unable to replace replay archive index " + getSortedIndexFile(segment));
+    }
+
+    /**
+     * Compares keys by their unsigned bytes.
+     * @param key1 the first key
+     * @param key2 the second key
+     * @return the result of the comparison
+     */
+    private static int compareKeys(byte[] key1, byte[] key2) {
+        int length = Math.min(key1.length, key2.length);
+        for (int i = 0; i < length; i++) {
+            int result = (key1[i] & 0xff) - (key2[i] & 0xff);
+            if (result != 0)
+                return result;
+        }
+        return key1.length - key2.length;
+    }
+
+    /**
+     * The location of an archived file.
+     */
+    private static class ArchivedFile {
+        private int _segment;
+        private long _offset;
+        private long _length;
+
+        private ArchivedFile(int segment, long offset, long length) {
+            _segment = segment;
+            _offset = offset;
+            _length = length;
+        }
+    }
+
+    /**
+     * The sorted index file of a sealed segment, which is memory-mapped when it is first searched.
+     */
+    private static class SortedIndex {
+        private int _segment;
+        private File _file;
+        private ByteBuffer _buffer;
+
+        private SortedIndex(int segment, File file) {
+            _segment = segment;
+            _file = file;
+        }
+
+        /**
+         * Finds a file with a binary search of the index.
+         * @param key the UTF-8 bytes of the path of the file
+         * @return the archived file, or null if it is not in the segment
+         * @throws IOException if an error occurs
+         */
+        private ArchivedFile find(byte[] key) throws IOException {
+            if (_buffer == null) {
+                RandomAccessFile file = new RandomAccessFile(_file, "r");
+                try {
+                    _buffer = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+                } finally {
+                    file.close();
+                }
+            }
+
+            int low = 0;
+            int high = _buffer.getInt(0) - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int entryOffset = _buffer.getInt(4 + 4 * middle);
+                int keyLength = _buffer.getShort(entryOffset) & 0xffff;
+                int result = compareKey(entryOffset + 2, keyLength, key);
+                if (result < 0) {
+                    low = middle + 1;
+                }
+                else if (result > 0) {
+                    high = middle - 1;
+                }
+                else {
+                    int rangeOffset = entryOffset + 2 + keyLength;
+                    return new ArchivedFile(_segment, _buffer.getLong(rangeOffset), _buffer.getLong(rangeOffset + 8));
+                }
+            }
+            return null;
+        }
+
+        private int compareKey(int keyOffset, int keyLength, byte[] key) {
+            int length = Math.min(keyLength, key.length);
+            for (int i = 0; i < length; i++) {
+                int result = (_buffer.get(keyOffset + i) & 0xff) - (key[i] & 0xff);
+                if (result != 0)
+                    return result;
+            }
+            return keyLength - key.length;
+        }
+    }
+
+    /**
+     * Reads up to a number of bytes from a stream.
+     */
+    private static class BoundedInputStream extends FilterInputStream {
+        private long _remaining;
+
+        private BoundedInputStream(InputStream inputStream, long length) {
+            super(inputStream);
+            _remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (_remaining <= 0)
+                return -1;
+            int result = super.read();
+            if (result != -1)
+                _remaining--;
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (_remaining <= 0)
+                return -1;
+            int count = super.read(b, off, (int) Math.min(len, _remaining));
+            if (count > 0)
+                _remaining -= count;
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, _remaining));
+            _remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), _remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.gempukku.swccgo.game;
+
+import com.gempukku.swccgo.common.ApplicationConfiguration;
+
+import java.io.File;
+
+/**
+ * Moves the existing replay files into the replay archive. The server must not be running while this runs.
+ *
+ * Usage: ReplayArchiveConsole [days], where only replay files older than the number of days are archived. By default,
+ * all completed replay files are archived.
+ */
+public class ReplayArchiveConsole {
+
+    public static void main(String[] args) {
+        int days = (args.length > 0) ? Integer.parseInt(args[0]) : 0;
+        File replayFolder = new File(ApplicationConfiguration.getProperty("application.root"), "replay");
+
+        long start = System.currentTimeMillis();
+        ReplayArchive replayArchive = new ReplayArchive(replayFolder);
+        int archivedCount = replayArchive.archiveFilesOlderThan(start - days * 24L * 60 * 60 * 1000);
+
+        System.out.println("Archived " + archivedCount + " replay files in " + (System.currentTimeMillis() - start) / 1000 + " seconds");
+    }
+}
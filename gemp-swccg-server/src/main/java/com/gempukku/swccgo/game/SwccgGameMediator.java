@@ -3,6 +3,7 @@ package com.gempukku.swccgo.game;
 import com.gempukku.swccgo.PrivateInformationException;
 import com.gempukku.swccgo.SubscriptionConflictException;
 import com.gempukku.swccgo.SubscriptionExpiredException;
+import com.gempukku.swccgo.common.ApplicationConfiguration;
 import com.gempukku.swccgo.common.CardCategory;
 import com.gempukku.swccgo.common.CardSubtype;
 import com.gempukku.swccgo.common.CardType;
@@ -16,9 +17,12 @@ import com.gempukku.swccgo.common.TargetId;
 import com.gempukku.swccgo.common.Title;
 import com.gempukku.swccgo.common.Zone;
 import com.gempukku.swccgo.communication.GameStateListener;
+import com.gempukku.swccgo.db.DeckSerialization;
 import com.gempukku.swccgo.db.vo.League;
 import com.gempukku.swccgo.filters.Filters;
 import com.gempukku.swccgo.game.state.GameCommunicationChannel;
+import com.gempukku.swccgo.game.state.GameEventLog;
+import com.gempukku.swccgo.game.state.GameEventRecorder;
 import com.gempukku.swccgo.game.state.GameEvent;
 import com.gempukku.swccgo.game.state.GameState;
 import com.gempukku.swccgo.logic.GameUtils;
@@ -37,6 +41,7 @@ import com.gempukku.swccgo.logic.vo.SwccgDeck;
 import com.google.common.base.Objects;
 import org.apache.log4j.Logger;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -45,6 +50,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class SwccgGameMediator {
@@ -53,9 +59,12 @@ public class SwccgGameMediator {
     private Map<String, GameCommunicationChannel> _communicationChannels = Collections.synchronizedMap(new HashMap<String, GameCommunicationChannel>());
     private DefaultUserFeedback _userFeedback;
     private SwccgGame _swccgoGame;
+    private GameDecisionLog _decisionLog;
+    private GameEventLog _eventLog = new GameEventLog();
     private Map<String, Integer> _playerClocks = new HashMap<String, Integer>();
     private Map<String, Long> _decisionQuerySentTimes = new HashMap<String, Long>();
     private Set<SwccgGameParticipant> _playersPlaying = new HashSet<SwccgGameParticipant>();
+    private Map<String, String> _deckArchetypeLabels = new ConcurrentHashMap<String, String>();
 
     private String _gameId;
     private int _maxSecondsForGamePerPlayer;
@@ -99,8 +108,26 @@ public class SwccgGameMediator {
         }
 
         _userFeedback = new DefaultUserFeedback();
-        _swccgoGame = new DefaultSwccgGame(swccgFormat, decks, _userFeedback, library, _playerClocks, useBonusAbilities);
+        DefaultSwccgGame swccgGame = new DefaultSwccgGame(swccgFormat, decks, _userFeedback, library, _playerClocks, useBonusAbilities);
+        String liveSnapshots = ApplicationConfiguration.getProperty("snapshot.liveSnapshots");
+        if (liveSnapshots != null && Integer.parseInt(liveSnapshots.trim()) > 0) {
+            File spillDirectory = null;
+            if (Boolean.parseBoolean(ApplicationConfiguration.getProperty("snapshot.spillToDisk"))) {
+                spillDirectory = new File(ApplicationConfiguration.getProperty("application.root"), "snapshots");
+                if (!spillDirectory.isDirectory() && !spillDirectory.mkdirs())
+                    spillDirectory = null;
+            }
+            swccgGame.setFrozenSnapshots(Integer.parseInt(liveSnapshots.trim()), spillDirectory);
+        }
+        _swccgoGame = swccgGame;
         _userFeedback.setGame(_swccgoGame);
+        _swccgoGame.addGameStateListener(null, _eventLog);
+
+        _decisionLog = new GameDecisionLog(swccgFormat.getName(), _swccgoGame.getRandomSeed(), useBonusAbilities);
+        for (SwccgGameParticipant participant : participants) {
+            SwccgDeck deck = participant.getDeck();
+            _decisionLog.addDeck(participant.getPlayerId(), deck.getDeckName(), DeckSerialization.buildContentsFromDeck(deck));
+        }
     }
 
     public boolean isPrivate() { return _isPrivate;};
@@ -129,13 +156,23 @@ public class SwccgGameMediator {
         return _league;
     }
 
+    /**
+     * Gets the decision log of the game, which can be used to re-run the game.
+     * @return the decision log
+     */
+    public GameDecisionLog getDecisionLog() {
+        return _decisionLog;
+    }
+
     public void setPlayerAutoPassSettings(String playerId, Set<Phase> phases) {
         if (isPlayerPlaying(playerId)) {
+            _decisionLog.autoPassSettings(playerId, phases);
             _swccgoGame.setPlayerAutoPassSettings(playerId, phases);
         }
     }
 
     public void sendMessageToPlayers(String message) {
+        _decisionLog.message(message);
         _swccgoGame.getGameState().sendMessage(message);
     }
 
@@ -143,6 +180,17 @@ public class SwccgGameMediator {
         _swccgoGame.addGameStateListener(playerId, listener);
     }
 
+    /**
+     * Adds a recorder that records the game events of the game once for all players playing.
+     * @param recorder the recorder
+     */
+    public void addGameEventRecorder(GameEventRecorder recorder) {
+        List<String> playerIds = new ArrayList<String>();
+        for (SwccgGameParticipant participant : _playersPlaying)
+            playerIds.add(participant.getPlayerId());
+        _eventLog.addRecorder(recorder, playerIds);
+    }
+
     public void removeGameStateListener(GameStateListener listener) {
         _swccgoGame.removeGameStateListener(listener);
     }
@@ -201,6 +249,19 @@ public class SwccgGameMediator {
         return "Life Force: " + getPlayerLifeForce();
     }
 
+    /**
+     * Gets the number of compressed bytes taken by the frozen snapshots of the game.
+     * @return the number of bytes
+     */
+    public long getFrozenSnapshotBytes() {
+        _readLock.lock();
+        try {
+            return _swccgoGame.getFrozenSnapshotBytes();
+        } finally {
+            _readLock.unlock();
+        }
+    }
+
     public boolean isFinished() {
         return _swccgoGame.isFinished();
     }
@@ -958,6 +1019,7 @@ public class SwccgGameMediator {
     public void startGame() {
         _writeLock.lock();
         try {
+            _decisionLog.startGame();
             _swccgoGame.startGame();
             startClocksForUsersPendingDecision();
         } finally {
@@ -976,7 +1038,7 @@ public class SwccgGameMediator {
                 // User can always reconnect and establish a new channel
                 GameCommunicationChannel channel = playerChannels.getValue();
                 if (currentTime > channel.getLastAccessed() + _playerDecisionTimeoutPeriod) {
-                    _swccgoGame.removeGameStateListener(channel);
+                    _eventLog.removeChannel(channel);
                     _communicationChannels.remove(playerId);
                 }
             }
@@ -992,10 +1054,12 @@ public class SwccgGameMediator {
                             && _cancelIfNoActions
                             && (currentTime > decisionSent + (1000 * 60 * 3))) {
                         addTimeSpentOnDecisionToUserClock(playerId);
+                        _decisionLog.autoCancel();
                         _swccgoGame.performAutoCancelGame();
                     }
                     else if (!_disablePlayerDecisionTimer && (currentTime > decisionSent + _playerDecisionTimeoutPeriod)) {
                         addTimeSpentOnDecisionToUserClock(playerId);
+                        _decisionLog.playerLost(playerId, GameEndReason.LOSS__DECISION_TIMEOUT.name());
                         _swccgoGame.playerLost(playerId, GameEndReason.LOSS__DECISION_TIMEOUT);
                     }
                 }
@@ -1004,6 +1068,7 @@ public class SwccgGameMediator {
                     String player = playerClock.getKey();
                     if (_maxSecondsForGamePerPlayer + _secondsGameTimerExtended - playerClock.getValue() - getCurrentUserPendingTime(player) < 0) {
                         addTimeSpentOnDecisionToUserClock(player);
+                        _decisionLog.playerLost(player, GameEndReason.LOSS__GAME_TIMEOUT.name());
                         _swccgoGame.playerLost(player, GameEndReason.LOSS__GAME_TIMEOUT);
                     }
                 }
@@ -1023,10 +1088,11 @@ public class SwccgGameMediator {
         _writeLock.lock();
         try {
             if (isPlayerPlaying(playerName)) {
+                _decisionLog.extendGameTimer(playerName, minutesToExtend);
                 _swccgoGame.requestExtendGameTimer(playerName, minutesToExtend);
                 _secondsGameTimerExtended = _swccgoGame.getGameTimerExtendedInMinutes() * 60;
                 if (_secondsGameTimerExtended > 0) {
-                    _swccgoGame.getGameState().sendMessage("The game timer has been extended by " + minutesToExtend + " minutes, by request of all players");
+                    sendMessageToPlayers("The game timer has been extended by " + minutesToExtend + " minutes, by request of all players");
                 }
             }
         } finally {
@@ -1042,10 +1108,11 @@ public class SwccgGameMediator {
         _writeLock.lock();
         try {
             if (isPlayerPlaying(playerId)) {
+                _decisionLog.disableActionTimer(playerId);
                 _swccgoGame.requestDisableActionTimer(playerId);
                 _disablePlayerDecisionTimer = _swccgoGame.isActionTimerDisabled();
                 if (_disablePlayerDecisionTimer) {
-                    _swccgoGame.getGameState().sendMessage("The action timer has been disabled, by request of all players");
+                    sendMessageToPlayers("The action timer has been disabled, by request of all players");
                 }
             }
         } finally {
@@ -1059,6 +1126,7 @@ public class SwccgGameMediator {
         try {
             if (_swccgoGame.getWinner() == null && isPlayerPlaying(playerId)) {
                 addTimeSpentOnDecisionToUserClock(playerId);
+                _decisionLog.playerLost(playerId, GameEndReason.LOSS__CONCEDED.name());
                 _swccgoGame.playerLost(playerId, GameEndReason.LOSS__CONCEDED);
             }
         } finally {
@@ -1074,8 +1142,10 @@ public class SwccgGameMediator {
         String playerId = player.getName();
         _writeLock.lock();
         try {
-            if (isPlayerPlaying(playerId))
+            if (isPlayerPlaying(playerId)) {
+                _decisionLog.cancel(playerId);
                 _swccgoGame.requestCancel(playerId);
+            }
         } finally {
             _writeLock.unlock();
         }
@@ -1092,6 +1162,8 @@ public class SwccgGameMediator {
                     if (awaitingDecision != null) {
                         if (awaitingDecision.getAwaitingDecisionId() == decisionId && !_swccgoGame.isFinished()) {
                             try {
+                                // Logged before it is known to be valid, since a wrong answer also changes the game events
+                                _decisionLog.decisionMade(playerName, decisionId, answer);
                                 _userFeedback.participantDecided(playerName);
                                 awaitingDecision.decisionMade(answer);
 
@@ -1107,6 +1179,7 @@ public class SwccgGameMediator {
                                 _userFeedback.sendAwaitingDecision(playerName, awaitingDecision);
                             } catch (RuntimeException runtimeException) {
                                 LOG.error("Error processing game decision", runtimeException);
+                                _decisionLog.abort();
                                 _swccgoGame.abortGame();
                             }
                         }
@@ -1130,21 +1203,43 @@ public class SwccgGameMediator {
                 && !_allowSpectators && !isPlayerPlaying(playerName))
             throw new PrivateInformationException();
 
+        GameCommunicationChannel communicationChannel;
         _readLock.lock();
         try {
-            GameCommunicationChannel communicationChannel = _communicationChannels.get(playerName);
+            communicationChannel = _communicationChannels.get(playerName);
             if (communicationChannel != null) {
-                if (communicationChannel.getChannelNumber() == channelNumber) {
-                    return communicationChannel;
-                } else {
+                if (communicationChannel.getChannelNumber() != channelNumber)
                     throw new SubscriptionConflictException();
-                }
             } else {
                 throw new SubscriptionExpiredException();
             }
         } finally {
             _readLock.unlock();
         }
+
+        if (communicationChannel.isResyncRequired())
+            resyncCommunicationChannel(playerName, communicationChannel);
+        return communicationChannel;
+    }
+
+    /**
+     * Resyncs a communication channel that fell too far behind in the shared event log. The channel reads from the
+     * event log again and the full game state is sent to it, which the client uses to rebuild the game the same way as
+     * when a snapshot is restored.
+     * @param playerName the player
+     * @param communicationChannel the communication channel
+     */
+    private void resyncCommunicationChannel(String playerName, GameCommunicationChannel communicationChannel) {
+        _writeLock.lock();
+        try {
+            // Another request for the channel may have already resynced it
+            if (communicationChannel.isResyncRequired() && _communicationChannels.get(playerName) == communicationChannel) {
+                communicationChannel.resync(_eventLog);
+                _swccgoGame.getGameState().sendStateToPlayer(playerName, communicationChannel, _swccgoGame.getGameStats(), true);
+            }
+        } finally {
+            _writeLock.unlock();
+        }
     }
 
     public void processVisitor(GameCommunicationChannel communicationChannel, int channelNumber, String playerName, ParticipantCommunicationVisitor visitor) {
@@ -1189,10 +1284,13 @@ public class SwccgGameMediator {
             int number = _channelNextIndex;
             _channelNextIndex++;
 
-            GameCommunicationChannel participantCommunicationChannel = new GameCommunicationChannel(playerName, number);
-            _communicationChannels.put(playerName, participantCommunicationChannel);
+            GameCommunicationChannel participantCommunicationChannel = new GameCommunicationChannel(playerName, number, _eventLog);
+            GameCommunicationChannel previousCommunicationChannel = _communicationChannels.put(playerName, participantCommunicationChannel);
+            if (previousCommunicationChannel != null)
+                _eventLog.removeChannel(previousCommunicationChannel);
 
-            _swccgoGame.addGameStateListener(playerName, participantCommunicationChannel);
+            // Game events from now on are read from the shared event log, so only the current state is sent to the channel
+            _swccgoGame.getGameState().sendStateToPlayer(playerName, participantCommunicationChannel, _swccgoGame.getGameStats(), false);
 
             visitor.visitChannelNumber(number);
 
@@ -1253,14 +1351,30 @@ public class SwccgGameMediator {
     }
 
     /**
-     * Gets the deck archetype being played by the specified player.
+     * Gets the deck archetype being played by the specified player. The archetype is determined by the cards played
+     * at the start of the game, so it is only determined once, after the starting cards are played, and then kept
+     * for the rest of the game.
      * @param playerId the player
-     * @return the deck archetype label
+     * @return the deck archetype label, or null if the starting cards are not played yet
      */
     public String getDeckArchetypeLabel(String playerId) {
-        if (_swccgoGame.getGameState().getCurrentPhase() == Phase.PLAY_STARTING_CARDS) {
-            return null;
+        String deckArchetypeLabel = _deckArchetypeLabels.get(playerId);
+        if (deckArchetypeLabel == null) {
+            if (_swccgoGame.getGameState().getCurrentPhase() == Phase.PLAY_STARTING_CARDS) {
+                return null;
+            }
+            deckArchetypeLabel = determineDeckArchetypeLabel(playerId);
+            _deckArchetypeLabels.put(playerId, deckArchetypeLabel);
         }
+        return deckArchetypeLabel;
+    }
+
+    /**
+     * Determines the deck archetype being played by the specified player from the cards played at the start of the game.
+     * @param playerId the player
+     * @return the deck archetype label
+     */
+    private String determineDeckArchetypeLabel(String playerId) {
         PhysicalCard startingLocation = _swccgoGame.getModifiersQuerying().getStartingLocation(playerId);
         PhysicalCard objective = _swccgoGame.getGameState().getObjectivePlayed(playerId);
         PhysicalCard startingInterrupt = _swccgoGame.getGameState().getStartingInterruptPlayed(playerId);
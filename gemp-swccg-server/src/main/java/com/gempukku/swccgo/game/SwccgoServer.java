@@ -181,6 +181,20 @@ public class SwccgoServer extends AbstractServer {
         return _deckDao.buildDeckFromContents(deckName, contents);
     }
 
+    /**
+     * Gets the number of compressed bytes taken by the frozen snapshots of each running game that has any.
+     * @return the number of bytes by game ID
+     */
+    public Map<String, Long> getFrozenSnapshotBytesByGame() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (SwccgGameMediator swccgGameMediator : _runningGames.values()) {
+            long bytes = swccgGameMediator.getFrozenSnapshotBytes();
+            if (bytes > 0)
+                result.put(swccgGameMediator.getGameId(), bytes);
+        }
+        return result;
+    }
+
     public SwccgGameMediator getGameById(String gameId) {
         _lock.readLock().lock();
         try {
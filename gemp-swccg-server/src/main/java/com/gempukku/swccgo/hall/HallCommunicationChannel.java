@@ -3,10 +3,6 @@ package com.gempukku.swccgo.hall;
 import com.gempukku.polling.LongPollableResource;
 import com.gempukku.polling.WaitingRequest;
 import com.gempukku.swccgo.game.Player;
-import com.gempukku.swccgo.game.SwccgCardBlueprintLibrary;
-import com.gempukku.swccgo.game.SwccgGameParticipant;
-import org.apache.commons.lang.StringUtils;
-import org.apache.commons.lang.mutable.MutableObject;
 
 import java.util.*;
 
@@ -14,9 +10,10 @@ public class HallCommunicationChannel implements LongPollableResource {
     private int _channelNumber;
     private long _lastConsumed;
     private String _lastMotd;
-    private Map<String, Map<String, String>> _tournamentQueuePropsOnClient = new LinkedHashMap<String, Map<String, String>>();
-    private Map<String, Map<String, String>> _tournamentPropsOnClient = new LinkedHashMap<String, Map<String, String>>();
-    private Map<String, Map<String, String>> _tablePropsOnClient = new LinkedHashMap<String, Map<String, String>>();
+    private HallSnapshot _lastSnapshot;
+    private Set<String> _signedUpTournamentQueues = new HashSet<String>();
+    private Set<String> _tournamentsInCompetition = new HashSet<String>();
+    private Set<String> _playingTables = new HashSet<String>();
     private Set<String> _playedGames = new HashSet<String>();
     private volatile boolean _changed;
     private volatile WaitingRequest _waitingRequest;
@@ -63,177 +60,93 @@ public class HallCommunicationChannel implements LongPollableResource {
         updateLastAccess();
 
         hallChannelVisitor.channelNumber(_channelNumber);
-        final MutableObject newMotd = new MutableObject();
-
-        final Map<String, Map<String, String>> tournamentQueuesOnServer = new LinkedHashMap<String, Map<String, String>>();
-        final Map<String, Map<String, String>> tablesOnServer = new LinkedHashMap<String, Map<String, String>>();
-        final Map<String, Map<String, String>> tournamentsOnServer = new LinkedHashMap<String, Map<String, String>>();
-        final Set<String> playedGamesOnServer = new HashSet<String>();
-
-        hallServer.processHall(player,
-                new HallInfoVisitor() {
-                    @Override
-                    public void serverTime(String time) {
-                        hallChannelVisitor.serverTime(time);
-                    }
-
-                    @Override
-                    public void motd(String motd) {
-                        newMotd.setValue(motd);
-                    }
-
-                    @Override
-                    public void visitTable(String tableId, String gameId, boolean watchable, TableStatus status, String statusDescription, String formatName, String tournamentName, String tableDesc, List<SwccgGameParticipant> players, Map<String, String> deckArchetypeMap, boolean playing, String winner, boolean hidePlayerId, SwccgCardBlueprintLibrary library, boolean hideDesc, boolean hideDecks, boolean hideWinner) {
-
-                        List<String> playerInfo = new LinkedList<String>();
-
-                        for (SwccgGameParticipant player : players) {
-                            String sideInfo = player.getDeck().getSide(library).toString();
-                            if (deckArchetypeMap != null && !hideDecks) {
-                                String deckType = deckArchetypeMap.get(player.getPlayerId());
-                                if (deckType != null) {
-                                    sideInfo = sideInfo + ": " + deckType;
-                                }
-                            }
-
-                            if (hidePlayerId) {
-                                playerInfo.add("(" + sideInfo + ")");
-                            }
-                            else {
-                                playerInfo.add(player.getPlayerId() + " (" + sideInfo + ")");
-                            }
-                        }
-
-                        Map<String, String> props = new HashMap<String, String>();
-                        props.put("gameId", gameId);
-                        props.put("watchable", String.valueOf(watchable));
-                        props.put("status", String.valueOf(status));
-                        props.put("statusDescription", statusDescription);
-                        props.put("format", formatName);
-                        props.put("tournament", tournamentName + ((!hideDesc && tableDesc != null && !tableDesc.isEmpty()) ? (" - " + tableDesc) : ""));
-                        props.put("players", StringUtils.join(playerInfo, ","));
-                        props.put("playing", String.valueOf(playing));
-                        if (winner != null)
-                            props.put("winner", hideWinner?"":winner);
-
-                        tablesOnServer.put(tableId, props);
-                    }
-
-                    @Override
-                    public void visitTournamentQueue(String tournamentQueueKey, int cost, String collectionName, String formatName, String tournamentQueueName,
-                                                     String tournamentPrizes, String pairingDescription, String startCondition, int playerCount, boolean playerSignedUp, boolean joinable) {
-                        Map<String, String> props = new HashMap<String, String>();
-                        props.put("cost", String.valueOf(cost));
-                        props.put("collection", collectionName);
-                        props.put("format", formatName);
-                        props.put("queue", tournamentQueueName);
-                        props.put("playerCount", String.valueOf(playerCount));
-                        props.put("prizes", tournamentPrizes);
-                        props.put("system", pairingDescription);
-                        props.put("start", startCondition);
-                        props.put("signedUp", String.valueOf(playerSignedUp));
-                        props.put("joinable", String.valueOf(joinable));
-
-                        tournamentQueuesOnServer.put(tournamentQueueKey, props);
-                    }
-
-                    @Override
-                    public void visitTournament(String tournamentKey, String collectionName, String formatName, String tournamentName, String pairingDescription,
-                                                String tournamentStage, int round, int playerCount, boolean playerInCompetition) {
-                        Map<String, String> props = new HashMap<String, String>();
-                        props.put("collection", collectionName);
-                        props.put("format", formatName);
-                        props.put("name", tournamentName);
-                        props.put("system", pairingDescription);
-                        props.put("stage", tournamentStage);
-                        props.put("round", String.valueOf(round));
-                        props.put("playerCount", String.valueOf(playerCount));
-                        props.put("signedUp", String.valueOf(playerInCompetition));
-
-                        tournamentsOnServer.put(tournamentKey, props);
-                    }
-
-                    @Override
-                    public void runningPlayerGame(String gameId) {
-                        playedGamesOnServer.add(gameId);
-                    }
-                });
-
-        notifyAboutTournamentQueues(hallChannelVisitor, tournamentQueuesOnServer);
-        _tournamentQueuePropsOnClient = tournamentQueuesOnServer;
-
-        notifyAboutTournaments(hallChannelVisitor, tournamentsOnServer);
-        _tournamentPropsOnClient = tournamentsOnServer;
-
-        notifyAboutTables(hallChannelVisitor, tablesOnServer);
-        _tablePropsOnClient = tablesOnServer;
-
-        if (newMotd.getValue() != null && !newMotd.getValue().equals(_lastMotd)) {
-            String newMotdStr = (String) newMotd.getValue();
-            hallChannelVisitor.motdChanged(newMotdStr);
-            _lastMotd = newMotdStr;
+
+        HallSnapshot hallSnapshot = hallServer.getHallSnapshot(player);
+        HallSnapshot.Delta delta = hallSnapshot.getDeltaFrom(_lastSnapshot);
+
+        hallChannelVisitor.serverTime(hallSnapshot.getServerTime());
+
+        Set<String> signedUpTournamentQueues = hallServer.getTournamentQueuesSignedUp(player.getName());
+        Set<String> tournamentsInCompetition = hallServer.getTournamentsInCompetition(player.getName());
+        Set<String> playingTables = hallSnapshot.getTablesOfPlayer(player.getName());
+
+        Map<String, Map<String, String>> tournamentQueues = hallSnapshot.getTournamentQueues();
+        HallSnapshot.ItemChanges tournamentQueueChanges = delta.getTournamentQueueChanges();
+        for (String tournamentQueueId : tournamentQueueChanges.getRemoved())
+            hallChannelVisitor.removeTournamentQueue(tournamentQueueId);
+        for (String tournamentQueueId : tournamentQueues.keySet()) {
+            if (isUpdated(tournamentQueueId, tournamentQueueChanges, _signedUpTournamentQueues, signedUpTournamentQueues))
+                hallChannelVisitor.updateTournamentQueue(tournamentQueueId, withOverlay(tournamentQueues.get(tournamentQueueId), "signedUp", signedUpTournamentQueues.contains(tournamentQueueId)));
+        }
+        for (String tournamentQueueId : tournamentQueueChanges.getAdded())
+            hallChannelVisitor.addTournamentQueue(tournamentQueueId, withOverlay(tournamentQueues.get(tournamentQueueId), "signedUp", signedUpTournamentQueues.contains(tournamentQueueId)));
+        _signedUpTournamentQueues = signedUpTournamentQueues;
+
+        Map<String, Map<String, String>> tournaments = hallSnapshot.getTournaments();
+        HallSnapshot.ItemChanges tournamentChanges = delta.getTournamentChanges();
+        for (String tournamentId : tournamentChanges.getRemoved())
+            hallChannelVisitor.removeTournament(tournamentId);
+        for (String tournamentId : tournaments.keySet()) {
+            if (isUpdated(tournamentId, tournamentChanges, _tournamentsInCompetition, tournamentsInCompetition))
+                hallChannelVisitor.updateTournament(tournamentId, withOverlay(tournaments.get(tournamentId), "signedUp", tournamentsInCompetition.contains(tournamentId)));
+        }
+        for (String tournamentId : tournamentChanges.getAdded())
+            hallChannelVisitor.addTournament(tournamentId, withOverlay(tournaments.get(tournamentId), "signedUp", tournamentsInCompetition.contains(tournamentId)));
+        _tournamentsInCompetition = tournamentsInCompetition;
+
+        Map<String, Map<String, String>> tables = hallSnapshot.getTables();
+        HallSnapshot.ItemChanges tableChanges = delta.getTableChanges();
+        for (String tableId : tableChanges.getRemoved())
+            hallChannelVisitor.removeTable(tableId);
+        for (String tableId : tables.keySet()) {
+            if (isUpdated(tableId, tableChanges, _playingTables, playingTables))
+                hallChannelVisitor.updateTable(tableId, withOverlay(tables.get(tableId), "playing", playingTables.contains(tableId)));
+        }
+        for (String tableId : tableChanges.getAdded())
+            hallChannelVisitor.addTable(tableId, withOverlay(tables.get(tableId), "playing", playingTables.contains(tableId)));
+        _playingTables = playingTables;
+
+        String newMotd = hallSnapshot.getMotd();
+        if (newMotd != null && !newMotd.equals(_lastMotd)) {
+            hallChannelVisitor.motdChanged(newMotd);
+            _lastMotd = newMotd;
         }
 
+        Set<String> playedGamesOnServer = new HashSet<String>();
+        for (String tableId : playingTables) {
+            Map<String, String> tableProps = tables.get(tableId);
+            if (tableProps != null && String.valueOf(HallInfoVisitor.TableStatus.PLAYING).equals(tableProps.get("status")))
+                playedGamesOnServer.add(tableProps.get("gameId"));
+        }
         for (String gameId : playedGamesOnServer) {
             if (!_playedGames.contains(gameId))
                 hallChannelVisitor.newPlayerGame(gameId);
         }
         _playedGames = playedGamesOnServer;
 
+        _lastSnapshot = hallSnapshot;
         _changed = false;
     }
 
-    private void notifyAboutTables(HallChannelVisitor hallChannelVisitor, Map<String, Map<String, String>> tablesOnServer) {
-        for (Map.Entry<String, Map<String, String>> tableOnClient : _tablePropsOnClient.entrySet()) {
-            String tableId = tableOnClient.getKey();
-            Map<String, String> tableProps = tableOnClient.getValue();
-            Map<String, String> tableLatestProps = tablesOnServer.get(tableId);
-            if (tableLatestProps != null) {
-                if (!tableProps.equals(tableLatestProps))
-                    hallChannelVisitor.updateTable(tableId, tableLatestProps);
-            } else {
-                hallChannelVisitor.removeTable(tableId);
-            }
-        }
-
-        for (Map.Entry<String, Map<String, String>> tableOnServer : tablesOnServer.entrySet())
-            if (!_tablePropsOnClient.containsKey(tableOnServer.getKey()))
-                hallChannelVisitor.addTable(tableOnServer.getKey(), tableOnServer.getValue());
-    }
-
-    private void notifyAboutTournamentQueues(HallChannelVisitor hallChannelVisitor, Map<String, Map<String, String>> tournamentQueuesOnServer) {
-        for (Map.Entry<String, Map<String, String>> tournamentQueueOnClient : _tournamentQueuePropsOnClient.entrySet()) {
-            String tournamentQueueId = tournamentQueueOnClient.getKey();
-            Map<String, String> tournamentProps = tournamentQueueOnClient.getValue();
-            Map<String, String> tournamentLatestProps = tournamentQueuesOnServer.get(tournamentQueueId);
-            if (tournamentLatestProps != null) {
-                if (!tournamentProps.equals(tournamentLatestProps))
-                    hallChannelVisitor.updateTournamentQueue(tournamentQueueId, tournamentLatestProps);
-            } else {
-                hallChannelVisitor.removeTournamentQueue(tournamentQueueId);
-            }
-        }
-
-        for (Map.Entry<String, Map<String, String>> tournamentQueueOnServer : tournamentQueuesOnServer.entrySet())
-            if (!_tournamentQueuePropsOnClient.containsKey(tournamentQueueOnServer.getKey()))
-                hallChannelVisitor.addTournamentQueue(tournamentQueueOnServer.getKey(), tournamentQueueOnServer.getValue());
+    /**
+     * Determines if an item the client already has needs to be updated, either because it changed in the hall snapshot,
+     * or because whether it applies to the player changed.
+     * @param itemId the item id
+     * @param changes the changes from the last hall snapshot sent to the client
+     * @param overlayOnClient the items the player was in when last sent to the client
+     * @param overlayOnServer the items the player is in now
+     * @return true or false
+     */
+    private boolean isUpdated(String itemId, HallSnapshot.ItemChanges changes, Set<String> overlayOnClient, Set<String> overlayOnServer) {
+        if (changes.getAdded().contains(itemId))
+            return false;
+        return changes.getUpdated().contains(itemId)
+                || overlayOnClient.contains(itemId) != overlayOnServer.contains(itemId);
     }
 
-    private void notifyAboutTournaments(HallChannelVisitor hallChannelVisitor, Map<String, Map<String, String>> tournamentsOnServer) {
-        for (Map.Entry<String, Map<String, String>> tournamentOnClient : _tournamentPropsOnClient.entrySet()) {
-            String tournamentId = tournamentOnClient.getKey();
-            Map<String, String> tournamentProps = tournamentOnClient.getValue();
-            Map<String, String> tournamentLatestProps = tournamentsOnServer.get(tournamentId);
-            if (tournamentLatestProps != null) {
-                if (!tournamentProps.equals(tournamentLatestProps))
-                    hallChannelVisitor.updateTournament(tournamentId, tournamentLatestProps);
-            } else {
-                hallChannelVisitor.removeTournament(tournamentId);
-            }
-        }
-
-        for (Map.Entry<String, Map<String, String>> tournamentQueueOnServer : tournamentsOnServer.entrySet())
-            if (!_tournamentPropsOnClient.containsKey(tournamentQueueOnServer.getKey()))
-                hallChannelVisitor.addTournament(tournamentQueueOnServer.getKey(), tournamentQueueOnServer.getValue());
+    private Map<String, String> withOverlay(Map<String, String> props, String overlayProp, boolean overlayValue) {
+        Map<String, String> result = new HashMap<String, String>(props);
+        result.put(overlayProp, String.valueOf(overlayValue));
+        return result;
     }
 }
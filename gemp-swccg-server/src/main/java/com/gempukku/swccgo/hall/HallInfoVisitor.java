@@ -6,6 +6,10 @@ import com.gempukku.swccgo.game.SwccgGameParticipant;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Visitor of the hall info. The hall info visited is the same for every player that sees the hall the same way, so it
+ * does not include whether the player is playing at a table or signed up for a tournament queue or tournament.
+ */
 public interface HallInfoVisitor {
     enum TableStatus {
         WAITING, PLAYING, FINISHED
@@ -15,12 +19,10 @@ public interface HallInfoVisitor {
 
     void motd(String motd);
 
-    void visitTable(String tableId, String gameId, boolean watchable, TableStatus status, String statusDescription, String formatName, String tournamentName, String tableDesc, List<SwccgGameParticipant> playerIds, Map<String, String> deckArchetypeMap, boolean playing, String winner, boolean hidePlayer, SwccgCardBlueprintLibrary library, boolean hideDesc, boolean hideDecks, boolean hideWinner);
+    void visitTable(String tableId, String gameId, boolean watchable, TableStatus status, String statusDescription, String formatName, String tournamentName, String tableDesc, List<SwccgGameParticipant> playerIds, Map<String, String> deckArchetypeMap, String winner, boolean hidePlayer, SwccgCardBlueprintLibrary library, boolean hideDesc, boolean hideDecks, boolean hideWinner);
 
     void visitTournamentQueue(String tournamentQueueKey, int cost, String collectionName, String formatName, String tournamentQueueName, String tournamentPrizes,
-                                     String pairingDescription, String startCondition, int playerCount, boolean playerSignedUp, boolean joinable);
+                                     String pairingDescription, String startCondition, int playerCount, boolean joinable);
 
-    void visitTournament(String tournamentKey, String collectionName, String formatName, String tournamentName, String pairingDescription, String tournamentStage, int round, int playerCount, boolean playerInCompetition);
-
-    void runningPlayerGame(String gameId);
+    void visitTournament(String tournamentKey, String collectionName, String formatName, String tournamentName, String pairingDescription, String tournamentStage, int round, int playerCount);
 }
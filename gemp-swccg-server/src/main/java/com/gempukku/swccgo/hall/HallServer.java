@@ -30,6 +30,7 @@ import com.gempukku.util.SwccgUuid;
 import java.text.SimpleDateFormat;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -37,6 +38,7 @@ public class HallServer extends AbstractServer {
     private final int _playerInactivityPeriod = 1000 * 60; // 60 seconds
     private final long _scheduledTournamentLoadTime = 1000 * 60 * 60 * 24 * 7; // Week
     private final long _repeatTournaments = 1000 * 60 * 60 * 24 * 2;
+    private final long _hallSnapshotMaxAge = 2500; // Game statuses change without the hall changing
 
     private ChatServer _chatServer;
     private LeagueService _leagueService;
@@ -69,6 +71,8 @@ public class HallServer extends AbstractServer {
 
     private Map<Player, HallCommunicationChannel> _playerChannelCommunication = new ConcurrentHashMap<Player, HallCommunicationChannel>();
     private int _nextChannelNumber = 0;
+    private final AtomicLong _hallVersion = new AtomicLong();
+    private final Map<String, HallSnapshot> _hallSnapshots = new HashMap<String, HallSnapshot>();
 
     private Map<String, Tournament> _runningTournaments = new LinkedHashMap<String, Tournament>();
 
@@ -138,6 +142,7 @@ public class HallServer extends AbstractServer {
     }
 
     private void hallChanged() {
+        _hallVersion.incrementAndGet();
         for (HallCommunicationChannel hallCommunicationChannel : _playerChannelCommunication.values())
             hallCommunicationChannel.hallChanged();
     }
@@ -621,6 +626,73 @@ public class HallServer extends AbstractServer {
         }
     }
 
+    /**
+     * Gets the snapshot of the hall as seen by the player. Players that see the hall the same way share the same
+     * snapshot, which is only rebuilt when the hall has changed, or when it is old enough that the status of the
+     * games being played may have changed.
+     * @param player the player
+     * @return the hall snapshot
+     */
+    protected HallSnapshot getHallSnapshot(Player player) {
+        String viewerClass = player.hasType(Player.Type.ADMIN) + ":" + player.hasType(Player.Type.PLAYTESTER) + ":" + player.hasType(Player.Type.COMMENTATOR);
+
+        _hallDataAccessLock.readLock().lock();
+        try {
+            synchronized (_hallSnapshots) {
+                long hallVersion = _hallVersion.get();
+                HallSnapshot hallSnapshot = _hallSnapshots.get(viewerClass);
+                if (hallSnapshot == null || hallSnapshot.getHallVersion() != hallVersion
+                        || hallSnapshot.getCreatedTime() + _hallSnapshotMaxAge < System.currentTimeMillis()) {
+                    HallSnapshot.Builder builder = new HallSnapshot.Builder(hallVersion);
+                    processHall(player, builder);
+                    hallSnapshot = builder.build();
+                    _hallSnapshots.put(viewerClass, hallSnapshot);
+                }
+                return hallSnapshot;
+            }
+        } finally {
+            _hallDataAccessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the tournament queues the player is signed up for.
+     * @param playerName the player
+     * @return the tournament queue keys
+     */
+    protected Set<String> getTournamentQueuesSignedUp(String playerName) {
+        _hallDataAccessLock.readLock().lock();
+        try {
+            Set<String> result = new HashSet<String>();
+            for (Map.Entry<String, TournamentQueue> tournamentQueueEntry : _tournamentQueues.entrySet()) {
+                if (tournamentQueueEntry.getValue().isPlayerSignedUp(playerName))
+                    result.add(tournamentQueueEntry.getKey());
+            }
+            return result;
+        } finally {
+            _hallDataAccessLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the running tournaments the player is still in competition in.
+     * @param playerName the player
+     * @return the tournament keys
+     */
+    protected Set<String> getTournamentsInCompetition(String playerName) {
+        _hallDataAccessLock.readLock().lock();
+        try {
+            Set<String> result = new HashSet<String>();
+            for (Map.Entry<String, Tournament> tournamentEntry : _runningTournaments.entrySet()) {
+                if (tournamentEntry.getValue().isPlayerInCompetition(playerName))
+                    result.add(tournamentEntry.getKey());
+            }
+            return result;
+        } finally {
+            _hallDataAccessLock.readLock().unlock();
+        }
+    }
+
     protected void processHall(Player player, HallInfoVisitor visitor) {
         _hallDataAccessLock.readLock().lock();
         try {
@@ -649,7 +721,7 @@ public class HallServer extends AbstractServer {
                 List<SwccgGameParticipant> players = new LinkedList<SwccgGameParticipant>(table.getPlayers());
 
                 boolean hidePlayerId = table.getLeague() != null && !table.getLeague().getShowPlayerNames();
-                visitor.visitTable(tableInformation.getKey(), null, false, HallInfoVisitor.TableStatus.WAITING, "Waiting", table.getSwccgoFormat().getName(), getTournamentName(table), table.getLeague() != null ? null : table.getTableDesc(), players, null, table.getPlayerNames().contains(player.getName()), null, hidePlayerId, _library, table.getSwccgoFormat().isPlaytesting() && !playtestingVisible, true, true);
+                visitor.visitTable(tableInformation.getKey(), null, false, HallInfoVisitor.TableStatus.WAITING, "Waiting", table.getSwccgoFormat().getName(), getTournamentName(table), table.getLeague() != null ? null : table.getTableDesc(), players, null, null, hidePlayerId, _library, table.getSwccgoFormat().isPlaytesting() && !playtestingVisible, true, true);
             }
 
             // Then non-finished
@@ -664,13 +736,11 @@ public class HallServer extends AbstractServer {
                         for (SwccgGameParticipant participant : swccgGameMediator.getPlayersPlaying()) {
                             deckArchetypeMap.put(participant.getPlayerId(), swccgGameMediator.getDeckArchetypeLabel(participant.getPlayerId()));
                         }
-                        visitor.visitTable(runningGame.getKey(), swccgGameMediator.getGameId(), !swccgGameMediator.isPrivate()&&(player.hasType(Player.Type.ADMIN)|| (swccgGameMediator.isAllowSpectators() && (!swccgGameMediator.getFormat().isPlaytesting() || playtestingVisible)) || (!swccgGameMediator.getFormat().isPlaytesting()&& visibleToCommentator)), HallInfoVisitor.TableStatus.PLAYING, swccgGameMediator.getGameStatus(), runningTable.getFormatName(), runningTable.getTournamentName(), runningTable.getTableDesc(), swccgGameMediator.getPlayersPlaying(), deckArchetypeMap, swccgGameMediator.isPlayerPlaying(player.getName()), swccgGameMediator.getWinner(), false, _library, swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible, swccgGameMediator.isPrivate()||(swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible), swccgGameMediator.isPrivate());
+                        visitor.visitTable(runningGame.getKey(), swccgGameMediator.getGameId(), !swccgGameMediator.isPrivate()&&(player.hasType(Player.Type.ADMIN)|| (swccgGameMediator.isAllowSpectators() && (!swccgGameMediator.getFormat().isPlaytesting() || playtestingVisible)) || (!swccgGameMediator.getFormat().isPlaytesting()&& visibleToCommentator)), HallInfoVisitor.TableStatus.PLAYING, swccgGameMediator.getGameStatus(), runningTable.getFormatName(), runningTable.getTournamentName(), runningTable.getTableDesc(), swccgGameMediator.getPlayersPlaying(), deckArchetypeMap, swccgGameMediator.getWinner(), false, _library, swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible, swccgGameMediator.isPrivate()||(swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible), swccgGameMediator.isPrivate());
                     }
                     else {
                         finishedTables.put(runningGame.getKey(), runningTable);
                     }
-                    if (!swccgGameMediator.isFinished() && swccgGameMediator.isPlayerPlaying(player.getName()))
-                        visitor.runningPlayerGame(swccgGameMediator.getGameId());
                 }
             }
 
@@ -683,7 +753,7 @@ public class HallServer extends AbstractServer {
                     for (SwccgGameParticipant participant : swccgGameMediator.getPlayersPlaying()) {
                         deckArchetypeMap.put(participant.getPlayerId(), swccgGameMediator.getDeckArchetypeLabel(participant.getPlayerId()));
                     }
-                    visitor.visitTable(nonPlayingGame.getKey(), swccgGameMediator.getGameId(), false, HallInfoVisitor.TableStatus.FINISHED, swccgGameMediator.getGameStatus(), runningTable.getFormatName(), runningTable.getTournamentName(), runningTable.getTableDesc(), swccgGameMediator.getPlayersPlaying(), deckArchetypeMap, swccgGameMediator.isPlayerPlaying(player.getName()), swccgGameMediator.getWinner(), false, _library, swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible, swccgGameMediator.isPrivate()||(swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible), swccgGameMediator.isPrivate());
+                    visitor.visitTable(nonPlayingGame.getKey(), swccgGameMediator.getGameId(), false, HallInfoVisitor.TableStatus.FINISHED, swccgGameMediator.getGameStatus(), runningTable.getFormatName(), runningTable.getTournamentName(), runningTable.getTableDesc(), swccgGameMediator.getPlayersPlaying(), deckArchetypeMap, swccgGameMediator.getWinner(), false, _library, swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible, swccgGameMediator.isPrivate()||(swccgGameMediator.getFormat().isPlaytesting() && !playtestingVisible), swccgGameMediator.isPrivate());
                 }
             }
 
@@ -693,7 +763,7 @@ public class HallServer extends AbstractServer {
                 visitor.visitTournamentQueue(tournamentQueueKey, tournamentQueue.getCost(), tournamentQueue.getCollectionType().getFullName(),
                         _formatLibrary.getFormat(tournamentQueue.getFormat()).getName(), tournamentQueue.getTournamentQueueName(),
                         tournamentQueue.getPrizesDescription(), tournamentQueue.getPairingDescription(), tournamentQueue.getStartCondition(),
-                        tournamentQueue.getPlayerCount(), tournamentQueue.isPlayerSignedUp(player.getName()), tournamentQueue.isJoinable());
+                        tournamentQueue.getPlayerCount(), tournamentQueue.isJoinable());
             }
 
             for (Map.Entry<String, Tournament> tournamentEntry : _runningTournaments.entrySet()) {
@@ -702,7 +772,7 @@ public class HallServer extends AbstractServer {
                 visitor.visitTournament(tournamentKey, tournament.getCollectionType().getFullName(),
                         _formatLibrary.getFormat(tournament.getFormat()).getName(), tournament.getTournamentName(), tournament.getPlayOffSystem(),
                         tournament.getTournamentStage().getHumanReadable(),
-                        tournament.getCurrentRound(), tournament.getPlayersInCompetitionCount(), tournament.isPlayerInCompetition(player.getName()));
+                        tournament.getCurrentRound(), tournament.getPlayersInCompetitionCount());
             }
         } finally {
             _hallDataAccessLock.readLock().unlock();
@@ -0,0 +1,285 @@
+package com.gempukku.swccgo.hall;
+
+import com.gempukku.swccgo.game.SwccgCardBlueprintLibrary;
+import com.gempukku.swccgo.game.SwccgGameParticipant;
+import org.apache.commons.lang.StringUtils;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An immutable snapshot of the hall, shared by all players that see the hall the same way. The snapshot does not
+ * include whether a player is playing at a table or signed up for a tournament queue or tournament, since that is
+ * different for each player, and is overlaid on the snapshot by each player's communication channel.
+ *
+ * The changes between an earlier snapshot and this one are computed once and cached, so each channel that last saw
+ * the earlier snapshot gets the same delta.
+ */
+class HallSnapshot {
+    private static final AtomicLong _nextId = new AtomicLong();
+    private static final int MAX_CACHED_DELTAS = 16;
+
+    private final long _id;
+    private final long _hallVersion;
+    private final long _createdTime;
+    private final String _serverTime;
+    private final String _motd;
+    private final Map<String, Map<String, String>> _tournamentQueues;
+    private final Map<String, Map<String, String>> _tournaments;
+    private final Map<String, Map<String, String>> _tables;
+    private final Map<String, Set<String>> _tablesByPlayer;
+    private final Map<Long, Delta> _deltas = new ConcurrentHashMap<Long, Delta>();
+
+    private HallSnapshot(long hallVersion, String serverTime, String motd, Map<String, Map<String, String>> tournamentQueues,
+                         Map<String, Map<String, String>> tournaments, Map<String, Map<String, String>> tables, Map<String, Set<String>> tablesByPlayer) {
+        _id = _nextId.incrementAndGet();
+        _hallVersion = hallVersion;
+        _createdTime = System.currentTimeMillis();
+        _serverTime = serverTime;
+        _motd = motd;
+        _tournamentQueues = Collections.unmodifiableMap(tournamentQueues);
+        _tournaments = Collections.unmodifiableMap(tournaments);
+        _tables = Collections.unmodifiableMap(tables);
+        _tablesByPlayer = Collections.unmodifiableMap(tablesByPlayer);
+    }
+
+    /**
+     * Gets the version of the hall the snapshot was built from.
+     * @return the hall version
+     */
+    public long getHallVersion() {
+        return _hallVersion;
+    }
+
+    public long getCreatedTime() {
+        return _createdTime;
+    }
+
+    public String getServerTime() {
+        return _serverTime;
+    }
+
+    public String getMotd() {
+        return _motd;
+    }
+
+    public Map<String, Map<String, String>> getTournamentQueues() {
+        return _tournamentQueues;
+    }
+
+    public Map<String, Map<String, String>> getTournaments() {
+        return _tournaments;
+    }
+
+    public Map<String, Map<String, String>> getTables() {
+        return _tables;
+    }
+
+    /**
+     * Gets the tables the player is playing at.
+     * @param playerId the player
+     * @return the table ids
+     */
+    public Set<String> getTablesOfPlayer(String playerId) {
+        Set<String> tableIds = _tablesByPlayer.get(playerId);
+        return tableIds != null ? tableIds : Collections.<String>emptySet();
+    }
+
+    /**
+     * Gets the changes from an earlier snapshot to this one.
+     * @param previous the earlier snapshot, or null if the client has not seen any snapshot yet
+     * @return the changes
+     */
+    public Delta getDeltaFrom(HallSnapshot previous) {
+        if (previous == null)
+            return new Delta(null, this);
+
+        Delta delta = _deltas.get(previous._id);
+        if (delta == null) {
+            delta = new Delta(previous, this);
+            if (_deltas.size() >= MAX_CACHED_DELTAS)
+                _deltas.clear();
+            _deltas.put(previous._id, delta);
+        }
+        return delta;
+    }
+
+    /**
+     * The changes between two snapshots.
+     */
+    public static class Delta {
+        private final ItemChanges _tournamentQueueChanges;
+        private final ItemChanges _tournamentChanges;
+        private final ItemChanges _tableChanges;
+
+        private Delta(HallSnapshot previous, HallSnapshot current) {
+            _tournamentQueueChanges = new ItemChanges(previous != null ? previous._tournamentQueues : null, current._tournamentQueues);
+            _tournamentChanges = new ItemChanges(previous != null ? previous._tournaments : null, current._tournaments);
+            _tableChanges = new ItemChanges(previous != null ? previous._tables : null, current._tables);
+        }
+
+        public ItemChanges getTournamentQueueChanges() {
+            return _tournamentQueueChanges;
+        }
+
+        public ItemChanges getTournamentChanges() {
+            return _tournamentChanges;
+        }
+
+        public ItemChanges getTableChanges() {
+            return _tableChanges;
+        }
+    }
+
+    /**
+     * The changes to one type of item (tournament queues, tournaments or tables) between two snapshots.
+     */
+    public static class ItemChanges {
+        private final Set<String> _added = new LinkedHashSet<String>();
+        private final Set<String> _updated = new LinkedHashSet<String>();
+        private final Set<String> _removed = new LinkedHashSet<String>();
+
+        private ItemChanges(Map<String, Map<String, String>> previousItems, Map<String, Map<String, String>> currentItems) {
+            if (previousItems != null) {
+                for (Map.Entry<String, Map<String, String>> previousItem : previousItems.entrySet()) {
+                    Map<String, String> currentProps = currentItems.get(previousItem.getKey());
+                    if (currentProps == null)
+                        _removed.add(previousItem.getKey());
+                    else if (!currentProps.equals(previousItem.getValue()))
+                        _updated.add(previousItem.getKey());
+                }
+            }
+            for (String itemId : currentItems.keySet()) {
+                if (previousItems == null || !previousItems.containsKey(itemId))
+                    _added.add(itemId);
+            }
+        }
+
+        public Set<String> getAdded() {
+            return _added;
+        }
+
+        public Set<String> getUpdated() {
+            return _updated;
+        }
+
+        public Set<String> getRemoved() {
+            return _removed;
+        }
+    }
+
+    /**
+     * Builds a hall snapshot from the hall info visited.
+     */
+    static class Builder implements HallInfoVisitor {
+        private long _hallVersion;
+        private String _serverTime;
+        private String _motd;
+        private Map<String, Map<String, String>> _tournamentQueues = new LinkedHashMap<String, Map<String, String>>();
+        private Map<String, Map<String, String>> _tournaments = new LinkedHashMap<String, Map<String, String>>();
+        private Map<String, Map<String, String>> _tables = new LinkedHashMap<String, Map<String, String>>();
+        private Map<String, Set<String>> _tablesByPlayer = new HashMap<String, Set<String>>();
+
+        Builder(long hallVersion) {
+            _hallVersion = hallVersion;
+        }
+
+        HallSnapshot build() {
+            return new HallSnapshot(_hallVersion, _serverTime, _motd, _tournamentQueues, _tournaments, _tables, _tablesByPlayer);
+        }
+
+        @Override
+        public void serverTime(String time) {
+            _serverTime = time;
+        }
+
+        @Override
+        public void motd(String motd) {
+            _motd = motd;
+        }
+
+        @Override
+        public void visitTable(String tableId, String gameId, boolean watchable, TableStatus status, String statusDescription, String formatName, String tournamentName, String tableDesc, List<SwccgGameParticipant> players, Map<String, String> deckArchetypeMap, String winner, boolean hidePlayerId, SwccgCardBlueprintLibrary library, boolean hideDesc, boolean hideDecks, boolean hideWinner) {
+
+            List<String> playerInfo = new LinkedList<String>();
+
+            for (SwccgGameParticipant player : players) {
+                String sideInfo = player.getDeck().getSide(library).toString();
+                if (deckArchetypeMap != null && !hideDecks) {
+                    String deckType = deckArchetypeMap.get(player.getPlayerId());
+                    if (deckType != null) {
+                        sideInfo = sideInfo + ": " + deckType;
+                    }
+                }
+
+                if (hidePlayerId) {
+                    playerInfo.add("(" + sideInfo + ")");
+                }
+                else {
+                    playerInfo.add(player.getPlayerId() + " (" + sideInfo + ")");
+                }
+
+                Set<String> tablesOfPlayer = _tablesByPlayer.get(player.getPlayerId());
+                if (tablesOfPlayer == null) {
+                    tablesOfPlayer = new HashSet<String>();
+                    _tablesByPlayer.put(player.getPlayerId(), tablesOfPlayer);
+                }
+                tablesOfPlayer.add(tableId);
+            }
+
+            Map<String, String> props = new HashMap<String, String>();
+            props.put("gameId", gameId);
+            props.put("watchable", String.valueOf(watchable));
+            props.put("status", String.valueOf(status));
+            props.put("statusDescription", statusDescription);
+            props.put("format", formatName);
+            props.put("tournament", tournamentName + ((!hideDesc && tableDesc != null && !tableDesc.isEmpty()) ? (" - " + tableDesc) : ""));
+            props.put("players", StringUtils.join(playerInfo, ","));
+            if (winner != null)
+                props.put("winner", hideWinner?"":winner);
+
+            _tables.put(tableId, Collections.unmodifiableMap(props));
+        }
+
+        @Override
+        public void visitTournamentQueue(String tournamentQueueKey, int cost, String collectionName, String formatName, String tournamentQueueName,
+                                         String tournamentPrizes, String pairingDescription, String startCondition, int playerCount, boolean joinable) {
+            Map<String, String> props = new HashMap<String, String>();
+            props.put("cost", String.valueOf(cost));
+            props.put("collection", collectionName);
+            props.put("format", formatName);
+            props.put("queue", tournamentQueueName);
+            props.put("playerCount", String.valueOf(playerCount));
+            props.put("prizes", tournamentPrizes);
+            props.put("system", pairingDescription);
+            props.put("start", startCondition);
+            props.put("joinable", String.valueOf(joinable));
+
+            _tournamentQueues.put(tournamentQueueKey, Collections.unmodifiableMap(props));
+        }
+
+        @Override
+        public void visitTournament(String tournamentKey, String collectionName, String formatName, String tournamentName, String pairingDescription,
+                                    String tournamentStage, int round, int playerCount) {
+            Map<String, String> props = new HashMap<String, String>();
+            props.put("collection", collectionName);
+            props.put("format", formatName);
+            props.put("name", tournamentName);
+            props.put("system", pairingDescription);
+            props.put("stage", tournamentStage);
+            props.put("round", String.valueOf(round));
+            props.put("playerCount", String.valueOf(playerCount));
+
+            _tournaments.put(tournamentKey, Collections.unmodifiableMap(props));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.gempukku.swccgo.db;
+
+import com.gempukku.swccgo.db.vo.GameHistoryRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Journals game history while the database is unavailable, and checks what is committed when the journal is recovered
+ * by the next server start, using a stub game history in place of the database.
+ */
+public class JournaledGameHistoryDAOTest {
+    private static final String JOURNAL_FILE = "game_history.journal";
+    private static final String COMMITTED_FILE = "game_history.journal.committed";
+    private static final String DEAD_LETTER_FILE = "game_history.deadletter";
+    private static final long COMMIT_TIMEOUT = 30000;
+
+    @TempDir
+    File _journalFolder;
+
+    @Test
+    public void partialTrailingLineIsRemoved() throws Exception {
+        journalWhileUnavailable(createRecord("winnerOne", "loserOne"), createRecord("winnerTwo", "loserTwo"));
+
+        File journal = new File(_journalFolder, JOURNAL_FILE);
+        long journalLength = journal.length();
+        FileOutputStream outputStream = new FileOutputStream(journal, true);
+        try {
+            outputStream.write("winnerThree\tloser".getBytes("UTF-8"));
+        } finally {
+            outputStream.close();
+        }
+
+        StubGameHistoryDAO database = new StubGameHistoryDAO(false);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(database, _journalFolder);
+        assertEquals(2, gameHistory.getPendingRecordCount());
+        assertEquals(journalLength, journal.length());
+        gameHistory.shutdown();
+
+        database = new StubGameHistoryDAO(true);
+        gameHistory = new JournaledGameHistoryDAO(database, _journalFolder);
+        gameHistory.addGameHistory(Collections.singletonList(createRecord("winnerFour", "loserFour")));
+        waitForCommitted(gameHistory);
+        gameHistory.shutdown();
+
+        assertEquals(Arrays.asList("winnerOne", "winnerTwo", "winnerFour"), database.getCommittedWinners());
+        assertEquals(0, journal.length());
+    }
+
+    @Test
+    public void committedOffsetBeyondEndOfJournalCommitsWholeJournal() throws Exception {
+        journalWhileUnavailable(createRecord("winnerOne", "loserOne"), createRecord("winnerTwo", "loserTwo"));
+
+        File journal = new File(_journalFolder, JOURNAL_FILE);
+        Files.write(new File(_journalFolder, COMMITTED_FILE).toPath(), String.valueOf(journal.length() + 100).getBytes("UTF-8"));
+
+        StubGameHistoryDAO database = new StubGameHistoryDAO(true);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(database, _journalFolder);
+        waitForCommitted(gameHistory);
+        gameHistory.shutdown();
+
+        assertEquals(Arrays.asList("winnerOne", "winnerTwo"), database.getCommittedWinners());
+    }
+
+    @Test
+    public void recoveredRecordsAlreadyInGameHistoryAreSkipped() throws Exception {
+        GameHistoryRecord committedRecord = createRecord("winnerOne", "loserOne");
+        journalWhileUnavailable(committedRecord, createRecord("winnerTwo", "loserTwo"));
+
+        StubGameHistoryDAO database = new StubGameHistoryDAO(true);
+        database.addExisting(committedRecord);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(database, _journalFolder);
+        waitForCommitted(gameHistory);
+        gameHistory.shutdown();
+
+        assertEquals(Collections.singletonList("winnerTwo"), database.getCommittedWinners());
+    }
+
+    @Test
+    public void recordThatCannotBeCommittedIsMovedToDeadLetterFile() throws Exception {
+        StubGameHistoryDAO database = new StubGameHistoryDAO(true);
+        database.setFailingWinner("winnerBad");
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(database, _journalFolder);
+        gameHistory.addGameHistory(Arrays.asList(createRecord("winnerOne", "loserOne"), createRecord("winnerBad", "loserBad"), createRecord("winnerTwo", "loserTwo")));
+        waitForCommitted(gameHistory);
+        gameHistory.shutdown();
+
+        assertEquals(Arrays.asList("winnerOne", "winnerTwo"), database.getCommittedWinners());
+        List<String> deadLetters = Files.readAllLines(new File(_journalFolder, DEAD_LETTER_FILE).toPath(), StandardCharsets.UTF_8);
+        assertEquals(1, deadLetters.size());
+        assertTrue(deadLetters.get(0).startsWith("winnerBad\tloserBad\t"));
+        assertEquals(0, new File(_journalFolder, JOURNAL_FILE).length());
+    }
+
+    @Test
+    public void recentResultIsFoundWithItsIdOnceCommitted() throws Exception {
+        StubGameHistoryDAO database = new StubGameHistoryDAO(false);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(database, _journalFolder);
+        gameHistory.addGameHistory(Arrays.asList(createRecord("winnerOne", "loserOne"), createRecord("winnerTwo", "loserTwo")));
+
+        Object result = gameHistory.findRecentGameHistory("winnerTwo", "loserTwo", "winnerTwo", 0);
+        assertEquals(JournaledGameHistoryDAO.PENDING_ID, gameHistory.getGameHistoryId(result));
+        assertNull(gameHistory.findRecentGameHistory("loserTwo", "loserTwo", "winnerTwo", 0));
+        assertNull(gameHistory.findRecentGameHistory(null, "winnerTwo", "loserTwo", 3000000L));
+
+        database.setAvailable(true);
+        waitForCommitted(gameHistory);
+        gameHistory.shutdown();
+
+        assertEquals(2, gameHistory.getGameHistoryId(result));
+    }
+
+    /**
+     * Journals results while the database is unavailable, and stops, leaving the results in the journal.
+     */
+    private void journalWhileUnavailable(GameHistoryRecord... records) {
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(new StubGameHistoryDAO(false), _journalFolder);
+        gameHistory.addGameHistory(Arrays.asList(records));
+        gameHistory.shutdown();
+        assertEquals(records.length, gameHistory.getPendingRecordCount());
+    }
+
+    private void waitForCommitted(JournaledGameHistoryDAO gameHistory) throws InterruptedException {
+        long endTime = System.currentTimeMillis() + COMMIT_TIMEOUT;
+        while (gameHistory.getPendingRecordCount() > 0) {
+            assertTrue(System.currentTimeMillis() < endTime, "Game history was not committed in time");
+            Thread.sleep(50);
+        }
+    }
+
+    private GameHistoryRecord createRecord(String winner, String loser) {
+        return new GameHistoryRecord(winner, loser, "Win reason", "Lose reason", winner + "Recording", loser + "Recording",
+                "Open", null, "Winner deck", "Loser deck", null, null, "Dark", "dark deck", "light deck", null, null,
+                new Date(1000000L), new Date(2000000L));
+    }
+}
@@ -0,0 +1,159 @@
+package com.gempukku.swccgo.db;
+
+import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.GameHistoryRecord;
+import com.gempukku.swccgo.game.Player;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stands in for the database in the game history tests, giving the results it commits ids from 1 up. While
+ * unavailable, every call fails as if the database cannot be reached.
+ */
+class StubGameHistoryDAO implements GameHistoryDAO {
+    private volatile boolean _available;
+    private String _failingWinner;
+    private final Set<String> _existing = new HashSet<String>();
+    private final List<String> _committedWinners = new ArrayList<String>();
+    private int _nextId = 1;
+
+    StubGameHistoryDAO(boolean available) {
+        _available = available;
+    }
+
+    void setAvailable(boolean available) {
+        _available = available;
+    }
+
+    void setFailingWinner(String failingWinner) {
+        _failingWinner = failingWinner;
+    }
+
+    synchronized void addExisting(GameHistoryRecord record) {
+        _existing.add(getKey(record));
+    }
+
+    synchronized List<String> getCommittedWinners() {
+        return new ArrayList<String>(_committedWinners);
+    }
+
+    private String getKey(GameHistoryRecord record) {
+        return record.getWinRecordingId() + "/" + record.getLoseRecordingId();
+    }
+
+    private void checkAvailable() {
+        if (!_available)
+            throw new RuntimeException("Database is unavailable");
+    }
+
+    @Override
+    public void addGameHistory(String winner, String loser, String winReason, String loseReason, String winRecordingId, String loseRecordingId, String formatName, String tournament, String winnerDeckName, String loserDeckName, String winnerDeckArchetype, String loserDeckArchetype, String winningSide, String darkDeckString, String lightDeckString, String leagueType, String sealedLeagueType, Date startDate, Date endDate) {
+        addGameHistory(Collections.singletonList(new GameHistoryRecord(winner, loser, winReason, loseReason, winRecordingId, loseRecordingId, formatName, tournament, winnerDeckName, loserDeckName, winnerDeckArchetype, loserDeckArchetype, winningSide, darkDeckString, lightDeckString, leagueType, sealedLeagueType, startDate, endDate)));
+    }
+
+    @Override
+    public synchronized void addGameHistory(List<GameHistoryRecord> records) {
+        checkAvailable();
+        for (GameHistoryRecord record : records) {
+            if (record.getWinner().equals(_failingWinner))
+                throw new RuntimeException("Unable to insert game history of " + record.getWinner());
+        }
+        for (GameHistoryRecord record : records) {
+            _existing.add(getKey(record));
+            _committedWinners.add(record.getWinner());
+            record.setId(_nextId++);
+        }
+    }
+
+    @Override
+    public synchronized boolean containsGameHistory(GameHistoryRecord record) {
+        checkAvailable();
+        return _existing.contains(getKey(record));
+    }
+
+    @Override
+    public List<GameHistoryEntry> getGameHistoryForPlayer(Player player, int start, int count) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getGameHistoryForPlayerCount(Player player) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getActivePlayersCount() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getActivePlayersCount(long from, long duration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getGamesPlayedCount() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getGamesPlayedCount(long from, long duration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, Integer> getCasualGamesPlayedPerFormat(long from, long duration) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<PlayerStatistic> getCasualPlayerStatistics(Player player) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<PlayerStatistic> getCompetitivePlayerStatistics(Player player) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<LeagueDecklistEntry> getLeagueDecklists(String leagueId) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int getRollupGamesPlayedCount(long periodLength, long from, long to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Map<String, Integer> getRollupCasualGamesPlayedPerFormat(long periodLength, long from, long to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Set<String> getRollupActivePlayers(long periodLength, long from, long to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void rebuildRollups(long from, long to) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void rebuildTotals() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Date getEarliestUncommittedEndDate() {
+        throw new UnsupportedOperationException();
+    }
+}
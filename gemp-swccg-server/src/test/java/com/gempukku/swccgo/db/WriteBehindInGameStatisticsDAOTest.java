@@ -0,0 +1,213 @@
+package com.gempukku.swccgo.db;
+
+import com.gempukku.swccgo.db.vo.ActivationCounts;
+import com.gempukku.swccgo.db.vo.GameHistoryEntry;
+import com.gempukku.swccgo.db.vo.GameHistoryRecord;
+import com.gempukku.swccgo.db.vo.PileCounts;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queues in-game statistics with the writer held up by a stub in place of the database, and checks the order the
+ * writes reach the stub in, which writes are dropped, and which end of game updates wait for the game history.
+ */
+public class WriteBehindInGameStatisticsDAOTest {
+    private static final long WRITE_TIMEOUT = 30000;
+
+    @TempDir
+    File _journalFolder;
+
+    @Test
+    public void writesOfEachGameStayInOrderAcrossRounds() throws Exception {
+        StubInGameStatisticsDAO database = new StubInGameStatisticsDAO(true);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(new StubGameHistoryDAO(true), _journalFolder);
+        WriteBehindInGameStatisticsDAO statistics = new WriteBehindInGameStatisticsDAO(database, gameHistory);
+
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(1, 1)));
+        database.awaitBlocked();
+        statistics.updateActivationCounts(1, 1, 2, 3);
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(2, 1)));
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(1, 2)));
+        statistics.updatePileCountsEndOfGame(1, 42);
+        statistics.updateActivationCounts(2, 1, 2, 3);
+        statistics.updatePileCountsEndOfGame(2, 43);
+        database.unblock();
+        statistics.shutdown();
+        gameHistory.shutdown();
+
+        assertEquals(Arrays.asList("pile 1/1", "activation 1/1", "pile 1/2", "end 1/42"), database.getWrites(1));
+        assertEquals(Arrays.asList("pile 2/1", "activation 2/1", "end 2/43"), database.getWrites(2));
+    }
+
+    @Test
+    public void statisticsAreDroppedWhenQueueIsFull() throws Exception {
+        StubInGameStatisticsDAO database = new StubInGameStatisticsDAO(true);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(new StubGameHistoryDAO(true), _journalFolder);
+        WriteBehindInGameStatisticsDAO statistics = new WriteBehindInGameStatisticsDAO(database, gameHistory);
+
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(1, 0)));
+        database.awaitBlocked();
+        for (int i = 1; i <= WriteBehindInGameStatisticsDAO.MAX_QUEUED_WRITES + 5; i++)
+            statistics.updateActivationCounts(1, i, 0, 0);
+        statistics.updatePileCountsEndOfGame(1, 42);
+        assertEquals(5, statistics.getDroppedWriteCount());
+        assertEquals(WriteBehindInGameStatisticsDAO.MAX_QUEUED_WRITES + 1, statistics.getQueuedWriteCount());
+        database.unblock();
+        statistics.shutdown();
+        gameHistory.shutdown();
+
+        List<String> writes = database.getWrites(1);
+        assertEquals(WriteBehindInGameStatisticsDAO.MAX_QUEUED_WRITES + 2, writes.size());
+        assertEquals("activation 1/" + WriteBehindInGameStatisticsDAO.MAX_QUEUED_WRITES, writes.get(writes.size() - 2));
+        assertEquals("end 1/42", writes.get(writes.size() - 1));
+    }
+
+    @Test
+    public void endOfGameUpdateWaitsForGameHistoryToBeCommitted() throws Exception {
+        StubInGameStatisticsDAO database = new StubInGameStatisticsDAO(false);
+        StubGameHistoryDAO gameHistoryDatabase = new StubGameHistoryDAO(false);
+        JournaledGameHistoryDAO gameHistory = new JournaledGameHistoryDAO(gameHistoryDatabase, _journalFolder);
+        WriteBehindInGameStatisticsDAO statistics = new WriteBehindInGameStatisticsDAO(database, gameHistory);
+
+        gameHistory.addGameHistory(Collections.singletonList(createRecord("darkPlayer", "lightPlayer")));
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(1, 1)));
+        statistics.updatePileCountsEndOfGame(1, "darkPlayer", "darkPlayer", "lightPlayer");
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(1, 2)));
+        statistics.addPileCounts(Collections.singletonList(createPileCounts(2, 1)));
+
+        database.awaitWrite(2, "pile 2/1");
+        assertEquals(Collections.singletonList("pile 1/1"), database.getWrites(1));
+        assertEquals(1, gameHistory.getPendingRecordCount());
+
+        gameHistoryDatabase.setAvailable(true);
+        database.awaitWrite(1, "pile 1/2");
+        statistics.shutdown();
+        gameHistory.shutdown();
+
+        assertEquals(Arrays.asList("pile 1/1", "end 1/1", "pile 1/2"), database.getWrites(1));
+        assertFalse(database.isGameIdLookedUp());
+    }
+
+    private PileCounts createPileCounts(int gameId, int sequence) {
+        return new PileCounts(gameId, sequence, 1, "Dark", 8, 30, 0, 0, 0, 0, 8, 30, 0, 0, 0, 0, 0, 0);
+    }
+
+    private GameHistoryRecord createRecord(String winner, String loser) {
+        Date now = new Date();
+        return new GameHistoryRecord(winner, loser, "Win reason", "Lose reason", winner + "Recording", loser + "Recording",
+                "Open", null, "Winner deck", "Loser deck", null, null, "Dark", "dark deck", "light deck", null, null,
+                now, now);
+    }
+
+    /**
+     * Stands in for the database, keeping the writes of each game in the order they are written. When created blocked,
+     * the first write holds up the writer until it is unblocked.
+     */
+    private static class StubInGameStatisticsDAO implements InGameStatisticsDAO {
+        private final List<String> _writes = new ArrayList<String>();
+        private final CountDownLatch _blocked = new CountDownLatch(1);
+        private final CountDownLatch _unblocked;
+        private volatile boolean _gameIdLookedUp;
+
+        private StubInGameStatisticsDAO(boolean blocked) {
+            _unblocked = new CountDownLatch(blocked ? 1 : 0);
+        }
+
+        private void awaitBlocked() throws InterruptedException {
+            assertTrue(_blocked.await(WRITE_TIMEOUT, TimeUnit.MILLISECONDS), "Writer did not write in time");
+        }
+
+        private void unblock() {
+            _unblocked.countDown();
+        }
+
+        private void awaitWrite(int gameId, String write) throws InterruptedException {
+            long endTime = System.currentTimeMillis() + WRITE_TIMEOUT;
+            while (!getWrites(gameId).contains(write)) {
+                assertTrue(System.currentTimeMillis() < endTime, "Write " + write + " was not written in time");
+                Thread.sleep(50);
+            }
+        }
+
+        private synchronized List<String> getWrites(int gameId) {
+            List<String> writes = new ArrayList<String>();
+            for (String write : _writes) {
+                if (write.contains(" " + gameId + "/"))
+                    writes.add(write);
+            }
+            return writes;
+        }
+
+        private boolean isGameIdLookedUp() {
+            return _gameIdLookedUp;
+        }
+
+        private void record(String write) {
+            _blocked.countDown();
+            try {
+                _unblocked.await();
+            } catch (InterruptedException exp) {
+                throw new RuntimeException(exp);
+            }
+            synchronized (this) {
+                _writes.add(write);
+            }
+        }
+
+        @Override
+        public void addPileCounts(int gameId, int sequence, int turnNumber, String side, int darkHand, int darkReserveDeck, int darkForcePile, int darkUsedPile, int darkLostPile, int darkOutOfPlay, int lightHand, int lightReserveDeck, int lightForcePile, int lightUsedPile, int lightLostPile, int lightOutOfPlay, int darkSecondsElapsed, int lightSecondsElapsed) {
+            record("pile " + gameId + "/" + sequence);
+        }
+
+        @Override
+        public void updatePileCountsEndOfGame(int gameId, int updatedGameId) {
+            record("end " + gameId + "/" + updatedGameId);
+        }
+
+        @Override
+        public void updateActivationCounts(int gameId, int sequence, int darkActivation, int lightActivation) {
+            record("activation " + gameId + "/" + sequence);
+        }
+
+        @Override
+        public void addPileCounts(List<PileCounts> pileCounts) {
+            for (PileCounts pileCount : pileCounts)
+                record("pile " + pileCount.getGameId() + "/" + pileCount.getSequence());
+        }
+
+        @Override
+        public void updateActivationCounts(List<ActivationCounts> activationCounts) {
+            for (ActivationCounts activationCount : activationCounts)
+                record("activation " + activationCount.getGameId() + "/" + activationCount.getSequence());
+        }
+
+        @Override
+        public void updatePileCountsEndOfGame(int gameId, String winner, String dark, String light) {
+            _gameIdLookedUp = true;
+        }
+
+        @Override
+        public List<GameHistoryEntry> getPileCountByTurn() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int findGameIDinGameHistory(String winner, String dark, String light) {
+            _gameIdLookedUp = true;
+            return 0;
+        }
+    }
+}
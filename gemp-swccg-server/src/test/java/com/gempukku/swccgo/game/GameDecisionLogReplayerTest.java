@@ -0,0 +1,215 @@
+package com.gempukku.swccgo.game;
+
+import com.gempukku.swccgo.game.formats.SwccgoFormatLibrary;
+import com.gempukku.swccgo.game.state.EventSerializer;
+import com.gempukku.swccgo.game.state.GameCommunicationChannel;
+import com.gempukku.swccgo.game.state.GameEvent;
+import com.gempukku.swccgo.logic.decisions.AwaitingDecision;
+import com.gempukku.swccgo.logic.vo.SwccgDeck;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Plays games through the game mediator with randomly chosen answers, and checks that re-running each game from its
+ * decision log produces the same game events each player saw while the game was played.
+ */
+public class GameDecisionLogReplayerTest {
+    private static final String DARK_PLAYER = "darkPlayer";
+    private static final String LIGHT_PLAYER = "lightPlayer";
+    private static final int MAX_DECISIONS = 1000;
+
+    private static SwccgCardBlueprintLibrary _library = new SwccgCardBlueprintLibrary();
+    private static SwccgoFormatLibrary _formatLibrary = new SwccgoFormatLibrary(_library);
+
+    @Test
+    public void replayMatchesLiveGame() throws Exception {
+        for (long botSeed = 0; botSeed < 10; botSeed++)
+            playAndReplay(botSeed);
+    }
+
+    private void playAndReplay(long botSeed) throws Exception {
+        Random bot = new Random(botSeed);
+        SwccgGameParticipant[] participants = new SwccgGameParticipant[] {
+                new SwccgGameParticipant(DARK_PLAYER, buildDeck("Dark", 281, 288, 163, 324, new String[] {"1_307", "2_110"}, bot)),
+                new SwccgGameParticipant(LIGHT_PLAYER, buildDeck("Light", 121, 128, 1, 162, new String[] {"2_76"}, bot))};
+        SwccgGameMediator mediator = new SwccgGameMediator("test", _formatLibrary.getFormat("open"), null, participants, _library, 3600,
+                false, false, true, false, 600, false, true);
+
+        Map<String, GameCommunicationChannel> liveChannels = new HashMap<String, GameCommunicationChannel>();
+        Map<String, List<GameEvent>> liveEvents = new HashMap<String, List<GameEvent>>();
+        Map<String, Integer> channelNumbers = new HashMap<String, Integer>();
+        for (SwccgGameParticipant participant : participants) {
+            String playerId = participant.getPlayerId();
+            GameCommunicationChannel channel = new GameCommunicationChannel(playerId, 0);
+            mediator.addGameStateListener(playerId, channel);
+            liveChannels.put(playerId, channel);
+            liveEvents.put(playerId, new ArrayList<GameEvent>());
+            channelNumbers.put(playerId, signup(mediator, playerId));
+        }
+
+        mediator.startGame();
+
+        Map<String, AwaitingDecision> awaitingDecisions = new HashMap<String, AwaitingDecision>();
+        for (int i = 0; i < MAX_DECISIONS && !mediator.isFinished(); i++) {
+            for (Map.Entry<String, GameCommunicationChannel> channel : liveChannels.entrySet()) {
+                for (GameEvent gameEvent : channel.getValue().consumeGameEvents()) {
+                    liveEvents.get(channel.getKey()).add(gameEvent);
+                    if (gameEvent.getType() == GameEvent.Type.D)
+                        awaitingDecisions.put(channel.getKey(), gameEvent.getAwaitingDecision());
+                }
+            }
+            if (awaitingDecisions.isEmpty())
+                break;
+
+            String playerId = awaitingDecisions.containsKey(DARK_PLAYER) ? DARK_PLAYER : LIGHT_PLAYER;
+            AwaitingDecision awaitingDecision = awaitingDecisions.remove(playerId);
+            mediator.playerAnswered(getPlayer(playerId), channelNumbers.get(playerId), awaitingDecision.getAwaitingDecisionId(), chooseAnswer(awaitingDecision, bot));
+        }
+        for (Map.Entry<String, GameCommunicationChannel> channel : liveChannels.entrySet())
+            liveEvents.get(channel.getKey()).addAll(channel.getValue().consumeGameEvents());
+
+        ByteArrayOutputStream decisionLogBytes = new ByteArrayOutputStream();
+        mediator.getDecisionLog().write(decisionLogBytes);
+        GameDecisionLog decisionLog = GameDecisionLog.read(new ByteArrayInputStream(decisionLogBytes.toByteArray()));
+
+        GameDecisionLogReplayer replayer = new GameDecisionLogReplayer(_library, _formatLibrary);
+        for (SwccgGameParticipant participant : participants) {
+            String playerId = participant.getPlayerId();
+            List<GameEvent> replayedEvents = replayer.regenerateGameEvents(decisionLog, playerId);
+            assertNotNull(replayedEvents);
+            assertTrue(liveEvents.get(playerId).size() > 100, "Game did not get far enough to test the replay");
+            assertEquals(serialize(liveEvents.get(playerId)), serialize(replayedEvents), "Replay of " + playerId + " with bot seed " + botSeed + " differs from the live game");
+        }
+    }
+
+    /**
+     * Chooses a random answer to the decision. The answer is not always valid, since the player can also be asked again.
+     * @param awaitingDecision the decision
+     * @param bot the random source of the answers
+     * @return the answer
+     */
+    private String chooseAnswer(AwaitingDecision awaitingDecision, Random bot) {
+        Map<String, Object> params = awaitingDecision.getDecisionParameters();
+        switch (awaitingDecision.getDecisionType()) {
+            case INTEGER:
+                if (params.containsKey("defaultValue"))
+                    return (String) params.get("defaultValue");
+                return params.containsKey("min") ? (String) params.get("min") : "0";
+            case MULTIPLE_CHOICE:
+                return String.valueOf(bot.nextInt(((String[]) params.get("results")).length));
+            case CARD_SELECTION:
+            case ARBITRARY_CARDS:
+                List<String> cardIds = new ArrayList<String>();
+                String[] allCardIds = (String[]) params.get("cardId");
+                String[] selectable = (String[]) params.get("selectable");
+                for (int i = 0; i < allCardIds.length; i++) {
+                    if (selectable == null || Boolean.parseBoolean(selectable[i]))
+                        cardIds.add(allCardIds[i]);
+                }
+                Collections.shuffle(cardIds, bot);
+                int count = Math.min(Integer.parseInt((String) params.get("min")), cardIds.size());
+                return join(cardIds.subList(0, count));
+            case CARD_ACTION_CHOICE:
+                String[] cardActionIds = (String[]) params.get("actionId");
+                if (cardActionIds.length == 0 || (!Boolean.parseBoolean((String) params.get("noPass")) && bot.nextInt(3) == 0))
+                    return "";
+                return cardActionIds[bot.nextInt(cardActionIds.length)];
+            case ACTION_CHOICE:
+                String[] actionIds = (String[]) params.get("actionId");
+                return actionIds[bot.nextInt(actionIds.length)];
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Builds a deck of the locations, some creatures, and random other cards of a side of Premiere.
+     * @param deckName the deck name
+     * @param firstLocation the card number of the first location
+     * @param lastLocation the card number of the last location
+     * @param firstCard the card number of the first card of the side
+     * @param lastCard the card number of the last card of the side
+     * @param creatures the creatures
+     * @param random the random source of the other cards
+     * @return the deck
+     */
+    private SwccgDeck buildDeck(String deckName, int firstLocation, int lastLocation, int firstCard, int lastCard, String[] creatures, Random random) {
+        SwccgDeck deck = new SwccgDeck(deckName);
+        for (int cardNumber = firstLocation; cardNumber <= lastLocation; cardNumber++)
+            addCard(deck, "1_" + cardNumber);
+        for (String creature : creatures) {
+            addCard(deck, creature);
+            addCard(deck, creature);
+        }
+        while (deck.getCards().size() < 60)
+            addCard(deck, "1_" + (firstCard + random.nextInt(lastCard - firstCard + 1)));
+        return deck;
+    }
+
+    private void addCard(SwccgDeck deck, String blueprintId) {
+        if (_library.getSwccgoCardBlueprint(blueprintId) != null)
+            deck.addCard(blueprintId);
+    }
+
+    private Player getPlayer(String playerId) {
+        return new Player(0, playerId, "", "u", null, null, null, null);
+    }
+
+    private int signup(SwccgGameMediator mediator, String playerId) throws Exception {
+        final int[] channelNumber = new int[1];
+        mediator.signupUserForGame(getPlayer(playerId),
+                new ParticipantCommunicationVisitor() {
+                    @Override
+                    public void visitChannelNumber(int number) {
+                        channelNumber[0] = number;
+                    }
+
+                    @Override
+                    public void visitClock(Map<String, Integer> secondsLeft) {
+                    }
+
+                    @Override
+                    public void visitGameEvent(GameEvent gameEvent) {
+                    }
+                });
+        return channelNumber[0];
+    }
+
+    private List<String> serialize(List<GameEvent> gameEvents) throws Exception {
+        EventSerializer eventSerializer = new EventSerializer();
+        List<String> result = new ArrayList<String>();
+        for (GameEvent gameEvent : gameEvents) {
+            StringWriter stringWriter = new StringWriter();
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(stringWriter);
+            eventSerializer.serializeEvent(writer, gameEvent);
+            writer.flush();
+            result.add(stringWriter.toString());
+        }
+        return result;
+    }
+
+    private String join(List<String> values) {
+        StringBuilder sb = new StringBuilder();
+        for (String value : values) {
+            if (sb.length() > 0)
+                sb.append(",");
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+}
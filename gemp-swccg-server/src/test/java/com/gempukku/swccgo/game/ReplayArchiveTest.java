@@ -0,0 +1,96 @@
+package com.gempukku.swccgo.game;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Archives a tree of replay files into segments small enough that the earlier segments are sealed, and checks that
+ * each file reads back the same, in whole and in ranges, from both the sealed segments and the open segment.
+ */
+public class ReplayArchiveTest {
+    private static final long MAX_SEGMENT_LENGTH = 250;
+
+    @TempDir
+    File _replayFolder;
+
+    @Test
+    public void archivedFilesReadBack() throws Exception {
+        Map<String, byte[]> files = new LinkedHashMap<String, byte[]>();
+        for (String player : new String[] {"darkPlayer", "lightPlayer"}) {
+            for (int game = 1; game <= 3; game++)
+                files.put(player + "/game" + game + ".xml.gz", createContent(player + " game " + game, 100));
+        }
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            File replayFile = new File(_replayFolder, file.getKey());
+            replayFile.getParentFile().mkdirs();
+            Files.write(replayFile.toPath(), file.getValue());
+        }
+        File partialFile = new File(_replayFolder, "darkPlayer/game4.xml.gz.part");
+        Files.write(partialFile.toPath(), createContent("partial", 10));
+
+        ReplayArchive replayArchive = new ReplayArchive(_replayFolder, MAX_SEGMENT_LENGTH);
+        assertEquals(files.size(), replayArchive.archiveFilesOlderThan(System.currentTimeMillis() + 1000));
+
+        for (String path : files.keySet())
+            assertFalse(new File(_replayFolder, path).exists());
+        assertTrue(partialFile.isFile());
+
+        File archiveFolder = new File(_replayFolder, "archive");
+        assertTrue(new File(archiveFolder, "segment-000000.idx").isFile());
+        assertTrue(new File(archiveFolder, "segment-000002.log").isFile());
+        assertFalse(new File(archiveFolder, "segment-000002.idx").isFile());
+
+        assertFilesReadBack(replayArchive, files);
+        // A new archive loads the index from disk
+        assertFilesReadBack(new ReplayArchive(_replayFolder, MAX_SEGMENT_LENGTH), files);
+    }
+
+    private void assertFilesReadBack(ReplayArchive replayArchive, Map<String, byte[]> files) throws IOException {
+        for (Map.Entry<String, byte[]> file : files.entrySet()) {
+            byte[] content = file.getValue();
+            assertTrue(replayArchive.exists(file.getKey()));
+            assertEquals(content.length, replayArchive.getLength(file.getKey()));
+            assertArrayEquals(content, readFully(replayArchive.open(file.getKey())));
+            assertArrayEquals(Arrays.copyOfRange(content, 10, 40), readFully(replayArchive.open(file.getKey(), 10, 40)));
+            assertArrayEquals(Arrays.copyOfRange(content, 90, content.length), readFully(replayArchive.open(file.getKey(), 90, content.length + 50)));
+        }
+        assertFalse(replayArchive.exists("darkPlayer/game5.xml.gz"));
+        assertNull(replayArchive.open("darkPlayer/game5.xml.gz"));
+    }
+
+    private byte[] createContent(String text, int length) {
+        byte[] content = new byte[length];
+        byte[] textBytes = text.getBytes();
+        for (int i = 0; i < length; i++)
+            content[i] = textBytes[i % textBytes.length];
+        return content;
+    }
+
+    private byte[] readFully(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[64];
+            int count;
+            while ((count = inputStream.read(buffer)) != -1)
+                result.write(buffer, 0, count);
+        } finally {
+            inputStream.close();
+        }
+        return result.toByteArray();
+    }
+}
@@ -320,6 +320,56 @@ CREATE TABLE IF NOT EXISTS `gemp-swccg`.`pile_count_by_turn` (
   INDEX `pilecount_activeGame` (`activeGame`)
 );
 
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_rollup`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_rollup` (
+  `period_length` DECIMAL(20,0) NOT NULL ,
+  `period_start` DECIMAL(20,0) NOT NULL ,
+  `format_name` VARCHAR(45) CHARACTER SET 'utf8' COLLATE 'utf8_bin' NOT NULL ,
+  `casual` BOOLEAN NOT NULL ,
+  `games_count` INT(11) NOT NULL ,
+  PRIMARY KEY (`period_length`, `period_start`, `format_name`, `casual`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_rollup_player`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_rollup_player` (
+  `period_length` DECIMAL(20,0) NOT NULL ,
+  `period_start` DECIMAL(20,0) NOT NULL ,
+  `player` VARCHAR(45) CHARACTER SET 'utf8' COLLATE 'utf8_bin' NOT NULL ,
+  PRIMARY KEY (`period_length`, `period_start`, `player`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_player`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_player` (
+  `player` VARCHAR(45) CHARACTER SET 'utf8' COLLATE 'utf8_bin' NOT NULL ,
+  PRIMARY KEY (`player`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_totals`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_totals` (
+  `id` INT(11) NOT NULL ,
+  `games_count` INT(11) NOT NULL ,
+  `players_count` INT(11) NOT NULL ,
+  PRIMARY KEY (`id`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+INSERT IGNORE INTO `gemp-swccg`.`game_history_totals` (`id`, `games_count`, `players_count`) VALUES (1, 0, 0);
+
 
 
 -- -----------------------------------------------------
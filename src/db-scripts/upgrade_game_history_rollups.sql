@@ -0,0 +1,71 @@
+-- -----------------------------------------------------
+-- Upgrades an existing database with the tables the server statistics are answered from: the hourly and daily
+-- rollups of the game history, and the all time totals of games played and players.
+--
+-- Run this with the server stopped, then run RebuildStatsRollupsConsole to fill in the rollups of the existing game
+-- history before starting the server. Until the rollups are rebuilt, the server statistics only count new games.
+-- -----------------------------------------------------
+SET @OLD_UNIQUE_CHECKS=@@UNIQUE_CHECKS, UNIQUE_CHECKS=0;
+SET @OLD_FOREIGN_KEY_CHECKS=@@FOREIGN_KEY_CHECKS, FOREIGN_KEY_CHECKS=0;
+SET @OLD_SQL_MODE=@@SQL_MODE, SQL_MODE='TRADITIONAL';
+
+USE `gemp-swccg` ;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_rollup`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_rollup` (
+  `period_length` DECIMAL(20,0) NOT NULL ,
+  `period_start` DECIMAL(20,0) NOT NULL ,
+  `format_name` VARCHAR(45) CHARACTER SET 'utf8' COLLATE 'utf8_bin' NOT NULL ,
+  `casual` BOOLEAN NOT NULL ,
+  `games_count` INT(11) NOT NULL ,
+  PRIMARY KEY (`period_length`, `period_start`, `format_name`, `casual`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_rollup_player`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_rollup_player` (
+  `period_length` DECIMAL(20,0) NOT NULL ,
+  `period_start` DECIMAL(20,0) NOT NULL ,
+  `player` VARCHAR(45) CHARACTER SET 'utf8' COLLATE 'utf8_bin' NOT NULL ,
+  PRIMARY KEY (`period_length`, `period_start`, `player`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_player`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_player` (
+  `player` VARCHAR(45) CHARACTER SET 'utf8' COLLATE 'utf8_bin' NOT NULL ,
+  PRIMARY KEY (`player`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+-- -----------------------------------------------------
+-- Table `gemp-swccg`.`game_history_totals`
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `gemp-swccg`.`game_history_totals` (
+  `id` INT(11) NOT NULL ,
+  `games_count` INT(11) NOT NULL ,
+  `players_count` INT(11) NOT NULL ,
+  PRIMARY KEY (`id`) )
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8
+COLLATE = utf8_bin;
+
+INSERT IGNORE INTO `gemp-swccg`.`game_history_player` (`player`)
+SELECT `winner` FROM `gemp-swccg`.`game_history` UNION SELECT `loser` FROM `gemp-swccg`.`game_history`;
+
+REPLACE INTO `gemp-swccg`.`game_history_totals` (`id`, `games_count`, `players_count`)
+SELECT 1, (SELECT COUNT(*) FROM `gemp-swccg`.`game_history`), (SELECT COUNT(*) FROM `gemp-swccg`.`game_history_player`);
+
+
+SET SQL_MODE=@OLD_SQL_MODE;
+SET FOREIGN_KEY_CHECKS=@OLD_FOREIGN_KEY_CHECKS;
+SET UNIQUE_CHECKS=@OLD_UNIQUE_CHECKS;